@@ -1,6 +1,11 @@
 package limor.tal.mytodo;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
 
 import androidx.room.Database;
 import androidx.room.Room;
@@ -8,15 +13,53 @@ import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-@Database(entities = {Task.class}, version = 7, exportSchema = false)
+@Database(entities = {Task.class, SyncLogEntry.class, WidgetRow.class, SyncSeenDocument.class, ArchivedTask.class}, version = 13, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     public abstract TaskDao taskDao();
+    public abstract SyncLogDao syncLogDao();
+    public abstract WidgetRowDao widgetRowDao();
+    public abstract ArchivedTaskDao archivedTaskDao();
 
+    // Database of the active account
     private static volatile AppDatabase INSTANCE;
-    public static final ExecutorService databaseWriteExecutor = Executors.newFixedThreadPool(4);
+    // Open databases by file name, least recently active first; guarded by the class lock
+    private static final LinkedHashMap<String, AppDatabase> openDatabases = new LinkedHashMap<>(4, 0.75f, true);
+    private static final ScheduledExecutorService idleCloser = Executors.newSingleThreadScheduledExecutor();
+    // Open handles, the active one included; older ones are closed
+    private static final int MAX_OPEN_DATABASES = 3;
+    private static final long IDLE_CLOSE_DELAY = 5 * 60 * 1000L;
+
+    private String accountId;
+    private String fileName;
+    // When this database stopped being the active one, or 0 while it is active
+    private volatile long inactiveSince;
+
+    public static final String DATABASE_NAME = "task_database";
+    private static final String PREFS_NAME = "MyToDoPrefs";
+    // Firebase UID of the active account, "" when signed out
+    private static final String PREF_ACTIVE_ACCOUNT = "active_account_id";
+    // Account that keeps the original DATABASE_NAME file
+    private static final String PREF_DEFAULT_DATABASE_OWNER = "default_database_owner";
+    private static final String GUEST_ACCOUNT = "";
+    // SQLite synchronous level: "OFF", "NORMAL" or "FULL". NORMAL is durable enough with WAL.
+    public static final String PREF_SYNCHRONOUS_LEVEL = "db_synchronous_level";
+    private static final String DEFAULT_SYNCHRONOUS_LEVEL = "NORMAL";
+
+    // WAL allows readers to run concurrently with the single writer
+    private static final int READER_POOL_SIZE = 4;
+    private static final int WRITER_POOL_SIZE = 2;
+    public static final ExecutorService databaseReadExecutor = Executors.newFixedThreadPool(READER_POOL_SIZE);
+    public static final ExecutorService databaseWriteExecutor = Executors.newFixedThreadPool(WRITER_POOL_SIZE);
 
     // Migration from version 1 to 2: Add manualPosition column
     static final Migration MIGRATION_1_2 = new Migration(1, 2) {
@@ -71,17 +114,277 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    // Migration from version 7 to 8: Add local queue for task_sync_logs audit entries
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS sync_log_queue (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "action TEXT, familySyncTaskId TEXT, mytodoTaskId TEXT, userId TEXT, " +
+                    "timestamp INTEGER NOT NULL, completionStatus INTEGER NOT NULL)");
+        }
+    };
+
+    // Migration from version 8 to 9: Add trigger-maintained widget_rows projection
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS widget_rows (" +
+                    "taskId INTEGER NOT NULL, displayText TEXT, dayOfWeek TEXT, dueDay TEXT, " +
+                    "dueTime INTEGER, flags INTEGER NOT NULL, PRIMARY KEY(taskId))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_widget_rows_dayOfWeek ON widget_rows (dayOfWeek)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_widget_rows_dueDay ON widget_rows (dueDay)");
+            WidgetRow.createTriggers(database);
+            WidgetRow.rebuild(database);
+        }
+    };
+
+    // Migration from version 9 to 10: Store dayOfWeek and recurrenceType as integer codes and
+    // reminderDays as a bitmask (see TaskConverters). SQLite can't change column types, so the
+    // tasks table is rebuilt; widget_rows follows since it copies dayOfWeek.
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS tasks_new (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, description TEXT, dueDate INTEGER, dueTime INTEGER, " +
+                    "dayOfWeek INTEGER, isRecurring INTEGER NOT NULL, recurrenceType INTEGER, isCompleted INTEGER NOT NULL, " +
+                    "priority INTEGER NOT NULL, completionDate INTEGER, reminderOffset INTEGER, reminderDays INTEGER, " +
+                    "manualPosition INTEGER, firestoreDocumentId TEXT, createdAt INTEGER, updatedAt INTEGER, deletedAt INTEGER, " +
+                    "sourceApp TEXT, sourceTaskId TEXT, sourceGroupId TEXT, familySyncAssigneeId TEXT, familySyncCreatorId TEXT)");
+            String unchangedColumns = "id, description, dueDate, dueTime, isRecurring, isCompleted, priority, completionDate, " +
+                    "reminderOffset, manualPosition, firestoreDocumentId, createdAt, updatedAt, deletedAt, " +
+                    "sourceApp, sourceTaskId, sourceGroupId, familySyncAssigneeId, familySyncCreatorId";
+            database.execSQL("INSERT INTO tasks_new (" + unchangedColumns + ") SELECT " + unchangedColumns + " FROM tasks");
+
+            // Convert the string columns with the same converters Room uses from now on
+            try (Cursor cursor = database.query("SELECT id, dayOfWeek, recurrenceType, reminderDays FROM tasks")) {
+                while (cursor.moveToNext()) {
+                    ContentValues values = new ContentValues();
+                    values.put("dayOfWeek", TaskConverters.DayOfWeek.toCode(cursor.isNull(1) ? null : cursor.getString(1)));
+                    values.put("recurrenceType", TaskConverters.RecurrenceType.toCode(cursor.isNull(2) ? null : cursor.getString(2)));
+                    values.put("reminderDays", TaskConverters.ReminderDays.toMask(cursor.isNull(3) ? null : cursor.getString(3)));
+                    database.update("tasks_new", SQLiteDatabase.CONFLICT_NONE, values, "id = ?", new Object[]{cursor.getInt(0)});
+                }
+            }
+
+            // Dropping tasks also drops the widget_rows triggers
+            database.execSQL("DROP TABLE tasks");
+            database.execSQL("ALTER TABLE tasks_new RENAME TO tasks");
+
+            database.execSQL("DROP TABLE IF EXISTS widget_rows");
+            database.execSQL("CREATE TABLE IF NOT EXISTS widget_rows (" +
+                    "taskId INTEGER NOT NULL, displayText TEXT, dayOfWeek INTEGER, dueDay TEXT, " +
+                    "dueTime INTEGER, flags INTEGER NOT NULL, PRIMARY KEY(taskId))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_widget_rows_dayOfWeek ON widget_rows (dayOfWeek)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_widget_rows_dueDay ON widget_rows (dueDay)");
+            WidgetRow.createTriggers(database);
+            WidgetRow.rebuild(database);
+        }
+    };
+
+    // Migration from version 10 to 11: Index tasks by Firestore document ID and add the
+    // sync_seen_documents scratch table used by the paged first sync
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_tasks_firestoreDocumentId ON tasks (firestoreDocumentId)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS sync_seen_documents (" +
+                    "firestoreDocumentId TEXT NOT NULL, PRIMARY KEY(firestoreDocumentId))");
+        }
+    };
+
+    // Migration from version 11 to 12: Add archived_tasks, the cold tier for old completed tasks.
+    // Same columns as tasks, so tasks move between the tables with INSERT ... SELECT.
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS archived_tasks (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, description TEXT, dueDate INTEGER, dueTime INTEGER, " +
+                    "dayOfWeek INTEGER, isRecurring INTEGER NOT NULL, recurrenceType INTEGER, isCompleted INTEGER NOT NULL, " +
+                    "priority INTEGER NOT NULL, completionDate INTEGER, reminderOffset INTEGER, reminderDays INTEGER, " +
+                    "manualPosition INTEGER, firestoreDocumentId TEXT, createdAt INTEGER, updatedAt INTEGER, deletedAt INTEGER, " +
+                    "sourceApp TEXT, sourceTaskId TEXT, sourceGroupId TEXT, familySyncAssigneeId TEXT, familySyncCreatorId TEXT)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_archived_tasks_firestoreDocumentId ON archived_tasks (firestoreDocumentId)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_archived_tasks_completionDate ON archived_tasks (completionDate)");
+        }
+    };
+
+    // Migration from version 12 to 13: Index the int-coded dayOfWeek and recurrenceType columns,
+    // which the day rollover filters on
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_tasks_dayOfWeek ON tasks (dayOfWeek)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_tasks_recurrenceType ON tasks (recurrenceType)");
+        }
+    };
+
+    static final Migration[] MIGRATIONS = {MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6,
+            MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13};
+
+    /**
+     * The database of the active account. Each account has its own database file, opened on
+     * first use; see switchAccount.
+     */
     public static AppDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                                    AppDatabase.class, "task_database")
-                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7)
-                            .build();
+                    Context appContext = context.getApplicationContext();
+                    SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                    String accountId = prefs.getString(PREF_ACTIVE_ACCOUNT, null);
+                    if (accountId == null) {
+                        // First start with the registry: the signed-in account, if any, keeps the existing file
+                        TaskApplication.ensureFirebaseInitialized();
+                        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+                        accountId = user != null ? user.getUid() : GUEST_ACCOUNT;
+                        prefs.edit().putString(PREF_ACTIVE_ACCOUNT, accountId).apply();
+                    }
+                    INSTANCE = openDatabase(appContext, accountId);
                 }
             }
         }
         return INSTANCE;
     }
+
+    /**
+     * Make the given account's database the active one; null is the signed-out database. The
+     * previous database stays open for a quick switch back until it has been idle for
+     * IDLE_CLOSE_DELAY or more than MAX_OPEN_DATABASES are open.
+     * @return the previously active database, or null if the account was already active
+     */
+    public static AppDatabase switchAccount(Context context, String accountId) {
+        String account = accountId != null ? accountId : GUEST_ACCOUNT;
+        Context appContext = context.getApplicationContext();
+        getDatabase(appContext);
+        AppDatabase previous;
+        synchronized (AppDatabase.class) {
+            previous = INSTANCE;
+            if (account.equals(previous.accountId)) {
+                return null;
+            }
+            appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                    .putString(PREF_ACTIVE_ACCOUNT, account).apply();
+            previous.inactiveSince = System.currentTimeMillis();
+            INSTANCE = openDatabase(appContext, account);
+        }
+        idleCloser.schedule(AppDatabase::closeIdleDatabases, IDLE_CLOSE_DELAY, TimeUnit.MILLISECONDS);
+        Log.d("MyToDo", "AppDatabase: Switched to database " + INSTANCE.fileName);
+        return previous;
+    }
+
+    /**
+     * Firebase UID of the account owning this database, or "" for the signed-out database
+     */
+    public String getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Name of this database's file, unique per account
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * SharedPreferences key for state that belongs to this database's data. The original
+     * database file keeps the unsuffixed key, so state from before per-account files still applies.
+     */
+    public String prefKey(String key) {
+        return DATABASE_NAME.equals(fileName) ? key : key + "@" + fileName;
+    }
+
+    // Open (or reuse) the account's database and make it the most recently used; caller holds the class lock
+    private static AppDatabase openDatabase(Context appContext, String accountId) {
+        String fileName = getFileName(appContext, accountId);
+        AppDatabase database = openDatabases.get(fileName);
+        if (database == null) {
+            database = buildDatabase(appContext, fileName);
+            database.accountId = accountId;
+            database.fileName = fileName;
+            openDatabases.put(fileName, database);
+        }
+        database.inactiveSince = 0;
+        // Least recently active first; the database being opened is last
+        Iterator<AppDatabase> iterator = openDatabases.values().iterator();
+        while (openDatabases.size() > MAX_OPEN_DATABASES && iterator.hasNext()) {
+            AppDatabase eldest = iterator.next();
+            if (eldest != database && eldest != INSTANCE) {
+                Log.d("MyToDo", "AppDatabase: Closing least recently used database " + eldest.fileName);
+                iterator.remove();
+                eldest.close();
+            }
+        }
+        return database;
+    }
+
+    private static synchronized void closeIdleDatabases() {
+        long idleBefore = System.currentTimeMillis() - IDLE_CLOSE_DELAY;
+        Iterator<AppDatabase> iterator = openDatabases.values().iterator();
+        while (iterator.hasNext()) {
+            AppDatabase database = iterator.next();
+            if (database != INSTANCE && database.inactiveSince > 0 && database.inactiveSince <= idleBefore) {
+                Log.d("MyToDo", "AppDatabase: Closing idle database " + database.fileName);
+                iterator.remove();
+                database.close();
+            }
+        }
+    }
+
+    // The first account to open a database after an upgrade keeps the original file, so existing
+    // tasks stay with the account that was signed in; every other account gets its own file
+    private static String getFileName(Context appContext, String accountId) {
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String owner = prefs.getString(PREF_DEFAULT_DATABASE_OWNER, null);
+        if (owner == null) {
+            owner = accountId;
+            prefs.edit().putString(PREF_DEFAULT_DATABASE_OWNER, owner).apply();
+        }
+        if (accountId.equals(owner)) {
+            return DATABASE_NAME;
+        }
+        return DATABASE_NAME + "_" + (accountId.isEmpty() ? "signed_out" : accountId);
+    }
+
+    private static AppDatabase buildDatabase(Context appContext, String fileName) {
+        String synchronousLevel = getSynchronousLevel(appContext);
+        AppDatabase database = Room.databaseBuilder(appContext, AppDatabase.class, fileName)
+                .addMigrations(MIGRATIONS)
+                .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                // LiveData/async queries use the reader pool; transactions are serialized on the writer pool
+                .setQueryExecutor(databaseReadExecutor)
+                .setTransactionExecutor(databaseWriteExecutor)
+                // Propagate table invalidations to instances in other processes
+                .enableMultiInstanceInvalidation()
+                .addCallback(new Callback() {
+                    @Override
+                    public void onCreate(SupportSQLiteDatabase db) {
+                        WidgetRow.createTriggers(db);
+                    }
+
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        db.query("PRAGMA synchronous = " + synchronousLevel).close();
+                    }
+                })
+                .build();
+        // Widgets follow task changes through invalidations instead of refresh broadcasts
+        database.getInvalidationTracker().addObserver(new WidgetUpdateHelper.TaskTableObserver(appContext));
+        database.getInvalidationTracker().addObserver(new FamilySyncSubscriptionManager.TaskTableObserver());
+        return database;
+    }
+
+    private static String getSynchronousLevel(Context context) {
+        String level = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getString(PREF_SYNCHRONOUS_LEVEL, DEFAULT_SYNCHRONOUS_LEVEL);
+        switch (level) {
+            case "OFF":
+            case "NORMAL":
+            case "FULL":
+                return level;
+            default:
+                return DEFAULT_SYNCHRONOUS_LEVEL;
+        }
+    }
 }
\ No newline at end of file
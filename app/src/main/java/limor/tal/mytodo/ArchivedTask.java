@@ -0,0 +1,23 @@
+package limor.tal.mytodo;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Completed non-recurring task moved out of the hot tasks table by TaskArchiver. Rows keep
+ * their task id and columns, so moving a task back is a plain row copy.
+ */
+@Entity(tableName = ArchivedTask.TABLE_NAME,
+        indices = {@Index("firestoreDocumentId"), @Index("completionDate")})
+public class ArchivedTask extends Task {
+    public static final String TABLE_NAME = "archived_tasks";
+
+    // Copies between tasks and archived_tasks name the columns, since column order can differ between them
+    public static final String COLUMNS = "id, description, dueDate, dueTime, dayOfWeek, isRecurring, recurrenceType, " +
+            "isCompleted, priority, completionDate, reminderOffset, reminderDays, manualPosition, firestoreDocumentId, " +
+            "createdAt, updatedAt, deletedAt, sourceApp, sourceTaskId, sourceGroupId, familySyncAssigneeId, familySyncCreatorId";
+
+    public ArchivedTask(String description, Long dueDate, String dayOfWeek, boolean isRecurring, String recurrenceType, boolean isCompleted, int priority) {
+        super(description, dueDate, dayOfWeek, isRecurring, recurrenceType, isCompleted, priority);
+    }
+}
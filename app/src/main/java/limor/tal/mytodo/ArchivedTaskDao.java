@@ -0,0 +1,47 @@
+package limor.tal.mytodo;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface ArchivedTaskDao {
+    // Completed non-recurring tasks finished before the cutoff, oldest first, either the synced
+    // ones (archived in the cloud too) or the local-only ones
+    @Query("SELECT * FROM tasks WHERE isCompleted = 1 AND isRecurring = 0 AND deletedAt IS NULL " +
+            "AND completionDate < :completedBefore AND (firestoreDocumentId IS NOT NULL) = :synced " +
+            "ORDER BY completionDate LIMIT :limit")
+    List<Task> getArchiveCandidates(long completedBefore, boolean synced, int limit);
+
+    @Query("INSERT INTO archived_tasks (" + ArchivedTask.COLUMNS + ") SELECT " + ArchivedTask.COLUMNS +
+            " FROM tasks WHERE id IN (:ids)")
+    void copyToArchive(List<Integer> ids);
+
+    @Query("DELETE FROM tasks WHERE id IN (:ids)")
+    int deleteFromTasks(List<Integer> ids);
+
+    @Query("INSERT INTO tasks (" + ArchivedTask.COLUMNS + ") SELECT " + ArchivedTask.COLUMNS +
+            " FROM archived_tasks WHERE id IN (:ids)")
+    void copyFromArchive(List<Integer> ids);
+
+    @Query("DELETE FROM archived_tasks WHERE id IN (:ids)")
+    int deleteFromArchive(List<Integer> ids);
+
+    @Insert
+    void insertAll(List<ArchivedTask> tasks);
+
+    // Keyset page over all archived tasks
+    @Query("SELECT * FROM archived_tasks WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<Task> getArchivedTasksAfterId(int afterId, int limit);
+
+    // Most recently completed archived tasks, for the expanded Completed section
+    @Query("SELECT * FROM archived_tasks WHERE deletedAt IS NULL ORDER BY completionDate DESC LIMIT :limit")
+    List<Task> getRecentlyCompleted(int limit);
+
+    // Archived tasks whose description contains the lowercase query
+    @Query("SELECT * FROM archived_tasks WHERE deletedAt IS NULL AND instr(lower(description), :query) > 0 " +
+            "ORDER BY completionDate DESC LIMIT :limit")
+    List<Task> search(String query, int limit);
+}
@@ -26,7 +26,7 @@ public class BootReceiver extends BroadcastReceiver {
         }
     }
     
-    private void rescheduleAllReminders(Context context) {
+    static void rescheduleAllReminders(Context context) {
         try {
             // Run in background thread to avoid blocking
             new Thread(() -> {
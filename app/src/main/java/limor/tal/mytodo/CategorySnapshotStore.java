@@ -0,0 +1,220 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.os.ConfigurationCompat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stores the last rendered category list (headers plus every persisted task column) as a
+ * small versioned binary file, so MainActivity can render it on cold start before the Room
+ * query and the categorization pipeline have run. Rows are complete tasks, so acting on one
+ * before the live query replaces it doesn't clear any columns.
+ *
+ * The snapshot is only valid for the day and UI language it was written for, since
+ * category headers are localized and bucketed relative to today.
+ */
+public class CategorySnapshotStore {
+    private static final String TAG = "CategorySnapshotStore";
+    private static final String FILE_NAME = "category_snapshot.bin";
+    private static final int MAGIC = 0x4D54444C; // "MTDL"
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte ITEM_HEADER = 0;
+    private static final byte ITEM_TASK = 1;
+
+    // Task flag bits
+    private static final int FLAG_COMPLETED = 1;
+    private static final int FLAG_RECURRING = 1 << 1;
+
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Load the snapshot for today and the current UI language. Reads the file, so call it
+     * off the main thread.
+     * @return the categorized items, or null if there is no valid snapshot
+     */
+    public static List<Object> load(Context context) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 8192))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                Log.d(TAG, "Snapshot format changed, ignoring");
+                return null;
+            }
+            if (in.readLong() != getTodayStartMillis() || !getLanguage(context).equals(in.readUTF())) {
+                Log.d(TAG, "Snapshot is stale (different day or language), ignoring");
+                return null;
+            }
+
+            int count = in.readInt();
+            List<Object> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte type = in.readByte();
+                if (type == ITEM_HEADER) {
+                    items.add(in.readUTF());
+                } else {
+                    items.add(readTask(in));
+                }
+            }
+            Log.d(TAG, "Loaded snapshot with " + count + " items");
+            return items;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read snapshot", e);
+            return null;
+        }
+    }
+
+    /**
+     * Persist the rendered category list in the background. The file is replaced atomically.
+     */
+    public static void save(Context context, List<Object> items) {
+        final Context appContext = context.getApplicationContext();
+        final List<Object> copy = new ArrayList<>(items);
+        final String language = getLanguage(appContext);
+        final long todayStart = getTodayStartMillis();
+
+        writeExecutor.execute(() -> {
+            File file = new File(appContext.getFilesDir(), FILE_NAME);
+            File tempFile = new File(appContext.getFilesDir(), FILE_NAME + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 8192))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(todayStart);
+                out.writeUTF(language);
+                out.writeInt(copy.size());
+                for (Object item : copy) {
+                    if (item instanceof String) {
+                        out.writeByte(ITEM_HEADER);
+                        out.writeUTF((String) item);
+                    } else {
+                        out.writeByte(ITEM_TASK);
+                        writeTask(out, (Task) item);
+                    }
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write snapshot", e);
+                tempFile.delete();
+                return;
+            }
+            if (!tempFile.renameTo(file)) {
+                Log.w(TAG, "Could not replace snapshot file");
+                tempFile.delete();
+            }
+        });
+    }
+
+    /**
+     * Remove the snapshot, e.g. when local data is cleared
+     */
+    public static void clear(Context context) {
+        final Context appContext = context.getApplicationContext();
+        writeExecutor.execute(() -> new File(appContext.getFilesDir(), FILE_NAME).delete());
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeInt(task.id);
+        out.writeByte((task.isCompleted ? FLAG_COMPLETED : 0) | (task.isRecurring ? FLAG_RECURRING : 0));
+        out.writeInt(task.priority);
+        writeString(out, task.description);
+        writeString(out, task.dayOfWeek);
+        writeString(out, task.recurrenceType);
+        writeLong(out, task.dueDate);
+        writeLong(out, task.dueTime);
+        writeLong(out, task.completionDate);
+        writeLong(out, task.reminderOffset != null ? (long) task.reminderOffset : null);
+        writeString(out, task.reminderDays);
+        writeLong(out, task.manualPosition != null ? (long) task.manualPosition : null);
+        writeLong(out, task.createdAt);
+        writeLong(out, task.updatedAt);
+        writeLong(out, task.deletedAt);
+        writeString(out, task.firestoreDocumentId);
+        writeString(out, task.sourceApp);
+        writeString(out, task.sourceTaskId);
+        writeString(out, task.sourceGroupId);
+        writeString(out, task.familySyncAssigneeId);
+        writeString(out, task.familySyncCreatorId);
+    }
+
+    private static Task readTask(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        int flags = in.readByte();
+        int priority = in.readInt();
+        String description = readString(in);
+        String dayOfWeek = readString(in);
+        String recurrenceType = readString(in);
+
+        Task task = new Task(description, readLong(in), dayOfWeek, (flags & FLAG_RECURRING) != 0,
+                recurrenceType, (flags & FLAG_COMPLETED) != 0, priority);
+        task.id = id;
+        task.dueTime = readLong(in);
+        task.completionDate = readLong(in);
+        Long reminderOffset = readLong(in);
+        task.reminderOffset = reminderOffset != null ? reminderOffset.intValue() : null;
+        task.reminderDays = readString(in);
+        Long manualPosition = readLong(in);
+        task.manualPosition = manualPosition != null ? manualPosition.intValue() : null;
+        task.createdAt = readLong(in);
+        task.updatedAt = readLong(in);
+        task.deletedAt = readLong(in);
+        task.firestoreDocumentId = readString(in);
+        task.sourceApp = readString(in);
+        task.sourceTaskId = readString(in);
+        task.sourceGroupId = readString(in);
+        task.familySyncAssigneeId = readString(in);
+        task.familySyncCreatorId = readString(in);
+        return task;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeLong(value != null ? value : NO_VALUE);
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        long value = in.readLong();
+        return value != NO_VALUE ? value : null;
+    }
+
+    private static String getLanguage(Context context) {
+        return ConfigurationCompat.getLocales(context.getResources().getConfiguration()).get(0).getLanguage();
+    }
+
+    private static long getTodayStartMillis() {
+        Calendar today = Calendar.getInstance();
+        today.set(Calendar.HOUR_OF_DAY, 0);
+        today.set(Calendar.MINUTE, 0);
+        today.set(Calendar.SECOND, 0);
+        today.set(Calendar.MILLISECOND, 0);
+        return today.getTimeInMillis();
+    }
+}
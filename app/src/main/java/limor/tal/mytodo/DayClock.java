@@ -0,0 +1,197 @@
+package limor.tal.mytodo;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.Calendar;
+
+/**
+ * Calendar service for the task categories. Computes the day boundaries (today, the next six
+ * days and the start of next week) once per day and publishes a new window at midnight, or when
+ * the date, time or timezone is changed, so categories are rebucketed exactly once per day.
+ *
+ * Per-refresh categorization then only compares epoch millis against the current window.
+ */
+public class DayClock {
+    private static final String TAG = "DayClock";
+    public static final int DAYS_IN_WINDOW = 7;
+
+    private static volatile DayClock INSTANCE;
+
+    /**
+     * Immutable day boundaries for one calendar day
+     */
+    public static final class DayWindow {
+        // dayStarts[i] is the start of today + i days; dayStarts[7] is the start of next week
+        private final long[] dayStarts = new long[DAYS_IN_WINDOW + 1];
+        // days_of_week index (3=Sunday ... 9=Saturday) of today + i days
+        private final int[] dayIndices = new int[DAYS_IN_WINDOW];
+
+        private DayWindow(Calendar now) {
+            Calendar day = (Calendar) now.clone();
+            day.set(Calendar.HOUR_OF_DAY, 0);
+            day.set(Calendar.MINUTE, 0);
+            day.set(Calendar.SECOND, 0);
+            day.set(Calendar.MILLISECOND, 0);
+            for (int i = 0; i <= DAYS_IN_WINDOW; i++) {
+                dayStarts[i] = day.getTimeInMillis();
+                if (i < DAYS_IN_WINDOW) {
+                    dayIndices[i] = toDayIndex(day.get(Calendar.DAY_OF_WEEK));
+                }
+                // add() handles DST days that are not 24 hours long
+                day.add(Calendar.DAY_OF_MONTH, 1);
+            }
+        }
+
+        public long getTodayStart() {
+            return dayStarts[0];
+        }
+
+        public long getTomorrowStart() {
+            return dayStarts[1];
+        }
+
+        public long getNextWeekStart() {
+            return dayStarts[DAYS_IN_WINDOW];
+        }
+
+        /**
+         * days_of_week index of today (3=Sunday ... 9=Saturday)
+         */
+        public int getTodayIndex() {
+            return dayIndices[0];
+        }
+
+        /**
+         * days_of_week indices for today and the next six days, in order
+         */
+        public int[] getDayIndices() {
+            return dayIndices.clone();
+        }
+
+        public boolean isToday(long millis) {
+            return millis >= dayStarts[0] && millis < dayStarts[1];
+        }
+
+        public boolean isAfterToday(long millis) {
+            return millis >= dayStarts[1];
+        }
+
+        /**
+         * Offset in days (0 = today ... 6) of a time within this week, or -1 if outside the window
+         */
+        public int dayOffsetOf(long millis) {
+            if (millis < dayStarts[0] || millis >= dayStarts[DAYS_IN_WINDOW]) {
+                return -1;
+            }
+            int offset = 0;
+            while (millis >= dayStarts[offset + 1]) {
+                offset++;
+            }
+            return offset;
+        }
+
+        /**
+         * days_of_week index of a time within this week, or -1 if outside the window
+         */
+        public int dayIndexOf(long millis) {
+            int offset = dayOffsetOf(millis);
+            return offset >= 0 ? dayIndices[offset] : -1;
+        }
+
+        private static int toDayIndex(int calendarDayOfWeek) {
+            // Calendar.SUNDAY (1) ... Calendar.SATURDAY (7) -> 3 ... 9
+            return calendarDayOfWeek + 2;
+        }
+    }
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<DayWindow> window = new MutableLiveData<>();
+    private volatile DayWindow current;
+
+    private final Runnable midnightTick = this::refresh;
+
+    private DayClock(Context context) {
+        appContext = context.getApplicationContext();
+        current = new DayWindow(Calendar.getInstance());
+        window.postValue(current);
+        scheduleMidnightTick();
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_DATE_CHANGED);
+        filter.addAction(Intent.ACTION_TIME_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        appContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                Log.d(TAG, "Clock changed: " + intent.getAction());
+                refresh();
+            }
+        }, filter);
+    }
+
+    public static DayClock getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (DayClock.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new DayClock(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * The window for the current day. Falls back to recomputing if the midnight tick was delayed.
+     */
+    public DayWindow current() {
+        DayWindow day = current;
+        long now = System.currentTimeMillis();
+        if (now >= day.getTomorrowStart() || now < day.getTodayStart()) {
+            refresh();
+            day = current;
+        }
+        return day;
+    }
+
+    /**
+     * Emits a new window once per day boundary or clock change
+     */
+    public LiveData<DayWindow> getWindow() {
+        return window;
+    }
+
+    private synchronized void refresh() {
+        DayWindow previous = current;
+        DayWindow next = new DayWindow(Calendar.getInstance());
+        boolean changed = previous.getTodayStart() != next.getTodayStart()
+                || previous.getNextWeekStart() != next.getNextWeekStart();
+        if (changed) {
+            current = next;
+        }
+        scheduleMidnightTick();
+        if (!changed) {
+            return;
+        }
+        Log.d(TAG, "Day window changed, today starts at " + next.getTodayStart());
+        window.postValue(next);
+        // The widget's "today" rows depend on the date as well
+        WidgetUpdateHelper.requestRefresh(appContext);
+    }
+
+    private void scheduleMidnightTick() {
+        mainHandler.removeCallbacks(midnightTick);
+        long delay = Math.max(0, current.getTomorrowStart() - System.currentTimeMillis());
+        // A small margin so the tick lands after the boundary
+        mainHandler.postDelayed(midnightTick, delay + 50);
+    }
+}
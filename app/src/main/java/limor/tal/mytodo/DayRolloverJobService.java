@@ -0,0 +1,84 @@
+package limor.tal.mytodo;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs TaskRollover shortly after each day boundary, so the widget, reminders and sync see
+ * the new day's tasks without the app being opened. Each run schedules the next one.
+ */
+public class DayRolloverJobService extends JobService {
+    private static final String TAG = "DayRolloverJobService";
+    private static final int JOB_ID = 1002;
+    // How late after midnight JobScheduler may run the job
+    private static final long MAX_DELAY = 30 * 60 * 1000L;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Schedule the run for the next day boundary unless one is already scheduled
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null) {
+            return;
+        }
+        for (JobInfo pending : scheduler.getAllPendingJobs()) {
+            if (pending.getId() == JOB_ID) {
+                return;
+            }
+        }
+        scheduleNext(context, scheduler);
+    }
+
+    private static void scheduleNext(Context context, JobScheduler scheduler) {
+        long untilTomorrow = Math.max(0, DayClock.getInstance(context).current().getTomorrowStart() - System.currentTimeMillis());
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, DayRolloverJobService.class))
+                .setMinimumLatency(untilTomorrow)
+                .setOverrideDeadline(untilTomorrow + MAX_DELAY)
+                .setPersisted(true)
+                .build();
+        int result = scheduler.schedule(job);
+        Log.d(TAG, "Day rollover scheduled in " + untilTomorrow + " ms: " + (result == JobScheduler.RESULT_SUCCESS));
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        executor.execute(() -> {
+            try {
+                TaskRollover.rollOver(this);
+            } catch (Exception e) {
+                Log.e(TAG, "Day rollover failed", e);
+                jobFinished(params, true);
+                return;
+            }
+            // Scheduling the same id while this run is active would stop it, so finish first
+            jobFinished(params, false);
+            JobScheduler scheduler = getSystemService(JobScheduler.class);
+            if (scheduler != null) {
+                scheduleNext(this, scheduler);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The updates run in one transaction; an interrupted run is simply repeated
+        return true;
+    }
+
+    @Override
+    public void onDestroy() {
+        executor.shutdown();
+        super.onDestroy();
+    }
+}
@@ -7,22 +7,23 @@ import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FamilySyncService {
     private static final String TAG = "FamilySyncService";
     private static final String FAMILY_SYNC_TASKS_COLLECTION = "tasks";
-    private static final String SYNC_LOGS_COLLECTION = "task_sync_logs";
+    private static final String NOT_EXPORTED = "";
     
     private FirebaseFirestore db;
     private FirebaseAuth auth;
+    // MyToDo document ID -> FamilySync task ID (NOT_EXPORTED for regular tasks)
+    private final Map<String, String> sourceTaskIdCache = new ConcurrentHashMap<>();
 
     public interface FamilySyncCallback {
         void onSuccess(Object result);
@@ -43,61 +44,109 @@ public class FamilySyncService {
             return;
         }
 
-        // Get the MyToDo task to find the source FamilySync task ID
+        resolveSourceTaskId(mytodoTaskId, new FamilySyncCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                String sourceTaskId = (String) result;
+                if (sourceTaskId == null) {
+                    Log.d(TAG, "No FamilySync source task found for MyToDo task: " + mytodoTaskId);
+                    callback.onSuccess(null); // Not an exported task, no sync needed
+                    return;
+                }
+
+                // Update the FamilySync task
+                updateFamilySyncTask(sourceTaskId, mytodoTaskId, isCompleted, callback);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    /**
+     * Cache the MyToDo document ID -> FamilySync task ID mapping from a local task
+     */
+    public void rememberSourceTaskId(limor.tal.mytodo.Task localTask) {
+        if (localTask == null || localTask.firestoreDocumentId == null) {
+            return;
+        }
+        sourceTaskIdCache.put(localTask.firestoreDocumentId,
+                localTask.isExportedFromFamilySync() ? localTask.sourceTaskId : NOT_EXPORTED);
+    }
+
+    /**
+     * Resolve the FamilySync task ID for a MyToDo document, from the cache or with a single
+     * document read. Reports null through onSuccess when the task is not exported from FamilySync.
+     */
+    private void resolveSourceTaskId(String mytodoTaskId, FamilySyncCallback callback) {
+        String cached = sourceTaskIdCache.get(mytodoTaskId);
+        if (cached != null) {
+            callback.onSuccess(NOT_EXPORTED.equals(cached) ? null : cached);
+            return;
+        }
+
         db.collection("mytodo_tasks")
-                .whereEqualTo("userId", auth.getCurrentUser().getUid())
+                .document(mytodoTaskId)
                 .get()
-                .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
+                .addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
                     @Override
-                    public void onComplete(Task<QuerySnapshot> task) {
-                        if (task.isSuccessful()) {
-                            FirestoreTask mytodoTask = null;
-                            for (DocumentSnapshot document : task.getResult()) {
-                                if (document.getId().equals(mytodoTaskId)) {
-                                    mytodoTask = document.toObject(FirestoreTask.class);
-                                    if (mytodoTask != null) {
-                                        mytodoTask.documentId = document.getId();
-                                    }
-                                    break;
-                                }
-                            }
-                            
-                            if (mytodoTask == null || !mytodoTask.isExportedFromFamilySync()) {
-                                Log.d(TAG, "No FamilySync source task found for MyToDo task: " + mytodoTaskId);
-                                callback.onSuccess(null); // Not an exported task, no sync needed
-                                return;
-                            }
-
-                            // Update the FamilySync task
-                            updateFamilySyncTask(mytodoTask.sourceTaskId, isCompleted, callback);
-                        } else {
-                            Log.e(TAG, "Error finding MyToDo task", task.getException());
-                            callback.onError("Failed to find task: " + task.getException().getMessage());
+                    public void onSuccess(DocumentSnapshot document) {
+                        FirestoreTask mytodoTask = document.exists() ? document.toObject(FirestoreTask.class) : null;
+                        if (mytodoTask == null || !mytodoTask.isExportedFromFamilySync()) {
+                            sourceTaskIdCache.put(mytodoTaskId, NOT_EXPORTED);
+                            callback.onSuccess(null);
+                            return;
                         }
+                        sourceTaskIdCache.put(mytodoTaskId, mytodoTask.sourceTaskId);
+                        callback.onSuccess(mytodoTask.sourceTaskId);
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error finding MyToDo task", e);
+                        callback.onError("Failed to find task: " + e.getMessage());
                     }
                 });
     }
 
     /**
-     * Update FamilySync task completion status
+     * Build the FamilySync task completion update
      */
-    private void updateFamilySyncTask(String familySyncTaskId, boolean isCompleted, FamilySyncCallback callback) {
+    private Map<String, Object> buildFamilySyncCompletionUpdate(boolean isCompleted) {
         Map<String, Object> updates = new HashMap<>();
         updates.put("status", isCompleted ? "DONE" : "PENDING");
         updates.put("completedAt", isCompleted ? System.currentTimeMillis() : null);
         updates.put("updatedAt", System.currentTimeMillis());
+        return updates;
+    }
+
+    /**
+     * Build the MyToDo task completion update
+     */
+    private Map<String, Object> buildMyToDoCompletionUpdate(boolean isCompleted) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("isCompleted", isCompleted);
+        updates.put("completionDate", isCompleted ? System.currentTimeMillis() : null);
+        updates.put("updatedAt", System.currentTimeMillis());
+        return updates;
+    }
 
+    /**
+     * Update FamilySync task completion status
+     */
+    private void updateFamilySyncTask(String familySyncTaskId, String mytodoTaskId, boolean isCompleted, FamilySyncCallback callback) {
         db.collection(FAMILY_SYNC_TASKS_COLLECTION)
                 .document(familySyncTaskId)
-                .update(updates)
+                .update(buildFamilySyncCompletionUpdate(isCompleted))
                 .addOnSuccessListener(new OnSuccessListener<Void>() {
                     @Override
                     public void onSuccess(Void aVoid) {
                         Log.d(TAG, "Successfully synced completion status to FamilySync");
-                        
-                        // Log the sync action
-                        logSyncAction("completion_sync_from_mytodo", familySyncTaskId, 
-                                familySyncTaskId, isCompleted, callback);
+                        logSyncAction("completion_sync_from_mytodo", familySyncTaskId, mytodoTaskId, isCompleted);
+                        callback.onSuccess(null);
                     }
                 })
                 .addOnFailureListener(new OnFailureListener() {
@@ -110,68 +159,33 @@ public class FamilySyncService {
     }
 
     /**
-     * Listen for FamilySync task completion changes and update MyToDo accordingly
+     * Listen for FamilySync task completion changes and update MyToDo accordingly.
+     * Listeners are shared per FamilySync group by FamilySyncSubscriptionManager.
      */
     public void subscribeToFamilySyncChanges(String mytodoTaskId, FamilySyncCallback callback) {
-        // Get the MyToDo task to find the source FamilySync task ID
+        if (auth.getCurrentUser() == null) {
+            return;
+        }
+
+        // Get the MyToDo task directly by ID to find the source FamilySync task and group
         db.collection("mytodo_tasks")
-                .whereEqualTo("userId", auth.getCurrentUser().getUid())
+                .document(mytodoTaskId)
                 .get()
-                .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
+                .addOnCompleteListener(new OnCompleteListener<DocumentSnapshot>() {
                     @Override
-                    public void onComplete(Task<QuerySnapshot> task) {
+                    public void onComplete(Task<DocumentSnapshot> task) {
                         if (task.isSuccessful()) {
-                            FirestoreTask mytodoTask = null;
-                            for (DocumentSnapshot document : task.getResult()) {
-                                if (document.getId().equals(mytodoTaskId)) {
-                                    mytodoTask = document.toObject(FirestoreTask.class);
-                                    if (mytodoTask != null) {
-                                        mytodoTask.documentId = document.getId();
-                                    }
-                                    break;
-                                }
-                            }
-                            
-                            final FirestoreTask finalMytoDoTask = mytodoTask;
-                            if (finalMytoDoTask == null || !finalMytoDoTask.isExportedFromFamilySync()) {
+                            DocumentSnapshot document = task.getResult();
+                            FirestoreTask mytodoTask = document != null && document.exists()
+                                    ? document.toObject(FirestoreTask.class) : null;
+                            if (mytodoTask == null || !mytodoTask.isExportedFromFamilySync()) {
+                                sourceTaskIdCache.put(mytodoTaskId, NOT_EXPORTED);
                                 Log.d(TAG, "No FamilySync source task found for MyToDo task: " + mytodoTaskId);
                                 return;
                             }
-
-                            // Listen to FamilySync task changes
-                            db.collection(FAMILY_SYNC_TASKS_COLLECTION)
-                                    .document(finalMytoDoTask.sourceTaskId)
-                                    .addSnapshotListener((documentSnapshot, e) -> {
-                                        if (e != null) {
-                                            Log.e(TAG, "Error listening to FamilySync changes", e);
-                                            return;
-                                        }
-
-                                        if (documentSnapshot != null && documentSnapshot.exists()) {
-                                            Map<String, Object> data = documentSnapshot.getData();
-                                            if (data != null) {
-                                                String status = (String) data.get("status");
-                                                final boolean isCompleted = "DONE".equals(status);
-                                                
-                                                // Update MyToDo task if status changed
-                                                if (finalMytoDoTask.isCompleted != isCompleted) {
-                                                    updateMyToDoTaskCompletion(mytodoTaskId, isCompleted);
-                                                    
-                                                    // Log the sync action
-                                                    logSyncAction("completion_sync_from_familysync", 
-                                                            finalMytoDoTask.sourceTaskId, mytodoTaskId, isCompleted, null);
-                                                    
-                                                    if (callback != null) {
-                                                        callback.onSuccess(new HashMap<String, Object>() {{
-                                                            put("type", "completion_changed");
-                                                            put("isCompleted", isCompleted);
-                                                            put("familySyncTask", data);
-                                                        }});
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    });
+                            sourceTaskIdCache.put(mytodoTaskId, mytodoTask.sourceTaskId);
+                            subscribe(mytodoTaskId, mytodoTask.sourceTaskId, mytodoTask.sourceGroupId,
+                                    mytodoTask.isCompleted, callback);
                         } else {
                             Log.e(TAG, "Error finding MyToDo task for sync", task.getException());
                         }
@@ -179,22 +193,59 @@ public class FamilySyncService {
                 });
     }
 
+    /**
+     * Listen for FamilySync completion changes of a local imported task without any lookup
+     */
+    public void subscribeToFamilySyncChanges(limor.tal.mytodo.Task localTask, FamilySyncCallback callback) {
+        rememberSourceTaskId(localTask);
+        if (localTask.firestoreDocumentId == null || !localTask.isExportedFromFamilySync()) {
+            return;
+        }
+        subscribe(localTask.firestoreDocumentId, localTask.sourceTaskId, localTask.sourceGroupId,
+                localTask.isCompleted, callback);
+    }
+
+    /**
+     * Release a FamilySync change subscription for a MyToDo task
+     */
+    public void unsubscribeFromFamilySyncChanges(String mytodoTaskId) {
+        FamilySyncSubscriptionManager.getInstance().unsubscribe(mytodoTaskId);
+    }
+
+    private void subscribe(String mytodoTaskId, String sourceTaskId, String sourceGroupId,
+                           boolean isCompleted, FamilySyncCallback callback) {
+        FamilySyncSubscriptionManager.getInstance().subscribe(mytodoTaskId, sourceTaskId, sourceGroupId, isCompleted,
+                (taskId, familySyncTaskId, completed, data) -> {
+                    updateMyToDoTaskCompletion(taskId, familySyncTaskId, completed);
+
+                    if (callback != null) {
+                        Map<String, Object> result = new HashMap<>();
+                        result.put("type", "completion_changed");
+                        result.put("isCompleted", completed);
+                        result.put("familySyncTask", data);
+                        callback.onSuccess(result);
+                    }
+                });
+    }
+
     /**
      * Update MyToDo task completion status
      */
-    private void updateMyToDoTaskCompletion(String mytodoTaskId, boolean isCompleted) {
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("isCompleted", isCompleted);
-        updates.put("completionDate", isCompleted ? System.currentTimeMillis() : null);
-        updates.put("updatedAt", System.currentTimeMillis());
+    private void updateMyToDoTaskCompletion(String mytodoTaskId, String familySyncTaskId, boolean isCompleted) {
+        if (auth.getCurrentUser() == null) {
+            Log.d(TAG, "User not authenticated, skipping MyToDo completion update");
+            return;
+        }
 
-        db.collection("mytodo_tasks")
-                .document(mytodoTaskId)
-                .update(updates)
+        WriteBatch batch = db.batch();
+        batch.update(db.collection("mytodo_tasks").document(mytodoTaskId), buildMyToDoCompletionUpdate(isCompleted));
+        SyncDigest.invalidate(db, batch, auth.getCurrentUser().getUid(), mytodoTaskId);
+        batch.commit()
                 .addOnSuccessListener(new OnSuccessListener<Void>() {
                     @Override
                     public void onSuccess(Void aVoid) {
                         Log.d(TAG, "Successfully updated MyToDo task completion from FamilySync");
+                        logSyncAction("completion_sync_from_familysync", familySyncTaskId, mytodoTaskId, isCompleted);
                     }
                 })
                 .addOnFailureListener(new OnFailureListener() {
@@ -209,15 +260,18 @@ public class FamilySyncService {
      * Enhanced task completion toggle that syncs with FamilySync
      */
     public void toggleTaskCompletionWithSync(String taskId, boolean isCompleted, FamilySyncCallback callback) {
-        // First update MyToDo task
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("isCompleted", isCompleted);
-        updates.put("completionDate", isCompleted ? System.currentTimeMillis() : null);
-        updates.put("updatedAt", System.currentTimeMillis());
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
 
-        db.collection("mytodo_tasks")
-                .document(taskId)
-                .update(updates)
+        FamilySyncSubscriptionManager.getInstance().noteLocalCompletion(taskId, isCompleted);
+
+        // First update MyToDo task
+        WriteBatch batch = db.batch();
+        batch.update(db.collection("mytodo_tasks").document(taskId), buildMyToDoCompletionUpdate(isCompleted));
+        SyncDigest.invalidate(db, batch, auth.getCurrentUser().getUid(), taskId);
+        batch.commit()
                 .addOnSuccessListener(new OnSuccessListener<Void>() {
                     @Override
                     public void onSuccess(Void aVoid) {
@@ -237,40 +291,54 @@ public class FamilySyncService {
     }
 
     /**
-     * Log sync actions for debugging and audit
+     * Enhanced task completion toggle for a local task. When the task is exported from FamilySync,
+     * the MyToDo and FamilySync updates are committed as one batch.
      */
-    private void logSyncAction(String action, String familySyncTaskId, String mytodoTaskId, 
-                              boolean completionStatus, FamilySyncCallback callback) {
-        Map<String, Object> logData = new HashMap<>();
-        logData.put("action", action);
-        logData.put("familySyncTaskId", familySyncTaskId);
-        logData.put("mytodoTaskId", mytodoTaskId);
-        logData.put("userId", auth.getCurrentUser().getUid());
-        logData.put("timestamp", System.currentTimeMillis());
-        logData.put("completionStatus", completionStatus);
-
-        db.collection(SYNC_LOGS_COLLECTION)
-                .add(logData)
-                .addOnSuccessListener(new OnSuccessListener<DocumentReference>() {
+    public void toggleTaskCompletionWithSync(limor.tal.mytodo.Task localTask, boolean isCompleted, FamilySyncCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        rememberSourceTaskId(localTask);
+        String taskId = localTask.firestoreDocumentId;
+        FamilySyncSubscriptionManager.getInstance().noteLocalCompletion(taskId, isCompleted);
+        WriteBatch batch = db.batch();
+        batch.update(db.collection("mytodo_tasks").document(taskId), buildMyToDoCompletionUpdate(isCompleted));
+        SyncDigest.invalidate(db, batch, auth.getCurrentUser().getUid(), taskId);
+        if (localTask.isExportedFromFamilySync()) {
+            batch.update(db.collection(FAMILY_SYNC_TASKS_COLLECTION).document(localTask.sourceTaskId),
+                    buildFamilySyncCompletionUpdate(isCompleted));
+        }
+
+        batch.commit()
+                .addOnSuccessListener(new OnSuccessListener<Void>() {
                     @Override
-                    public void onSuccess(DocumentReference documentReference) {
-                        Log.d(TAG, "Sync action logged successfully");
-                        if (callback != null) {
-                            callback.onSuccess(null);
+                    public void onSuccess(Void aVoid) {
+                        Log.d(TAG, "MyToDo task completion updated successfully");
+                        if (localTask.isExportedFromFamilySync()) {
+                            logSyncAction("completion_sync_from_mytodo", localTask.sourceTaskId, taskId, isCompleted);
                         }
+                        callback.onSuccess(null);
                     }
                 })
                 .addOnFailureListener(new OnFailureListener() {
                     @Override
                     public void onFailure(Exception e) {
-                        Log.e(TAG, "Error logging sync action", e);
-                        if (callback != null) {
-                            callback.onError("Failed to log sync action: " + e.getMessage());
-                        }
+                        Log.e(TAG, "Error updating MyToDo task completion", e);
+                        callback.onError("Failed to update task: " + e.getMessage());
                     }
                 });
     }
 
+    /**
+     * Log sync actions for debugging and audit. Entries are queued locally and flushed in batches.
+     */
+    private void logSyncAction(String action, String familySyncTaskId, String mytodoTaskId, boolean completionStatus) {
+        SyncLogBuffer.getInstance(TaskApplication.getAppContext())
+                .log(action, familySyncTaskId, mytodoTaskId, completionStatus);
+    }
+
     /**
      * Check if a MyToDo task is exported from FamilySync
      */
@@ -0,0 +1,449 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+import androidx.room.InvalidationTracker;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps one Firestore listener per FamilySync group and fans completion changes out
+ * to the imported MyToDo tasks of that group.
+ *
+ * Subscriptions are reference counted: the group listener is removed when the last task
+ * of the group unsubscribes. All listeners are detached while the app process is in the
+ * background and re-attached when it returns to the foreground.
+ *
+ * Once started, the subscriptions follow the imported FamilySync tasks of the active account
+ * database: they are reconciled when the process comes to the foreground, when the tasks
+ * table changes and when the account switches. Remote completion changes are written to the
+ * local task and its MyToDo document.
+ */
+public class FamilySyncSubscriptionManager implements DefaultLifecycleObserver {
+    private static final String TAG = "FamilySyncSubscriptions";
+    private static final String FAMILY_SYNC_TASKS_COLLECTION = "tasks";
+    private static final String FIELD_GROUP_ID = "groupId";
+
+    private static volatile FamilySyncSubscriptionManager INSTANCE;
+
+    public interface CompletionChangeListener {
+        void onCompletionChanged(String mytodoTaskId, String sourceTaskId, boolean isCompleted, Map<String, Object> familySyncTask);
+    }
+
+    // A single imported MyToDo task listening to its FamilySync source task
+    private static class Subscriber {
+        final String mytodoTaskId;
+        final String sourceTaskId;
+        final CompletionChangeListener listener;
+        boolean isCompleted;
+        int refCount;
+
+        Subscriber(String mytodoTaskId, String sourceTaskId, boolean isCompleted, CompletionChangeListener listener) {
+            this.mytodoTaskId = mytodoTaskId;
+            this.sourceTaskId = sourceTaskId;
+            this.isCompleted = isCompleted;
+            this.listener = listener;
+        }
+    }
+
+    // One Firestore listener shared by every subscribed task of a FamilySync group
+    private static class GroupSubscription {
+        final String groupId;
+        // FamilySync task ID -> subscribers (keyed by MyToDo task ID)
+        final Map<String, Map<String, Subscriber>> subscribersBySource = new HashMap<>();
+        ListenerRegistration registration;
+        int refCount;
+
+        GroupSubscription(String groupId) {
+            this.groupId = groupId;
+        }
+    }
+
+    private final FirebaseFirestore db;
+    private final Map<String, GroupSubscription> groups = new HashMap<>();
+    // MyToDo task ID -> group key, for unsubscribe by task
+    private final Map<String, String> groupKeyByTask = new HashMap<>();
+    private boolean foreground = false;
+    // Set by start(); null until the UI has started following the imported tasks
+    private Context appContext;
+    private FamilySyncService service;
+    private final ExecutorService reconcileExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean reconcilePending = new AtomicBoolean();
+
+    // Reconciles the subscriptions when a database's tasks change
+    static class TaskTableObserver extends InvalidationTracker.Observer {
+        TaskTableObserver() {
+            super("tasks");
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            requestReconcile();
+        }
+    }
+
+    private FamilySyncSubscriptionManager() {
+        this.db = FirebaseFirestore.getInstance();
+        // Lifecycle observers must be registered on the main thread
+        new Handler(Looper.getMainLooper()).post(() ->
+                ProcessLifecycleOwner.get().getLifecycle().addObserver(this));
+    }
+
+    public static FamilySyncSubscriptionManager getInstance() {
+        if (INSTANCE == null) {
+            synchronized (FamilySyncSubscriptionManager.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new FamilySyncSubscriptionManager();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Start following the imported FamilySync tasks of the active account database
+     */
+    public static void start(Context context) {
+        FamilySyncSubscriptionManager manager = getInstance();
+        synchronized (manager) {
+            if (manager.appContext == null) {
+                manager.appContext = context.getApplicationContext();
+                manager.service = new FamilySyncService();
+            }
+        }
+        manager.scheduleReconcile();
+    }
+
+    /**
+     * Re-read the imported tasks of the active database, e.g. after an account switch.
+     * Does nothing before start().
+     */
+    public static void requestReconcile() {
+        FamilySyncSubscriptionManager manager = INSTANCE;
+        if (manager != null) {
+            manager.scheduleReconcile();
+        }
+    }
+
+    /**
+     * Subscribe an imported MyToDo task to completion changes of its FamilySync source task.
+     * Tasks without a group fall back to a listener on the single source document.
+     */
+    public synchronized void subscribe(String mytodoTaskId, String sourceTaskId, String sourceGroupId,
+                                       boolean isCompleted, CompletionChangeListener listener) {
+        String groupKey = groupKey(sourceTaskId, sourceGroupId);
+        String previousKey = groupKeyByTask.get(mytodoTaskId);
+        if (previousKey != null && !previousKey.equals(groupKey)) {
+            // Task moved to another group; drop the old subscription entirely
+            removeSubscriber(mytodoTaskId, Integer.MAX_VALUE);
+        }
+
+        GroupSubscription group = groups.get(groupKey);
+        if (group == null) {
+            group = new GroupSubscription(sourceGroupId);
+            groups.put(groupKey, group);
+        }
+
+        Map<String, Subscriber> subscribers = group.subscribersBySource.get(sourceTaskId);
+        if (subscribers == null) {
+            subscribers = new HashMap<>();
+            group.subscribersBySource.put(sourceTaskId, subscribers);
+        }
+        Subscriber subscriber = subscribers.get(mytodoTaskId);
+        if (subscriber == null) {
+            subscriber = new Subscriber(mytodoTaskId, sourceTaskId, isCompleted, listener);
+            subscribers.put(mytodoTaskId, subscriber);
+        }
+        subscriber.refCount++;
+        group.refCount++;
+        groupKeyByTask.put(mytodoTaskId, groupKey);
+
+        if (foreground && group.registration == null) {
+            attach(groupKey, group);
+        }
+        Log.d(TAG, "Subscribed task " + mytodoTaskId + " to group " + groupKey + " (refs: " + group.refCount + ")");
+    }
+
+    /**
+     * Release one subscription of a MyToDo task. The group listener is removed with the last reference.
+     */
+    public synchronized void unsubscribe(String mytodoTaskId) {
+        removeSubscriber(mytodoTaskId, 1);
+    }
+
+    /**
+     * Remove every subscription, e.g. when the user signs out
+     */
+    public synchronized void unsubscribeAll() {
+        for (GroupSubscription group : groups.values()) {
+            detach(group);
+        }
+        groups.clear();
+        groupKeyByTask.clear();
+    }
+
+    public synchronized boolean isSubscribed(String mytodoTaskId) {
+        return groupKeyByTask.containsKey(mytodoTaskId);
+    }
+
+    /**
+     * Record a completion change made on this device, so the server echo of our own write
+     * isn't dispatched as a remote change. Call before committing the write.
+     */
+    public synchronized void noteLocalCompletion(String mytodoTaskId, boolean isCompleted) {
+        Subscriber subscriber = findSubscriber(mytodoTaskId);
+        if (subscriber != null) {
+            subscriber.isCompleted = isCompleted;
+        }
+    }
+
+    @Override
+    public synchronized void onStart(@NonNull LifecycleOwner owner) {
+        foreground = true;
+        for (Map.Entry<String, GroupSubscription> entry : groups.entrySet()) {
+            if (entry.getValue().registration == null) {
+                attach(entry.getKey(), entry.getValue());
+            }
+        }
+        Log.d(TAG, "Process in foreground, attached " + groups.size() + " FamilySync listeners");
+        scheduleReconcile();
+    }
+
+    @Override
+    public synchronized void onStop(@NonNull LifecycleOwner owner) {
+        foreground = false;
+        for (GroupSubscription group : groups.values()) {
+            detach(group);
+        }
+        Log.d(TAG, "Process in background, detached FamilySync listeners");
+    }
+
+    // Coalesce reconcile requests; only one runs at a time, on reconcileExecutor
+    private void scheduleReconcile() {
+        synchronized (this) {
+            if (appContext == null || !foreground) {
+                return;
+            }
+        }
+        if (reconcilePending.compareAndSet(false, true)) {
+            reconcileExecutor.execute(() -> {
+                reconcilePending.set(false);
+                reconcileWithDatabase();
+            });
+        }
+    }
+
+    private void reconcileWithDatabase() {
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            unsubscribeAll();
+            return;
+        }
+        AppDatabase database = AppDatabase.getDatabase(appContext);
+        List<Task> importedTasks;
+        try {
+            importedTasks = database.taskDao().getImportedFamilySyncTasks();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read imported FamilySync tasks", e);
+            return;
+        }
+        List<Task> added = reconcile(importedTasks);
+        for (Task task : added) {
+            service.subscribeToFamilySyncChanges(task, new FamilySyncService.FamilySyncCallback() {
+                @Override
+                public void onSuccess(Object result) {
+                    boolean isCompleted = Boolean.TRUE.equals(((Map<?, ?>) result).get("isCompleted"));
+                    AppDatabase.databaseWriteExecutor.execute(() -> {
+                        long now = System.currentTimeMillis();
+                        database.taskDao().updateCompletionByDocumentId(task.firestoreDocumentId,
+                                isCompleted, isCompleted ? now : null, now);
+                    });
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.e(TAG, "FamilySync change for task " + task.firestoreDocumentId + " failed: " + error);
+                }
+            });
+        }
+        Log.d(TAG, "Reconciled " + importedTasks.size() + " imported tasks, " + added.size() + " new");
+    }
+
+    // Release tasks that are gone or moved to another source, take over the local completion state
+    // of the others; returns the imported tasks that still need a subscription
+    private synchronized List<Task> reconcile(List<Task> importedTasks) {
+        Map<String, Task> tasksById = new HashMap<>();
+        for (Task task : importedTasks) {
+            tasksById.put(task.firestoreDocumentId, task);
+        }
+        for (String mytodoTaskId : new ArrayList<>(groupKeyByTask.keySet())) {
+            Task task = tasksById.get(mytodoTaskId);
+            Subscriber subscriber = task != null ? findSubscriber(mytodoTaskId) : null;
+            if (subscriber == null || !subscriber.sourceTaskId.equals(task.sourceTaskId)
+                    || !groupKey(task.sourceTaskId, task.sourceGroupId).equals(groupKeyByTask.get(mytodoTaskId))) {
+                removeSubscriber(mytodoTaskId, Integer.MAX_VALUE);
+            } else {
+                subscriber.isCompleted = task.isCompleted;
+            }
+        }
+
+        List<Task> added = new ArrayList<>();
+        for (Task task : importedTasks) {
+            if (!groupKeyByTask.containsKey(task.firestoreDocumentId)) {
+                added.add(task);
+            }
+        }
+        return added;
+    }
+
+    private Subscriber findSubscriber(String mytodoTaskId) {
+        String groupKey = groupKeyByTask.get(mytodoTaskId);
+        GroupSubscription group = groupKey != null ? groups.get(groupKey) : null;
+        if (group == null) {
+            return null;
+        }
+        for (Map<String, Subscriber> subscribers : group.subscribersBySource.values()) {
+            Subscriber subscriber = subscribers.get(mytodoTaskId);
+            if (subscriber != null) {
+                return subscriber;
+            }
+        }
+        return null;
+    }
+
+    private void removeSubscriber(String mytodoTaskId, int refs) {
+        String groupKey = groupKeyByTask.get(mytodoTaskId);
+        if (groupKey == null) {
+            return;
+        }
+        GroupSubscription group = groups.get(groupKey);
+        if (group == null) {
+            groupKeyByTask.remove(mytodoTaskId);
+            return;
+        }
+
+        Iterator<Map<String, Subscriber>> iterator = group.subscribersBySource.values().iterator();
+        while (iterator.hasNext()) {
+            Map<String, Subscriber> subscribers = iterator.next();
+            Subscriber subscriber = subscribers.get(mytodoTaskId);
+            if (subscriber == null) {
+                continue;
+            }
+            int released = Math.min(refs, subscriber.refCount);
+            subscriber.refCount -= released;
+            group.refCount -= released;
+            if (subscriber.refCount <= 0) {
+                subscribers.remove(mytodoTaskId);
+                groupKeyByTask.remove(mytodoTaskId);
+            }
+            if (subscribers.isEmpty()) {
+                iterator.remove();
+            }
+            break;
+        }
+
+        if (group.refCount <= 0) {
+            detach(group);
+            groups.remove(groupKey);
+            Log.d(TAG, "Removed FamilySync listener for group " + groupKey);
+        }
+    }
+
+    private void attach(String groupKey, GroupSubscription group) {
+        if (group.groupId != null) {
+            group.registration = db.collection(FAMILY_SYNC_TASKS_COLLECTION)
+                    .whereEqualTo(FIELD_GROUP_ID, group.groupId)
+                    .addSnapshotListener((snapshots, e) -> {
+                        if (e != null) {
+                            Log.e(TAG, "Error listening to FamilySync group " + group.groupId, e);
+                            return;
+                        }
+                        if (snapshots == null) {
+                            return;
+                        }
+                        for (DocumentChange change : snapshots.getDocumentChanges()) {
+                            if (change.getType() != DocumentChange.Type.REMOVED) {
+                                dispatch(group, change.getDocument());
+                            }
+                        }
+                    });
+        } else {
+            // No group recorded: the key holds the single source task ID
+            String sourceTaskId = groupKey.substring(groupKey.indexOf(':') + 1);
+            group.registration = db.collection(FAMILY_SYNC_TASKS_COLLECTION)
+                    .document(sourceTaskId)
+                    .addSnapshotListener((documentSnapshot, e) -> {
+                        if (e != null) {
+                            Log.e(TAG, "Error listening to FamilySync task " + sourceTaskId, e);
+                            return;
+                        }
+                        if (documentSnapshot != null && documentSnapshot.exists()) {
+                            dispatch(group, documentSnapshot);
+                        }
+                    });
+        }
+    }
+
+    private void detach(GroupSubscription group) {
+        if (group.registration != null) {
+            group.registration.remove();
+            group.registration = null;
+        }
+    }
+
+    private void dispatch(GroupSubscription group, DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        if (data == null) {
+            return;
+        }
+        boolean isCompleted = "DONE".equals(data.get("status"));
+
+        Subscriber[] changed;
+        synchronized (this) {
+            Map<String, Subscriber> subscribers = group.subscribersBySource.get(document.getId());
+            if (subscribers == null || subscribers.isEmpty()) {
+                return;
+            }
+            int count = 0;
+            changed = new Subscriber[subscribers.size()];
+            for (Subscriber subscriber : subscribers.values()) {
+                if (subscriber.isCompleted != isCompleted) {
+                    subscriber.isCompleted = isCompleted;
+                    changed[count++] = subscriber;
+                }
+            }
+        }
+
+        // Notify outside the lock so listeners may subscribe/unsubscribe
+        for (Subscriber subscriber : changed) {
+            if (subscriber == null) {
+                break;
+            }
+            subscriber.listener.onCompletionChanged(subscriber.mytodoTaskId, subscriber.sourceTaskId, isCompleted, data);
+        }
+    }
+
+    private static String groupKey(String sourceTaskId, String sourceGroupId) {
+        return sourceGroupId != null ? "group:" + sourceGroupId : "task:" + sourceTaskId;
+    }
+}
@@ -42,6 +42,7 @@ public class FirebaseAuthService {
 
     public FirebaseAuthService(Context context) {
         this.context = context;
+        TaskApplication.ensureFirebaseInitialized();
         this.mAuth = FirebaseAuth.getInstance();
         this.db = FirebaseFirestore.getInstance();
         setupGoogleSignIn();
@@ -87,6 +88,7 @@ public class FirebaseAuthService {
                             Log.d(TAG, "signInWithCredential:success");
                             FirebaseUser user = mAuth.getCurrentUser();
                             if (user != null) {
+                                activateAccountDatabase(context, user.getUid());
                                 saveUserToFirestore(user);
                                 createUserObject(user);
                             }
@@ -137,7 +139,10 @@ public class FirebaseAuthService {
     }
 
     public void signOut() {
+        // Drop FamilySync listeners that belong to the signed-out account
+        FamilySyncSubscriptionManager.getInstance().unsubscribeAll();
         mAuth.signOut();
+        activateAccountDatabase(context, null);
         mGoogleSignInClient.signOut().addOnCompleteListener(new OnCompleteListener<Void>() {
             @Override
             public void onComplete(@NonNull Task<Void> task) {
@@ -146,6 +151,37 @@ public class FirebaseAuthService {
         });
     }
 
+    /**
+     * Make the account's local database the active one (null for signed out). The switch itself
+     * is a handle swap; reminders of the previous account are cancelled and the new account's
+     * reminders and widgets are refreshed in the background.
+     */
+    public static void activateAccountDatabase(Context context, String accountId) {
+        Context appContext = context.getApplicationContext();
+        AppDatabase previous = AppDatabase.switchAccount(appContext, accountId);
+        if (previous == null) {
+            return;
+        }
+        // FamilySync subscriptions follow the new account's imported tasks
+        FamilySyncSubscriptionManager.requestReconcile();
+        // The cached category list belongs to the previous account
+        CategorySnapshotStore.clear(appContext);
+        AppDatabase.databaseWriteExecutor.execute(() -> {
+            try {
+                ReminderManager reminderManager = new ReminderManager(appContext);
+                for (limor.tal.mytodo.Task task : previous.taskDao().getAllTasksSync()) {
+                    if (task.reminderOffset != null) {
+                        reminderManager.cancelReminder(task);
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to cancel reminders of the previous account", e);
+            }
+            BootReceiver.rescheduleAllReminders(appContext);
+            WidgetUpdateHelper.requestRefresh(appContext);
+        });
+    }
+
     public FirebaseUser getCurrentUser() {
         return mAuth.getCurrentUser();
     }
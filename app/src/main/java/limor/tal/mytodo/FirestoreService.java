@@ -10,19 +10,30 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.GetTokenResult;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreSettings;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.firestore.Source;
 import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class FirestoreService {
     private static final String TAG = "FirestoreService";
     private static final String COLLECTION_TASKS = "mytodo_tasks";
+    private static final String COLLECTION_SYNC_DEVICES = "mytodo_sync_devices";
+    private static final String COLLECTION_ARCHIVED_TASKS = "mytodo_archived_tasks";
+    // Document IDs per whereIn query
+    private static final int ID_QUERY_CHUNK = 10;
+    // Task writes per batch; Firestore allows 500 writes and one goes to the sync digests
+    private static final int TASKS_PER_BATCH = 499;
     
     private FirebaseFirestore db;
     private FirebaseAuth auth;
@@ -38,10 +49,20 @@ public class FirestoreService {
         void onError(String error);
     }
 
+    /**
+     * Receives the user's tasks one page at a time. The next page is only fetched after
+     * the receiver calls next.run(), so at most one page is held in memory.
+     */
+    public interface TaskPageCallback {
+        void onPage(List<limor.tal.mytodo.Task> tasks, Runnable next);
+        void onComplete(int totalTasks);
+        void onError(String error);
+    }
+
     public FirestoreService() {
+        TaskApplication.ensureFirebaseInitialized();
         this.db = FirebaseFirestore.getInstance();
         this.auth = FirebaseAuth.getInstance();
-        this.familySyncService = new FamilySyncService();
         
         // Only set Firestore settings if they haven't been set yet
         try {
@@ -57,6 +78,14 @@ public class FirestoreService {
         }
     }
 
+    // FamilySync integration is only needed for completion mirroring, so create it on first use
+    private synchronized FamilySyncService getFamilySyncService() {
+        if (familySyncService == null) {
+            familySyncService = new FamilySyncService();
+        }
+        return familySyncService;
+    }
+
     // Save a single task to Firestore
     public void saveTask(limor.tal.mytodo.Task task, FirestoreCallback callback) {
         if (auth.getCurrentUser() == null) {
@@ -71,8 +100,10 @@ public class FirestoreService {
         if (task.firestoreDocumentId != null) {
             // Update existing task
             firestoreTask.documentId = task.firestoreDocumentId;
-            db.collection(COLLECTION_TASKS).document(task.firestoreDocumentId)
-                    .set(firestoreTask.toMap())
+            WriteBatch batch = db.batch();
+            batch.set(db.collection(COLLECTION_TASKS).document(task.firestoreDocumentId), firestoreTask.toMap());
+            SyncDigest.invalidate(db, batch, userId, task.firestoreDocumentId);
+            batch.commit()
                     .addOnSuccessListener(new OnSuccessListener<Void>() {
                         @Override
                         public void onSuccess(Void aVoid) {
@@ -88,12 +119,15 @@ public class FirestoreService {
                         }
                     });
         } else {
-            // Create new task
-            db.collection(COLLECTION_TASKS)
-                    .add(firestoreTask.toMap())
-                    .addOnSuccessListener(new OnSuccessListener<DocumentReference>() {
+            // Create new task; the ID is generated up front so the digest bucket is known
+            DocumentReference documentReference = db.collection(COLLECTION_TASKS).document();
+            WriteBatch batch = db.batch();
+            batch.set(documentReference, firestoreTask.toMap());
+            SyncDigest.invalidate(db, batch, userId, documentReference.getId());
+            batch.commit()
+                    .addOnSuccessListener(new OnSuccessListener<Void>() {
                         @Override
-                        public void onSuccess(DocumentReference documentReference) {
+                        public void onSuccess(Void aVoid) {
                             Log.d(TAG, "Task saved with ID: " + documentReference.getId());
                             // Store the document ID back to the task for future syncs
                             task.firestoreDocumentId = documentReference.getId();
@@ -122,9 +156,10 @@ public class FirestoreService {
         firestoreTask.documentId = documentId;
         // Don't call updateTimestamp() here - preserve the task's original updatedAt
 
-        db.collection(COLLECTION_TASKS)
-                .document(documentId)
-                .set(firestoreTask.toMap())
+        WriteBatch batch = db.batch();
+        batch.set(db.collection(COLLECTION_TASKS).document(documentId), firestoreTask.toMap());
+        SyncDigest.invalidate(db, batch, userId, documentId);
+        batch.commit()
                 .addOnSuccessListener(new OnSuccessListener<Void>() {
                     @Override
                     public void onSuccess(Void aVoid) {
@@ -152,9 +187,10 @@ public class FirestoreService {
 
         long deletedAt = System.currentTimeMillis();
         
-        db.collection(COLLECTION_TASKS)
-                .document(documentId)
-                .update("deletedAt", deletedAt, "updatedAt", deletedAt)
+        WriteBatch batch = db.batch();
+        batch.update(db.collection(COLLECTION_TASKS).document(documentId), "deletedAt", deletedAt, "updatedAt", deletedAt);
+        SyncDigest.invalidate(db, batch, auth.getCurrentUser().getUid(), documentId);
+        batch.commit()
                 .addOnSuccessListener(new OnSuccessListener<Void>() {
                     @Override
                     public void onSuccess(Void aVoid) {
@@ -173,9 +209,15 @@ public class FirestoreService {
 
     // Hard delete a task from Firestore (completely remove - for cleanup purposes)
     public void deleteTask(String documentId, FirestoreCallback callback) {
-        db.collection(COLLECTION_TASKS)
-                .document(documentId)
-                .delete()
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        WriteBatch batch = db.batch();
+        batch.delete(db.collection(COLLECTION_TASKS).document(documentId));
+        SyncDigest.invalidate(db, batch, auth.getCurrentUser().getUid(), documentId);
+        batch.commit()
                 .addOnSuccessListener(new OnSuccessListener<Void>() {
                     @Override
                     public void onSuccess(Void aVoid) {
@@ -263,6 +305,491 @@ public class FirestoreService {
                 });
     }
 
+    // Load the current user's non-deleted tasks in pages of pageSize, newest first
+    public void loadUserTasksPaged(int pageSize, TaskPageCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        auth.getCurrentUser().getIdToken(false).addOnCompleteListener(new OnCompleteListener<GetTokenResult>() {
+            @Override
+            public void onComplete(Task<GetTokenResult> tokenTask) {
+                if (tokenTask.isSuccessful()) {
+                    String userId = auth.getCurrentUser().getUid();
+                    Log.d(TAG, "Loading tasks from Firestore in pages of " + pageSize + " for user: " + userId);
+                    loadTaskPage(userId, pageSize, null, 0, callback);
+                } else {
+                    Log.e(TAG, "User authentication token invalid", tokenTask.getException());
+                    callback.onError("Authentication token invalid: " + tokenTask.getException().getMessage());
+                }
+            }
+        });
+    }
+
+    // Same order as loadTasksFromFirestore, so it uses the same index. The cursor is the last
+    // document of the previous page, which also orders documents with equal updatedAt.
+    private void loadTaskPage(String userId, int pageSize, DocumentSnapshot cursor, int loadedSoFar, TaskPageCallback callback) {
+        Query query = db.collection(COLLECTION_TASKS)
+                .whereEqualTo("userId", userId)
+                .orderBy("updatedAt", Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+
+        query.get().addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
+            @Override
+            public void onComplete(Task<QuerySnapshot> task) {
+                if (!task.isSuccessful()) {
+                    Log.e(TAG, "Error loading task page from Firestore", task.getException());
+                    callback.onError("Failed to load tasks: " + task.getException().getMessage());
+                    return;
+                }
+                List<DocumentSnapshot> documents = task.getResult().getDocuments();
+                List<limor.tal.mytodo.Task> tasks = new ArrayList<>(documents.size());
+                for (DocumentSnapshot document : documents) {
+                    try {
+                        FirestoreTask firestoreTask = document.toObject(FirestoreTask.class);
+                        // Skip soft-deleted tasks
+                        if (firestoreTask != null && !firestoreTask.isDeleted()) {
+                            firestoreTask.documentId = document.getId();
+                            tasks.add(firestoreTask.toTask());
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error parsing task document", e);
+                    }
+                }
+
+                int loaded = loadedSoFar + tasks.size();
+                boolean lastPage = documents.size() < pageSize;
+                DocumentSnapshot last = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+                Log.d(TAG, "Loaded page of " + tasks.size() + " tasks (" + loaded + " so far)");
+                callback.onPage(tasks, () -> {
+                    if (lastPage) {
+                        callback.onComplete(loaded);
+                    } else {
+                        loadTaskPage(userId, pageSize, last, loaded, callback);
+                    }
+                });
+            }
+        });
+    }
+
+    // Load the current user's non-deleted tasks whose document IDs fall in the given digest buckets
+    public void loadUserTasksInBuckets(int firstBucket, int lastBucket, TasksCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        String userId = auth.getCurrentUser().getUid();
+        Query query = db.collection(COLLECTION_TASKS)
+                .whereEqualTo("userId", userId)
+                .orderBy(FieldPath.documentId());
+        String lowerId = SyncDigest.lowerBound(firstBucket);
+        String upperId = SyncDigest.upperBound(lastBucket);
+        if (lowerId != null) {
+            query = query.startAt(lowerId);
+        }
+        if (upperId != null) {
+            query = query.endBefore(upperId);
+        }
+
+        query.get().addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
+            @Override
+            public void onComplete(Task<QuerySnapshot> task) {
+                if (!task.isSuccessful()) {
+                    Log.e(TAG, "Error loading task buckets from Firestore", task.getException());
+                    callback.onError("Failed to load tasks: " + task.getException().getMessage());
+                    return;
+                }
+                List<limor.tal.mytodo.Task> tasks = new ArrayList<>();
+                for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                    try {
+                        FirestoreTask firestoreTask = document.toObject(FirestoreTask.class);
+                        // Skip soft-deleted tasks
+                        if (firestoreTask != null && !firestoreTask.isDeleted()) {
+                            firestoreTask.documentId = document.getId();
+                            tasks.add(firestoreTask.toTask());
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error parsing task document", e);
+                    }
+                }
+                Log.d(TAG, "Loaded " + tasks.size() + " tasks in buckets " + firstBucket + "-" + lastBucket);
+                callback.onTasksLoaded(tasks);
+            }
+        });
+    }
+
+    // Load the cloud sync digests and bucket generations; result is a SyncDigest.CloudState
+    public void loadSyncDigests(FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        db.collection(SyncDigest.COLLECTION)
+                .document(auth.getCurrentUser().getUid())
+                .get()
+                .addOnCompleteListener(new OnCompleteListener<DocumentSnapshot>() {
+                    @Override
+                    public void onComplete(Task<DocumentSnapshot> task) {
+                        if (!task.isSuccessful()) {
+                            Log.e(TAG, "Error loading sync digests", task.getException());
+                            callback.onError("Failed to load sync digests: " + task.getException().getMessage());
+                            return;
+                        }
+                        DocumentSnapshot document = task.getResult();
+                        SyncDigest.CloudState state = new SyncDigest.CloudState();
+                        if (document.exists()) {
+                            for (int bucket = 0; bucket < SyncDigest.BUCKET_COUNT; bucket++) {
+                                state.digests[bucket] = document.getLong(SyncDigest.fieldName(bucket));
+                                Long generation = document.getLong(SyncDigest.generationFieldName(bucket));
+                                state.generations[bucket] = generation != null ? generation : 0;
+                            }
+                        }
+                        callback.onSuccess(state);
+                    }
+                });
+    }
+
+    // Store verified digests for the given buckets, leaving the other buckets untouched. A bucket's
+    // digest is only stored if its generation still matches the one read before the fetch; a task
+    // written in between bumped it, and the bucket stays without digest. Result is the number stored.
+    public void saveSyncDigests(Map<Integer, Long> digests, long[] generations, FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        DocumentReference summary = db.collection(SyncDigest.COLLECTION).document(auth.getCurrentUser().getUid());
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot document = transaction.get(summary);
+                    Map<String, Object> fields = new HashMap<>();
+                    for (Map.Entry<Integer, Long> entry : digests.entrySet()) {
+                        int bucket = entry.getKey();
+                        Long generation = document.getLong(SyncDigest.generationFieldName(bucket));
+                        if ((generation != null ? generation : 0) == generations[bucket]) {
+                            fields.put(SyncDigest.fieldName(bucket), entry.getValue());
+                        }
+                    }
+                    if (!fields.isEmpty()) {
+                        fields.put("updatedAt", System.currentTimeMillis());
+                        transaction.set(summary, fields, SetOptions.merge());
+                    }
+                    return fields.isEmpty() ? 0 : fields.size() - 1;
+                })
+                .addOnSuccessListener(new OnSuccessListener<Integer>() {
+                    @Override
+                    public void onSuccess(Integer saved) {
+                        Log.d(TAG, "Saved sync digests for " + saved + " of " + digests.size() + " buckets");
+                        callback.onSuccess(saved);
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error saving sync digests", e);
+                        callback.onError("Failed to save sync digests: " + e.getMessage());
+                    }
+                });
+    }
+
+    // Record that this device has merged every cloud change made before syncedUpTo
+    public void acknowledgeSync(String deviceId, long syncedUpTo, FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(deviceId, syncedUpTo);
+        db.collection(COLLECTION_SYNC_DEVICES)
+                .document(auth.getCurrentUser().getUid())
+                .set(fields, SetOptions.merge())
+                .addOnSuccessListener(new OnSuccessListener<Void>() {
+                    @Override
+                    public void onSuccess(Void aVoid) {
+                        callback.onSuccess(null);
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error acknowledging sync", e);
+                        callback.onError("Failed to acknowledge sync: " + e.getMessage());
+                    }
+                });
+    }
+
+    // Load each device's last acknowledged sync time; result is a Map<String, Long> by device ID
+    public void loadSyncAcknowledgements(FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        db.collection(COLLECTION_SYNC_DEVICES)
+                .document(auth.getCurrentUser().getUid())
+                .get()
+                .addOnCompleteListener(new OnCompleteListener<DocumentSnapshot>() {
+                    @Override
+                    public void onComplete(Task<DocumentSnapshot> task) {
+                        if (!task.isSuccessful()) {
+                            Log.e(TAG, "Error loading sync acknowledgements", task.getException());
+                            callback.onError("Failed to load sync acknowledgements: " + task.getException().getMessage());
+                            return;
+                        }
+                        Map<String, Long> acknowledgements = new HashMap<>();
+                        Map<String, Object> data = task.getResult().getData();
+                        if (data != null) {
+                            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                                if (entry.getValue() instanceof Number) {
+                                    acknowledgements.put(entry.getKey(), ((Number) entry.getValue()).longValue());
+                                }
+                            }
+                        }
+                        callback.onSuccess(acknowledgements);
+                    }
+                });
+    }
+
+    // Stop holding tombstones back for devices that have stopped syncing
+    public void forgetSyncDevices(List<String> deviceIds, FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        Map<String, Object> fields = new HashMap<>();
+        for (String deviceId : deviceIds) {
+            fields.put(deviceId, FieldValue.delete());
+        }
+        db.collection(COLLECTION_SYNC_DEVICES)
+                .document(auth.getCurrentUser().getUid())
+                .set(fields, SetOptions.merge())
+                .addOnSuccessListener(new OnSuccessListener<Void>() {
+                    @Override
+                    public void onSuccess(Void aVoid) {
+                        Log.d(TAG, "Forgot " + deviceIds.size() + " inactive sync devices");
+                        callback.onSuccess(null);
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error removing sync devices", e);
+                        callback.onError("Failed to remove sync devices: " + e.getMessage());
+                    }
+                });
+    }
+
+    // Hard delete up to limit of the user's tombstones deleted before the given time, in one batch.
+    // Result is the List<String> of purged document IDs. Tombstones are not part of the sync
+    // digests, so the digests stay valid.
+    public void purgeTombstones(long deletedBefore, int limit, FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        db.collection(COLLECTION_TASKS)
+                .whereEqualTo("userId", auth.getCurrentUser().getUid())
+                .whereLessThan("deletedAt", deletedBefore)
+                .limit(limit)
+                .get()
+                .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
+                    @Override
+                    public void onComplete(Task<QuerySnapshot> task) {
+                        if (!task.isSuccessful()) {
+                            Log.e(TAG, "Error loading tombstones", task.getException());
+                            callback.onError("Failed to load tombstones: " + task.getException().getMessage());
+                            return;
+                        }
+                        List<DocumentSnapshot> documents = task.getResult().getDocuments();
+                        List<String> documentIds = new ArrayList<>(documents.size());
+                        if (documents.isEmpty()) {
+                            callback.onSuccess(documentIds);
+                            return;
+                        }
+                        WriteBatch batch = db.batch();
+                        for (DocumentSnapshot document : documents) {
+                            batch.delete(document.getReference());
+                            documentIds.add(document.getId());
+                        }
+                        batch.commit()
+                                .addOnSuccessListener(new OnSuccessListener<Void>() {
+                                    @Override
+                                    public void onSuccess(Void aVoid) {
+                                        Log.d(TAG, "Purged " + documentIds.size() + " tombstones");
+                                        callback.onSuccess(documentIds);
+                                    }
+                                })
+                                .addOnFailureListener(new OnFailureListener() {
+                                    @Override
+                                    public void onFailure(Exception e) {
+                                        Log.e(TAG, "Error purging tombstones", e);
+                                        callback.onError("Failed to purge tombstones: " + e.getMessage());
+                                    }
+                                });
+                    }
+                });
+    }
+
+    // Move synced tasks to the archive collection under the same document IDs, in one batch
+    public void archiveTasks(List<limor.tal.mytodo.Task> tasks, FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        String userId = auth.getCurrentUser().getUid();
+        WriteBatch batch = db.batch();
+        String[] documentIds = new String[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            limor.tal.mytodo.Task task = tasks.get(i);
+            FirestoreTask firestoreTask = FirestoreTask.fromTask(task, userId);
+            firestoreTask.documentId = task.firestoreDocumentId;
+            batch.set(db.collection(COLLECTION_ARCHIVED_TASKS).document(task.firestoreDocumentId), firestoreTask.toMap());
+            batch.delete(db.collection(COLLECTION_TASKS).document(task.firestoreDocumentId));
+            documentIds[i] = task.firestoreDocumentId;
+        }
+        SyncDigest.invalidate(db, batch, userId, documentIds);
+        batch.commit()
+                .addOnSuccessListener(new OnSuccessListener<Void>() {
+                    @Override
+                    public void onSuccess(Void aVoid) {
+                        Log.d(TAG, "Archived " + tasks.size() + " tasks");
+                        callback.onSuccess(null);
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error archiving tasks", e);
+                        callback.onError("Failed to archive tasks: " + e.getMessage());
+                    }
+                });
+    }
+
+    // Look up documents in the archive collection; result is a Map<String, Long> of document ID to updatedAt
+    public void findArchivedTasks(List<String> documentIds, FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+        findArchivedTasksChunk(auth.getCurrentUser().getUid(), documentIds, 0, new HashMap<>(), callback);
+    }
+
+    private void findArchivedTasksChunk(String userId, List<String> documentIds, int start, Map<String, Long> found,
+            FirestoreCallback callback) {
+        if (start >= documentIds.size()) {
+            callback.onSuccess(found);
+            return;
+        }
+        List<String> chunk = documentIds.subList(start, Math.min(start + ID_QUERY_CHUNK, documentIds.size()));
+        db.collection(COLLECTION_ARCHIVED_TASKS)
+                .whereEqualTo("userId", userId)
+                .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                .get()
+                .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
+                    @Override
+                    public void onComplete(Task<QuerySnapshot> task) {
+                        if (!task.isSuccessful()) {
+                            Log.e(TAG, "Error loading archived tasks", task.getException());
+                            callback.onError("Failed to load archived tasks: " + task.getException().getMessage());
+                            return;
+                        }
+                        for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                            Long updatedAt = document.getLong("updatedAt");
+                            found.put(document.getId(), updatedAt != null ? updatedAt : 0L);
+                        }
+                        findArchivedTasksChunk(userId, documentIds, start + ID_QUERY_CHUNK, found, callback);
+                    }
+                });
+    }
+
+    // Move archived tasks that were changed locally back to the tasks collection, in one batch
+    public void restoreArchivedTasks(List<limor.tal.mytodo.Task> tasks, FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+
+        String userId = auth.getCurrentUser().getUid();
+        WriteBatch batch = db.batch();
+        String[] documentIds = new String[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            limor.tal.mytodo.Task task = tasks.get(i);
+            FirestoreTask firestoreTask = FirestoreTask.fromTask(task, userId);
+            firestoreTask.documentId = task.firestoreDocumentId;
+            batch.set(db.collection(COLLECTION_TASKS).document(task.firestoreDocumentId), firestoreTask.toMap());
+            batch.delete(db.collection(COLLECTION_ARCHIVED_TASKS).document(task.firestoreDocumentId));
+            documentIds[i] = task.firestoreDocumentId;
+        }
+        SyncDigest.invalidate(db, batch, userId, documentIds);
+        batch.commit()
+                .addOnSuccessListener(new OnSuccessListener<Void>() {
+                    @Override
+                    public void onSuccess(Void aVoid) {
+                        Log.d(TAG, "Restored " + tasks.size() + " archived tasks");
+                        callback.onSuccess(null);
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error restoring archived tasks", e);
+                        callback.onError("Failed to restore archived tasks: " + e.getMessage());
+                    }
+                });
+    }
+
+    // Write changed synced tasks (edits and soft deletes alike) under their document IDs, one batch per
+    // TASKS_PER_BATCH tasks
+    public void updateTasks(List<limor.tal.mytodo.Task> tasks, FirestoreCallback callback) {
+        if (auth.getCurrentUser() == null) {
+            callback.onError("User not authenticated");
+            return;
+        }
+        updateTasksChunk(auth.getCurrentUser().getUid(), tasks, 0, callback);
+    }
+
+    private void updateTasksChunk(String userId, List<limor.tal.mytodo.Task> tasks, int start, FirestoreCallback callback) {
+        if (start >= tasks.size()) {
+            callback.onSuccess(null);
+            return;
+        }
+        List<limor.tal.mytodo.Task> chunk = tasks.subList(start, Math.min(start + TASKS_PER_BATCH, tasks.size()));
+        WriteBatch batch = db.batch();
+        String[] documentIds = new String[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            limor.tal.mytodo.Task task = chunk.get(i);
+            FirestoreTask firestoreTask = FirestoreTask.fromTask(task, userId);
+            firestoreTask.documentId = task.firestoreDocumentId;
+            batch.set(db.collection(COLLECTION_TASKS).document(task.firestoreDocumentId), firestoreTask.toMap());
+            documentIds[i] = task.firestoreDocumentId;
+        }
+        SyncDigest.invalidate(db, batch, userId, documentIds);
+        batch.commit()
+                .addOnSuccessListener(new OnSuccessListener<Void>() {
+                    @Override
+                    public void onSuccess(Void aVoid) {
+                        Log.d(TAG, "Updated " + chunk.size() + " tasks");
+                        updateTasksChunk(userId, tasks, start + TASKS_PER_BATCH, callback);
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error updating tasks", e);
+                        callback.onError("Failed to update tasks: " + e.getMessage());
+                    }
+                });
+    }
+
     // Batch save multiple tasks
     public void batchSaveTasks(List<limor.tal.mytodo.Task> tasks, FirestoreCallback callback) {
         if (auth.getCurrentUser() == null) {
@@ -272,14 +799,17 @@ public class FirestoreService {
 
         String userId = auth.getCurrentUser().getUid();
         WriteBatch batch = db.batch();
+        String[] documentIds = new String[tasks.size()];
 
-        for (limor.tal.mytodo.Task task : tasks) {
-            FirestoreTask firestoreTask = FirestoreTask.fromTask(task, userId);
+        for (int i = 0; i < tasks.size(); i++) {
+            FirestoreTask firestoreTask = FirestoreTask.fromTask(tasks.get(i), userId);
             // Don't call updateTimestamp() here - preserve the task's original updatedAt
             
             DocumentReference docRef = db.collection(COLLECTION_TASKS).document();
             batch.set(docRef, firestoreTask.toMap());
+            documentIds[i] = docRef.getId();
         }
+        SyncDigest.invalidate(db, batch, userId, documentIds);
 
         batch.commit()
                 .addOnSuccessListener(new OnSuccessListener<Void>() {
@@ -310,7 +840,24 @@ public class FirestoreService {
     
     // Update task completion with FamilySync sync
     public void updateTaskCompletionWithSync(String documentId, boolean isCompleted, FirestoreCallback callback) {
-        familySyncService.toggleTaskCompletionWithSync(documentId, isCompleted, new FamilySyncService.FamilySyncCallback() {
+        getFamilySyncService().toggleTaskCompletionWithSync(documentId, isCompleted, new FamilySyncService.FamilySyncCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                Log.d(TAG, "Task completion updated with FamilySync sync");
+                callback.onSuccess(result);
+            }
+            
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error updating task completion with sync: " + error);
+                callback.onError(error);
+            }
+        });
+    }
+    
+    // Update task completion with FamilySync sync, using the local task's cached FamilySync source ID
+    public void updateTaskCompletionWithSync(limor.tal.mytodo.Task task, boolean isCompleted, FirestoreCallback callback) {
+        getFamilySyncService().toggleTaskCompletionWithSync(task, isCompleted, new FamilySyncService.FamilySyncCallback() {
             @Override
             public void onSuccess(Object result) {
                 Log.d(TAG, "Task completion updated with FamilySync sync");
@@ -325,9 +872,14 @@ public class FirestoreService {
         });
     }
     
+    // Unsubscribe from FamilySync changes for a task
+    public void unsubscribeFromFamilySyncChanges(String taskId) {
+        getFamilySyncService().unsubscribeFromFamilySyncChanges(taskId);
+    }
+    
     // Subscribe to FamilySync changes for a task
     public void subscribeToFamilySyncChanges(String taskId, FirestoreCallback callback) {
-        familySyncService.subscribeToFamilySyncChanges(taskId, new FamilySyncService.FamilySyncCallback() {
+        getFamilySyncService().subscribeToFamilySyncChanges(taskId, new FamilySyncService.FamilySyncCallback() {
             @Override
             public void onSuccess(Object result) {
                 callback.onSuccess(result);
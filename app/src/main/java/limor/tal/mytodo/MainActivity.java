@@ -54,6 +54,7 @@ import java.util.Locale;
 import java.util.Date;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import android.os.Handler;
 import android.content.BroadcastReceiver;
 import android.content.IntentFilter;
@@ -123,14 +124,10 @@ public class MainActivity extends AppCompatActivity {
         // Initialize sync services
         syncManager = TaskApplication.getSyncManager();
         authService = new FirebaseAuthService(this);
+        // Follow FamilySync completion changes of imported tasks while the app is in the foreground
+        FamilySyncSubscriptionManager.start(this);
         
-        // Run migration to convert Hebrew values to English
-        // Log.d("MyToDo", "MainActivity: Starting migration to English values");
-        // Force migration to run again to fix any remaining Hebrew values
-        getSharedPreferences("MyToDoPrefs", Context.MODE_PRIVATE)
-                .edit()
-                .putBoolean("task_migration_to_english_completed", false)
-                .apply();
+        // Run migration to convert Hebrew values to English (once per account database)
         TaskMigrationUtils.migrateTasksToEnglishAsync(this);
         
         // Setup language change receiver
@@ -186,6 +183,8 @@ public class MainActivity extends AppCompatActivity {
         recyclerView = findViewById(R.id.recyclerView);
         viewModel = new ViewModelProvider(this).get(TaskViewModel.class);
         emptyStateTextView = findViewById(R.id.emptyStateTextView);
+        // Hidden until the first category list (snapshot or live) is observed
+        emptyStateTextView.setVisibility(View.GONE);
 
                 // Handle intent actions from ReminderService (after viewModel is initialized)
         Intent intent = getIntent();
@@ -347,6 +346,12 @@ public class MainActivity extends AppCompatActivity {
             });
         }
 
+        // Multi-select button: toggles selecting several tasks for the bottom bar actions
+        ImageButton selectModeButton = findViewById(R.id.selectModeButton);
+        if (selectModeButton != null) {
+            selectModeButton.setOnClickListener(v -> setMultiSelectMode(!adapter.isMultiSelectMode()));
+        }
+
         // Sync button
         ImageButton syncButton = findViewById(R.id.syncButton);
         if (syncButton != null) {
@@ -407,6 +412,10 @@ public class MainActivity extends AppCompatActivity {
         // Move button click listener
         if (moveButton != null) {
             moveButton.setOnClickListener(v -> {
+                if (adapter.isMultiSelectMode()) {
+                    bulkMoveTasks();
+                    return;
+                }
                 if (selectedTask != null) {
                     showMoveTaskDialog(selectedTask);
                 } else {
@@ -418,93 +427,16 @@ public class MainActivity extends AppCompatActivity {
         // Complete button click listener
         if (completeButton != null) {
             completeButton.setOnClickListener(v -> {
+                if (adapter.isMultiSelectMode()) {
+                    bulkCompleteTasks();
+                    return;
+                }
                 if (selectedTask != null) {
                     // Check if the button should be enabled (action is allowed)                                                        
                     if (canCompleteTask(selectedTask)) {
                         // Action is allowed, proceed with completion       
                         
-                        // Handle recurring task completion
-                        if (selectedTask.isRecurring && TaskConstants.RECURRENCE_MONTHLY.equals(selectedTask.recurrenceType)) {
-                            // For monthly tasks, update due date to next month and reset to waiting
-                            Log.d("MyToDo", "COMPLETION DEBUG: Before monthly task update - ID: " + selectedTask.id + ", dueDate: " + selectedTask.dueDate + ", dayOfWeek: " + selectedTask.dayOfWeek + ", isCompleted: " + selectedTask.isCompleted);
-                            Calendar calendar = Calendar.getInstance();
-                            if (selectedTask.dueDate != null) {
-                                calendar.setTimeInMillis(selectedTask.dueDate);
-                                calendar.add(Calendar.MONTH, 1);
-                                selectedTask.dueDate = calendar.getTimeInMillis();
-                            } else {
-                                // If no due date, set it to next month from today
-                                calendar.add(Calendar.MONTH, 1);
-                                selectedTask.dueDate = calendar.getTimeInMillis();
-                            }
-                            selectedTask.dayOfWeek = TaskConstants.DAY_NONE; // Reset to waiting
-                            selectedTask.isCompleted = false;
-                            selectedTask.completionDate = null;
-                            Log.d("MyToDo", "COMPLETION DEBUG: After monthly task update - ID: " + selectedTask.id + ", dueDate: " + selectedTask.dueDate + ", dayOfWeek: " + selectedTask.dayOfWeek + ", isCompleted: " + selectedTask.isCompleted);
-                            Log.d("MyToDo", "Complete button: Monthly task completed and moved to next month: " + selectedTask.description + ", new due date: " + selectedTask.dueDate + ", id: " + selectedTask.id);
-                        } else if (selectedTask.isRecurring && TaskConstants.RECURRENCE_WEEKLY.equals(selectedTask.recurrenceType)) {
-                            // For weekly tasks, update due date to next week and reset to waiting
-                            Log.d("MyToDo", "COMPLETION DEBUG: Before weekly task update - ID: " + selectedTask.id + ", dueDate: " + selectedTask.dueDate + ", dayOfWeek: " + selectedTask.dayOfWeek + ", isCompleted: " + selectedTask.isCompleted);
-                            Calendar calendar = Calendar.getInstance();
-                            if (selectedTask.dueDate != null) {
-                                calendar.setTimeInMillis(selectedTask.dueDate);
-                                calendar.add(Calendar.WEEK_OF_YEAR, 1);
-                                selectedTask.dueDate = calendar.getTimeInMillis();
-                            } else {
-                                // If no due date, set it to next week from today
-                                calendar.add(Calendar.WEEK_OF_YEAR, 1);
-                                selectedTask.dueDate = calendar.getTimeInMillis();
-                            }
-                            selectedTask.dayOfWeek = TaskConstants.DAY_NONE; // Reset to waiting
-                            selectedTask.isCompleted = false;
-                            selectedTask.completionDate = null;
-                            Log.d("MyToDo", "COMPLETION DEBUG: After weekly task update - ID: " + selectedTask.id + ", dueDate: " + selectedTask.dueDate + ", dayOfWeek: " + selectedTask.dayOfWeek + ", isCompleted: " + selectedTask.isCompleted);
-                            Log.d("MyToDo", "Complete button: Weekly task completed and moved to next week: " + selectedTask.description + ", new due date: " + selectedTask.dueDate + ", id: " + selectedTask.id);
-                        } else if (selectedTask.isRecurring && TaskConstants.RECURRENCE_BIWEEKLY.equals(selectedTask.recurrenceType)) {
-                            // For bi-weekly tasks, update due date to 2 weeks later and reset to waiting
-                            Log.d("MyToDo", "COMPLETION DEBUG: Before bi-weekly task update - ID: " + selectedTask.id + ", dueDate: " + selectedTask.dueDate + ", dayOfWeek: " + selectedTask.dayOfWeek + ", isCompleted: " + selectedTask.isCompleted);
-                            Calendar calendar = Calendar.getInstance();
-                            if (selectedTask.dueDate != null) {
-                                calendar.setTimeInMillis(selectedTask.dueDate);
-                                calendar.add(Calendar.WEEK_OF_YEAR, 2);
-                                selectedTask.dueDate = calendar.getTimeInMillis();
-                            } else {
-                                // If no due date, set it to 2 weeks from today
-                                calendar.add(Calendar.WEEK_OF_YEAR, 2);
-                                selectedTask.dueDate = calendar.getTimeInMillis();
-                            }
-                            selectedTask.dayOfWeek = TaskConstants.DAY_NONE; // Reset to waiting
-                            selectedTask.isCompleted = false;
-                            selectedTask.completionDate = null;
-                            Log.d("MyToDo", "COMPLETION DEBUG: After bi-weekly task update - ID: " + selectedTask.id + ", dueDate: " + selectedTask.dueDate + ", dayOfWeek: " + selectedTask.dayOfWeek + ", isCompleted: " + selectedTask.isCompleted);
-                            Log.d("MyToDo", "Complete button: Bi-weekly task completed and moved to 2 weeks later: " + selectedTask.description + ", new due date: " + selectedTask.dueDate + ", id: " + selectedTask.id);
-                        } else if (selectedTask.isRecurring && TaskConstants.RECURRENCE_YEARLY.equals(selectedTask.recurrenceType)) {
-                            // For yearly tasks, update due date to next year and reset to waiting
-                            Log.d("MyToDo", "COMPLETION DEBUG: Before yearly task update - ID: " + selectedTask.id + ", dueDate: " + selectedTask.dueDate + ", dayOfWeek: " + selectedTask.dayOfWeek + ", isCompleted: " + selectedTask.isCompleted);
-                            Calendar calendar = Calendar.getInstance();
-                            if (selectedTask.dueDate != null) {
-                                calendar.setTimeInMillis(selectedTask.dueDate);
-                                calendar.add(Calendar.YEAR, 1);
-                                selectedTask.dueDate = calendar.getTimeInMillis();
-                            } else {
-                                // If no due date, set it to next year from today
-                                calendar.add(Calendar.YEAR, 1);
-                                selectedTask.dueDate = calendar.getTimeInMillis();
-                            }
-                            selectedTask.dayOfWeek = TaskConstants.DAY_NONE; // Reset to waiting
-                            selectedTask.isCompleted = false;
-                            selectedTask.completionDate = null;
-                            Log.d("MyToDo", "COMPLETION DEBUG: After yearly task update - ID: " + selectedTask.id + ", dueDate: " + selectedTask.dueDate + ", dayOfWeek: " + selectedTask.dayOfWeek + ", isCompleted: " + selectedTask.isCompleted);
-                            Log.d("MyToDo", "Complete button: Yearly task completed and moved to next year: " + selectedTask.description + ", new due date: " + selectedTask.dueDate + ", id: " + selectedTask.id);
-                        } else {
-                            // For non-recurring tasks, just toggle completion status
-                            Log.d("MyToDo", "COMPLETION DEBUG: Before non-recurring task update - ID: " + selectedTask.id + ", isCompleted: " + selectedTask.isCompleted);
-                            selectedTask.isCompleted = !selectedTask.isCompleted;
-                            Calendar calendar = Calendar.getInstance();
-                            selectedTask.completionDate = selectedTask.isCompleted ? calendar.getTimeInMillis() : null;
-                            Log.d("MyToDo", "COMPLETION DEBUG: After non-recurring task update - ID: " + selectedTask.id + ", isCompleted: " + selectedTask.isCompleted);
-                            Log.d("MyToDo", "Complete button: Completed task: " + selectedTask.description + ", isCompleted: " + selectedTask.isCompleted + ", id: " + selectedTask.id);
-                        }
+                        applyCompletion(selectedTask);
 
                         // Cancel any pending reminder when completing the task
                         if (selectedTask.reminderOffset != null) {      
@@ -532,11 +464,6 @@ public class MainActivity extends AppCompatActivity {
                         
                         selectedTask = null;
                         updateButtonStates();
-
-                        // Refresh widgets after task completion (only if widgets are installed)                                                                
-                        if (WidgetUpdateHelper.hasWidgets(this)) {
-                            WidgetUpdateHelper.refreshAllWidgets(this);
-                        }
                     } else {
                         // Action not allowed, show explanation
                         Toast.makeText(this, getString(R.string.daily_task_wrong_day), Toast.LENGTH_LONG).show();                                               
@@ -551,6 +478,10 @@ public class MainActivity extends AppCompatActivity {
         // Delete button click listener
         if (deleteButton != null) {
             deleteButton.setOnClickListener(v -> {
+                if (adapter.isMultiSelectMode()) {
+                    bulkDeleteTasks();
+                    return;
+                }
                 if (selectedTask != null) {
                     // Refresh the selected task from database to get latest firestoreDocumentId
                     refreshSelectedTaskFromDatabase(selectedTask.id);
@@ -608,7 +539,7 @@ public class MainActivity extends AppCompatActivity {
         }
 
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new TaskAdapter(new ArrayList<>(), viewModel, this, task -> {
+        adapter = new TaskAdapter(viewModel, this, task -> {
             selectedTask = task;
             updateButtonStates();
         });
@@ -752,13 +683,16 @@ public class MainActivity extends AppCompatActivity {
         
         Log.d("MyToDo", "onCreate: Enhanced drag and drop implemented with visual feedback");
 
-        viewModel.getTasksByCategory().observe(this, items -> {
-            Log.d("MyToDo", "onCreate: Tasks observed, count: " + items.size());
-            for (Object item : items) {
-                Log.d("MyToDo", "onCreate: Item: " + (item instanceof String ? item : ((Task) item).description + ", id: " + ((Task) item).id));
+        viewModel.getSections().observe(this, sections -> {
+            Log.d("MyToDo", "onCreate: Sections observed, count: " + sections.size());
+            adapter.setSections(sections);
+            boolean isEmpty = true;
+            for (TaskSection section : sections) {
+                if (!section.isEmpty()) {
+                    isEmpty = false;
+                    break;
+                }
             }
-            adapter.setItems(items);
-            boolean isEmpty = items.isEmpty();
             emptyStateTextView.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
             Log.d("MyToDo", "onCreate: Empty state visibility: " + (isEmpty ? "VISIBLE" : "GONE"));
             Log.d("MyToDo", "onCreate: Empty state text: " + emptyStateTextView.getText().toString());
@@ -1368,11 +1302,6 @@ public class MainActivity extends AppCompatActivity {
                     viewModel.insert(newTask);
                     Log.d("MyToDo", "showTaskDialog: viewModel.insert called for new task: " + newTask.description + ", id: " + newTask.id);
                     
-                    // Refresh widgets after task creation (only if widgets are installed)
-                    if (WidgetUpdateHelper.hasWidgets(this)) {
-                        WidgetUpdateHelper.refreshAllWidgets(this);
-                    }
-                    
                     // Sync new task to cloud if user is authenticated
                     if (authService.isUserSignedIn()) {
                         syncManager.forceSync(new SyncManager.SyncCallback() {
@@ -1434,11 +1363,6 @@ public class MainActivity extends AppCompatActivity {
                     viewModel.update(task);
                     Log.d("MyToDo", "showTaskDialog: viewModel.update called for existing task: " + task.description + ", id: " + task.id);
                     
-                    // Refresh widgets after task update (only if widgets are installed)
-                    if (WidgetUpdateHelper.hasWidgets(this)) {
-                        WidgetUpdateHelper.refreshAllWidgets(this);
-                    }
-                    
                     // Sync updated task to cloud if user is authenticated
                     if (authService.isUserSignedIn()) {
                         Log.d("MyToDo", "showTaskDialog: About to call forceSync for task: " + task.description + ", firestoreDocumentId: " + task.firestoreDocumentId);
@@ -1667,50 +1591,16 @@ public class MainActivity extends AppCompatActivity {
 
     private String mapDayOfWeekToCurrentLanguage(String storedDayOfWeek, String[] currentDaysOfWeek) {
         try {
-            Log.d("MyToDo", "mapDayOfWeekToCurrentLanguage: Input - storedDayOfWeek: '" + storedDayOfWeek + "', currentDaysOfWeek: " + java.util.Arrays.toString(currentDaysOfWeek));
             if (storedDayOfWeek == null) return null;
             if (currentDaysOfWeek == null || currentDaysOfWeek.length < 3) {
                 Log.e("MyToDo", "mapDayOfWeekToCurrentLanguage: currentDaysOfWeek array is invalid");
                 return storedDayOfWeek;
             }
             
-            // Handle special categories
-            if ("None".equals(storedDayOfWeek) || "ללא".equals(storedDayOfWeek)) {
-                return currentDaysOfWeek[0];
-            }
-            if ("Immediate".equals(storedDayOfWeek) || "מיידי".equals(storedDayOfWeek)) {
-                return currentDaysOfWeek[1];
-            }
-            if ("Soon".equals(storedDayOfWeek) || "בקרוב".equals(storedDayOfWeek)) {
-                return currentDaysOfWeek[2];
-            }
-            
-            // Handle English day names (stored in database)
-            String[] englishDays = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
-            int englishIndex = -1;
-            for (int i = 0; i < englishDays.length; i++) {
-                if (englishDays[i].equals(storedDayOfWeek)) {
-                    englishIndex = i;
-                    break;
-                }
-            }
-            if (englishIndex >= 0 && englishIndex + 3 < currentDaysOfWeek.length) {
-                Log.d("MyToDo", "mapDayOfWeekToCurrentLanguage: Mapped English day '" + storedDayOfWeek + "' to index " + (englishIndex + 3) + " -> '" + currentDaysOfWeek[englishIndex + 3] + "'");
-                return currentDaysOfWeek[englishIndex + 3];
-            }
-            
-            // Handle Hebrew day names (legacy data)
-            String[] hebrewDays = {"ראשון", "שני", "שלישי", "רביעי", "חמישי", "שישי", "שבת"};
-            int hebrewIndex = -1;
-            for (int i = 0; i < hebrewDays.length; i++) {
-                if (hebrewDays[i].equals(storedDayOfWeek)) {
-                    hebrewIndex = i;
-                    break;
-                }
-            }
-            if (hebrewIndex >= 0 && hebrewIndex + 3 < currentDaysOfWeek.length) {
-                Log.d("MyToDo", "mapDayOfWeekToCurrentLanguage: Mapped Hebrew day '" + storedDayOfWeek + "' to index " + (hebrewIndex + 3) + " -> '" + currentDaysOfWeek[hebrewIndex + 3] + "'");
-                return currentDaysOfWeek[hebrewIndex + 3];
+            // English (database) and legacy Hebrew values share the days_of_week indices
+            int index = TaskTranslationTable.storedDayIndex(storedDayOfWeek);
+            if (index != TaskTranslationTable.NOT_FOUND && index < currentDaysOfWeek.length) {
+                return currentDaysOfWeek[index];
             }
             
             Log.w("MyToDo", "mapDayOfWeekToCurrentLanguage: Could not map day '" + storedDayOfWeek + "' - returning as-is");
@@ -1723,6 +1613,33 @@ public class MainActivity extends AppCompatActivity {
 
     private void showMoveTaskDialog(Task task) {
         Log.d("MyToDo", "showMoveTaskDialog: Opening move dialog for task: " + task.description + ", id: " + task.id);
+        showMoveDialog(task.dayOfWeek, englishDayOfWeek -> {
+            task.dayOfWeek = englishDayOfWeek;
+            viewModel.update(task);
+            Log.d("MyToDo", "showMoveTaskDialog: Task moved to day: " + englishDayOfWeek + ", id: " + task.id);
+
+            // Sync task move to cloud if user is authenticated
+            if (authService.isUserSignedIn()) {
+                syncManager.forceSync(new SyncManager.SyncCallback() {
+                    @Override
+                    public void onSyncComplete(boolean success, String message) {
+                        Log.d("MyToDo", "Task move sync: " + (success ? "Success" : "Failed") + " - " + message);
+                    }
+
+                    @Override
+                    public void onSyncProgress(String message) {
+                        Log.d("MyToDo", "Task move sync progress: " + message);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Show the day picker; the current day (null when moving tasks from several days) is grayed out
+     * and onMove gets the chosen day's English name
+     */
+    private void showMoveDialog(String currentDay, Consumer<String> onMove) {
         String[] daysOfWeek = getResources().getStringArray(R.array.days_of_week);
         
         // Create a custom layout for better organization
@@ -1771,7 +1688,7 @@ public class MainActivity extends AppCompatActivity {
         Log.d("MyToDo", "showMoveTaskDialog: Today is " + daysOfWeek[startDayIndex] + " (index: " + startDayIndex + ")");
         
         // If task is already set to today, start from tomorrow
-        String taskCurrentDay = task.dayOfWeek;
+        String taskCurrentDay = currentDay;
         if (taskCurrentDay != null && taskCurrentDay.equals(TaskConstants.getEnglishDayName(Calendar.getInstance().get(Calendar.DAY_OF_WEEK)))) {
             // Move to next day, wrapping around from Saturday (9) to Sunday (3)
             if (startDayIndex == 9) {
@@ -1854,24 +1771,7 @@ public class MainActivity extends AppCompatActivity {
                 // Convert Hebrew day name to English before saving to database
                 String englishDayOfWeek = TaskTranslationUtils.convertHebrewToEnglishDayName(newDay);
                 Log.d("MyToDo", "showMoveTaskDialog: Converting Hebrew day '" + newDay + "' to English: '" + englishDayOfWeek + "'");
-                task.dayOfWeek = englishDayOfWeek;
-                viewModel.update(task);
-                Log.d("MyToDo", "showMoveTaskDialog: Task moved to day: " + englishDayOfWeek + ", id: " + task.id);
-                
-                // Sync task move to cloud if user is authenticated
-                if (authService.isUserSignedIn()) {
-                    syncManager.forceSync(new SyncManager.SyncCallback() {
-                        @Override
-                        public void onSyncComplete(boolean success, String message) {
-                            Log.d("MyToDo", "Task move sync: " + (success ? "Success" : "Failed") + " - " + message);
-                        }
-
-                        @Override
-                        public void onSyncProgress(String message) {
-                            Log.d("MyToDo", "Task move sync progress: " + message);
-                        }
-                    });
-                }
+                onMove.accept(englishDayOfWeek);
                 
                 // Close the dialog after moving the task
                 dialog.dismiss();
@@ -1902,6 +1802,16 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void updateButtonStates() {
+        if (adapter != null && adapter.isMultiSelectMode()) {
+            boolean hasSelection = !adapter.getMultiSelectedTasks().isEmpty();
+            editButton.setEnabled(false);
+            moveButton.setEnabled(hasSelection);
+            completeButton.setEnabled(hasSelection);
+            deleteButton.setEnabled(hasSelection);
+            completeButton.setText(getString(R.string.complete));
+            completeButton.setContentDescription(null);
+            return;
+        }
         boolean hasSelectedTask = selectedTask != null;
         editButton.setEnabled(hasSelectedTask);
         moveButton.setEnabled(hasSelectedTask);
@@ -1933,6 +1843,136 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    private void setMultiSelectMode(boolean enabled) {
+        Log.d("MyToDo", "setMultiSelectMode: " + enabled);
+        selectedTask = null;
+        adapter.setSelectedTask(null);
+        adapter.setMultiSelectMode(enabled);
+        if (enabled) {
+            Toast.makeText(this, getString(R.string.select_tasks_hint), Toast.LENGTH_SHORT).show();
+        }
+        updateButtonStates();
+    }
+
+    /**
+     * Called by the adapter when a task is added to or removed from the multi-selection
+     */
+    public void onMultiSelectionChanged(int count) {
+        Log.d("MyToDo", "onMultiSelectionChanged: " + count + " tasks selected");
+        updateButtonStates();
+    }
+
+    private void bulkMoveTasks() {
+        List<Task> tasks = adapter.getMultiSelectedTasks();
+        if (tasks.isEmpty()) {
+            return;
+        }
+        // Gray out the current day only when all tasks share it
+        String currentDay = tasks.get(0).dayOfWeek;
+        for (Task task : tasks) {
+            if (currentDay != null && !currentDay.equals(task.dayOfWeek)) {
+                currentDay = null;
+            }
+        }
+        showMoveDialog(currentDay, englishDayOfWeek -> {
+            for (Task task : tasks) {
+                task.dayOfWeek = englishDayOfWeek;
+            }
+            Log.d("MyToDo", "bulkMoveTasks: Moving " + tasks.size() + " tasks to " + englishDayOfWeek);
+            applyBulkChange(tasks, new ArrayList<>(), new ArrayList<>());
+        });
+    }
+
+    private void bulkCompleteTasks() {
+        List<Task> tasks = new ArrayList<>();
+        int skipped = 0;
+        for (Task task : adapter.getMultiSelectedTasks()) {
+            if (task.isCompleted) {
+                continue; // Already done; the bulk action only completes
+            }
+            if (canCompleteTask(task)) {
+                tasks.add(task);
+            } else {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            Toast.makeText(this, getString(R.string.daily_task_wrong_day), Toast.LENGTH_LONG).show();
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<Task> withReminders = new ArrayList<>();
+        for (Task task : tasks) {
+            markCompleted(task);
+            if (task.reminderOffset != null) {
+                withReminders.add(task);
+            }
+        }
+        Log.d("MyToDo", "bulkCompleteTasks: Completing " + tasks.size() + " tasks, skipped " + skipped);
+        applyBulkChange(tasks, new ArrayList<>(), withReminders);
+    }
+
+    private void bulkDeleteTasks() {
+        List<Task> tasks = adapter.getMultiSelectedTasks();
+        if (tasks.isEmpty()) {
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(getString(R.string.delete_tasks))
+                .setMessage(getString(R.string.delete_tasks_confirmation, tasks.size()))
+                .setPositiveButton(getString(R.string.delete), (dialog, which) -> {
+                    // Same strategy as a single delete: soft delete synced tasks, hard delete local-only ones
+                    List<Task> softDeleted = new ArrayList<>();
+                    List<Task> hardDeleted = new ArrayList<>();
+                    List<Task> withReminders = new ArrayList<>();
+                    long now = System.currentTimeMillis();
+                    for (Task task : tasks) {
+                        if (task.firestoreDocumentId != null) {
+                            task.deletedAt = now;
+                            softDeleted.add(task);
+                        } else {
+                            hardDeleted.add(task);
+                        }
+                        if (task.reminderOffset != null) {
+                            withReminders.add(task);
+                        }
+                    }
+                    Log.d("MyToDo", "bulkDeleteTasks: Deleting " + tasks.size() + " tasks (" + hardDeleted.size() + " local only)");
+                    applyBulkChange(softDeleted, hardDeleted, withReminders);
+                    Toast.makeText(this, getString(R.string.tasks_deleted, tasks.size()), Toast.LENGTH_SHORT).show();
+                })
+                .setNegativeButton(getString(R.string.cancel), (dialog, which) -> dialog.dismiss())
+                .setCancelable(true)
+                .show();
+    }
+
+    // Write a multi-select change as one transaction, cancel the affected reminders in one pass
+    // and push the change to the cloud as one batched write, then leave multi-select mode
+    private void applyBulkChange(List<Task> updated, List<Task> hardDeleted, List<Task> cancelReminders) {
+        for (Task task : cancelReminders) {
+            cancelReminder(task.id);
+        }
+        boolean signedIn = authService.isUserSignedIn();
+        viewModel.applyBulkChange(updated, hardDeleted, () -> {
+            if (!signedIn) {
+                return;
+            }
+            syncManager.pushTaskChanges(updated, new SyncManager.SyncCallback() {
+                @Override
+                public void onSyncComplete(boolean success, String message) {
+                    Log.d("MyToDo", "Bulk change sync: " + (success ? "Success" : "Failed") + " - " + message);
+                }
+
+                @Override
+                public void onSyncProgress(String message) {
+                    Log.d("MyToDo", "Bulk change sync progress: " + message);
+                }
+            });
+        });
+        setMultiSelectMode(false);
+    }
+
     public void openEditDialog(Task task) {
         Log.d("MyToDo", "openEditDialog: Opening edit dialog for task: " + task.description + ", id: " + task.id);
         showTaskDialog(task);
@@ -2566,6 +2606,15 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        // The signed-in account changed (e.g. in Settings); rebuild the screen over its database
+        if (viewModel != null && !viewModel.isBoundToActiveDatabase()) {
+            Log.d("MyToDo", "onResume: Active account database changed, restarting");
+            Intent restart = new Intent(this, MainActivity.class);
+            restart.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            startActivity(restart);
+            finish();
+            return;
+        }
         Log.d("MyToDo", "onResume: Current intent action: " + (getIntent() != null ? getIntent().getAction() : "null"));
         Log.d("MyToDo", "onResume: isProcessingEditFromReminder flag: " + isProcessingEditFromReminder);
         
@@ -2735,6 +2784,25 @@ public class MainActivity extends AppCompatActivity {
         // SyncManager is now a singleton in Application class, no need to shutdown
     }
     
+    /**
+     * Toggle a task's completion. Completed recurring tasks move on to their next due date at the
+     * next day boundary (see TaskRollover), so a completion can still be undone the same day.
+     */
+    private void applyCompletion(Task task) {
+        Log.d("MyToDo", "COMPLETION DEBUG: Before update - ID: " + task.id + ", isCompleted: " + task.isCompleted + ", recurrenceType: " + task.recurrenceType);
+        task.isCompleted = !task.isCompleted;
+        task.completionDate = task.isCompleted ? System.currentTimeMillis() : null;
+        Log.d("MyToDo", "Complete button: Completed task: " + task.description + ", isCompleted: " + task.isCompleted + ", id: " + task.id);
+    }
+
+    /**
+     * Complete a task without toggling, for the bulk Complete action
+     */
+    private void markCompleted(Task task) {
+        task.isCompleted = true;
+        task.completionDate = System.currentTimeMillis();
+    }
+
     /**
      * Helper method to check if a daily task can be completed on the current day
      */
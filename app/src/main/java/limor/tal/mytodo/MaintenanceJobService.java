@@ -0,0 +1,80 @@
+package limor.tal.mytodo;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Daily database maintenance, run by JobScheduler while the device is idle and charging.
+ * Each run does a bounded amount of work; a run that stops with work left asks to be
+ * rescheduled.
+ */
+public class MaintenanceJobService extends JobService {
+    private static final String TAG = "MaintenanceJobService";
+    private static final int JOB_ID = 1001;
+    private static final long INTERVAL = 24 * 60 * 60 * 1000L;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private volatile TombstoneCompactor compactor;
+    private volatile TaskArchiver archiver;
+
+    /**
+     * Schedule the maintenance job unless it is already scheduled
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null) {
+            return;
+        }
+        for (JobInfo pending : scheduler.getAllPendingJobs()) {
+            if (pending.getId() == JOB_ID) {
+                return;
+            }
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, MaintenanceJobService.class))
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .setPeriodic(INTERVAL)
+                .setPersisted(true)
+                .build();
+        int result = scheduler.schedule(job);
+        Log.d(TAG, "Maintenance job scheduled: " + (result == JobScheduler.RESULT_SUCCESS));
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        Log.d(TAG, "Maintenance started");
+        compactor = new TombstoneCompactor(this, executor);
+        archiver = new TaskArchiver(this, executor);
+        compactor.compact(moreTombstones -> archiver.archive(moreToArchive -> {
+            boolean moreRemaining = moreTombstones || moreToArchive;
+            Log.d(TAG, "Maintenance finished, more remaining: " + moreRemaining);
+            jobFinished(params, moreRemaining);
+        }));
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        if (compactor != null) {
+            compactor.stop();
+        }
+        if (archiver != null) {
+            archiver.stop();
+        }
+        return true;
+    }
+
+    @Override
+    public void onDestroy() {
+        executor.shutdown();
+        super.onDestroy();
+    }
+}
@@ -0,0 +1,84 @@
+package limor.tal.mytodo;
+
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.core.text.PrecomputedTextCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * LRU cache of measured task descriptions for the main list.
+ *
+ * Mixed Hebrew/English descriptions are expensive to measure and lay out, so TaskAdapter
+ * queues the descriptions of the expanded categories here when new rows arrive. They are
+ * measured with PrecomputedTextCompat on a background thread, and bind sets the cached
+ * result instead of measuring on the main thread.
+ *
+ * Entries are only valid for the text params they were measured with; a cache that gets
+ * different params drops its entries.
+ */
+public class PrecomputedTextCache {
+    private static final String TAG = "PrecomputedTextCache";
+    private static final int MAX_ENTRIES = 512;
+
+    private final LruCache<String, PrecomputedTextCompat> cache = new LruCache<>(MAX_ENTRIES);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private volatile PrecomputedTextCompat.Params params;
+
+    /**
+     * Set the text params of the description view. Returns true if they changed.
+     */
+    public boolean setParams(PrecomputedTextCompat.Params newParams) {
+        if (newParams.equals(params)) {
+            return false;
+        }
+        params = newParams;
+        cache.evictAll();
+        return true;
+    }
+
+    /**
+     * The measured text for this description, or null if it is not ready yet
+     */
+    public PrecomputedTextCompat get(String text) {
+        return params != null ? cache.get(text) : null;
+    }
+
+    /**
+     * Measure the given descriptions in the background, skipping ones already cached
+     */
+    public void prefetch(List<String> texts) {
+        PrecomputedTextCompat.Params currentParams = params;
+        if (currentParams == null || texts.isEmpty()) {
+            return;
+        }
+        List<String> missing = new ArrayList<>();
+        for (String text : texts) {
+            if (!text.isEmpty() && cache.get(text) == null) {
+                missing.add(text);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> {
+            for (String text : missing) {
+                if (params != currentParams) {
+                    return; // Params changed; these results would be dropped
+                }
+                if (cache.get(text) == null) {
+                    cache.put(text, PrecomputedTextCompat.create(text, currentParams));
+                }
+            }
+            Log.d(TAG, "Measured " + missing.size() + " descriptions");
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
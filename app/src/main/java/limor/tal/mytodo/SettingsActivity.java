@@ -20,11 +20,17 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.core.os.LocaleListCompat;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SettingsActivity extends AppCompatActivity implements FirebaseAuthService.AuthCallback {
     private static final String TAG = "Settings";
     private static final int REQUEST_CODE_ALARM_SOUND = 1001;
     private static final String PREFS_NAME = "MyToDoPrefs";
+    // Archive age choices in days; 0 turns archiving off
+    private static final int[] ARCHIVE_AFTER_DAYS_OPTIONS = {0, 7, 30, 90, 365};
+    private static final String BACKUP_MIME_TYPE = "application/octet-stream";
+    private static final String BACKUP_FILE_NAME = "mytodo-backup.mtdb";
     
     private TextView currentSoundTextView;
     private Button selectSoundButton;
@@ -35,8 +41,11 @@ public class SettingsActivity extends AppCompatActivity implements FirebaseAuthS
     private TextView accountStatusTextView;
     private Button signInOutButton;
     private Button languageToggleButton;
+    private Button archiveAfterButton;
     private FirebaseAuthService authService;
     private SharedPreferences prefs;
+    // Export and import stream the database off the main thread, one at a time
+    private final ExecutorService backupExecutor = Executors.newSingleThreadExecutor();
     
     private final ActivityResultLauncher<Intent> soundPickerLauncher = registerForActivityResult(
             new ActivityResultContracts.StartActivityForResult(),
@@ -70,6 +79,24 @@ public class SettingsActivity extends AppCompatActivity implements FirebaseAuthS
             }
     );
     
+    private final ActivityResultLauncher<String> exportLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(BACKUP_MIME_TYPE),
+            uri -> {
+                if (uri != null) {
+                    runBackup(uri, true);
+                }
+            }
+    );
+
+    private final ActivityResultLauncher<String[]> importLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(),
+            uri -> {
+                if (uri != null) {
+                    runBackup(uri, false);
+                }
+            }
+    );
+    
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         // Set language BEFORE calling super.onCreate (same as MainActivity)
@@ -101,6 +128,7 @@ public class SettingsActivity extends AppCompatActivity implements FirebaseAuthS
         signInOutButton = findViewById(R.id.signInOutButton);
         languageToggleButton = findViewById(R.id.languageToggleButton);
         testSoundButton = findViewById(R.id.testSoundButton);
+        archiveAfterButton = findViewById(R.id.archiveAfterButton);
         
         // Debug: Check what strings are being loaded
         Log.d(TAG, "Account settings string: " + getString(R.string.account_settings));
@@ -120,6 +148,10 @@ public class SettingsActivity extends AppCompatActivity implements FirebaseAuthS
         // Set up button listeners
         selectSoundButton.setOnClickListener(v -> openSoundPicker());
         testSoundButton.setOnClickListener(v -> testSound());
+        archiveAfterButton.setOnClickListener(v -> showArchiveAfterDialog());
+        findViewById(R.id.exportTasksButton).setOnClickListener(v -> exportLauncher.launch(BACKUP_FILE_NAME));
+        findViewById(R.id.importTasksButton).setOnClickListener(v -> importLauncher.launch(new String[] {BACKUP_MIME_TYPE, "*/*"}));
+        updateArchiveAfterButtonText();
         
         // Back button
         Button backButton = findViewById(R.id.backButton);
@@ -256,6 +288,60 @@ public class SettingsActivity extends AppCompatActivity implements FirebaseAuthS
         updateLanguageButtonText(currentLang);
     }
 
+    @Override
+    protected void onDestroy() {
+        backupExecutor.shutdown();
+        super.onDestroy();
+    }
+
+    private void runBackup(Uri uri, boolean export) {
+        String accountId = authService.isUserSignedIn() ? authService.getCurrentUser().getUid() : null;
+        TaskBackup backup = new TaskBackup(this);
+        backupExecutor.execute(() -> {
+            String message;
+            try {
+                message = export
+                        ? getString(R.string.export_complete, backup.exportTo(uri, accountId, true))
+                        : getString(R.string.import_complete, backup.importFrom(uri, accountId));
+            } catch (Exception e) {
+                Log.e(TAG, "Backup failed", e);
+                message = getString(R.string.backup_failed, e.getMessage());
+            }
+            String result = message;
+            runOnUiThread(() -> Toast.makeText(getApplicationContext(), result, Toast.LENGTH_LONG).show());
+        });
+    }
+
+    private void showArchiveAfterDialog() {
+        int current = prefs.getInt(TaskArchiver.PREF_ARCHIVE_AFTER_DAYS, TaskArchiver.DEFAULT_ARCHIVE_AFTER_DAYS);
+        String[] labels = new String[ARCHIVE_AFTER_DAYS_OPTIONS.length];
+        int checked = -1;
+        for (int i = 0; i < ARCHIVE_AFTER_DAYS_OPTIONS.length; i++) {
+            labels[i] = archiveAfterLabel(ARCHIVE_AFTER_DAYS_OPTIONS[i]);
+            if (ARCHIVE_AFTER_DAYS_OPTIONS[i] == current) {
+                checked = i;
+            }
+        }
+        new AlertDialog.Builder(this)
+                .setSingleChoiceItems(labels, checked, (dialog, which) -> {
+                    prefs.edit().putInt(TaskArchiver.PREF_ARCHIVE_AFTER_DAYS, ARCHIVE_AFTER_DAYS_OPTIONS[which]).apply();
+                    Log.d(TAG, "Archive after days set to " + ARCHIVE_AFTER_DAYS_OPTIONS[which]);
+                    updateArchiveAfterButtonText();
+                    dialog.dismiss();
+                })
+                .setNegativeButton(getString(R.string.cancel), null)
+                .show();
+    }
+
+    private String archiveAfterLabel(int days) {
+        return days > 0 ? getString(R.string.archive_after_days, days) : getString(R.string.archive_never);
+    }
+
+    private void updateArchiveAfterButtonText() {
+        int days = prefs.getInt(TaskArchiver.PREF_ARCHIVE_AFTER_DAYS, TaskArchiver.DEFAULT_ARCHIVE_AFTER_DAYS);
+        archiveAfterButton.setText(getString(R.string.archive_completed_after, archiveAfterLabel(days)));
+    }
+
     private void updateLanguageButtonText(String language) {
         if (languageToggleButton != null) {
             languageToggleButton.setText(language.equals("he") ? "Switch to English" : "עבור לעברית");
@@ -7,8 +7,6 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.widget.RemoteViews;
 
@@ -281,71 +279,11 @@ public class SimpleTaskWidgetProvider extends AppWidgetProvider {
                 if (task != null) {
                     Log.d(TAG, "completeTask: Found task: " + task.description + ", current completed status: " + task.isCompleted + ", recurrenceType: " + task.recurrenceType);
                     
-                    // Handle recurring task completion
-                    if (task.isRecurring && TaskConstants.RECURRENCE_MONTHLY.equals(task.recurrenceType)) {
-                        // For monthly tasks, update due date to next month and reset to waiting
-                        Log.d(TAG, "completeTask: Handling monthly recurring task: " + task.description);
-                        Calendar calendar = Calendar.getInstance();
-                        if (task.dueDate != null) {
-                            calendar.setTimeInMillis(task.dueDate);
-                            calendar.add(Calendar.MONTH, 1);
-                            task.dueDate = calendar.getTimeInMillis();
-                        } else {
-                            calendar.add(Calendar.MONTH, 1);
-                            task.dueDate = calendar.getTimeInMillis();
-                        }
-                        task.dayOfWeek = TaskConstants.DAY_NONE; // Reset to waiting
-                        task.isCompleted = false;
-                        task.completionDate = null;
-                        Log.d(TAG, "completeTask: Monthly task completed and moved to next month: " + task.description + ", new due date: " + task.dueDate);
-                    } else if (task.isRecurring && TaskConstants.RECURRENCE_WEEKLY.equals(task.recurrenceType)) {
-                        // For weekly tasks, update due date to next week and reset to waiting
-                        Log.d(TAG, "completeTask: Handling weekly recurring task: " + task.description);
-                        Calendar calendar = Calendar.getInstance();
-                        if (task.dueDate != null) {
-                            calendar.setTimeInMillis(task.dueDate);
-                            calendar.add(Calendar.WEEK_OF_YEAR, 1);
-                            task.dueDate = calendar.getTimeInMillis();
-                        } else {
-                            calendar.add(Calendar.WEEK_OF_YEAR, 1);
-                            task.dueDate = calendar.getTimeInMillis();
-                        }
-                        task.dayOfWeek = TaskConstants.DAY_NONE; // Reset to waiting
-                        task.isCompleted = false;
-                        task.completionDate = null;
-                        Log.d(TAG, "completeTask: Weekly task completed and moved to next week: " + task.description + ", new due date: " + task.dueDate);
-                    } else if (task.isRecurring && TaskConstants.RECURRENCE_BIWEEKLY.equals(task.recurrenceType)) {
-                        // For bi-weekly tasks, update due date to 2 weeks later and reset to waiting
-                        Log.d(TAG, "completeTask: Handling bi-weekly recurring task: " + task.description);
-                        Calendar calendar = Calendar.getInstance();
-                        if (task.dueDate != null) {
-                            calendar.setTimeInMillis(task.dueDate);
-                            calendar.add(Calendar.WEEK_OF_YEAR, 2);
-                            task.dueDate = calendar.getTimeInMillis();
-                        } else {
-                            calendar.add(Calendar.WEEK_OF_YEAR, 2);
-                            task.dueDate = calendar.getTimeInMillis();
-                        }
-                        task.dayOfWeek = TaskConstants.DAY_NONE; // Reset to waiting
-                        task.isCompleted = false;
-                        task.completionDate = null;
-                        Log.d(TAG, "completeTask: Bi-weekly task completed and moved to 2 weeks later: " + task.description + ", new due date: " + task.dueDate);
-                    } else if (task.isRecurring && TaskConstants.RECURRENCE_YEARLY.equals(task.recurrenceType)) {
-                        // For yearly tasks, update due date to next year and reset to waiting
-                        Log.d(TAG, "completeTask: Handling yearly recurring task: " + task.description);
-                        Calendar calendar = Calendar.getInstance();
-                        if (task.dueDate != null) {
-                            calendar.setTimeInMillis(task.dueDate);
-                            calendar.add(Calendar.YEAR, 1);
-                            task.dueDate = calendar.getTimeInMillis();
-                        } else {
-                            calendar.add(Calendar.YEAR, 1);
-                            task.dueDate = calendar.getTimeInMillis();
-                        }
-                        task.dayOfWeek = TaskConstants.DAY_NONE; // Reset to waiting
-                        task.isCompleted = false;
-                        task.completionDate = null;
-                        Log.d(TAG, "completeTask: Yearly task completed and moved to next year: " + task.description + ", new due date: " + task.dueDate);
+                    if (task.isRecurring) {
+                        // Recurring tasks move on to their next occurrence at the day boundary (TaskRollover)
+                        Log.d(TAG, "completeTask: Handling recurring task: " + task.description);
+                        task.isCompleted = true;
+                        task.completionDate = System.currentTimeMillis();
                     } else {
                         // For non-recurring tasks, mark as completed
                         Log.d(TAG, "completeTask: Handling non-recurring task: " + task.description);
@@ -361,7 +299,7 @@ public class SimpleTaskWidgetProvider extends AppWidgetProvider {
                         Log.d(TAG, "completeTask: Task has Firestore ID, syncing with FamilySync: " + task.firestoreDocumentId);
                         try {
                             FirestoreService firestoreService = new FirestoreService();
-                            firestoreService.updateTaskCompletionWithSync(task.firestoreDocumentId, true, new FirestoreService.FirestoreCallback() {
+                            firestoreService.updateTaskCompletionWithSync(task, true, new FirestoreService.FirestoreCallback() {
                                 @Override
                                 public void onSuccess(Object result) {
                                     Log.d(TAG, "completeTask: FamilySync sync successful for task: " + task.description);
@@ -379,35 +317,8 @@ public class SimpleTaskWidgetProvider extends AppWidgetProvider {
                         Log.d(TAG, "completeTask: Task has no Firestore ID, skipping FamilySync sync: " + task.description);
                     }
                     
-                    // Refresh all widgets on main thread
-                    android.os.Handler mainHandler = new android.os.Handler(android.os.Looper.getMainLooper());
-                    mainHandler.post(() -> {
-                        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-                        ComponentName componentName = new ComponentName(context, SimpleTaskWidgetProvider.class);
-                        int[] appWidgetIds = appWidgetManager.getAppWidgetIds(componentName);
-                        
-                        for (int appWidgetId : appWidgetIds) {
-                            updateWidget(context, appWidgetManager, appWidgetId);
-                        }
-                        
-        // Also notify the app to refresh its data
-        Intent refreshIntent = new Intent("limor.tal.mytodo.REFRESH_TASKS");
-        context.sendBroadcast(refreshIntent);
-        Log.d(TAG, "completeTask: Sent refresh broadcast to app");
-        
-        // Force complete widget refresh to clear any cached checkbox states
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            Log.d(TAG, "completeTask: Forcing complete widget refresh to clear any cached states");
-            AppWidgetManager delayedAppWidgetManager = AppWidgetManager.getInstance(context);
-            int[] delayedAppWidgetIds = delayedAppWidgetManager.getAppWidgetIds(new ComponentName(context, SimpleTaskWidgetProvider.class));
-            
-            // Force complete widget refresh by calling updateWidget for each widget
-            for (int appWidgetId : delayedAppWidgetIds) {
-                Log.d(TAG, "completeTask: Forcing complete refresh for widget ID: " + appWidgetId);
-                updateWidget(context, delayedAppWidgetManager, appWidgetId);
-            }
-        }, 300); // 300ms delay to ensure database update is complete
-                    });
+                    // No explicit refresh here: the update invalidates the tasks table, which
+                    // refreshes the widgets (WidgetUpdateHelper) and the app's LiveData
                 } else {
                     Log.e(TAG, "completeTask: Task not found with ID: " + taskId);
                 }
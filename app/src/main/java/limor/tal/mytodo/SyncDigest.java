@@ -0,0 +1,142 @@
+package limor.tal.mytodo;
+
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-bucket digests of the synced tasks, used to skip the parts of a sync where both sides agree.
+ *
+ * Tasks are bucketed by the first character of their Firestore document ID, so every bucket is
+ * one contiguous document ID range that can be fetched with a range query, locally and in the
+ * cloud. A bucket's digest is a wrapping sum of a mixed hash of (document ID, updatedAt) over
+ * its live tasks: it does not depend on order, and a soft-deleted task simply drops out.
+ *
+ * The cloud digests are kept in one summary document per user. Every task write clears the
+ * digest of the task's bucket in the same batch, and a sync writes a digest back only for a
+ * bucket it has just fetched and found needing no uploads, so a missing digest always means
+ * "fetch this bucket". Task writes also bump the bucket's generation; a digest is only stored if
+ * the generation is still the one read before the fetch, so a write from another client that
+ * lands in between isn't covered by a stale digest.
+ */
+public final class SyncDigest {
+    public static final String COLLECTION = "mytodo_sync_digests";
+    // Characters of auto-generated document IDs, in Firestore's (byte) order
+    private static final char[] ID_CHARS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    public static final int BUCKET_COUNT = ID_CHARS.length;
+
+    /**
+     * The cloud digests and bucket generations, as read from the summary document
+     */
+    public static class CloudState {
+        // Null where a bucket has no digest
+        public final Long[] digests = new Long[BUCKET_COUNT];
+        public final long[] generations = new long[BUCKET_COUNT];
+    }
+
+    /**
+     * The columns of a synced task that digests need
+     */
+    public static class Row {
+        public String firestoreDocumentId;
+        public Long updatedAt;
+        public Long deletedAt;
+    }
+
+    private SyncDigest() {
+    }
+
+    /**
+     * Bucket of a document ID; IDs starting below '1' go to the first bucket, above 'z' to the last
+     */
+    public static int bucketOf(String documentId) {
+        char first = documentId.isEmpty() ? 0 : documentId.charAt(0);
+        int index = Arrays.binarySearch(ID_CHARS, first);
+        return Math.max(index >= 0 ? index : -index - 2, 0);
+    }
+
+    /**
+     * Inclusive lower bound of the bucket's document ID range, or null for the first bucket
+     */
+    public static String lowerBound(int bucket) {
+        return bucket > 0 ? String.valueOf(ID_CHARS[bucket]) : null;
+    }
+
+    /**
+     * Exclusive upper bound of the bucket's document ID range, or null for the last bucket
+     */
+    public static String upperBound(int bucket) {
+        return bucket < BUCKET_COUNT - 1 ? String.valueOf(ID_CHARS[bucket + 1]) : null;
+    }
+
+    /**
+     * Field of the summary document holding the bucket's digest
+     */
+    public static String fieldName(int bucket) {
+        return "b" + bucket;
+    }
+
+    /**
+     * Field of the summary document holding the bucket's generation, bumped by every task write
+     */
+    public static String generationFieldName(int bucket) {
+        return "g" + bucket;
+    }
+
+    public static long hash(String documentId, Long updatedAt) {
+        long h = documentId.hashCode() * 0x9E3779B97F4A7C15L + (updatedAt != null ? updatedAt : 0);
+        // splitmix64 finalizer, so nearby timestamps spread over all bits
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Digest of every bucket over the live tasks among the given rows
+     */
+    public static long[] compute(List<Row> rows) {
+        long[] digests = new long[BUCKET_COUNT];
+        for (Row row : rows) {
+            if (row.deletedAt == null) {
+                digests[bucketOf(row.firestoreDocumentId)] += hash(row.firestoreDocumentId, row.updatedAt);
+            }
+        }
+        return digests;
+    }
+
+    /**
+     * Buckets holding a task updated or deleted at or after the given time
+     */
+    public static boolean[] touchedSince(List<Row> rows, long since) {
+        boolean[] touched = new boolean[BUCKET_COUNT];
+        for (Row row : rows) {
+            if ((row.updatedAt != null && row.updatedAt >= since) || (row.deletedAt != null && row.deletedAt >= since)) {
+                touched[bucketOf(row.firestoreDocumentId)] = true;
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Clear the cloud digests of the buckets holding these documents and bump their generations,
+     * as part of a task write
+     */
+    public static void invalidate(FirebaseFirestore db, WriteBatch batch, String userId, String... documentIds) {
+        Map<String, Object> cleared = new HashMap<>();
+        for (String documentId : documentIds) {
+            int bucket = bucketOf(documentId);
+            if (!cleared.containsKey(fieldName(bucket))) {
+                cleared.put(fieldName(bucket), FieldValue.delete());
+                cleared.put(generationFieldName(bucket), FieldValue.increment(1));
+            }
+        }
+        batch.set(db.collection(COLLECTION).document(userId), cleared, SetOptions.merge());
+    }
+}
@@ -0,0 +1,162 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only local queue for task_sync_logs audit entries.
+ * Entries are stored in Room and flushed to Firestore in batches, either periodically or
+ * once the queue reaches a size threshold, so audit writes stay off the completion path.
+ * The queue is also flushed when the app process goes to the background.
+ * The queue is capped; under backpressure the oldest entries are dropped.
+ *
+ * The queue lives in the active account's database, which changes on an account switch,
+ * so the DAO is looked up per operation rather than kept.
+ */
+public class SyncLogBuffer implements DefaultLifecycleObserver {
+    private static final String TAG = "SyncLogBuffer";
+    private static final String SYNC_LOGS_COLLECTION = "task_sync_logs";
+    private static final long FLUSH_INTERVAL_SECONDS = 60;
+    private static final int FLUSH_THRESHOLD = 20;
+    private static final int MAX_QUEUE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 400; // Firestore allows up to 500 writes per batch
+
+    private static volatile SyncLogBuffer INSTANCE;
+
+    private final Context context;
+    private final FirebaseFirestore db;
+    private final FirebaseAuth auth;
+    private final ScheduledExecutorService scheduler;
+    // Only touched on the scheduler thread
+    private boolean flushInFlight = false;
+
+    private SyncLogBuffer(Context context) {
+        this.context = context;
+        this.db = FirebaseFirestore.getInstance();
+        this.auth = FirebaseAuth.getInstance();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::flushNow, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        // Lifecycle observers must be registered on the main thread
+        new Handler(Looper.getMainLooper()).post(() ->
+                ProcessLifecycleOwner.get().getLifecycle().addObserver(this));
+    }
+
+    public static SyncLogBuffer getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (SyncLogBuffer.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SyncLogBuffer(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Queue an audit entry. Returns immediately; the entry is persisted and flushed in the background.
+     */
+    public void log(String action, String familySyncTaskId, String mytodoTaskId, boolean completionStatus) {
+        if (auth.getCurrentUser() == null) {
+            return;
+        }
+        SyncLogEntry entry = new SyncLogEntry(action, familySyncTaskId, mytodoTaskId,
+                auth.getCurrentUser().getUid(), System.currentTimeMillis(), completionStatus);
+
+        scheduler.execute(() -> {
+            try {
+                SyncLogDao syncLogDao = syncLogDao();
+                syncLogDao.insert(entry);
+                syncLogDao.trimToSize(MAX_QUEUE_SIZE);
+                // Only this user's entries are flushed, so only they count towards a flush
+                if (syncLogDao.countForUser(entry.userId) >= FLUSH_THRESHOLD) {
+                    flushNow();
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error queueing sync log entry", e);
+            }
+        });
+    }
+
+    /**
+     * Request a flush of the queued entries
+     */
+    public void flush() {
+        scheduler.execute(this::flushNow);
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        // The process may be killed in the background; don't leave entries waiting for the timer
+        flush();
+    }
+
+    // The queue of the active account's database
+    private SyncLogDao syncLogDao() {
+        return AppDatabase.getDatabase(context).syncLogDao();
+    }
+
+    // Runs on the scheduler thread
+    private void flushNow() {
+        if (flushInFlight || auth.getCurrentUser() == null) {
+            return;
+        }
+        String userId = auth.getCurrentUser().getUid();
+
+        // Flushed entries are deleted from the database they were read from, even after a switch
+        SyncLogDao syncLogDao;
+        List<SyncLogEntry> entries;
+        try {
+            syncLogDao = syncLogDao();
+            entries = syncLogDao.getOldestForUser(userId, MAX_BATCH_SIZE);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading sync log queue", e);
+            return;
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        WriteBatch batch = db.batch();
+        for (SyncLogEntry entry : entries) {
+            batch.set(db.collection(SYNC_LOGS_COLLECTION).document(), entry.toMap());
+        }
+        long maxId = entries.get(entries.size() - 1).id;
+        int size = entries.size();
+
+        flushInFlight = true;
+        batch.commit()
+                .addOnSuccessListener(aVoid -> scheduler.execute(() -> {
+                    flushInFlight = false;
+                    try {
+                        syncLogDao.deleteFlushed(userId, maxId);
+                        Log.d(TAG, "Flushed " + size + " sync log entries");
+                        if (size == MAX_BATCH_SIZE) {
+                            flushNow();
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error removing flushed sync log entries", e);
+                    }
+                }))
+                .addOnFailureListener(e -> scheduler.execute(() -> {
+                    // Entries stay queued and are retried on the next scheduled flush
+                    flushInFlight = false;
+                    Log.e(TAG, "Error flushing sync log entries", e);
+                }));
+    }
+}
@@ -0,0 +1,26 @@
+package limor.tal.mytodo;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface SyncLogDao {
+    @Insert
+    void insert(SyncLogEntry entry);
+
+    @Query("SELECT COUNT(*) FROM sync_log_queue WHERE userId = :userId")
+    int countForUser(String userId);
+
+    @Query("SELECT * FROM sync_log_queue WHERE userId = :userId ORDER BY id ASC LIMIT :limit")
+    List<SyncLogEntry> getOldestForUser(String userId, int limit);
+
+    @Query("DELETE FROM sync_log_queue WHERE userId = :userId AND id <= :maxId")
+    void deleteFlushed(String userId, long maxId);
+
+    // Drop the oldest entries so that at most maxEntries remain
+    @Query("DELETE FROM sync_log_queue WHERE id NOT IN (SELECT id FROM sync_log_queue ORDER BY id DESC LIMIT :maxEntries)")
+    void trimToSize(int maxEntries);
+}
@@ -0,0 +1,45 @@
+package limor.tal.mytodo;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A task_sync_logs audit entry waiting in the local queue to be flushed to Firestore
+ */
+@Entity(tableName = "sync_log_queue")
+public class SyncLogEntry {
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    public String action;
+    public String familySyncTaskId;
+    public String mytodoTaskId;
+    public String userId;
+    public long timestamp;
+    public boolean completionStatus;
+
+    public SyncLogEntry(String action, String familySyncTaskId, String mytodoTaskId, String userId,
+                        long timestamp, boolean completionStatus) {
+        this.action = action;
+        this.familySyncTaskId = familySyncTaskId;
+        this.mytodoTaskId = mytodoTaskId;
+        this.userId = userId;
+        this.timestamp = timestamp;
+        this.completionStatus = completionStatus;
+    }
+
+    // Convert to Map for Firestore
+    public Map<String, Object> toMap() {
+        Map<String, Object> logData = new HashMap<>();
+        logData.put("action", action);
+        logData.put("familySyncTaskId", familySyncTaskId);
+        logData.put("mytodoTaskId", mytodoTaskId);
+        logData.put("userId", userId);
+        logData.put("timestamp", timestamp);
+        logData.put("completionStatus", completionStatus);
+        return logData;
+    }
+}
@@ -5,11 +5,14 @@ import android.content.SharedPreferences;
 import android.util.Log;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -18,9 +21,23 @@ public class SyncManager {
     private static final String PREFS_NAME = "MyToDoPrefs";
     private static final String PREF_LAST_SYNC = "last_sync_timestamp";
     private static final String PREF_FIRST_SYNC = "first_sync_completed";
+    private static final String PREF_LAST_FULL_CHECK = "last_full_digest_check";
+    // Buckets are rechecked in full once a day, in case a digest was stored over a concurrent write
+    private static final long FULL_CHECK_INTERVAL = 24 * 60 * 60 * 1000L;
+    // Most digest buckets fetched by one range query
+    private static final int MAX_BUCKETS_PER_FETCH = 8;
+    private static final String PREF_DEVICE_ID = "sync_device_id";
+    private static final String PREF_LAST_ACK = "last_sync_acknowledged";
+    // The sync state keys above are kept per account database; see syncKey
+    // Sync acknowledgements only move the tombstone watermark, so they are written at most hourly
+    private static final long ACK_INTERVAL = 60 * 60 * 1000L;
+    // Cloud tasks per Firestore page, and local tasks per batch when sweeping after a paged sync
+    private static final int FIRST_SYNC_PAGE_SIZE = 200;
+    private static final int LOCAL_SWEEP_BATCH_SIZE = 200;
     
     private Context context;
     private FirestoreService firestoreService;
+    private AppDatabase database;
     private TaskDao taskDao;
     private ExecutorService executorService;
     private SharedPreferences prefs;
@@ -33,21 +50,49 @@ public class SyncManager {
 
     public SyncManager(Context context) {
         this.context = context;
-        this.firestoreService = new FirestoreService();
-        this.taskDao = AppDatabase.getDatabase(context).taskDao();
+        this.database = AppDatabase.getDatabase(context);
+        this.taskDao = database.taskDao();
         this.executorService = Executors.newSingleThreadExecutor();
         this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
     }
     
+    // Sync works on the active account's database, bound on the sync executor at the start of each run
+    private void bindActiveDatabase() {
+        database = AppDatabase.getDatabase(context);
+        taskDao = database.taskDao();
+    }
+
+    // True once the user switched accounts after this run bound its database; the run must stop
+    private boolean accountChanged() {
+        return database != AppDatabase.getDatabase(context);
+    }
+
+    private String syncKey(String key) {
+        return syncKey(database, key);
+    }
+
+    // Sync state key for an account database; the original database keeps the unsuffixed keys
+    private static String syncKey(AppDatabase database, String key) {
+        return database.prefKey(key);
+    }
+    
+    // Firestore is created on first use so that constructing SyncManager stays cheap
+    private synchronized FirestoreService getFirestoreService() {
+        if (firestoreService == null) {
+            firestoreService = new FirestoreService();
+        }
+        return firestoreService;
+    }
+    
     // Test Firebase connection to diagnose API key issues
     public void testFirebaseConnection() {
-        if (!firestoreService.isUserAuthenticated()) {
+        if (!getFirestoreService().isUserAuthenticated()) {
             Log.e(TAG, "Firebase connection test failed: User not authenticated");
             return;
         }
         
         // Try a simple Firestore read to test the connection
-        firestoreService.loadUserTasks(new FirestoreService.TasksCallback() {
+        getFirestoreService().loadUserTasks(new FirestoreService.TasksCallback() {
             @Override
             public void onTasksLoaded(List<Task> tasks) {
                 Log.d(TAG, "Firebase connection test: SUCCESS - Retrieved " + tasks.size() + " tasks from Firestore");
@@ -70,7 +115,7 @@ public class SyncManager {
             return;
         }
         
-        if (!firestoreService.isUserAuthenticated()) {
+        if (!getFirestoreService().isUserAuthenticated()) {
             Log.d(TAG, "syncTasks: User not authenticated, aborting sync");
             callback.onSyncComplete(false, "User not authenticated");
             return;
@@ -84,9 +129,12 @@ public class SyncManager {
         executorService.execute(() -> {
             try {
                 callback.onSyncProgress("Starting sync...");
+                // The local database follows the signed-in account, also if it changed outside the sign-in screens
+                FirebaseAuthService.activateAccountDatabase(context, getFirestoreService().getCurrentUserId());
+                bindActiveDatabase();
                 
                 // Check if this is the first sync
-                boolean isFirstSync = !prefs.getBoolean(PREF_FIRST_SYNC, false);
+                boolean isFirstSync = !prefs.getBoolean(syncKey(PREF_FIRST_SYNC), false);
                 
                 if (isFirstSync) {
                     callback.onSyncProgress("First sync - uploading local tasks...");
@@ -105,36 +153,79 @@ public class SyncManager {
         });
     }
 
-    // First sync - download cloud tasks and merge with local tasks
+    // First sync - stream cloud tasks page by page and merge each page into the local database.
+    // Only one page of cloud tasks is in memory at a time; the document IDs already seen are
+    // recorded in sync_seen_documents so local tasks missing from the cloud can be found at the end.
     private void performFirstSync(SyncCallback callback) {
+        loadDigestGenerations(digestGenerations -> performFirstSync(digestGenerations, callback));
+    }
+
+    private void performFirstSync(long[] digestGenerations, SyncCallback callback) {
         try {
-            // Get all local tasks
-            List<limor.tal.mytodo.Task> localTasks = taskDao.getAllTasksIncludingDeletedSync();
-            Log.d(TAG, "First sync: Found " + localTasks.size() + " local tasks");
-            
-            // Download cloud tasks and merge with local tasks
-            firestoreService.loadUserTasks(new FirestoreService.TasksCallback() {
+            long syncStart = System.currentTimeMillis();
+            taskDao.clearSyncSeen();
+
+            getFirestoreService().loadUserTasksPaged(FIRST_SYNC_PAGE_SIZE, new FirestoreService.TaskPageCallback() {
+                private int merged = 0;
+                private final boolean[] pushedBuckets = new boolean[SyncDigest.BUCKET_COUNT];
+
                 @Override
-                public void onTasksLoaded(List<limor.tal.mytodo.Task> cloudTasks) {
-                    Log.d(TAG, "First sync: Downloaded " + cloudTasks.size() + " cloud tasks");
-                    
-                    // Merge cloud tasks with local tasks
-                    mergeTasks(localTasks, cloudTasks, new SyncManager.SyncCallback() {
-                        @Override
-                        public void onSyncComplete(boolean success, String message) {
-                            if (success) {
-                                // Mark first sync as completed
-                                prefs.edit()
-                                        .putBoolean(PREF_FIRST_SYNC, true)
-                                        .putLong(PREF_LAST_SYNC, System.currentTimeMillis())
-                                        .apply();
+                public void onPage(List<limor.tal.mytodo.Task> cloudTasks, Runnable next) {
+                    executorService.execute(() -> {
+                        try {
+                            if (accountChanged()) {
+                                callback.onSyncComplete(false, "Account changed during sync");
+                                return;
+                            }
+                            for (String documentId : mergeCloudPage(cloudTasks)) {
+                                pushedBuckets[SyncDigest.bucketOf(documentId)] = true;
                             }
-                            callback.onSyncComplete(success, message);
+                            List<SyncSeenDocument> seen = new ArrayList<>(cloudTasks.size());
+                            for (limor.tal.mytodo.Task cloudTask : cloudTasks) {
+                                if (cloudTask.firestoreDocumentId != null) {
+                                    seen.add(new SyncSeenDocument(cloudTask.firestoreDocumentId));
+                                }
+                            }
+                            taskDao.markSyncSeen(seen);
+                            merged += cloudTasks.size();
+                            callback.onSyncProgress("Merged " + merged + " cloud tasks...");
+                            next.run();
+                        } catch (Exception e) {
+                            Log.e(TAG, "First sync failed to merge a page of cloud tasks", e);
+                            callback.onSyncComplete(false, "First sync failed: " + e.getMessage());
                         }
+                    });
+                }
+
+                @Override
+                public void onComplete(int totalTasks) {
+                    executorService.execute(() -> {
+                        try {
+                            if (accountChanged()) {
+                                callback.onSyncComplete(false, "Account changed during sync");
+                                return;
+                            }
+                            int deleted = deleteTasksMissingFromCloud();
+                            taskDao.clearSyncSeen();
+                            // Digests go out before the uploads so the uploads' invalidations land after them
+                            boolean[] allBuckets = new boolean[SyncDigest.BUCKET_COUNT];
+                            Arrays.fill(allBuckets, true);
+                            saveVerifiedDigests(allBuckets, pushedBuckets, syncStart, digestGenerations);
+                            int uploaded = uploadUnsyncedTasks();
 
-                        @Override
-                        public void onSyncProgress(String message) {
-                            callback.onSyncProgress(message);
+                            // Mark first sync as completed
+                            prefs.edit()
+                                    .putBoolean(syncKey(PREF_FIRST_SYNC), true)
+                                    .putLong(syncKey(PREF_LAST_SYNC), System.currentTimeMillis())
+                                    .putLong(syncKey(PREF_LAST_FULL_CHECK), System.currentTimeMillis())
+                                    .apply();
+                            acknowledgeSync(syncStart);
+
+                            Log.d(TAG, "First sync completed: " + totalTasks + " cloud tasks, " + uploaded + " uploaded, " + deleted + " deleted");
+                            callback.onSyncComplete(true, "Sync completed - " + (totalTasks + uploaded) + " tasks synchronized, " + deleted + " deleted");
+                        } catch (Exception e) {
+                            Log.e(TAG, "First sync failed to finish", e);
+                            callback.onSyncComplete(false, "First sync failed: " + e.getMessage());
                         }
                     });
                 }
@@ -152,31 +243,161 @@ public class SyncManager {
         }
     }
 
-    // Incremental sync - sync changes since last sync
+    // Merge a list of cloud tasks in a single transaction, then push the local changes that won.
+    // Returns the document IDs that were pushed.
+    private List<String> mergeCloudPage(List<limor.tal.mytodo.Task> cloudTasks) {
+        List<String> documentIds = new ArrayList<>(cloudTasks.size());
+        for (limor.tal.mytodo.Task cloudTask : cloudTasks) {
+            if (cloudTask.firestoreDocumentId != null) {
+                documentIds.add(cloudTask.firestoreDocumentId);
+            }
+        }
+
+        List<limor.tal.mytodo.Task> toUpload = new ArrayList<>();
+        List<limor.tal.mytodo.Task> toSoftDelete = new ArrayList<>();
+        database.runInTransaction(() -> {
+            Map<String, limor.tal.mytodo.Task> localMap = new HashMap<>();
+            for (limor.tal.mytodo.Task localTask : taskDao.getTasksByFirestoreIds(documentIds)) {
+                localMap.put(localTask.firestoreDocumentId, localTask);
+            }
+
+            for (limor.tal.mytodo.Task cloudTask : cloudTasks) {
+                limor.tal.mytodo.Task localTask = cloudTask.firestoreDocumentId != null
+                        ? localMap.get(cloudTask.firestoreDocumentId) : null;
+                if (localTask == null) {
+                    // New task from cloud
+                    taskDao.insert(cloudTask);
+                    continue;
+                }
+                if (localTask.deletedAt != null && localTask.deletedAt > 0) {
+                    // Deleted locally; sync the deletion to cloud
+                    toSoftDelete.add(localTask);
+                    continue;
+                }
+
+                long localUpdatedAt = localTask.updatedAt != null ? localTask.updatedAt : 0;
+                long cloudUpdatedAt = cloudTask.updatedAt != null ? cloudTask.updatedAt : 0;
+                if (cloudUpdatedAt > localUpdatedAt) {
+                    copyCloudFields(localTask, cloudTask);
+                    taskDao.update(localTask);
+                } else if (localUpdatedAt > cloudUpdatedAt) {
+                    toUpload.add(localTask);
+                }
+                // Same timestamp: both sides already match
+            }
+        });
+
+        List<String> pushed = new ArrayList<>(toUpload.size() + toSoftDelete.size());
+
+        for (limor.tal.mytodo.Task localTask : toUpload) {
+            pushed.add(localTask.firestoreDocumentId);
+            getFirestoreService().saveTask(localTask, new FirestoreService.FirestoreCallback() {
+                @Override
+                public void onSuccess(Object result) {
+                    Log.d(TAG, "SYNC DEBUG: Successfully updated existing task in cloud - " + localTask.description);
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.e(TAG, "Failed to upload modified local task: " + error);
+                }
+            });
+        }
+        for (limor.tal.mytodo.Task localTask : toSoftDelete) {
+            pushed.add(localTask.firestoreDocumentId);
+            getFirestoreService().softDeleteTask(localTask.firestoreDocumentId, new FirestoreService.FirestoreCallback() {
+                @Override
+                public void onSuccess(Object result) {
+                    Log.d(TAG, "SOFT DELETE DEBUG: Success - " + localTask.description);
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.e(TAG, "SOFT DELETE DEBUG: Failed - " + localTask.description + " - " + error);
+                }
+            });
+        }
+        return pushed;
+    }
+
+    // Delete local tasks linked to cloud documents the paged sync did not see, in batches
+    private int deleteTasksMissingFromCloud() {
+        int deleted = 0;
+        List<limor.tal.mytodo.Task> batch;
+        while (!(batch = taskDao.getUnseenSyncedTasks(LOCAL_SWEEP_BATCH_SIZE)).isEmpty()) {
+            taskDao.deleteTasks(batch);
+            deleted += batch.size();
+        }
+        return deleted;
+    }
+
+    // Upload live local tasks that were never synced, walking them by id in batches
+    private int uploadUnsyncedTasks() {
+        int uploaded = 0;
+        int lastId = 0;
+        // The uploads finish after this run; their IDs go to the database the tasks came from
+        TaskDao uploadDao = taskDao;
+        List<limor.tal.mytodo.Task> batch;
+        while (!(batch = taskDao.getUnsyncedTasksAfterId(lastId, LOCAL_SWEEP_BATCH_SIZE)).isEmpty()) {
+            for (limor.tal.mytodo.Task localTask : batch) {
+                Log.d(TAG, "UPLOAD DEBUG: Uploading new task - " + localTask.description + " (ID: " + localTask.id + ")");
+                getFirestoreService().saveTask(localTask, new FirestoreService.FirestoreCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        // Update the local task with the firestoreDocumentId
+                        localTask.firestoreDocumentId = (String) result;
+                        executorService.execute(() -> {
+                            try {
+                                uploadDao.update(localTask);
+                            } catch (Exception e) {
+                                Log.e(TAG, "UPLOAD DEBUG: Database update failed - " + localTask.description, e);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "Failed to upload local task: " + localTask.description + " - " + error);
+                    }
+                });
+            }
+            uploaded += batch.size();
+            lastId = batch.get(batch.size() - 1).id;
+        }
+        return uploaded;
+    }
+
+    // Copy the synced fields of a newer cloud task onto its local row; deletedAt is left to the caller
+    private static void copyCloudFields(limor.tal.mytodo.Task localTask, limor.tal.mytodo.Task cloudTask) {
+        localTask.description = cloudTask.description;
+        localTask.dueDate = cloudTask.dueDate;
+        localTask.dueTime = cloudTask.dueTime;
+        localTask.dayOfWeek = cloudTask.dayOfWeek;
+        localTask.isRecurring = cloudTask.isRecurring;
+        localTask.recurrenceType = cloudTask.recurrenceType;
+        localTask.isCompleted = cloudTask.isCompleted;
+        localTask.priority = cloudTask.priority;
+        localTask.completionDate = cloudTask.completionDate;
+        localTask.reminderOffset = cloudTask.reminderOffset;
+        localTask.reminderDays = cloudTask.reminderDays;
+        localTask.manualPosition = cloudTask.manualPosition;
+        localTask.updatedAt = cloudTask.updatedAt;
+    }
+
+    // Incremental sync - compare bucket digests and only fetch the buckets that differ
     private void performIncrementalSync(SyncCallback callback) {
         try {
-            long lastSyncTime = prefs.getLong(PREF_LAST_SYNC, 0);
-            
-            // For now, get all local tasks (we can optimize this later)
-            List<limor.tal.mytodo.Task> localChanges = taskDao.getAllTasksIncludingDeletedSync();
-            // Log.d(TAG, "Incremental sync: Found " + localChanges.size() + " local tasks");
-            
-            
-            // Download cloud tasks
-            firestoreService.loadUserTasks(new FirestoreService.TasksCallback() {
+            getFirestoreService().loadSyncDigests(new FirestoreService.FirestoreCallback() {
                 @Override
-                public void onTasksLoaded(List<limor.tal.mytodo.Task> cloudTasks) {
-                    Log.d(TAG, "Incremental sync: Downloaded " + cloudTasks.size() + " cloud tasks");
-                    
-                    
-                    // Merge local and cloud changes
-                    mergeTasks(localChanges, cloudTasks, callback);
+                public void onSuccess(Object result) {
+                    SyncDigest.CloudState cloudState = (SyncDigest.CloudState) result;
+                    executorService.execute(() -> syncChangedBuckets(cloudState, callback));
                 }
 
                 @Override
                 public void onError(String error) {
-                    Log.e(TAG, "Failed to load cloud tasks: " + error);
-                    callback.onSyncComplete(false, "Failed to load cloud tasks: " + error);
+                    Log.e(TAG, "Failed to load sync digests: " + error);
+                    callback.onSyncComplete(false, "Failed to load sync digests: " + error);
                 }
             });
             
@@ -186,406 +407,302 @@ public class SyncManager {
         }
     }
 
-    private void mergeTasks(List<limor.tal.mytodo.Task> localChanges, List<limor.tal.mytodo.Task> cloudTasks, SyncCallback callback) {
+    private void syncChangedBuckets(SyncDigest.CloudState cloudState, SyncCallback callback) {
         try {
-            callback.onSyncProgress("Merging changes...");
-            
-            
-            // Create maps for easier lookup using firestoreDocumentId
-            Map<String, limor.tal.mytodo.Task> localMap = new HashMap<>();
-            Map<String, limor.tal.mytodo.Task> cloudMap = new HashMap<>();
+            Long[] cloudDigests = cloudState.digests;
+            long syncStart = System.currentTimeMillis();
+            long[] localDigests = SyncDigest.compute(taskDao.getSyncDigestRows());
+            boolean fullCheck = syncStart - prefs.getLong(syncKey(PREF_LAST_FULL_CHECK), 0) > FULL_CHECK_INTERVAL;
 
-            for (limor.tal.mytodo.Task task : localChanges) {
-                if (task.firestoreDocumentId != null) {
-                    localMap.put(task.firestoreDocumentId, task);
-                }
-            }
-
-            for (limor.tal.mytodo.Task task : cloudTasks) {
-                if (task.firestoreDocumentId != null) {
-                    cloudMap.put(task.firestoreDocumentId, task);
-                }
-            }
-            
-            List<limor.tal.mytodo.Task> tasksToUpdate = new ArrayList<>();
-            List<limor.tal.mytodo.Task> tasksToInsert = new ArrayList<>();
-            
-            // Check for conflicts and new tasks
-            for (limor.tal.mytodo.Task cloudTask : cloudTasks) {
-                // Skip soft-deleted cloud tasks
-                if (cloudTask.deletedAt != null && cloudTask.deletedAt > 0) {
+            // Group changed buckets into runs of adjacent buckets, each fetched with one range query
+            List<int[]> ranges = new ArrayList<>();
+            int changed = 0;
+            for (int bucket = 0; bucket < SyncDigest.BUCKET_COUNT; bucket++) {
+                if (!fullCheck && cloudDigests[bucket] != null && cloudDigests[bucket] == localDigests[bucket]) {
                     continue;
                 }
-                
-                if (cloudTask.firestoreDocumentId != null && localMap.containsKey(cloudTask.firestoreDocumentId)) {
-                    limor.tal.mytodo.Task localTask = localMap.get(cloudTask.firestoreDocumentId);
-                    
-                    // If local task is soft-deleted, skip adding to tasksToUpdate
-                    // The deletion sync logic will handle syncing the deletion to cloud
-                    if (localTask.deletedAt != null && localTask.deletedAt > 0) {
-                        Log.d(TAG, "SYNC DEBUG: Local task is soft-deleted, skipping merge - " + localTask.description + 
-                              " (Local deletedAt: " + localTask.deletedAt + ", will sync deletion to cloud)");
-                        continue;
-                    }
-                    
-                    Log.d(TAG, "SYNC DEBUG: Found matching task - " + cloudTask.description + 
-                          " (Cloud ID: " + cloudTask.firestoreDocumentId + 
-                          ", Local ID: " + localTask.id + 
-                          ", Cloud updatedAt: " + cloudTask.updatedAt + 
-                          ", Local updatedAt: " + localTask.updatedAt + 
-                          ", Cloud isCompleted: " + cloudTask.isCompleted + 
-                          ", Local isCompleted: " + localTask.isCompleted + 
-                          ", Cloud dueDate: " + cloudTask.dueDate + 
-                          ", Local dueDate: " + localTask.dueDate + ")");
-                    
-                    // Improved conflict resolution: use the more recently updated task based on updatedAt
-                    long localUpdatedAt = localTask.updatedAt != null ? localTask.updatedAt : 0;
-                    long cloudUpdatedAt = cloudTask.updatedAt != null ? cloudTask.updatedAt : 0;
-                    
-                    if (localUpdatedAt > cloudUpdatedAt) {
-                        Log.d(TAG, "SYNC DEBUG: Using local version (newer updatedAt) for " + localTask.description + 
-                              " (Local updatedAt: " + localUpdatedAt + ", Cloud updatedAt: " + cloudUpdatedAt + ")");
-                        tasksToUpdate.add(localTask);
-                    } else if (cloudUpdatedAt > localUpdatedAt) {
-                        Log.d(TAG, "SYNC DEBUG: Using cloud version (newer updatedAt) for " + cloudTask.description + 
-                              " (Local updatedAt: " + localUpdatedAt + ", Cloud updatedAt: " + cloudUpdatedAt + ")");
-                        tasksToUpdate.add(cloudTask);
-                    } else {
-                        // Same timestamp, prefer local version to avoid overwriting recent changes
-                        Log.d(TAG, "SYNC DEBUG: Using local version (same updatedAt, prefer local) for " + localTask.description);
-                        tasksToUpdate.add(localTask);
-                    }
+                changed++;
+                int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+                if (last != null && last[1] == bucket - 1 && bucket - last[0] < MAX_BUCKETS_PER_FETCH) {
+                    last[1] = bucket;
                 } else {
-                    // New task from cloud
-                    Log.d(TAG, "SYNC DEBUG: New task from cloud - " + cloudTask.description + 
-                          " (Cloud ID: " + cloudTask.firestoreDocumentId + ")");
-                    tasksToInsert.add(cloudTask);
+                    ranges.add(new int[] {bucket, bucket});
                 }
             }
-            
-            // Upload local changes that aren't in cloud
-            final Set<Integer> uploadedTaskIds = new HashSet<>();
-            for (limor.tal.mytodo.Task localTask : localChanges) {
-                // Skip ALL soft-deleted tasks (don't upload them to cloud)
-                if (localTask.deletedAt != null && localTask.deletedAt > 0) {
-                    continue;
-                }
-                
-                // Check if already being uploaded to prevent duplicates
-                if (uploadedTaskIds.contains(localTask.id)) {
-                    continue;
-                }
-                
-                // Check if this task is already in cloud
-                boolean foundInCloud = false;
-                if (localTask.firestoreDocumentId != null && cloudMap.containsKey(localTask.firestoreDocumentId)) {
-                    foundInCloud = true;
-                }
-                
-                if (!foundInCloud) {
-                    // This is a new local task, upload it
-                    Log.d(TAG, "UPLOAD DEBUG: Uploading new task - " + localTask.description + 
-                          " (ID: " + localTask.id + ", FirestoreID: " + (localTask.firestoreDocumentId != null ? localTask.firestoreDocumentId : "NULL") + ")");
-                    
-                    // Mark this task as being uploaded to prevent duplicate uploads
-                    uploadedTaskIds.add(localTask.id);
-                    
-                    firestoreService.saveTask(localTask, new FirestoreService.FirestoreCallback() {
-                        @Override
-                        public void onSuccess(Object result) {
-                            Log.d(TAG, "UPLOAD DEBUG: Success - " + localTask.description + 
-                                  " (Local ID: " + localTask.id + ", Firestore ID: " + result + ")");
-                            // Update the local task with the firestoreDocumentId
-                            localTask.firestoreDocumentId = (String) result;
-                            
-                            // Update database on background thread
-                            executorService.execute(() -> {
-                                try {
-                                    taskDao.update(localTask);
-                                    Log.d(TAG, "UPLOAD DEBUG: Database updated - " + localTask.description + " (Firestore ID: " + localTask.firestoreDocumentId + ")");
-                                } catch (Exception e) {
-                                    Log.e(TAG, "UPLOAD DEBUG: Database update failed - " + localTask.description, e);
-                                }
-                            });
+            Log.d(TAG, "Incremental sync: " + changed + " of " + SyncDigest.BUCKET_COUNT + " buckets differ" + (fullCheck ? " (full check)" : ""));
+
+            BucketSyncState state = new BucketSyncState(ranges, syncStart, fullCheck, cloudState.generations);
+            if (!ranges.isEmpty()) {
+                callback.onSyncProgress("Syncing changes...");
+            }
+            syncBucketRange(state, 0, callback);
+        } catch (Exception e) {
+            Log.e(TAG, "Incremental sync error", e);
+            callback.onSyncComplete(false, "Incremental sync error: " + e.getMessage());
+        }
+    }
+
+    // Progress of one incremental sync across its bucket ranges; only touched on the sync executor
+    private static class BucketSyncState {
+        final List<int[]> ranges;
+        final long syncStart;
+        final boolean fullCheck;
+        // Bucket generations read with the digests, before any bucket was fetched
+        final long[] digestGenerations;
+        final boolean[] checkedBuckets = new boolean[SyncDigest.BUCKET_COUNT];
+        final boolean[] pushedBuckets = new boolean[SyncDigest.BUCKET_COUNT];
+        int merged;
+        int deleted;
+
+        BucketSyncState(List<int[]> ranges, long syncStart, boolean fullCheck, long[] digestGenerations) {
+            this.ranges = ranges;
+            this.syncStart = syncStart;
+            this.fullCheck = fullCheck;
+            this.digestGenerations = digestGenerations;
+        }
+    }
+
+    // Fetch and merge one range of buckets, then move on to the next range
+    private void syncBucketRange(BucketSyncState state, int index, SyncCallback callback) {
+        if (accountChanged()) {
+            callback.onSyncComplete(false, "Account changed during sync");
+            return;
+        }
+        if (index == state.ranges.size()) {
+            finishIncrementalSync(state, callback);
+            return;
+        }
+        int firstBucket = state.ranges.get(index)[0];
+        int lastBucket = state.ranges.get(index)[1];
+        getFirestoreService().loadUserTasksInBuckets(firstBucket, lastBucket, new FirestoreService.TasksCallback() {
+            @Override
+            public void onTasksLoaded(List<limor.tal.mytodo.Task> cloudTasks) {
+                executorService.execute(() -> {
+                    try {
+                        for (String documentId : mergeCloudPage(cloudTasks)) {
+                            state.pushedBuckets[SyncDigest.bucketOf(documentId)] = true;
                         }
 
-                        @Override
-                        public void onError(String error) {
-                            Log.e(TAG, "Failed to upload local task: " + localTask.description + " - " + error);
-                            // Remove from uploaded set on error so it can be retried
-                            uploadedTaskIds.remove(localTask.id);
+                        // Local tasks in these buckets whose cloud documents are gone
+                        Set<String> cloudIds = new HashSet<>();
+                        for (limor.tal.mytodo.Task cloudTask : cloudTasks) {
+                            cloudIds.add(cloudTask.firestoreDocumentId);
                         }
-                    });
-                }
+                        List<limor.tal.mytodo.Task> missing = new ArrayList<>();
+                        for (limor.tal.mytodo.Task localTask : taskDao.getSyncedTasksInIdRange(
+                                SyncDigest.lowerBound(firstBucket), SyncDigest.upperBound(lastBucket))) {
+                            if (!cloudIds.contains(localTask.firestoreDocumentId)) {
+                                missing.add(localTask);
+                            }
+                        }
+
+                        for (int bucket = firstBucket; bucket <= lastBucket; bucket++) {
+                            state.checkedBuckets[bucket] = true;
+                        }
+                        state.merged += cloudTasks.size();
+                        resolveMissingTasks(state, missing, () -> syncBucketRange(state, index + 1, callback), callback);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Failed to merge cloud buckets", e);
+                        callback.onSyncComplete(false, "Merge error: " + e.getMessage());
+                    }
+                });
             }
-            
-            // Upload local changes for existing tasks that have been modified
-            for (limor.tal.mytodo.Task localTask : localChanges) {
-                if (localTask.firestoreDocumentId != null && cloudMap.containsKey(localTask.firestoreDocumentId)) {
-                    // Handle soft-deleted tasks
-                    if (localTask.deletedAt != null && localTask.deletedAt > 0) {
-                        // Check if cloud task is not yet soft-deleted
-                        limor.tal.mytodo.Task cloudTask = cloudMap.get(localTask.firestoreDocumentId);
-                        long cloudDeletedAt = cloudTask.deletedAt != null ? cloudTask.deletedAt : 0;
-                        
-                        if (cloudDeletedAt == 0) {
-                            // Cloud task is not soft-deleted yet, sync the deletion
-                            Log.d(TAG, "SOFT DELETE DEBUG: Syncing deletion - " + localTask.description + 
-                                  " (Firestore ID: " + localTask.firestoreDocumentId + ")");
-                            
-                            firestoreService.softDeleteTask(localTask.firestoreDocumentId, new FirestoreService.FirestoreCallback() {
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Failed to load cloud tasks: " + error);
+                callback.onSyncComplete(false, "Failed to load cloud tasks: " + error);
+            }
+        });
+    }
+
+    // Synced tasks missing from the tasks collection were deleted, or archived by another device.
+    // Archived ones join the local archive, unless they were changed here since: those go back to
+    // the tasks collection. The rest are deleted.
+    private void resolveMissingTasks(BucketSyncState state, List<limor.tal.mytodo.Task> missing, Runnable next,
+            SyncCallback callback) {
+        if (missing.isEmpty()) {
+            next.run();
+            return;
+        }
+        List<String> documentIds = new ArrayList<>(missing.size());
+        for (limor.tal.mytodo.Task localTask : missing) {
+            documentIds.add(localTask.firestoreDocumentId);
+        }
+        getFirestoreService().findArchivedTasks(documentIds, new FirestoreService.FirestoreCallback() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                Map<String, Long> archived = (Map<String, Long>) result;
+                executorService.execute(() -> {
+                    try {
+                        List<limor.tal.mytodo.Task> toDelete = new ArrayList<>();
+                        List<limor.tal.mytodo.Task> toRestore = new ArrayList<>();
+                        List<Integer> toArchive = new ArrayList<>();
+                        for (limor.tal.mytodo.Task localTask : missing) {
+                            Long archivedUpdatedAt = archived.get(localTask.firestoreDocumentId);
+                            if (archivedUpdatedAt == null) {
+                                toDelete.add(localTask);
+                            } else if (localTask.updatedAt != null && localTask.updatedAt > archivedUpdatedAt) {
+                                toRestore.add(localTask);
+                            } else {
+                                toArchive.add(localTask.id);
+                            }
+                        }
+                        if (!toDelete.isEmpty()) {
+                            taskDao.deleteTasks(toDelete);
+                        }
+                        if (!toArchive.isEmpty()) {
+                            TaskArchiver.moveToArchive(database, toArchive);
+                        }
+                        if (!toRestore.isEmpty()) {
+                            for (limor.tal.mytodo.Task localTask : toRestore) {
+                                state.pushedBuckets[SyncDigest.bucketOf(localTask.firestoreDocumentId)] = true;
+                            }
+                            getFirestoreService().restoreArchivedTasks(toRestore, new FirestoreService.FirestoreCallback() {
                                 @Override
                                 public void onSuccess(Object result) {
-                                    Log.d(TAG, "SOFT DELETE DEBUG: Success - " + localTask.description);
                                 }
 
                                 @Override
                                 public void onError(String error) {
-                                    Log.e(TAG, "SOFT DELETE DEBUG: Failed - " + localTask.description + " - " + error);
+                                    Log.e(TAG, "Failed to restore archived tasks: " + error);
                                 }
                             });
                         }
-                        continue;
+                        state.deleted += toDelete.size();
+                        Log.d(TAG, "Missing from cloud: " + toDelete.size() + " deleted, " + toArchive.size()
+                                + " archived, " + toRestore.size() + " restored");
+                        next.run();
+                    } catch (Exception e) {
+                        Log.e(TAG, "Failed to resolve missing tasks", e);
+                        callback.onSyncComplete(false, "Merge error: " + e.getMessage());
                     }
-                    
-                    // This is an existing task, check if local version is newer
-                    limor.tal.mytodo.Task cloudTask = cloudMap.get(localTask.firestoreDocumentId);
-                    long localUpdatedAt = localTask.updatedAt != null ? localTask.updatedAt : 0;
-                    long cloudUpdatedAt = cloudTask.updatedAt != null ? cloudTask.updatedAt : 0;
-                    
-                    if (localUpdatedAt > cloudUpdatedAt) {
-                        Log.d(TAG, "SYNC DEBUG: Uploading updated existing task - " + localTask.description + 
-                              " (Local ID: " + localTask.id + 
-                              ", Firestore ID: " + localTask.firestoreDocumentId + 
-                              ", Local updatedAt: " + localUpdatedAt + 
-                              ", Cloud updatedAt: " + cloudUpdatedAt + 
-                              ", Local isCompleted: " + localTask.isCompleted + 
-                              ", Cloud isCompleted: " + cloudTask.isCompleted + 
-                              ", Local dueDate: " + localTask.dueDate + 
-                              ", Cloud dueDate: " + cloudTask.dueDate + ")");
-                        
-                        firestoreService.saveTask(localTask, new FirestoreService.FirestoreCallback() {
-                            @Override
-                            public void onSuccess(Object result) {
-                                Log.d(TAG, "SYNC DEBUG: Successfully updated existing task in cloud - " + localTask.description + 
-                                      " (Local ID: " + localTask.id + 
-                                      ", Firestore ID: " + result + ")");
-                            }
+                });
+            }
 
-                            @Override
-                            public void onError(String error) {
-                                Log.e(TAG, "Failed to upload modified local task: " + error);
-                            }
-                        });
-                    } else {
-                        Log.d(TAG, "SYNC DEBUG: Skipping upload of existing task (cloud is newer) - " + localTask.description + 
-                              " (Local ID: " + localTask.id + 
-                              ", Local updatedAt: " + localUpdatedAt + 
-                              ", Cloud updatedAt: " + cloudUpdatedAt + ")");
-                    }
-                }
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Failed to look up archived tasks: " + error);
+                callback.onSyncComplete(false, "Failed to look up archived tasks: " + error);
             }
-            
-            // Find tasks to delete (local tasks that are no longer in cloud)
-            List<limor.tal.mytodo.Task> tasksToDelete = new ArrayList<>();
-            for (limor.tal.mytodo.Task localTask : localChanges) {
-                if (localTask.firestoreDocumentId != null && !cloudMap.containsKey(localTask.firestoreDocumentId)) {
-                    tasksToDelete.add(localTask);
-                }
+        });
+    }
+
+    private void finishIncrementalSync(BucketSyncState state, SyncCallback callback) {
+        try {
+            // Digests go out before the uploads so the uploads' invalidations land after them
+            saveVerifiedDigests(state.checkedBuckets, state.pushedBuckets, state.syncStart, state.digestGenerations);
+            int uploaded = uploadUnsyncedTasks();
+
+            SharedPreferences.Editor editor = prefs.edit().putLong(syncKey(PREF_LAST_SYNC), System.currentTimeMillis());
+            if (state.fullCheck) {
+                editor.putLong(syncKey(PREF_LAST_FULL_CHECK), System.currentTimeMillis());
             }
-            
-            // Update local database with cloud changes (run on background thread)
-            executorService.execute(() -> updateLocalDatabase(tasksToUpdate, tasksToInsert, tasksToDelete, callback));
-            
+            editor.apply();
+            acknowledgeSync(state.syncStart);
+
+            int synced = state.merged + uploaded;
+            Log.d(TAG, "Sync completed: " + synced + " tasks synchronized, " + state.deleted + " deleted");
+            callback.onSyncComplete(true, "Sync completed - " + synced + " tasks synchronized, " + state.deleted + " deleted");
         } catch (Exception e) {
-            Log.e(TAG, "Merge error", e);
-            callback.onSyncComplete(false, "Merge error: " + e.getMessage());
+            Log.e(TAG, "Database update error", e);
+            callback.onSyncComplete(false, "Database update error: " + e.getMessage());
         }
     }
 
-    // Update local database with merged tasks
-    private void updateLocalDatabase(List<limor.tal.mytodo.Task> tasksToUpdate, List<limor.tal.mytodo.Task> tasksToInsert, List<limor.tal.mytodo.Task> tasksToDelete, SyncCallback callback) {
-        try {
-            // Get all local tasks once at the beginning
-            List<limor.tal.mytodo.Task> allLocalTasks = taskDao.getAllTasksIncludingDeletedSync();
-            
-            // Update existing tasks - find local task by firestoreDocumentId and update it
-            for (limor.tal.mytodo.Task cloudTask : tasksToUpdate) {
-                // Find the local task with this firestoreDocumentId
-                limor.tal.mytodo.Task localTaskToUpdate = null;
-                
-                for (limor.tal.mytodo.Task localTask : allLocalTasks) {
-                    if (cloudTask.firestoreDocumentId != null && cloudTask.firestoreDocumentId.equals(localTask.firestoreDocumentId)) {
-                        localTaskToUpdate = localTask;
-                        break;
-                    }
-                }
-                
-                if (localTaskToUpdate != null) {
-                    // Check if local task is soft-deleted
-                    boolean localIsDeleted = localTaskToUpdate.deletedAt != null && localTaskToUpdate.deletedAt > 0;
-                    boolean cloudIsDeleted = cloudTask.deletedAt != null && cloudTask.deletedAt > 0;
-                    
-                    // If local task is soft-deleted and cloud task is not, preserve the local deletion
-                    // Don't overwrite a deleted task with non-deleted cloud data
-                    if (localIsDeleted && !cloudIsDeleted) {
-                        Log.d(TAG, "SYNC DEBUG: Preserving local soft-deletion - " + localTaskToUpdate.description + 
-                              " (Local deletedAt: " + localTaskToUpdate.deletedAt + ", Cloud deletedAt: null)");
-                        // Keep the local task as deleted, but update firestoreDocumentId if needed
-                        if (localTaskToUpdate.firestoreDocumentId == null) {
-                            localTaskToUpdate.firestoreDocumentId = cloudTask.firestoreDocumentId;
-                            taskDao.update(localTaskToUpdate);
-                        }
-                        continue;
-                    }
-                    
-                    // Smart merge: use the newer version for each field based on updatedAt timestamp
-                    long localUpdatedAt = localTaskToUpdate.updatedAt != null ? localTaskToUpdate.updatedAt : 0;
-                    long cloudUpdatedAt = cloudTask.updatedAt != null ? cloudTask.updatedAt : 0;
-                    
-                    // Use cloud data if it's newer, otherwise keep local data
-                    if (cloudUpdatedAt > localUpdatedAt) {
-                        // Preserve local deletion status unless cloud is also deleted (and possibly newer)
-                        Long preservedDeletedAt = localTaskToUpdate.deletedAt;
-                        
-                        localTaskToUpdate.description = cloudTask.description;
-                        localTaskToUpdate.dueDate = cloudTask.dueDate;
-                        localTaskToUpdate.dueTime = cloudTask.dueTime;
-                        localTaskToUpdate.dayOfWeek = cloudTask.dayOfWeek;
-                        localTaskToUpdate.isRecurring = cloudTask.isRecurring;
-                        localTaskToUpdate.recurrenceType = cloudTask.recurrenceType;
-                        localTaskToUpdate.isCompleted = cloudTask.isCompleted;
-                        localTaskToUpdate.priority = cloudTask.priority;
-                        localTaskToUpdate.completionDate = cloudTask.completionDate;
-                        localTaskToUpdate.reminderOffset = cloudTask.reminderOffset;
-                        localTaskToUpdate.reminderDays = cloudTask.reminderDays;
-                        localTaskToUpdate.manualPosition = cloudTask.manualPosition;
-                        localTaskToUpdate.updatedAt = cloudTask.updatedAt;
-                        
-                        // Handle deletedAt: if cloud is deleted, use cloud's deletedAt
-                        // Otherwise, preserve local deletedAt if it exists
-                        if (cloudIsDeleted) {
-                            localTaskToUpdate.deletedAt = cloudTask.deletedAt;
-                            Log.d(TAG, "SYNC DEBUG: Cloud task is deleted, applying deletion - " + cloudTask.description + 
-                                  " (Cloud deletedAt: " + cloudTask.deletedAt + ")");
-                        } else if (preservedDeletedAt != null && preservedDeletedAt > 0) {
-                            // Keep local deletion
-                            localTaskToUpdate.deletedAt = preservedDeletedAt;
-                            Log.d(TAG, "SYNC DEBUG: Preserving local deletion during cloud merge - " + localTaskToUpdate.description + 
-                                  " (Local deletedAt: " + preservedDeletedAt + ")");
-                        } else {
-                            // Neither is deleted, keep deletedAt as null
-                            localTaskToUpdate.deletedAt = null;
-                        }
-                    } else {
-                        // Keep all local data, but update the firestoreDocumentId if it was missing
-                        if (localTaskToUpdate.firestoreDocumentId == null) {
-                            localTaskToUpdate.firestoreDocumentId = cloudTask.firestoreDocumentId;
-                        }
-                        // If cloud is deleted but local is not, and local is newer, keep local (not deleted)
-                        // But if cloud is deleted and local is also deleted, prefer the newer deletion
-                        if (cloudIsDeleted && !localIsDeleted) {
-                            // Local is newer and not deleted, keep it
-                            Log.d(TAG, "SYNC DEBUG: Local task is newer and not deleted, keeping local version - " + localTaskToUpdate.description);
-                        } else if (cloudIsDeleted && localIsDeleted) {
-                            // Both deleted, use the newer deletedAt
-                            if (cloudTask.deletedAt > localTaskToUpdate.deletedAt) {
-                                localTaskToUpdate.deletedAt = cloudTask.deletedAt;
-                                Log.d(TAG, "SYNC DEBUG: Both deleted, using newer deletion timestamp - " + localTaskToUpdate.description);
-                            }
-                        }
-                    }
-                    
-                    taskDao.update(localTaskToUpdate);
-                } else {
-                    // This is a cloud task that should be updated but no local match found
-                    // This can happen in first sync when there are no local tasks yet
-                    // Move it to insert list instead of inserting it here
-                    tasksToInsert.add(cloudTask);
-                }
+    private interface GenerationsCallback {
+        void onLoaded(long[] digestGenerations);
+    }
+
+    // Read the cloud bucket generations before fetching, then continue on the sync executor. If
+    // they can't be read the sync still runs, but stores no digests.
+    private void loadDigestGenerations(GenerationsCallback next) {
+        getFirestoreService().loadSyncDigests(new FirestoreService.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                long[] generations = ((SyncDigest.CloudState) result).generations;
+                executorService.execute(() -> next.onLoaded(generations));
             }
-            
-            // Insert new tasks - but first check if they already exist
-            for (limor.tal.mytodo.Task task : tasksToInsert) {
-                // Check if a task with this firestoreDocumentId already exists
-                boolean alreadyExists = false;
-                if (task.firestoreDocumentId != null) {
-                    for (limor.tal.mytodo.Task existingTask : allLocalTasks) {
-                        if (task.firestoreDocumentId.equals(existingTask.firestoreDocumentId)) {
-                            alreadyExists = true;
-                            break;
-                        }
-                    }
-                }
-                
-                if (!alreadyExists) {
-                    taskDao.insert(task);
-                }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Failed to load sync digest generations: " + error);
+                executorService.execute(() -> next.onLoaded(null));
             }
-            
-            // Delete tasks that are no longer in cloud
-            for (limor.tal.mytodo.Task task : tasksToDelete) {
-                taskDao.delete(task);
+        });
+    }
+
+    // Store the local digests of the checked buckets, where local and cloud now agree. Buckets with
+    // uploads keep no digest (the uploads clear it), and neither do buckets edited locally while the
+    // sync ran, since those edits were not compared; both are fetched again next sync. Digests are
+    // stored only for buckets whose cloud generation is still digestGenerations (see SyncDigest).
+    private void saveVerifiedDigests(boolean[] checkedBuckets, boolean[] pushedBuckets, long syncStart,
+            long[] digestGenerations) {
+        if (digestGenerations == null) {
+            return;
+        }
+        List<SyncDigest.Row> rows = taskDao.getSyncDigestRows();
+        long[] localDigests = SyncDigest.compute(rows);
+        boolean[] touched = SyncDigest.touchedSince(rows, syncStart);
+        Map<Integer, Long> verified = new TreeMap<>();
+        for (int bucket = 0; bucket < SyncDigest.BUCKET_COUNT; bucket++) {
+            if (checkedBuckets[bucket] && !pushedBuckets[bucket] && !touched[bucket]) {
+                verified.put(bucket, localDigests[bucket]);
             }
-            
-            // Update last sync timestamp
-            prefs.edit()
-                    .putLong(PREF_LAST_SYNC, System.currentTimeMillis())
-                    .apply();
-            
-            Log.d(TAG, "Sync completed: " + (tasksToUpdate.size() + tasksToInsert.size()) + " tasks synchronized, " + tasksToDelete.size() + " deleted");
-            callback.onSyncComplete(true, "Sync completed - " + (tasksToUpdate.size() + tasksToInsert.size()) + " tasks synchronized, " + tasksToDelete.size() + " deleted");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Database update error", e);
-            callback.onSyncComplete(false, "Database update error: " + e.getMessage());
         }
+        if (verified.isEmpty()) {
+            return;
+        }
+        getFirestoreService().saveSyncDigests(verified, digestGenerations, new FirestoreService.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+            }
+
+            @Override
+            public void onError(String error) {
+                // Without stored digests the next sync fetches the buckets again
+                Log.e(TAG, "Failed to save sync digests: " + error);
+            }
+        });
     }
 
-    // Download tasks from cloud (for first sync when no local tasks)
-    private void downloadCloudTasks(SyncCallback callback) {
-        firestoreService.loadUserTasks(new FirestoreService.TasksCallback() {
+    // Tell tombstone compaction on every device that this one has merged all cloud changes made
+    // before syncStart (see TombstoneCompactor)
+    private void acknowledgeSync(long syncStart) {
+        if (syncStart - prefs.getLong(syncKey(PREF_LAST_ACK), 0) < ACK_INTERVAL) {
+            return;
+        }
+        getFirestoreService().acknowledgeSync(getDeviceId(), syncStart, new FirestoreService.FirestoreCallback() {
             @Override
-            public void onTasksLoaded(List<limor.tal.mytodo.Task> tasks) {
-                // Run database operations on background thread
-                executorService.execute(() -> {
-                    try {
-                        // Insert all cloud tasks into local database
-                        for (limor.tal.mytodo.Task task : tasks) {
-                            taskDao.insert(task);
-                        }
-                        
-                        // Mark first sync as completed
-                        prefs.edit()
-                                .putBoolean(PREF_FIRST_SYNC, true)
-                                .putLong(PREF_LAST_SYNC, System.currentTimeMillis())
-                                .apply();
-                        
-                        Log.d(TAG, "Downloaded " + tasks.size() + " tasks from cloud");
-                        callback.onSyncComplete(true, "First sync completed - " + tasks.size() + " tasks downloaded");
-                        
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to save downloaded tasks", e);
-                        callback.onSyncComplete(false, "Failed to save downloaded tasks: " + e.getMessage());
-                    }
-                });
+            public void onSuccess(Object result) {
+                prefs.edit().putLong(syncKey(PREF_LAST_ACK), syncStart).apply();
             }
 
             @Override
             public void onError(String error) {
-                Log.e(TAG, "Failed to download cloud tasks: " + error);
-                callback.onSyncComplete(false, "Failed to download cloud tasks: " + error);
+                Log.e(TAG, "Failed to acknowledge sync: " + error);
             }
         });
     }
 
+    // Random ID for this installation, used as its field in the sync acknowledgements
+    private String getDeviceId() {
+        String deviceId = prefs.getString(PREF_DEVICE_ID, null);
+        if (deviceId == null) {
+            deviceId = UUID.randomUUID().toString().replace("-", "");
+            prefs.edit().putString(PREF_DEVICE_ID, deviceId).apply();
+        }
+        return deviceId;
+    }
+
     // Check if sync is needed
     public boolean needsSync() {
-        if (!firestoreService.isUserAuthenticated()) {
+        if (!getFirestoreService().isUserAuthenticated()) {
             return false;
         }
         
-        long lastSync = prefs.getLong(PREF_LAST_SYNC, 0);
+        long lastSync = prefs.getLong(syncKey(AppDatabase.getDatabase(context), PREF_LAST_SYNC), 0);
         long timeSinceLastSync = System.currentTimeMillis() - lastSync;
         
         // Sync if it's been more than 1 minute since last sync
@@ -598,9 +715,47 @@ public class SyncManager {
         syncTasks(callback);
     }
     
+    /**
+     * Push a bulk change to the cloud as batched writes instead of one sync per task. Tasks that
+     * were never synced (hard deleted or not yet uploaded) are left to a single follow-up sync.
+     */
+    public void pushTaskChanges(List<limor.tal.mytodo.Task> tasks, SyncCallback callback) {
+        if (tasks.isEmpty()) {
+            callback.onSyncComplete(true, "Nothing to push");
+            return;
+        }
+        List<limor.tal.mytodo.Task> synced = new ArrayList<>(tasks.size());
+        for (limor.tal.mytodo.Task task : tasks) {
+            if (task.firestoreDocumentId != null) {
+                synced.add(task);
+            }
+        }
+        boolean needsUpload = synced.size() < tasks.size();
+        if (synced.isEmpty()) {
+            syncTasks(callback);
+            return;
+        }
+        getFirestoreService().updateTasks(synced, new FirestoreService.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (needsUpload) {
+                    syncTasks(callback);
+                } else {
+                    callback.onSyncComplete(true, "Pushed " + synced.size() + " tasks");
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                // The changes are still local; the next sync pushes them
+                callback.onSyncComplete(false, error);
+            }
+        });
+    }
+
     // Reset first sync flag (useful for debugging)
     public void resetFirstSyncFlag() {
-        prefs.edit().putBoolean(PREF_FIRST_SYNC, false).apply();
+        prefs.edit().putBoolean(syncKey(AppDatabase.getDatabase(context), PREF_FIRST_SYNC), false).apply();
         Log.d(TAG, "First sync flag reset");
     }
 
@@ -608,13 +763,15 @@ public class SyncManager {
     public void clearLocalDataAndResetSync() {
         executorService.execute(() -> {
             try {
+                bindActiveDatabase();
                 // Clear all local tasks
                 taskDao.deleteAllTasks();
+                CategorySnapshotStore.clear(context);
                 
                 // Reset sync preferences
                 prefs.edit()
-                    .putBoolean(PREF_FIRST_SYNC, false)
-                    .remove(PREF_LAST_SYNC)
+                    .putBoolean(syncKey(PREF_FIRST_SYNC), false)
+                    .remove(syncKey(PREF_LAST_SYNC))
                     .apply();
                 
                 Log.d(TAG, "Local data cleared and sync state reset");
@@ -627,40 +784,62 @@ public class SyncManager {
 
     // Force download from cloud (ignore local data)
     public void forceDownloadFromCloud(SyncCallback callback) {
-        if (!firestoreService.isUserAuthenticated()) {
+        if (!getFirestoreService().isUserAuthenticated()) {
             callback.onSyncComplete(false, "User not authenticated");
             return;
         }
 
-        executorService.execute(() -> {
+        loadDigestGenerations(digestGenerations -> {
             try {
                 callback.onSyncProgress("Downloading from cloud...");
+                FirebaseAuthService.activateAccountDatabase(context, getFirestoreService().getCurrentUserId());
+                bindActiveDatabase();
+                long syncStart = System.currentTimeMillis();
                 
                 // Clear local data first
                 taskDao.deleteAllTasks();
                 
-                // Download all tasks from cloud
-                firestoreService.loadUserTasks(new FirestoreService.TasksCallback() {
+                // Download cloud tasks page by page, one transaction per page
+                getFirestoreService().loadUserTasksPaged(FIRST_SYNC_PAGE_SIZE, new FirestoreService.TaskPageCallback() {
                     @Override
-                    public void onTasksLoaded(List<limor.tal.mytodo.Task> cloudTasks) {
+                    public void onPage(List<limor.tal.mytodo.Task> cloudTasks, Runnable next) {
                         executorService.execute(() -> {
                             try {
-                                // Insert all cloud tasks into local database
-                                for (limor.tal.mytodo.Task task : cloudTasks) {
-                                    taskDao.insert(task);
-                                }
-                                
+                                database.runInTransaction(() -> {
+                                    for (limor.tal.mytodo.Task task : cloudTasks) {
+                                        taskDao.insert(task);
+                                    }
+                                });
+                                next.run();
+                            } catch (Exception e) {
+                                Log.e(TAG, "Failed to save downloaded tasks", e);
+                                callback.onSyncComplete(false, "Failed to save downloaded tasks: " + e.getMessage());
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onComplete(int totalTasks) {
+                        executorService.execute(() -> {
+                            try {
+                                // Local now mirrors the cloud, so every bucket's digest can be stored
+                                boolean[] allBuckets = new boolean[SyncDigest.BUCKET_COUNT];
+                                Arrays.fill(allBuckets, true);
+                                saveVerifiedDigests(allBuckets, new boolean[SyncDigest.BUCKET_COUNT], syncStart,
+                                        digestGenerations);
+
                                 // Mark first sync as completed
                                 prefs.edit()
-                                        .putBoolean(PREF_FIRST_SYNC, true)
-                                        .putLong(PREF_LAST_SYNC, System.currentTimeMillis())
+                                        .putBoolean(syncKey(PREF_FIRST_SYNC), true)
+                                        .putLong(syncKey(PREF_LAST_SYNC), System.currentTimeMillis())
+                                        .putLong(syncKey(PREF_LAST_FULL_CHECK), System.currentTimeMillis())
                                         .apply();
-                                
-                                Log.d(TAG, "Downloaded " + cloudTasks.size() + " tasks from cloud");
-                                callback.onSyncComplete(true, "Downloaded " + cloudTasks.size() + " tasks from cloud");
-                                
+                                acknowledgeSync(syncStart);
+
+                                Log.d(TAG, "Downloaded " + totalTasks + " tasks from cloud");
+                                callback.onSyncComplete(true, "Downloaded " + totalTasks + " tasks from cloud");
                             } catch (Exception e) {
-                                Log.e(TAG, "Failed to save downloaded tasks", e);
+                                Log.e(TAG, "Failed to finish cloud download", e);
                                 callback.onSyncComplete(false, "Failed to save downloaded tasks: " + e.getMessage());
                             }
                         });
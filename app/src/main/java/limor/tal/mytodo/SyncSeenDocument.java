@@ -0,0 +1,21 @@
+package limor.tal.mytodo;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Firestore document ID seen during a paged first sync. Local tasks linked to a document
+ * that was not seen are gone from the cloud. Kept in a table so the check doesn't need the
+ * whole cloud ID set in memory; the table is cleared when the sync finishes.
+ */
+@Entity(tableName = "sync_seen_documents")
+public class SyncSeenDocument {
+    @PrimaryKey
+    @NonNull
+    public String firestoreDocumentId;
+
+    public SyncSeenDocument(@NonNull String firestoreDocumentId) {
+        this.firestoreDocumentId = firestoreDocumentId;
+    }
+}
@@ -1,9 +1,13 @@
 package limor.tal.mytodo;
 
 import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
+import androidx.room.TypeConverters;
 
-@Entity(tableName = "tasks")
+@Entity(tableName = "tasks",
+        indices = {@Index("firestoreDocumentId"), @Index("dayOfWeek"), @Index("recurrenceType")})
 public class Task {
     @PrimaryKey(autoGenerate = true)
     public int id;
@@ -11,14 +15,17 @@ public class Task {
     public String description;
     public Long dueDate;
     public Long dueTime; // Milliseconds since midnight
-    public String dayOfWeek;
+    @TypeConverters(TaskConverters.DayOfWeek.class)
+    public String dayOfWeek; // Stored as an index in TaskConstants.ALL_DAYS
     public boolean isRecurring;
-    public String recurrenceType;
+    @TypeConverters(TaskConverters.RecurrenceType.class)
+    public String recurrenceType; // Stored as an index in TaskConstants.ALL_RECURRENCE_TYPES
     public boolean isCompleted;
     public int priority;
     public Long completionDate;
     public Integer reminderOffset; // Minutes before due time: null (no reminder), 0 (at time), 15, 30, or 60
-    public String reminderDays; // For daily recurring tasks: null (all days), or comma-separated day indices (0=Sunday, 1=Monday, etc.)
+    @TypeConverters(TaskConverters.ReminderDays.class)
+    public String reminderDays; // For daily recurring tasks: null (all days), or comma-separated day indices (0=Sunday, 1=Monday, etc.); stored as a bitmask
     public Integer manualPosition; // null = automatic ordering, integer = manual position from drag operations
     public String firestoreDocumentId; // Firestore document ID for cloud sync
     public Long createdAt; // Timestamp when task was created
@@ -32,6 +39,9 @@ public class Task {
     public String familySyncAssigneeId; // FamilySync assignee ID
     public String familySyncCreatorId; // FamilySync creator ID
 
+    @Ignore
+    public boolean archived; // Loaded from archived_tasks; TaskRepository moves it back before writing it
+
     public Task(String description, Long dueDate, String dayOfWeek, boolean isRecurring, String recurrenceType, boolean isCompleted, int priority) {
         this.description = description;
         this.dueDate = dueDate;
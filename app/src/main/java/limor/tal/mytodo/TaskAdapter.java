@@ -14,25 +14,37 @@ import android.widget.RadioButton;
 import android.widget.TextView;
 import android.widget.ImageView;
 
+import androidx.core.content.ContextCompat;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import android.graphics.Paint;
 
 public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
-    private List<Object> items;
+    private List<TaskSection> sections = new ArrayList<>();
+    private final Map<String, TaskSection> sectionsByTitle = new HashMap<>();
+    // Adapter position of each section's header, plus the total item count at the end
+    private int[] sectionStarts = new int[] {0};
+    // Section index for every adapter position, for O(1) position lookups
+    private int[] sectionOfPosition = new int[0];
     private TaskViewModel viewModel;
     private Context context;
     private List<String> expandedCategories;
     private Consumer<Task> onTaskSelected;
     private Task selectedTask = null;
     private int selectedDayIndex = -1; // Track which day instance is selected for daily tasks
+    // Multi-select mode: clicks toggle tasks in and out of the selection instead of selecting one task
+    private boolean multiSelectMode = false;
+    private final Set<Integer> multiSelectedIds = new LinkedHashSet<>();
     public static final int TYPE_HEADER = 0;
     public static final int TYPE_TASK = 1;
     
@@ -42,77 +54,43 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     private static final long DOUBLE_CLICK_TIME_DELTA = 300; // milliseconds
     private long lastClickTime = 0;
 
-    public TaskAdapter(List<Object> items, TaskViewModel viewModel, Context context, Consumer<Task> onTaskSelected) {
-        this.items = items;
+    // Resolved once; bind only assigns them
+    private final int activeTextColor;
+    private final int completedTextColor;
+    // Descriptions measured in the background for the expanded categories
+    private final PrecomputedTextCache textCache = new PrecomputedTextCache();
+
+    public TaskAdapter(TaskViewModel viewModel, Context context, Consumer<Task> onTaskSelected) {
         this.viewModel = viewModel;
         this.context = context;
         this.onTaskSelected = onTaskSelected;
         this.expandedCategories = new ArrayList<>();
-        // Initialize only the current day's category as expanded
-        String[] daysOfWeek = context.getResources().getStringArray(R.array.days_of_week);
-        
-        // Add current day's category (e.g., "שבת" for Saturday)
-        Calendar today = Calendar.getInstance();
-        int todayDayOfWeek = today.get(Calendar.DAY_OF_WEEK); // 1=Sunday, ..., 7=Saturday
-        // days_of_week: [None, Immediate, Soon, Sunday, Monday, Tuesday, Wednesday, Thursday, Friday, Saturday]
-        // Map Calendar.DAY_OF_WEEK to days_of_week array indices
-        int dayIndex;
-        switch (todayDayOfWeek) {
-            case Calendar.SUNDAY: dayIndex = 3; break;    // Sunday
-            case Calendar.MONDAY: dayIndex = 4; break;    // Monday
-            case Calendar.TUESDAY: dayIndex = 5; break;   // Tuesday
-            case Calendar.WEDNESDAY: dayIndex = 6; break; // Wednesday
-            case Calendar.THURSDAY: dayIndex = 7; break;  // Thursday
-            case Calendar.FRIDAY: dayIndex = 8; break;    // Friday
-            case Calendar.SATURDAY: dayIndex = 9; break;  // Saturday
-            default: dayIndex = 8; break; // Default to Friday
-        }
-        if (dayIndex >= 3 && dayIndex < daysOfWeek.length) {
-            expandedCategories.add(daysOfWeek[dayIndex]);
+        this.activeTextColor = ContextCompat.getColor(context, android.R.color.black);
+        this.completedTextColor = ContextCompat.getColor(context, android.R.color.darker_gray);
+        // Initialize only the current day's category as expanded (e.g., "שבת" for Saturday)
+        int dayIndex = DayClock.getInstance(context).current().getTodayIndex();
+        String todayCategory = TaskTranslationTable.get(context).dayName(dayIndex);
+        if (todayCategory != null) {
+            expandedCategories.add(todayCategory);
         } else {
-            Log.e("MyToDo", "TaskAdapter: Invalid dayIndex: " + dayIndex + ", todayDayOfWeek: " + todayDayOfWeek);
+            Log.e("MyToDo", "TaskAdapter: Invalid dayIndex: " + dayIndex);
         }
     }
 
     public Task getTaskAtPosition(int position) {
-        int currentPos = 0;
-        for (int i = 0; i < items.size(); i++) {
-            Object item = items.get(i);
-            if (item instanceof String) {
-                String category = (String) item;
-                if (currentPos == position) {
-                    Log.e("MyToDo", "TaskAdapter: getTaskAtPosition: Position " + position + " is a header: " + item);
-                    return null;
-                }
-                currentPos++;
-            } else if (item instanceof Task) {
-                Task task = (Task) item;
-                if (task.description != null && !task.description.isEmpty()) {
-                    // Use the corrected method to get the category for this specific task instance
-                    String category = getCategoryForTask(task, i);
-                    if (expandedCategories.contains(category)) {
-                        if (currentPos == position) {
-                            return task;
-                        }
-                        currentPos++;
-                    }
-                } else {
-                    Log.w("MyToDo", "TaskAdapter: getTaskAtPosition: Skipping invalid task at index: " + i + ", description: " + task.description);
-                }
-            }
+        Object item = getItem(position);
+        if (item instanceof String) {
+            Log.e("MyToDo", "TaskAdapter: getTaskAtPosition: Position " + position + " is a header: " + item);
+            return null;
         }
-        Log.e("MyToDo", "TaskAdapter: getTaskAtPosition: No task found at position: " + position);
-        return null;
+        return (Task) item;
     }
 
     public Task getTaskById(int taskId) {
-        for (Object item : items) {
-            if (item instanceof Task && ((Task) item).id == taskId) {
-                Task task = (Task) item;
-                if (task.description != null && !task.description.isEmpty()) {
+        for (TaskSection section : sections) {
+            for (Task task : section.getTasks()) {
+                if (task.id == taskId) {
                     return task;
-                } else {
-                    Log.w("MyToDo", "TaskAdapter: getTaskById: Skipping invalid task with id: " + taskId);
                 }
             }
         }
@@ -120,14 +98,18 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         return null;
     }
 
-    public void setItems(List<Object> items) {
+    public void setSections(List<TaskSection> newSections) {
         
         // Store the current expanded categories before clearing
         List<String> previouslyExpanded = new ArrayList<>(expandedCategories);
+        List<TaskSection> oldSections = sections;
+        int[] oldStarts = sectionStarts;
         
-        this.items.clear();
-        this.items.addAll(items);
-        
+        sections = newSections;
+        sectionsByTitle.clear();
+        for (TaskSection section : newSections) {
+            sectionsByTitle.put(section.getTitle(), section);
+        }
         
         // Check if there's an active search query
         String searchQuery = viewModel.getSearchQuery().getValue();
@@ -136,39 +118,18 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         if (hasActiveSearch) {
             // When searching, expand all categories that have tasks
             expandedCategories.clear();
-            
-            // Add all categories that have tasks
-            for (Object item : items) {
-                if (item instanceof String) {
-                    String category = (String) item;
-                    if (hasTasksInCategory(category)) {
-                        expandedCategories.add(category);
-                    }
+            for (TaskSection section : newSections) {
+                if (!section.isEmpty()) {
+                    expandedCategories.add(section.getTitle());
                 }
             }
         } else {
             // When not searching, preserve manually expanded categories and add defaults
             expandedCategories.clear();
             
-            // Initialize with only the current day's category
-            String[] daysOfWeek = context.getResources().getStringArray(R.array.days_of_week);
-            
-            // Add current day's category
-            Calendar today = Calendar.getInstance();
-            int todayDayOfWeek = today.get(Calendar.DAY_OF_WEEK);
-            int dayIndex;
-            switch (todayDayOfWeek) {
-                case Calendar.SUNDAY: dayIndex = 3; break;    // Sunday
-                case Calendar.MONDAY: dayIndex = 4; break;    // Monday
-                case Calendar.TUESDAY: dayIndex = 5; break;   // Tuesday
-                case Calendar.WEDNESDAY: dayIndex = 6; break; // Wednesday
-                case Calendar.THURSDAY: dayIndex = 7; break;  // Thursday
-                case Calendar.FRIDAY: dayIndex = 8; break;    // Friday
-                case Calendar.SATURDAY: dayIndex = 9; break;  // Saturday
-                default: dayIndex = 8; break; // Default to Friday
-            }
-            if (dayIndex >= 3 && dayIndex < daysOfWeek.length) {
-                expandedCategories.add(daysOfWeek[dayIndex]);
+            // Initialize with only the current day's category, which is always the first section
+            if (!newSections.isEmpty()) {
+                expandedCategories.add(newSections.get(0).getTitle());
             }
             
             // If there was a previously expanded category, use that instead
@@ -181,39 +142,117 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
             }
         }
         
-        notifyDataSetChanged();
+        rebuildPositionIndex();
+        prefetchExpandedDescriptions();
+        
+        if (!expandedCategories.equals(previouslyExpanded) || !sameTitles(oldSections, newSections)) {
+            notifyDataSetChanged();
+            return;
+        }
+        
+        // Same categories and expansion: only notify the sections that changed. Going from the
+        // last section to the first keeps the start positions of the earlier sections valid.
+        for (int s = newSections.size() - 1; s >= 0; s--) {
+            TaskSection oldSection = oldSections.get(s);
+            TaskSection newSection = newSections.get(s);
+            if (oldSection == newSection) {
+                continue;
+            }
+            int start = oldStarts[s];
+            if (oldSection.isEmpty() != newSection.isEmpty()) {
+                notifyItemChanged(start); // Header bold state
+            }
+            if (!expandedCategories.contains(newSection.getTitle())) {
+                continue;
+            }
+            int oldCount = oldSection.size();
+            int newCount = newSection.size();
+            int common = Math.min(oldCount, newCount);
+            if (common > 0) {
+                notifyItemRangeChanged(start + 1, common);
+            }
+            if (newCount > oldCount) {
+                notifyItemRangeInserted(start + 1 + common, newCount - oldCount);
+            } else if (oldCount > newCount) {
+                notifyItemRangeRemoved(start + 1 + common, oldCount - newCount);
+            }
+        }
+    }
+
+    private static boolean sameTitles(List<TaskSection> a, List<TaskSection> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getTitle().equals(b.get(i).getTitle())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Queue the descriptions of active rows in expanded categories for background measurement
+    private void prefetchExpandedDescriptions() {
+        List<String> texts = new ArrayList<>();
+        for (TaskSection section : sections) {
+            if (!expandedCategories.contains(section.getTitle())) {
+                continue;
+            }
+            for (TaskRowModel row : section.getRows()) {
+                if (!row.has(TaskRowModel.FLAG_COMPLETED)) {
+                    texts.add(row.displayText);
+                }
+            }
+        }
+        textCache.prefetch(texts);
+    }
+
+    // Recompute the header positions and the position -> section table
+    private void rebuildPositionIndex() {
+        int[] starts = new int[sections.size() + 1];
+        int count = 0;
+        for (int s = 0; s < sections.size(); s++) {
+            starts[s] = count;
+            TaskSection section = sections.get(s);
+            count += 1 + (expandedCategories.contains(section.getTitle()) ? section.size() : 0);
+        }
+        starts[sections.size()] = count;
+        int[] positions = new int[count];
+        for (int s = 0; s < sections.size(); s++) {
+            Arrays.fill(positions, starts[s], starts[s + 1], s);
+        }
+        sectionStarts = starts;
+        sectionOfPosition = positions;
     }
 
     public void moveItem(int fromPosition, int toPosition) {
         
         // Basic validation
         if (fromPosition == toPosition) return;
-        if (fromPosition < 0 || toPosition < 0 || fromPosition >= items.size() || toPosition >= items.size()) {
+        if (!isValidPosition(fromPosition) || !isValidPosition(toPosition)) {
             Log.e("MyToDo", "TaskAdapter: moveItem: Invalid positions");
             return;
         }
         
-        // Get items
-        Object fromItem = items.get(fromPosition);
-        Object toItem = items.get(toPosition);
-        
-        // Only allow moving tasks
-        if (!(fromItem instanceof Task) || !(toItem instanceof Task)) {
-            Log.e("MyToDo", "TaskAdapter: moveItem: Can only move tasks");
+        // Check same category
+        int s = sectionOfPosition[fromPosition];
+        if (sectionOfPosition[toPosition] != s) {
+            Log.e("MyToDo", "TaskAdapter: moveItem: Cannot move between categories");
             return;
         }
         
-        // Check same category
-        String fromCategory = getCategoryForPosition(fromPosition);
-        String toCategory = getCategoryForPosition(toPosition);
-        if (!fromCategory.equals(toCategory)) {
-            Log.e("MyToDo", "TaskAdapter: moveItem: Cannot move between categories");
+        // Only allow moving tasks
+        int fromOffset = fromPosition - sectionStarts[s] - 1;
+        int toOffset = toPosition - sectionStarts[s] - 1;
+        if (fromOffset < 0 || toOffset < 0) {
+            Log.e("MyToDo", "TaskAdapter: moveItem: Can only move tasks");
             return;
         }
         
-        // SIMPLE APPROACH: Just move the item in the list!
-        Object movedItem = items.remove(fromPosition);
-        items.add(toPosition, movedItem);
+        TaskSection moved = sections.get(s).withMove(fromOffset, toOffset);
+        sections = new ArrayList<>(sections);
+        sections.set(s, moved);
+        sectionsByTitle.put(moved.getTitle(), moved);
         
         // Update UI immediately
         notifyItemMoved(fromPosition, toPosition);
@@ -228,20 +267,10 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     }
     
     public void persistCategoryOrderToDatabase(String category, TaskViewModel viewModel, Task draggedTask) {
-        List<Task> categoryTasks = new ArrayList<>();
+        TaskSection section = sectionsByTitle.get(category);
+        List<Task> categoryTasks = section != null ? section.getTasks() : new ArrayList<>();
         List<Task> tasksToUpdate = new ArrayList<>();
         
-        // Find all tasks in this category
-        for (Object item : items) {
-            if (item instanceof Task) {
-                Task task = (Task) item;
-                String taskCategory = getCategoryForTask(task, items.indexOf(item));
-                if (category.equals(taskCategory)) {
-                    categoryTasks.add(task);
-                }
-            }
-        }
-        
         
         // COMPLETELY REWRITTEN: Only set manualPosition for the specific task that was dragged
         // This ensures that automatic tasks retain their automatic status (manualPosition = null)
@@ -285,233 +314,38 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     }
 
     public String getCategoryForPosition(int position) {
-        int currentPos = 0;
-        String[] daysOfWeek = context.getResources().getStringArray(R.array.days_of_week);
-        String waitingCategory = context.getString(R.string.category_waiting);
-        String completedCategory = context.getString(R.string.completed_category_title);
-        
-        // Get dynamic category order (same as getItem method)
-        // Note: Immediate tasks are now merged into current day, not a separate category
-        List<String> allCategories = new ArrayList<>();
-        // Do not add Immediate as separate category anymore
-        
-        // Get current day and create order starting from today
-        Calendar today = Calendar.getInstance();
-        int todayDayOfWeek = today.get(Calendar.DAY_OF_WEEK); // 1=Sunday, ..., 7=Saturday
-        
-        // Map Calendar.DAY_OF_WEEK to days_of_week array indices
-        int todayIndex;
-        switch (todayDayOfWeek) {
-            case Calendar.SUNDAY: todayIndex = 3; break;    // Sunday
-            case Calendar.MONDAY: todayIndex = 4; break;    // Monday
-            case Calendar.TUESDAY: todayIndex = 5; break;   // Tuesday
-            case Calendar.WEDNESDAY: todayIndex = 6; break; // Wednesday
-            case Calendar.THURSDAY: todayIndex = 7; break;  // Thursday
-            case Calendar.FRIDAY: todayIndex = 8; break;    // Friday
-            case Calendar.SATURDAY: todayIndex = 9; break;  // Saturday
-            default: todayIndex = 8; break; // Default to Friday
-        }
-        
-        // Add current day and next 6 days in order
-        for (int i = 0; i < 7; i++) {
-            int dayIndex = todayIndex + i;
-            // Handle wrapping around from Saturday (9) to Sunday (3)
-            if (dayIndex > 9) {
-                dayIndex = 3 + (dayIndex - 10); // Wrap to Sunday (3)
-            }
-            allCategories.add(daysOfWeek[dayIndex]);
-        }
-        
-        allCategories.add(daysOfWeek[2]); // Soon
-        allCategories.add(waitingCategory); // Waiting
-        allCategories.add(completedCategory); // Completed
-        
-        for (String category : allCategories) {
-            if (currentPos == position) {
-                return category;
-            }
-            currentPos++;
-            if (expandedCategories.contains(category)) {
-                // Count tasks in this category by looking at the items list
-                for (int i = 0; i < items.size(); i++) {
-                    Object item = items.get(i);
-                    if (item instanceof Task) {
-                        Task task = (Task) item;
-                        if (task.description != null && !task.description.isEmpty()) {
-                            // Check if this task belongs to the current category
-                            String taskCategory = getCategoryForTask(task, i);
-                            if (taskCategory.equals(category)) {
-                                if (currentPos == position) {
-                                    return category;
-                                }
-                                currentPos++;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        Log.w("MyToDo", "TaskAdapter: getCategoryForPosition: No category found for position: " + position);
-        return "";
-    }
-    
-    private String getCategoryForTask(Task task, int itemIndex) {
-        // Find which category this task belongs to by looking backwards from its position
-        String currentCategory = "";
-        for (int i = itemIndex; i >= 0; i--) {
-            Object item = items.get(i);
-            if (item instanceof String) {
-                currentCategory = (String) item;
-                break;
-            }
+        if (!isValidPosition(position)) {
+            Log.w("MyToDo", "TaskAdapter: getCategoryForPosition: No category found for position: " + position);
+            return "";
         }
-        return currentCategory;
+        return sections.get(sectionOfPosition[position]).getTitle();
     }
 
     public Object getItem(int position) {
-        int currentPos = 0;
-        String[] daysOfWeek = context.getResources().getStringArray(R.array.days_of_week);
-        String waitingCategory = context.getString(R.string.category_waiting);
-        String completedCategory = context.getString(R.string.completed_category_title);
-        
-        // Get dynamic category order (same as getItemCount)
-        // Note: Immediate tasks are now merged into current day, not a separate category
-        List<String> allCategories = new ArrayList<>();
-        // Do not add Immediate as separate category anymore
-        
-        // Get current day and create order starting from today
-        Calendar today = Calendar.getInstance();
-        int todayDayOfWeek = today.get(Calendar.DAY_OF_WEEK); // 1=Sunday, ..., 7=Saturday
-        
-        // Map Calendar.DAY_OF_WEEK to days_of_week array indices
-        int todayIndex;
-        switch (todayDayOfWeek) {
-            case Calendar.SUNDAY: todayIndex = 3; break;    // Sunday
-            case Calendar.MONDAY: todayIndex = 4; break;    // Monday
-            case Calendar.TUESDAY: todayIndex = 5; break;   // Tuesday
-            case Calendar.WEDNESDAY: todayIndex = 6; break; // Wednesday
-            case Calendar.THURSDAY: todayIndex = 7; break;  // Thursday
-            case Calendar.FRIDAY: todayIndex = 8; break;    // Friday
-            case Calendar.SATURDAY: todayIndex = 9; break;  // Saturday
-            default: todayIndex = 8; break; // Default to Friday
-        }
-        
-        // Add current day and next 6 days in order
-        for (int i = 0; i < 7; i++) {
-            int dayIndex = todayIndex + i;
-            // Handle wrapping around from Saturday (9) to Sunday (3)
-            if (dayIndex > 9) {
-                dayIndex = 3 + (dayIndex - 10); // Wrap to Sunday (3)
-            }
-            allCategories.add(daysOfWeek[dayIndex]);
-        }
-        
-        allCategories.add(daysOfWeek[2]); // Soon
-        allCategories.add(waitingCategory); // Waiting
-        allCategories.add(completedCategory); // Completed
-        
-        for (String category : allCategories) {
-            if (currentPos == position) {
-                return category;
-            }
-            currentPos++;
-            if (expandedCategories.contains(category)) {
-                // Count tasks in this category by looking at the items list
-                int taskCount = 0;
-                for (int i = 0; i < items.size(); i++) {
-                    Object item = items.get(i);
-                    if (item instanceof Task) {
-                        Task task = (Task) item;
-                        if (task.description != null && !task.description.isEmpty()) {
-                            // Check if this task belongs to the current category
-                            String taskCategory = getCategoryForTask(task, i);
-                            if (taskCategory.equals(category)) {
-                                if (currentPos == position) {
-                                    return item;
-                                }
-                                currentPos++;
-                                taskCount++;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        Log.e("MyToDo", "TaskAdapter: getItem: No item found at position: " + position);
-        return null;
+        if (!isValidPosition(position)) {
+            Log.e("MyToDo", "TaskAdapter: getItem: No item found at position: " + position);
+            return null;
+        }
+        int s = sectionOfPosition[position];
+        TaskSection section = sections.get(s);
+        int offset = position - sectionStarts[s];
+        return offset == 0 ? section.getTitle() : section.getTasks().get(offset - 1);
+    }
+
+    // Row view-model at a task position
+    private TaskRowModel getRow(int position) {
+        int s = sectionOfPosition[position];
+        return sections.get(s).getRows().get(position - sectionStarts[s] - 1);
     }
 
     @Override
     public int getItemCount() {
-        int count = 0;
-        String[] daysOfWeek = context.getResources().getStringArray(R.array.days_of_week);
-        String waitingCategory = context.getString(R.string.category_waiting);
-        String completedCategory = context.getString(R.string.completed_category_title);
-        
-        // Get dynamic category order from TaskViewModel
-        // Note: Immediate tasks are now merged into current day, not a separate category
-        List<String> allCategories = new ArrayList<>();
-        // Do not add Immediate as separate category anymore
-        
-        // Get current day and create order starting from today
-        Calendar today = Calendar.getInstance();
-        int todayDayOfWeek = today.get(Calendar.DAY_OF_WEEK); // 1=Sunday, ..., 7=Saturday
-        
-        // Map Calendar.DAY_OF_WEEK to days_of_week array indices
-        int todayIndex;
-        switch (todayDayOfWeek) {
-            case Calendar.SUNDAY: todayIndex = 3; break;    // Sunday
-            case Calendar.MONDAY: todayIndex = 4; break;    // Monday
-            case Calendar.TUESDAY: todayIndex = 5; break;   // Tuesday
-            case Calendar.WEDNESDAY: todayIndex = 6; break; // Wednesday
-            case Calendar.THURSDAY: todayIndex = 7; break;  // Thursday
-            case Calendar.FRIDAY: todayIndex = 8; break;    // Friday
-            case Calendar.SATURDAY: todayIndex = 9; break;  // Saturday
-            default: todayIndex = 8; break; // Default to Friday
-        }
-        
-        // Add current day and next 6 days in order
-        for (int i = 0; i < 7; i++) {
-            int dayIndex = todayIndex + i;
-            // Handle wrapping around from Saturday (9) to Sunday (3)
-            if (dayIndex > 9) {
-                dayIndex = 3 + (dayIndex - 10); // Wrap to Sunday (3)
-            }
-            allCategories.add(daysOfWeek[dayIndex]);
-        }
-        
-        allCategories.add(daysOfWeek[2]); // Soon
-        allCategories.add(waitingCategory); // Waiting
-        allCategories.add(completedCategory); // Completed
-        
-        for (String category : allCategories) {
-            count++; // Always include header
-            if (expandedCategories.contains(category)) {
-                int taskCount = 0;
-                for (int i = 0; i < items.size(); i++) {
-                    Object item = items.get(i);
-                    if (item instanceof Task) {
-                        Task task = (Task) item;
-                        if (task.description != null && !task.description.isEmpty()) {
-                            // Check if this task belongs to the current category
-                            String taskCategory = getCategoryForTask(task, i);
-                            if (taskCategory.equals(category)) {
-                                count++;
-                                taskCount++;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return count;
+        return sectionOfPosition.length;
     }
 
     @Override
     public int getItemViewType(int position) {
-        Object item = getItem(position);
-        int type = item instanceof String ? TYPE_HEADER : TYPE_TASK;
-        return type;
+        return position == sectionStarts[sectionOfPosition[position]] ? TYPE_HEADER : TYPE_TASK;
     }
 
     @Override
@@ -522,39 +356,39 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
             return new HeaderViewHolder(view);
         } else {
             View view = inflater.inflate(R.layout.item_task, parent, false);
-            return new TaskViewHolder(view);
+            TaskViewHolder holder = new TaskViewHolder(view);
+            // Rows are bound before they are attached, when their layout direction isn't resolved yet
+            // and the default FIRST_STRONG text direction would resolve left-to-right. Fixing the
+            // direction to the list's keeps the text params the same bound or attached, under RTL too.
+            holder.descriptionTextView.setTextDirection(parent.getLayoutDirection() == View.LAYOUT_DIRECTION_RTL
+                    ? View.TEXT_DIRECTION_FIRST_STRONG_RTL : View.TEXT_DIRECTION_FIRST_STRONG_LTR);
+            // All rows share the description style, so the first holder's params apply to every row
+            if (textCache.setParams(TextViewCompat.getTextMetricsParams(holder.descriptionTextView))) {
+                prefetchExpandedDescriptions();
+            }
+            return holder;
         }
     }
 
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        textCache.shutdown();
+    }
+
     @Override
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
-        Object item = getItem(position);
-        if (item == null) {
-            Log.e("MyToDo", "TaskAdapter: onBindViewHolder: Item at position " + position + " is null");
-            return;
-        }
         if (holder instanceof HeaderViewHolder) {
-            ((HeaderViewHolder) holder).bind((String) item);
+            ((HeaderViewHolder) holder).bind(sections.get(sectionOfPosition[position]));
         } else if (holder instanceof TaskViewHolder) {
-            ((TaskViewHolder) holder).bind((Task) item, position);
+            ((TaskViewHolder) holder).bind(getRow(position));
         }
     }
 
     // Check if a category has any tasks
     private boolean hasTasksInCategory(String category) {
-        for (int i = 0; i < items.size(); i++) {
-            Object item = items.get(i);
-            if (item instanceof Task) {
-                Task task = (Task) item;
-                if (task.description != null && !task.description.isEmpty()) {
-                    String taskCategory = getCategoryForTask(task, i);
-                    if (taskCategory.equals(category)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        TaskSection section = sectionsByTitle.get(category);
+        return section != null && !section.isEmpty();
     }
 
     public void setSelectedTask(Task selectedTask) {
@@ -563,6 +397,41 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         notifyDataSetChanged();
     }
 
+    public boolean isMultiSelectMode() {
+        return multiSelectMode;
+    }
+
+    public void setMultiSelectMode(boolean multiSelectMode) {
+        this.multiSelectMode = multiSelectMode;
+        multiSelectedIds.clear();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * The tasks picked in multi-select mode, in selection order
+     */
+    public List<Task> getMultiSelectedTasks() {
+        List<Task> tasks = new ArrayList<>(multiSelectedIds.size());
+        for (int taskId : multiSelectedIds) {
+            Task task = getTaskById(taskId);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    private void toggleMultiSelected(Task task) {
+        if (!multiSelectedIds.remove(task.id)) {
+            multiSelectedIds.add(task.id);
+        }
+        // Daily recurring tasks have a row per day, so all rows are rebound
+        notifyDataSetChanged();
+        if (context instanceof MainActivity) {
+            ((MainActivity) context).onMultiSelectionChanged(multiSelectedIds.size());
+        }
+    }
+
     public void setSelectedDayIndex(int selectedDayIndex) {
         this.selectedDayIndex = selectedDayIndex;
         notifyDataSetChanged();
@@ -586,28 +455,34 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
             expandedCategories.clear();
             expandedCategories.add(category);
         }
+        // Archived tasks are only loaded while Completed is open
+        viewModel.setCompletedExpanded(expandedCategories.contains(context.getString(R.string.category_completed)));
         
+        rebuildPositionIndex();
+        prefetchExpandedDescriptions();
         notifyDataSetChanged();
     }
 
     public class HeaderViewHolder extends RecyclerView.ViewHolder {
         TextView headerTextView;
+        String category;
 
         HeaderViewHolder(View itemView) {
             super(itemView);
             headerTextView = itemView.findViewById(R.id.headerTextView);
             // Add click listener to toggle category expansion
             itemView.setOnClickListener(v -> {
-                String category = headerTextView.getText().toString();
-                expandCategory(category);
+                if (category != null) {
+                    expandCategory(category);
+                }
             });
         }
 
-        void bind(String category) {
+        void bind(TaskSection section) {
+            category = section.getTitle();
             headerTextView.setText(category);
             // Set bold typeface if category has tasks
-            boolean hasTasks = hasTasksInCategory(category);
-            headerTextView.setTypeface(null, hasTasks ? Typeface.BOLD : Typeface.NORMAL);
+            headerTextView.setTypeface(null, section.isEmpty() ? Typeface.NORMAL : Typeface.BOLD);
         }
     }
 
@@ -619,7 +494,10 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         TextView familySyncIcon;
         ImageView pinIcon;
 
+        TaskRowModel row;
         Task task;
+        // Set while bind() updates the radio button, so the change listener ignores it
+        private boolean binding;
 
         TaskViewHolder(View itemView) {
             super(itemView);
@@ -630,217 +508,53 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
             familySyncIcon = itemView.findViewById(R.id.familySyncIcon);
             pinIcon = itemView.findViewById(R.id.pinIcon);
 
-            
-        }
-
-        void bind(Task task, int position) {
-            this.task = task;
-            
-            // Check if this task is marked as immediate and add visual indicator
-            String displayText = task.description != null ? task.description : "";
-            if (isTaskImmediate(task)) {
-                displayText = "⚡ " + displayText; // Add lightning bolt emoji for immediate tasks
-            }
-            descriptionTextView.setText(displayText);
+            // Listeners are installed once and read the row bound at click time
             
             // Handle single click for selection (exclusive) and double-click for editing
             itemView.setOnClickListener(v -> {
-                if (task != null) {
-                    long clickTime = System.currentTimeMillis();
-                    if (clickTime - lastClickTime < DOUBLE_CLICK_TIME_DELTA) {
-                        // Double-click detected - edit the task
-                        if (context instanceof MainActivity) {
-                            ((MainActivity) context).openEditDialog(task);
-                        }
-                        lastClickTime = 0; // Reset to prevent triple-click from triggering edit
-                        return;
-                    }
-                    
-                    // Single click - handle selection
-                    lastClickTime = clickTime;
-                    
-                    // Determine selectedDayIndex for daily recurring tasks
-                    String[] recurrenceTypes = context.getResources().getStringArray(R.array.recurrence_types);
-                    String dailyRecurrenceType = recurrenceTypes[0];
-                    boolean isDailyRecurring = task.isRecurring && TaskConstants.RECURRENCE_DAILY.equals(task.recurrenceType);
-
-                    if (isDailyRecurring) {
-                        String taskCategory = getCategoryForTask(task, position);
-                        String[] daysOfWeekArray = context.getResources().getStringArray(R.array.days_of_week);
-                        int dayIndex = -1;
-                        for (int i = 0; i < daysOfWeekArray.length; i++) {
-                            if (daysOfWeekArray[i].equals(taskCategory)) {
-                                dayIndex = i;
-                                break;
-                            }
-                        }
-                        selectedDayIndex = dayIndex;
-                    } else {
-                        selectedDayIndex = -1;
-                    }
-
-                    setSelectedTask(task);
-                    onTaskSelected.accept(task);
+                if (row == null) {
+                    return;
+                }
+                if (multiSelectMode) {
+                    toggleMultiSelected(task);
+                    return;
+                }
+                if (handleDoubleClick()) {
+                    return;
                 }
+                // For daily recurring tasks, remember which day instance was selected
+                selectedDayIndex = row.has(TaskRowModel.FLAG_DAILY_RECURRING) ? row.dayIndex : -1;
+                setSelectedTask(task);
+                onTaskSelected.accept(task);
             });
             
-            // Handle double-click on radio button for editing
+            // Handle double-click on radio button for editing;
+            // single clicks are handled by the radio button's OnCheckedChangeListener
             selectedRadioButton.setOnClickListener(v -> {
-                if (task != null) {
-                    long clickTime = System.currentTimeMillis();
-                    if (clickTime - lastClickTime < DOUBLE_CLICK_TIME_DELTA) {
-                        // Double-click detected - edit the task
-                        if (context instanceof MainActivity) {
-                            ((MainActivity) context).openEditDialog(task);
-                        }
-                        lastClickTime = 0; // Reset to prevent triple-click from triggering edit
-                        return;
-                    }
-                    
-                    // Single click - handle selection (this will be handled by the radio button's OnCheckedChangeListener)
-                    lastClickTime = clickTime;
+                if (row == null) {
+                    return;
                 }
-            });
-            
-            // Set radio button selection state
-            selectedRadioButton.setOnCheckedChangeListener(null);
-            
-            // For daily recurring tasks, check if this specific day instance is selected
-            boolean isSelected = false;
-            
-            if (selectedTask != null && selectedTask.id == task.id) {
-                // Check if this is a daily recurring task
-                String[] recurrenceTypes = context.getResources().getStringArray(R.array.recurrence_types);
-                String dailyRecurrenceType = recurrenceTypes[0]; // "Daily" or "יומי"
-                boolean isDailyRecurring = task.isRecurring && TaskConstants.RECURRENCE_DAILY.equals(task.recurrenceType);
-                
-                if (isDailyRecurring) {
-                    // For daily tasks, check if this specific day instance is selected
-                    // Find which day this task instance belongs to
-                    String taskCategory = getCategoryForTask(task, position);
-                    String[] daysOfWeekArray = context.getResources().getStringArray(R.array.days_of_week);
-                    int dayIndex = -1;
-                    for (int i = 0; i < daysOfWeekArray.length; i++) {
-                        if (daysOfWeekArray[i].equals(taskCategory)) {
-                            dayIndex = i;
-                            break;
-                        }
-                    }
-                    
-                    isSelected = selectedDayIndex == dayIndex;
+                // A radio button can't be unchecked by clicking, so multi-select toggles here
+                if (multiSelectMode) {
+                    toggleMultiSelected(task);
                 } else {
-                    // For regular tasks, use the normal selection logic
-                    isSelected = selectedTask.id == task.id;
+                    handleDoubleClick();
                 }
-            }
-            
-            selectedRadioButton.setChecked(isSelected);
-            selectedRadioButton.setEnabled(true); // Always enabled - future days are selectable
-            
-            // Apply visual styling for completed tasks
-            if (task.isCompleted) {
-                descriptionTextView.setPaintFlags(descriptionTextView.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
-                descriptionTextView.setTextColor(context.getResources().getColor(android.R.color.darker_gray));
-                dueDateTextView.setTextColor(context.getResources().getColor(android.R.color.darker_gray));
-            } else {
-                descriptionTextView.setPaintFlags(descriptionTextView.getPaintFlags() & (~Paint.STRIKE_THRU_TEXT_FLAG));
-                descriptionTextView.setTextColor(context.getResources().getColor(android.R.color.black));
-                dueDateTextView.setTextColor(context.getResources().getColor(android.R.color.darker_gray));
-            }
-            
-            String[] daysOfWeek = context.getResources().getStringArray(R.array.days_of_week);
-            String dueText = "";
-            
-            if (task.isCompleted && task.completionDate != null) {
-                // For completed tasks, show localized "Completed:" label and completion time
-                Calendar completionCal = Calendar.getInstance();
-                completionCal.setTimeInMillis(task.completionDate);
-                String label = context.getString(R.string.completed_label);
-                dueText = label + ": " + new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(completionCal.getTime());
-            } else if (task.dueDate != null) {
-                dueText = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(task.dueDate);
-            } else if (task.dayOfWeek != null && task.dayOfWeek.equals(TaskConstants.DAY_IMMEDIATE)) {
-                dueText = daysOfWeek[1]; // Immediate
-            }
-            // Removed dayOfWeek display since it's redundant when task is already in the correct category
-            
-            if (task.dueTime != null && !task.isCompleted) {
-                // Convert dueTime to HH:mm format, handling both old and new formats
-                String timeText = formatTimeOfDay(task.dueTime);
-                dueText += " " + timeText;
-            }
-            
-            if (task.isRecurring && task.recurrenceType != null && !task.recurrenceType.equals(TaskConstants.DAY_IMMEDIATE)) {
-                dueText += " (" + task.recurrenceType + ")";
-            }
-            
-            if (task.reminderOffset != null && task.reminderOffset > 0 && (!task.isCompleted || task.isRecurring)) {
-                dueText += " [" + getReminderOptionString(task.reminderOffset) + "]";
-            }
-            dueDateTextView.setText(dueText);
-            
-            // Show reminder icon if task has a reminder
-            if (task.dueTime != null && task.reminderOffset != null && task.reminderOffset >= 0) {
-                reminderIcon.setVisibility(View.VISIBLE);
-            } else {
-                reminderIcon.setVisibility(View.GONE);
-            }
-            
-            // Show FamilySync icon if task is imported from FamilySync
-            Log.d("MyToDo", "TaskAdapter: Checking FamilySync status for task: " + task.description);
-            Log.d("MyToDo", "TaskAdapter: sourceApp: " + task.sourceApp + ", sourceTaskId: " + task.sourceTaskId);
-            Log.d("MyToDo", "TaskAdapter: isExportedFromFamilySync: " + task.isExportedFromFamilySync());
-            
-            if (task.isExportedFromFamilySync()) {
-                familySyncIcon.setVisibility(View.VISIBLE);
-                Log.d("MyToDo", "TaskAdapter: Showing FamilySync icon for task: " + task.description);
-            } else {
-                familySyncIcon.setVisibility(View.GONE);
-                Log.d("MyToDo", "TaskAdapter: Hiding FamilySync icon for task: " + task.description);
-            }
+            });
             
-            // Show pin icon if task was manually positioned (has manualPosition set)
-            if (task.manualPosition != null) {
-                pinIcon.setVisibility(View.VISIBLE);
-                pinIcon.setOnClickListener(v -> {
-                    // Unpin the task (restore time-based order) by setting manualPosition to null
-                    task.manualPosition = null;
-                    
-                    // Update the task in the database
-                    if (context instanceof MainActivity) {
-                        ((MainActivity) context).unpinTask(task);
-                    }
-                    
-                    // Hide the pin icon immediately for visual feedback
-                    pinIcon.setVisibility(View.GONE);
-                });
-            } else {
-                pinIcon.setVisibility(View.GONE);
-                pinIcon.setOnClickListener(null); // Clear any previous listener
-            }
-
             // Handle radio button selection
             selectedRadioButton.setOnCheckedChangeListener((buttonView, isChecked) -> {
+                if (binding || row == null) {
+                    return;
+                }
+                if (multiSelectMode) {
+                    return;
+                }
                 if (isChecked) {
-                    // Check if this is a daily recurring task
-                    String[] recurrenceTypes = context.getResources().getStringArray(R.array.recurrence_types);
-                    String dailyRecurrenceType = recurrenceTypes[0]; // "Daily" or "יומי"
-                    boolean isDailyRecurring = task.isRecurring && TaskConstants.RECURRENCE_DAILY.equals(task.recurrenceType);
-                    
-                    if (isDailyRecurring) {
-                        // For daily tasks, find which day this instance belongs to
-                        String taskCategory = getCategoryForTask(task, position);
-                        String[] daysOfWeekArray = context.getResources().getStringArray(R.array.days_of_week);
-                        int dayIndex = -1;
-                        for (int i = 0; i < daysOfWeekArray.length; i++) {
-                            if (daysOfWeekArray[i].equals(taskCategory)) {
-                                dayIndex = i;
-                                break;
-                            }
-                        }
-                        selectedDayIndex = dayIndex;
+                    if (row.has(TaskRowModel.FLAG_DAILY_RECURRING)) {
+                        // For daily tasks, remember which day this instance belongs to
+                        selectedDayIndex = row.dayIndex;
                     }
-                    
                     setSelectedTask(task);
                     onTaskSelected.accept(task);
                 } else {
@@ -852,65 +566,94 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
                     }
                 }
             });
-
-            // Set task ID as tag
-            itemView.setTag(task.id);
             
-            // Setup drag handle
-
+            pinIcon.setOnClickListener(v -> {
+                if (row == null || !row.has(TaskRowModel.FLAG_PINNED)) {
+                    return;
+                }
+                // Unpin the task (restore time-based order) by setting manualPosition to null
+                task.manualPosition = null;
+                
+                // Update the task in the database
+                if (context instanceof MainActivity) {
+                    ((MainActivity) context).unpinTask(task);
+                }
+                
+                // Hide the pin icon immediately for visual feedback
+                pinIcon.setVisibility(View.GONE);
+            });
         }
-        
-
 
-        private String getReminderOptionString(int offset) {
-            String[] reminderOptions = context.getResources().getStringArray(R.array.reminder_options);
-            switch (offset) {
-                case 0:
-                    return reminderOptions[0]; // At the time of the task
-                case 15:
-                    return reminderOptions[1]; // 15 minutes before
-                case 30:
-                    return reminderOptions[2]; // 30 minutes before
-                case 60:
-                    return reminderOptions[3]; // 60 minutes before
-                default:
-                    return reminderOptions[0]; // At the time of the task
+        // Set the measured description when it is ready. Completed rows use the strike-through
+        // paint flag, which changes the text params, so they are always set as plain text.
+        private void setDescription(TaskRowModel row) {
+            PrecomputedTextCompat measured = row.has(TaskRowModel.FLAG_COMPLETED) ? null : textCache.get(row.displayText);
+            if (measured != null) {
+                descriptionTextView.setPaintFlags(descriptionTextView.getPaintFlags() & (~Paint.STRIKE_THRU_TEXT_FLAG));
+                try {
+                    TextViewCompat.setPrecomputedText(descriptionTextView, measured);
+                    return;
+                } catch (IllegalArgumentException e) {
+                    // The view's params no longer match the measurement: remeasure with them and
+                    // show plain text meanwhile
+                    if (textCache.setParams(TextViewCompat.getTextMetricsParams(descriptionTextView))) {
+                        prefetchExpandedDescriptions();
+                    }
+                }
             }
+            descriptionTextView.setText(row.displayText);
         }
-        
-        private boolean isTaskImmediate(Task task) {
-            // A task is immediate if:
-            // 1. It has dayOfWeek set to "Immediate" (English) or "מיידי" (Hebrew)
-            // 2. It has a due date that is overdue (past today)
-            
-            // Check if task is explicitly marked as immediate (compare with English constant)
-            if (task.dayOfWeek != null && task.dayOfWeek.equals(TaskConstants.DAY_IMMEDIATE)) {
+
+        // Returns true (and opens the edit dialog) if this click completes a double-click
+        private boolean handleDoubleClick() {
+            long clickTime = System.currentTimeMillis();
+            if (clickTime - lastClickTime < DOUBLE_CLICK_TIME_DELTA) {
+                // Double-click detected - edit the task
+                if (context instanceof MainActivity) {
+                    ((MainActivity) context).openEditDialog(task);
+                }
+                lastClickTime = 0; // Reset to prevent triple-click from triggering edit
                 return true;
             }
+            lastClickTime = clickTime;
+            return false;
+        }
+
+        void bind(TaskRowModel row) {
+            this.row = row;
+            this.task = row.task;
             
-            // Check if task has overdue date
-            if (task.dueDate != null) {
-                Calendar today = Calendar.getInstance();
-                today.set(Calendar.HOUR_OF_DAY, 0);
-                today.set(Calendar.MINUTE, 0);
-                today.set(Calendar.SECOND, 0);
-                today.set(Calendar.MILLISECOND, 0);
-                long todayMillis = today.getTimeInMillis();
-                
-                if (task.dueDate < todayMillis) {
-                    return true; // Task is overdue
-                }
+            setDescription(row);
+            dueDateTextView.setText(row.dueText);
+            
+            // For daily recurring tasks, only the selected day instance is checked
+            boolean isSelected = multiSelectMode
+                    ? multiSelectedIds.contains(task.id)
+                    : selectedTask != null && selectedTask.id == task.id
+                            && (!row.has(TaskRowModel.FLAG_DAILY_RECURRING) || selectedDayIndex == row.dayIndex);
+            binding = true;
+            selectedRadioButton.setChecked(isSelected);
+            binding = false;
+            selectedRadioButton.setEnabled(true); // Always enabled - future days are selectable
+            
+            // Apply visual styling for completed tasks
+            int paintFlags = descriptionTextView.getPaintFlags();
+            if (row.has(TaskRowModel.FLAG_COMPLETED)) {
+                descriptionTextView.setPaintFlags(paintFlags | Paint.STRIKE_THRU_TEXT_FLAG);
+                descriptionTextView.setTextColor(completedTextColor);
+            } else {
+                descriptionTextView.setPaintFlags(paintFlags & (~Paint.STRIKE_THRU_TEXT_FLAG));
+                descriptionTextView.setTextColor(activeTextColor);
             }
+            dueDateTextView.setTextColor(completedTextColor);
             
-            return false;
+            reminderIcon.setVisibility(row.has(TaskRowModel.FLAG_REMINDER) ? View.VISIBLE : View.GONE);
+            familySyncIcon.setVisibility(row.has(TaskRowModel.FLAG_FAMILY_SYNC) ? View.VISIBLE : View.GONE);
+            // Show pin icon if task was manually positioned (has manualPosition set)
+            pinIcon.setVisibility(row.has(TaskRowModel.FLAG_PINNED) ? View.VISIBLE : View.GONE);
+
+            // Set task ID as tag
+            itemView.setTag(task.id);
         }
     }
-    
-    // Helper method to format time (now always milliseconds since midnight)
-    private String formatTimeOfDay(long millisSinceMidnight) {
-        // All dueTime values are now stored as milliseconds since midnight
-        int hours = (int) (millisSinceMidnight / (60 * 60 * 1000));
-        int minutes = (int) ((millisSinceMidnight % (60 * 60 * 1000)) / (60 * 1000));
-        return String.format(java.util.Locale.getDefault(), "%02d:%02d", hours, minutes);
-    }
-}
\ No newline at end of file
+}
@@ -1,48 +1,106 @@
 package limor.tal.mytodo;
 
 import android.app.Application;
+import android.content.Context;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.util.Log;
 
-import androidx.room.Room;
-
 import com.google.firebase.FirebaseApp;
-import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class TaskApplication extends Application {
-    public static AppDatabase database;
-    private static SyncManager syncManager;
+    private static volatile AppDatabase database;
+    private static volatile SyncManager syncManager;
+    private static volatile boolean firebaseInitialized = false;
+    private static TaskApplication instance;
+    private static final ExecutorService startupExecutor = Executors.newSingleThreadExecutor();
 
     @Override
     public void onCreate() {
-        super.onCreate();
-        
-        // Initialize Firebase
-        try {
-            FirebaseApp.initializeApp(this);
-            Log.d("MyToDo", "TaskApplication: Firebase initialized successfully");
-        } catch (Exception e) {
-            Log.e("MyToDo", "TaskApplication: Error initializing Firebase", e);
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        traceSection("TaskApplication.super.onCreate", super::onCreate);
+        instance = this;
+
+        // Firebase, Room and SyncManager are created on demand: widget updates and alarm
+        // broadcasts start the process too, and most of them never touch Firestore.
+        // Firebase init is warmed up off the main thread for the activities that do.
+        startupExecutor.execute(TaskApplication::ensureFirebaseInitialized);
+        startupExecutor.execute(() -> MaintenanceJobService.schedule(this));
+        startupExecutor.execute(() -> DayRolloverJobService.schedule(this));
+
+        Log.d("MyToDo", "TaskApplication: onCreate finished in " + elapsedMillis(startNanos) + "ms");
+    }
+
+    public static Context getAppContext() {
+        return instance;
+    }
+
+    /**
+     * Initialize Firebase if it hasn't been yet. Safe to call from any thread.
+     */
+    public static void ensureFirebaseInitialized() {
+        if (firebaseInitialized) {
+            return;
         }
-        
-        // Initialize Room database
-        try {
-            database = Room.databaseBuilder(getApplicationContext(), AppDatabase.class, "task_database")
-                    .build();
-            Log.d("MyToDo", "TaskApplication: Database initialized successfully");
-        } catch (Exception e) {
-            Log.e("MyToDo", "TaskApplication: Error initializing database", e);
+        synchronized (TaskApplication.class) {
+            if (firebaseInitialized) {
+                return;
+            }
+            traceSection("TaskApplication.initFirebase", () -> {
+                try {
+                    FirebaseApp.initializeApp(instance);
+                    Log.d("MyToDo", "TaskApplication: Firebase initialized successfully");
+                } catch (Exception e) {
+                    Log.e("MyToDo", "TaskApplication: Error initializing Firebase", e);
+                }
+            });
+            firebaseInitialized = true;
         }
-        
-        // Initialize SyncManager as singleton
-        try {
-            syncManager = new SyncManager(this);
-            Log.d("MyToDo", "TaskApplication: SyncManager initialized successfully");
-        } catch (Exception e) {
-            Log.e("MyToDo", "TaskApplication: Error initializing SyncManager", e);
+    }
+
+    public static AppDatabase getDatabase() {
+        if (database == null) {
+            traceSection("TaskApplication.initDatabase", () -> database = AppDatabase.getDatabase(instance));
         }
+        // The active database follows the signed-in account, so the first open is only kept for tracing
+        return AppDatabase.getDatabase(instance);
     }
-    
+
     public static SyncManager getSyncManager() {
+        if (syncManager == null) {
+            ensureFirebaseInitialized();
+            synchronized (TaskApplication.class) {
+                if (syncManager == null) {
+                    traceSection("TaskApplication.initSyncManager", () -> {
+                        try {
+                            syncManager = new SyncManager(instance);
+                            Log.d("MyToDo", "TaskApplication: SyncManager initialized successfully");
+                        } catch (Exception e) {
+                            Log.e("MyToDo", "TaskApplication: Error initializing SyncManager", e);
+                        }
+                    });
+                }
+            }
+        }
         return syncManager;
     }
+
+    // Run a startup step inside a systrace section and log how long it took
+    private static void traceSection(String name, Runnable step) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        Trace.beginSection(name);
+        try {
+            step.run();
+        } finally {
+            Trace.endSection();
+            Log.d("MyToDo", "TaskApplication: " + name + " took " + elapsedMillis(startNanos) + "ms");
+        }
+    }
+
+    private static double elapsedMillis(long startNanos) {
+        return (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000.0;
+    }
 }
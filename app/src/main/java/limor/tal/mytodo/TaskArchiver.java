@@ -0,0 +1,170 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Moves completed non-recurring tasks out of the hot tasks table into archived_tasks once they
+ * are older than the configured age, in bounded batches, so the main list, the widget and sync
+ * only work over the active tasks.
+ *
+ * Synced tasks are moved to the archive collection in the cloud first and locally once that
+ * batch committed; tasks that were never synced are archived locally while signed out, and are
+ * otherwise left for sync to upload first. Archived tasks are read on demand (see
+ * TaskRepository.getArchivedTasksSync) and moved back by TaskRepository when they are changed.
+ */
+public class TaskArchiver {
+    private static final String TAG = "TaskArchiver";
+    private static final String PREFS_NAME = "MyToDoPrefs";
+    // Days after completion before a task is archived; 0 turns archiving off
+    public static final String PREF_ARCHIVE_AFTER_DAYS = "archive_after_days";
+    public static final int DEFAULT_ARCHIVE_AFTER_DAYS = 30;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final int BATCH_SIZE = 100;
+    // Batches per run; the rest waits for the next maintenance window
+    private static final int MAX_BATCHES = 10;
+
+    public interface ArchiveCallback {
+        void onComplete(boolean moreRemaining);
+    }
+
+    private final AppDatabase database;
+    private final SharedPreferences prefs;
+    private final ExecutorService executor;
+    private FirestoreService firestoreService;
+    private volatile boolean stopped = false;
+
+    public TaskArchiver(Context context, ExecutorService executor) {
+        this.database = AppDatabase.getDatabase(context);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.executor = executor;
+    }
+
+    private synchronized FirestoreService getFirestoreService() {
+        if (firestoreService == null) {
+            firestoreService = new FirestoreService();
+        }
+        return firestoreService;
+    }
+
+    /**
+     * Move these tasks from tasks to archived_tasks in one transaction
+     */
+    public static void moveToArchive(AppDatabase database, List<Integer> ids) {
+        ArchivedTaskDao dao = database.archivedTaskDao();
+        database.runInTransaction(() -> {
+            dao.copyToArchive(ids);
+            dao.deleteFromTasks(ids);
+        });
+    }
+
+    /**
+     * Move these tasks from archived_tasks back to tasks in one transaction
+     */
+    public static void restoreFromArchive(AppDatabase database, List<Integer> ids) {
+        ArchivedTaskDao dao = database.archivedTaskDao();
+        database.runInTransaction(() -> {
+            dao.copyFromArchive(ids);
+            dao.deleteFromArchive(ids);
+        });
+    }
+
+    /**
+     * Stop after the current batch
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public void archive(ArchiveCallback callback) {
+        executor.execute(() -> {
+            try {
+                int days = prefs.getInt(PREF_ARCHIVE_AFTER_DAYS, DEFAULT_ARCHIVE_AFTER_DAYS);
+                if (days <= 0) {
+                    callback.onComplete(false);
+                    return;
+                }
+                long completedBefore = System.currentTimeMillis() - days * DAY;
+                if (getFirestoreService().isUserAuthenticated()) {
+                    archiveSyncedBatch(completedBefore, 0, callback);
+                } else {
+                    callback.onComplete(archiveLocalTasks(completedBefore));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Archiving failed", e);
+                callback.onComplete(true);
+            }
+        });
+    }
+
+    // Archive tasks that were never synced; returns true if tasks were left for the next run
+    private boolean archiveLocalTasks(long completedBefore) {
+        int archived = 0;
+        for (int batch = 0; batch < MAX_BATCHES; batch++) {
+            if (stopped) {
+                return true;
+            }
+            List<Task> candidates = database.archivedTaskDao().getArchiveCandidates(completedBefore, false, BATCH_SIZE);
+            if (!candidates.isEmpty()) {
+                moveToArchive(database, idsOf(candidates));
+                archived += candidates.size();
+            }
+            if (candidates.size() < BATCH_SIZE) {
+                Log.d(TAG, "Archived " + archived + " local tasks");
+                return false;
+            }
+        }
+        Log.d(TAG, "Archived " + archived + " local tasks, more remaining");
+        return true;
+    }
+
+    private void archiveSyncedBatch(long completedBefore, int batch, ArchiveCallback callback) {
+        if (stopped || batch == MAX_BATCHES) {
+            callback.onComplete(true);
+            return;
+        }
+        List<Task> candidates = database.archivedTaskDao().getArchiveCandidates(completedBefore, true, BATCH_SIZE);
+        if (candidates.isEmpty()) {
+            callback.onComplete(false);
+            return;
+        }
+        getFirestoreService().archiveTasks(candidates, new FirestoreService.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                executor.execute(() -> {
+                    try {
+                        moveToArchive(database, idsOf(candidates));
+                        Log.d(TAG, "Archived " + candidates.size() + " synced tasks");
+                        if (candidates.size() < BATCH_SIZE) {
+                            callback.onComplete(false);
+                        } else {
+                            archiveSyncedBatch(completedBefore, batch + 1, callback);
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Failed to archive tasks locally", e);
+                        callback.onComplete(true);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Failed to archive tasks in the cloud: " + error);
+                callback.onComplete(true);
+            }
+        });
+    }
+
+    private static List<Integer> idsOf(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,319 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the task database to and from a backup file, for moving tasks between devices
+ * without an account and for restoring without a full cloud download.
+ *
+ * The file starts with an uncompressed header (magic, format version, flags); the rest is
+ * optionally gzipped and holds length-delimited chunks of task records, each tagged with the
+ * table it belongs to, and an end marker. Export pages through the tables by id and import
+ * inserts one chunk per transaction, so memory use does not depend on the number of tasks.
+ *
+ * Firestore document IDs are only kept when importing into the account that exported them;
+ * otherwise imported tasks are uploaded as new tasks on the next sync. Tasks that already
+ * exist locally under the same document ID are skipped.
+ */
+public class TaskBackup {
+    private static final String TAG = "TaskBackup";
+    private static final int MAGIC = 0x4D544442; // "MTDB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 9;
+    private static final byte FLAG_GZIP = 1;
+
+    private static final byte SECTION_END = 0;
+    private static final byte SECTION_TASKS = 1;
+    private static final byte SECTION_ARCHIVED_TASKS = 2;
+
+    // Task flag bits
+    private static final int FLAG_COMPLETED = 1;
+    private static final int FLAG_RECURRING = 1 << 1;
+
+    private static final long NO_VALUE = Long.MIN_VALUE;
+    private static final int CHUNK_SIZE = 400; // Also bounds the IN (...) lists of the duplicate check
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Context context;
+    private final AppDatabase database;
+
+    public TaskBackup(Context context) {
+        this.context = context.getApplicationContext();
+        this.database = AppDatabase.getDatabase(context);
+    }
+
+    /**
+     * Write all live and archived tasks to the document at uri.
+     * @param accountId the signed-in account, or null
+     * @return the number of tasks written
+     */
+    public int exportTo(Uri uri, String accountId, boolean gzip) throws IOException {
+        long start = System.currentTimeMillis();
+        try (ParcelFileDescriptor descriptor = openDescriptor(uri, "wt");
+             FileChannel channel = new FileOutputStream(descriptor.getFileDescriptor()).getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).put(gzip ? FLAG_GZIP : 0).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            OutputStream body = Channels.newOutputStream(channel);
+            if (gzip) {
+                body = new GZIPOutputStream(body, BUFFER_SIZE);
+            }
+            int count;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(body, BUFFER_SIZE))) {
+                out.writeLong(System.currentTimeMillis());
+                writeString(out, accountId);
+                count = exportTable(out, SECTION_TASKS) + exportTable(out, SECTION_ARCHIVED_TASKS);
+                out.writeByte(SECTION_END);
+            }
+            Log.d(TAG, "Exported " + count + " tasks in " + (System.currentTimeMillis() - start) + " ms");
+            return count;
+        }
+    }
+
+    /**
+     * Read tasks from the backup document at uri into the database.
+     * @param accountId the signed-in account, or null
+     * @return the number of tasks imported
+     */
+    public int importFrom(Uri uri, String accountId) throws IOException {
+        long start = System.currentTimeMillis();
+        try (ParcelFileDescriptor descriptor = openDescriptor(uri, "r");
+             FileChannel channel = new FileInputStream(descriptor.getFileDescriptor()).getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Not a task backup");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a task backup");
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported backup version " + version);
+            }
+            byte flags = header.get();
+
+            InputStream body = Channels.newInputStream(channel);
+            if ((flags & FLAG_GZIP) != 0) {
+                body = new GZIPInputStream(body, BUFFER_SIZE);
+            }
+            int imported = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(body, BUFFER_SIZE))) {
+                in.readLong(); // Export time
+                String exportAccountId = readString(in);
+                boolean keepDocumentIds = accountId != null && accountId.equals(exportAccountId);
+
+                byte section;
+                while ((section = in.readByte()) != SECTION_END) {
+                    int count = in.readInt();
+                    int length = in.readInt();
+                    if (section != SECTION_TASKS && section != SECTION_ARCHIVED_TASKS) {
+                        skipFully(in, length);
+                        continue;
+                    }
+                    List<Task> chunk = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        chunk.add(readTask(in, section == SECTION_ARCHIVED_TASKS));
+                    }
+                    imported += importChunk(chunk, section == SECTION_ARCHIVED_TASKS, keepDocumentIds);
+                }
+            }
+            Log.d(TAG, "Imported " + imported + " tasks in " + (System.currentTimeMillis() - start) + " ms");
+            return imported;
+        }
+    }
+
+    private ParcelFileDescriptor openDescriptor(Uri uri, String mode) throws IOException {
+        ParcelFileDescriptor descriptor = context.getContentResolver().openFileDescriptor(uri, mode);
+        if (descriptor == null) {
+            throw new FileNotFoundException("Cannot open " + uri);
+        }
+        return descriptor;
+    }
+
+    // Write one table as chunks of records; tombstones are left out
+    private int exportTable(DataOutputStream out, byte section) throws IOException {
+        ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream(BUFFER_SIZE);
+        DataOutputStream chunkOut = new DataOutputStream(chunkBytes);
+        int count = 0;
+        int lastId = 0;
+        List<Task> page;
+        while (!(page = section == SECTION_TASKS
+                ? database.taskDao().getTasksAfterId(lastId, CHUNK_SIZE)
+                : database.archivedTaskDao().getArchivedTasksAfterId(lastId, CHUNK_SIZE)).isEmpty()) {
+            chunkBytes.reset();
+            int chunkCount = 0;
+            for (Task task : page) {
+                lastId = task.id;
+                if (task.deletedAt == null) {
+                    writeTask(chunkOut, task);
+                    chunkCount++;
+                }
+            }
+            if (chunkCount > 0) {
+                out.writeByte(section);
+                out.writeInt(chunkCount);
+                out.writeInt(chunkBytes.size());
+                chunkBytes.writeTo(out);
+                count += chunkCount;
+            }
+        }
+        return count;
+    }
+
+    // Insert one chunk in one transaction, skipping tasks whose documents already exist locally
+    private int importChunk(List<Task> chunk, boolean archived, boolean keepDocumentIds) {
+        int[] inserted = new int[1];
+        database.runInTransaction(() -> {
+            Set<String> existing = new HashSet<>();
+            if (keepDocumentIds) {
+                List<String> documentIds = new ArrayList<>();
+                for (Task task : chunk) {
+                    if (task.firestoreDocumentId != null) {
+                        documentIds.add(task.firestoreDocumentId);
+                    }
+                }
+                if (!documentIds.isEmpty()) {
+                    existing.addAll(database.taskDao().getExistingFirestoreIds(documentIds));
+                }
+            }
+            List<Task> tasks = new ArrayList<>(chunk.size());
+            List<ArchivedTask> archivedTasks = new ArrayList<>();
+            for (Task task : chunk) {
+                if (!keepDocumentIds) {
+                    task.firestoreDocumentId = null;
+                } else if (task.firestoreDocumentId != null && existing.contains(task.firestoreDocumentId)) {
+                    continue;
+                }
+                if (archived) {
+                    archivedTasks.add((ArchivedTask) task);
+                } else {
+                    tasks.add(task);
+                }
+            }
+            if (!tasks.isEmpty()) {
+                database.taskDao().insertTasks(tasks);
+            }
+            if (!archivedTasks.isEmpty()) {
+                database.archivedTaskDao().insertAll(archivedTasks);
+            }
+            inserted[0] = tasks.size() + archivedTasks.size();
+        });
+        return inserted[0];
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeByte((task.isCompleted ? FLAG_COMPLETED : 0) | (task.isRecurring ? FLAG_RECURRING : 0));
+        out.writeInt(task.priority);
+        writeString(out, task.description);
+        writeString(out, task.dayOfWeek);
+        writeString(out, task.recurrenceType);
+        writeString(out, task.reminderDays);
+        writeLong(out, task.dueDate);
+        writeLong(out, task.dueTime);
+        writeLong(out, task.completionDate);
+        writeLong(out, task.reminderOffset != null ? (long) task.reminderOffset : null);
+        writeLong(out, task.manualPosition != null ? (long) task.manualPosition : null);
+        writeLong(out, task.createdAt);
+        writeLong(out, task.updatedAt);
+        writeString(out, task.firestoreDocumentId);
+        writeString(out, task.sourceApp);
+        writeString(out, task.sourceTaskId);
+        writeString(out, task.sourceGroupId);
+        writeString(out, task.familySyncAssigneeId);
+        writeString(out, task.familySyncCreatorId);
+    }
+
+    // Ids are not kept; imported tasks get new ones
+    private static Task readTask(DataInputStream in, boolean archived) throws IOException {
+        int flags = in.readByte();
+        int priority = in.readInt();
+        String description = readString(in);
+        String dayOfWeek = readString(in);
+        String recurrenceType = readString(in);
+        String reminderDays = readString(in);
+        Long dueDate = readLong(in);
+        boolean isRecurring = (flags & FLAG_RECURRING) != 0;
+        boolean isCompleted = (flags & FLAG_COMPLETED) != 0;
+
+        Task task = archived
+                ? new ArchivedTask(description, dueDate, dayOfWeek, isRecurring, recurrenceType, isCompleted, priority)
+                : new Task(description, dueDate, dayOfWeek, isRecurring, recurrenceType, isCompleted, priority);
+        task.reminderDays = reminderDays;
+        task.dueTime = readLong(in);
+        task.completionDate = readLong(in);
+        Long reminderOffset = readLong(in);
+        task.reminderOffset = reminderOffset != null ? reminderOffset.intValue() : null;
+        Long manualPosition = readLong(in);
+        task.manualPosition = manualPosition != null ? manualPosition.intValue() : null;
+        task.createdAt = readLong(in);
+        task.updatedAt = readLong(in);
+        task.firestoreDocumentId = readString(in);
+        task.sourceApp = readString(in);
+        task.sourceTaskId = readString(in);
+        task.sourceGroupId = readString(in);
+        task.familySyncAssigneeId = readString(in);
+        task.familySyncCreatorId = readString(in);
+        return task;
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        while (length > 0) {
+            int skipped = in.skipBytes(length);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            length -= skipped;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeLong(value != null ? value : NO_VALUE);
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        long value = in.readLong();
+        return value != NO_VALUE ? value : null;
+    }
+}
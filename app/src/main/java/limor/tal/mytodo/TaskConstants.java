@@ -1,5 +1,8 @@
 package limor.tal.mytodo;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Constants for task-related values that are always stored in English in the database.
  * Translation to Hebrew happens only in the UI layer.
@@ -52,6 +55,15 @@ public class TaskConstants {
         RECURRENCE_YEARLY
     };
     
+    // English day name -> index in ALL_DAYS
+    private static final Map<String, Integer> DAY_INDEX = new HashMap<>();
+    
+    static {
+        for (int i = 0; i < ALL_DAYS.length; i++) {
+            DAY_INDEX.put(ALL_DAYS[i], i);
+        }
+    }
+    
     /**
      * Get the English day name for a Calendar.DAY_OF_WEEK value
      */
@@ -72,23 +84,14 @@ public class TaskConstants {
      * Get the index of an English day name in the ALL_DAYS array
      */
     public static int getDayIndex(String englishDayName) {
-        for (int i = 0; i < ALL_DAYS.length; i++) {
-            if (ALL_DAYS[i].equals(englishDayName)) {
-                return i;
-            }
-        }
-        return 0; // Default to "None"
+        Integer index = englishDayName != null ? DAY_INDEX.get(englishDayName) : null;
+        return index != null ? index : 0; // Default to "None"
     }
     
     /**
      * Check if a day name is a valid English day name
      */
     public static boolean isValidEnglishDayName(String dayName) {
-        for (String day : ALL_DAYS) {
-            if (day.equals(dayName)) {
-                return true;
-            }
-        }
-        return false;
+        return dayName != null && DAY_INDEX.containsKey(dayName);
     }
 }
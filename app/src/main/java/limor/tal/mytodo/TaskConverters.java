@@ -0,0 +1,116 @@
+package limor.tal.mytodo;
+
+import androidx.room.TypeConverter;
+
+/**
+ * Room type converters that store the task's day, recurrence type and reminder days as
+ * compact integers while the Task fields keep their English string values.
+ *
+ * Each converter is a separate class because they all map String to Integer; they are
+ * applied per field on Task. Raw SQL on the coded columns uses the code constants below.
+ */
+public class TaskConverters {
+
+    /**
+     * dayOfWeek <-> index in TaskConstants.ALL_DAYS (0=None, 1=Immediate, 2=Soon, 3=Sunday ... 9=Saturday)
+     */
+    public static class DayOfWeek {
+        public static final int NONE = 0;
+        public static final int IMMEDIATE = 1;
+        public static final int SOON = 2;
+        public static final int SUNDAY = 3;
+        public static final int MONDAY = 4;
+        public static final int TUESDAY = 5;
+        public static final int WEDNESDAY = 6;
+        public static final int THURSDAY = 7;
+        public static final int FRIDAY = 8;
+        public static final int SATURDAY = 9;
+
+        @TypeConverter
+        public static Integer toCode(String dayOfWeek) {
+            if (dayOfWeek == null) {
+                return null;
+            }
+            int index = TaskTranslationTable.storedDayIndex(dayOfWeek);
+            return index != TaskTranslationTable.NOT_FOUND ? index : NONE; // Unknown values become "None"
+        }
+
+        @TypeConverter
+        public static String fromCode(Integer code) {
+            if (code == null) {
+                return null;
+            }
+            return code >= 0 && code < TaskConstants.ALL_DAYS.length ? TaskConstants.ALL_DAYS[code] : TaskConstants.DAY_NONE;
+        }
+    }
+
+    /**
+     * recurrenceType <-> index in TaskConstants.ALL_RECURRENCE_TYPES (0=Daily ... 4=Yearly)
+     */
+    public static class RecurrenceType {
+        public static final int DAILY = 0;
+        public static final int WEEKLY = 1;
+        public static final int BIWEEKLY = 2;
+        public static final int MONTHLY = 3;
+        public static final int YEARLY = 4;
+
+        @TypeConverter
+        public static Integer toCode(String recurrenceType) {
+            if (recurrenceType == null) {
+                return null;
+            }
+            int index = TaskTranslationTable.storedRecurrenceIndex(recurrenceType);
+            return index != TaskTranslationTable.NOT_FOUND ? index : DAILY;
+        }
+
+        @TypeConverter
+        public static String fromCode(Integer code) {
+            if (code == null) {
+                return null;
+            }
+            return code >= 0 && code < TaskConstants.ALL_RECURRENCE_TYPES.length
+                    ? TaskConstants.ALL_RECURRENCE_TYPES[code] : TaskConstants.RECURRENCE_DAILY;
+        }
+    }
+
+    /**
+     * reminderDays "0,2,4" (0=Sunday) <-> bitmask with bit i set for day i
+     */
+    public static class ReminderDays {
+        @TypeConverter
+        public static Integer toMask(String reminderDays) {
+            if (reminderDays == null) {
+                return null;
+            }
+            int mask = 0;
+            for (String day : reminderDays.split(",")) {
+                try {
+                    int index = Integer.parseInt(day.trim());
+                    if (index >= 0 && index < 7) {
+                        mask |= 1 << index;
+                    }
+                } catch (NumberFormatException e) {
+                    // Skip malformed entries
+                }
+            }
+            return mask;
+        }
+
+        @TypeConverter
+        public static String fromMask(Integer mask) {
+            if (mask == null) {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 7; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    if (sb.length() > 0) {
+                        sb.append(",");
+                    }
+                    sb.append(i);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
 
@@ -15,6 +16,9 @@ public interface TaskDao {
     @Insert
     void insert(Task task);
 
+    @Insert
+    void insertTasks(List<Task> tasks);
+
     @Update
     void update(Task task);
 
@@ -24,6 +28,9 @@ public interface TaskDao {
     @Delete
     void delete(Task task);
 
+    @Delete
+    void deleteTasks(List<Task> tasks);
+
     @Query("SELECT * FROM tasks WHERE deletedAt IS NULL")
     LiveData<List<Task>> getAllTasks();
 
@@ -33,12 +40,82 @@ public interface TaskDao {
     @Query("SELECT * FROM tasks")
     List<Task> getAllTasksIncludingDeletedSync();
 
+    // Keyset page over all tasks (including deleted) for chunked maintenance jobs
+    @Query("SELECT * FROM tasks WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<Task> getTasksAfterId(int afterId, int limit);
+
+    @Query("SELECT * FROM tasks WHERE firestoreDocumentId IN (:documentIds)")
+    List<Task> getTasksByFirestoreIds(List<String> documentIds);
+
+    // Which of these document IDs are linked to a local task, live or archived
+    @Query("SELECT firestoreDocumentId FROM tasks WHERE firestoreDocumentId IN (:documentIds) " +
+            "UNION SELECT firestoreDocumentId FROM archived_tasks WHERE firestoreDocumentId IN (:documentIds)")
+    List<String> getExistingFirestoreIds(List<String> documentIds);
+
+    // Keyset page over live tasks that were never uploaded
+    @Query("SELECT * FROM tasks WHERE firestoreDocumentId IS NULL AND deletedAt IS NULL AND id > :afterId ORDER BY id LIMIT :limit")
+    List<Task> getUnsyncedTasksAfterId(int afterId, int limit);
+
+    // Tasks linked to a cloud document that the current paged sync has not seen
+    @Query("SELECT * FROM tasks WHERE firestoreDocumentId IS NOT NULL " +
+            "AND firestoreDocumentId NOT IN (SELECT firestoreDocumentId FROM sync_seen_documents) ORDER BY id LIMIT :limit")
+    List<Task> getUnseenSyncedTasks(int limit);
+
+    @Query("SELECT firestoreDocumentId, updatedAt, deletedAt FROM tasks WHERE firestoreDocumentId IS NOT NULL")
+    List<SyncDigest.Row> getSyncDigestRows();
+
+    // Synced tasks, live or deleted, in a document ID range; a null bound is open
+    @Query("SELECT * FROM tasks WHERE firestoreDocumentId >= IFNULL(:lowerId, '') " +
+            "AND (:upperId IS NULL OR firestoreDocumentId < :upperId)")
+    List<Task> getSyncedTasksInIdRange(String lowerId, String upperId);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void markSyncSeen(List<SyncSeenDocument> documents);
+
+    @Query("DELETE FROM sync_seen_documents")
+    void clearSyncSeen();
+
+    // Imported FamilySync tasks, followed by FamilySyncSubscriptionManager
+    @Query("SELECT * FROM tasks WHERE sourceApp = 'familysync' AND sourceTaskId IS NOT NULL " +
+            "AND firestoreDocumentId IS NOT NULL AND deletedAt IS NULL")
+    List<Task> getImportedFamilySyncTasks();
+
+    @Query("UPDATE tasks SET isCompleted = :isCompleted, completionDate = :completionDate, updatedAt = :now " +
+            "WHERE firestoreDocumentId = :documentId")
+    int updateCompletionByDocumentId(String documentId, boolean isCompleted, Long completionDate, long now);
+
     @Query("SELECT * FROM tasks WHERE id = :taskId AND deletedAt IS NULL")
     Task getTaskById(int taskId);
 
     @Query("SELECT * FROM tasks WHERE completionDate > :timestamp AND deletedAt IS NULL")
     List<Task> getTasksModifiedSince(long timestamp);
 
+    // One batch of tombstones that were never uploaded; returns the number deleted
+    @Query("DELETE FROM tasks WHERE id IN (SELECT id FROM tasks WHERE firestoreDocumentId IS NULL " +
+            "AND deletedAt < :deletedBefore LIMIT :limit)")
+    int purgeLocalTombstones(long deletedBefore, int limit);
+
+    @Query("DELETE FROM tasks WHERE deletedAt IS NOT NULL AND firestoreDocumentId IN (:documentIds)")
+    int deleteTombstonesByFirestoreIds(List<String> documentIds);
+
     @Query("DELETE FROM tasks")
     void deleteAllTasks();
+
+    // Day rollover, see TaskRollover; each returns the number of tasks changed
+    @Query("UPDATE tasks SET isCompleted = 0, completionDate = NULL, updatedAt = :now " +
+            "WHERE isRecurring = 1 AND recurrenceType = " + TaskRollover.RECURRENCE_DAILY +
+            " AND " + TaskRollover.COMPLETED_BEFORE_TODAY)
+    int resetDailyCompletions(long todayStart, long now);
+
+    @Query("UPDATE tasks SET dueDate = " + TaskRollover.NEXT_DUE_DATE + ", dayOfWeek = " + TaskRollover.DAY_NONE + ", " +
+            "isCompleted = 0, completionDate = NULL, updatedAt = :now " +
+            "WHERE isRecurring = 1 AND recurrenceType IN " + TaskRollover.RECURRENCE_PERIODIC +
+            " AND " + TaskRollover.COMPLETED_BEFORE_TODAY)
+    int advanceRecurringTasks(long todayStart, long now);
+
+    @Query("UPDATE tasks SET dayOfWeek = " + TaskRollover.DAY_IMMEDIATE + ", updatedAt = :now " +
+            "WHERE isCompleted = 0 AND deletedAt IS NULL AND dueDate < :todayStart " +
+            "AND (dayOfWeek IS NULL OR dayOfWeek = " + TaskRollover.DAY_NONE + ") " +
+            "AND NOT (isRecurring = 1 AND recurrenceType = " + TaskRollover.RECURRENCE_DAILY + ")")
+    int promoteOverdueTasks(long todayStart, long now);
 }
\ No newline at end of file
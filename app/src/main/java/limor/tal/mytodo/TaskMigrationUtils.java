@@ -1,111 +1,179 @@
 package limor.tal.mytodo;
 
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Utility class for migrating existing tasks from Hebrew to English database values.
  * This should be run once when the app is updated to the new English-only system.
+ *
+ * Since dayOfWeek and recurrenceType are stored as codes (see TaskConverters), legacy Hebrew
+ * values are already normalized when read, so a run finds nothing to change. It is kept as a
+ * no-op safety net that scans each account database once and then stays marked completed.
+ *
+ * Tasks are processed in id order in fixed-size chunks, each chunk in its own transaction.
+ * The last migrated id is checkpointed after every chunk, so a run interrupted by process
+ * death resumes where it stopped instead of starting over. The checkpoint and the completed
+ * flag are kept per account database, since ids in one file mean nothing in another.
  */
 public class TaskMigrationUtils {
     private static final String TAG = "TaskMigrationUtils";
+    private static final String PREFS_NAME = "MyToDoPrefs";
     private static final String MIGRATION_KEY = "task_migration_to_english_completed";
-    
+    private static final String CHECKPOINT_KEY = "task_migration_to_english_checkpoint";
+    private static final int CHUNK_SIZE = 200;
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+
     /**
      * Check if migration has already been completed
      */
     public static boolean isMigrationCompleted(Context context) {
-        return context.getSharedPreferences("MyToDoPrefs", Context.MODE_PRIVATE)
-                .getBoolean(MIGRATION_KEY, false);
+        return isMigrationCompleted(context, AppDatabase.getDatabase(context));
     }
-    
+
+    private static boolean isMigrationCompleted(Context context, AppDatabase database) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(database.prefKey(MIGRATION_KEY), false);
+    }
+
     /**
      * Mark migration as completed
      */
     public static void markMigrationCompleted(Context context) {
-        context.getSharedPreferences("MyToDoPrefs", Context.MODE_PRIVATE)
+        markMigrationCompleted(context, AppDatabase.getDatabase(context));
+    }
+
+    private static void markMigrationCompleted(Context context, AppDatabase database) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
                 .edit()
-                .putBoolean(MIGRATION_KEY, true)
+                .putBoolean(database.prefKey(MIGRATION_KEY), true)
+                .remove(database.prefKey(CHECKPOINT_KEY))
                 .apply();
         Log.d(TAG, "Migration marked as completed");
     }
-    
+
     /**
-     * Migrate all tasks from Hebrew to English values
+     * Migrate all tasks from Hebrew to English values. Must not be called on the main thread.
      */
     public static void migrateTasksToEnglish(Context context) {
         if (isMigrationCompleted(context)) {
             Log.d(TAG, "Migration already completed, skipping");
             return;
         }
-        
-        Log.d(TAG, "Starting migration of tasks to English values");
-        
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Log.w(TAG, "migrateTasksToEnglish called on the main thread, moving to background");
+            migrateTasksToEnglishAsync(context);
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            Log.d(TAG, "Migration already running, skipping");
+            return;
+        }
+
         try {
-            TaskRepository repository = new TaskRepository((android.app.Application) context.getApplicationContext());
-            List<Task> allTasks = repository.getAllTasksSync();
-            
-            if (allTasks == null || allTasks.isEmpty()) {
-                Log.d(TAG, "No tasks to migrate");
-                markMigrationCompleted(context);
-                return;
+            Context appContext = context.getApplicationContext();
+            runMigration(appContext, AppDatabase.getDatabase(appContext));
+        } catch (Exception e) {
+            Log.e(TAG, "Error during migration", e);
+            // Don't mark as completed if there was an error; the checkpoint lets the next run resume
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Migrates one account database; a switch during the run doesn't move it to another file
+    private static void runMigration(Context context, AppDatabase database) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        TaskDao taskDao = database.taskDao();
+        String checkpointKey = database.prefKey(CHECKPOINT_KEY);
+
+        int lastId = prefs.getInt(checkpointKey, 0);
+        Log.d(TAG, "Starting migration of tasks to English values" + (lastId > 0 ? ", resuming after task " + lastId : ""));
+
+        long startTime = SystemClock.elapsedRealtime();
+        int scannedCount = 0;
+        int migratedCount = 0;
+
+        while (true) {
+            long chunkStart = SystemClock.elapsedRealtime();
+            List<Task> chunk = taskDao.getTasksAfterId(lastId, CHUNK_SIZE);
+            if (chunk.isEmpty()) {
+                break;
             }
-            
-            int migratedCount = 0;
-            boolean hasChanges = false;
-            
-            for (Task task : allTasks) {
-                boolean taskChanged = false;
-                
-                // Migrate dayOfWeek
-                if (task.dayOfWeek != null) {
-                    String englishDayName = TaskTranslationUtils.convertHebrewToEnglishDayName(task.dayOfWeek);
-                    if (!englishDayName.equals(task.dayOfWeek)) {
-                        Log.d(TAG, "Migrating task " + task.id + " dayOfWeek: " + task.dayOfWeek + " -> " + englishDayName);
-                        task.dayOfWeek = englishDayName;
-                        taskChanged = true;
-                    }
-                }
-                
-                // Migrate recurrenceType
-                if (task.recurrenceType != null) {
-                    String englishRecurrenceType = TaskTranslationUtils.convertHebrewToEnglishRecurrenceType(task.recurrenceType);
-                    if (!englishRecurrenceType.equals(task.recurrenceType)) {
-                        Log.d(TAG, "Migrating task " + task.id + " recurrenceType: " + task.recurrenceType + " -> " + englishRecurrenceType);
-                        task.recurrenceType = englishRecurrenceType;
-                        taskChanged = true;
-                    }
-                }
-                
-                if (taskChanged) {
-                    repository.update(task);
-                    migratedCount++;
-                    hasChanges = true;
+
+            List<Task> changed = new ArrayList<>();
+            for (Task task : chunk) {
+                if (migrateTask(task)) {
+                    changed.add(task);
                 }
             }
-            
-            if (hasChanges) {
-                Log.d(TAG, "Migration completed: " + migratedCount + " tasks migrated to English values");
-            } else {
-                Log.d(TAG, "Migration completed: No tasks needed migration");
+            if (!changed.isEmpty()) {
+                database.runInTransaction(() -> taskDao.updateTasks(changed));
+            }
+
+            lastId = chunk.get(chunk.size() - 1).id;
+            // Chunks are idempotent, so writing the checkpoint after the commit is enough
+            prefs.edit().putInt(checkpointKey, lastId).commit();
+
+            scannedCount += chunk.size();
+            migratedCount += changed.size();
+            long chunkMillis = Math.max(1, SystemClock.elapsedRealtime() - chunkStart);
+            Log.d(TAG, "Migrated chunk up to task " + lastId + ": " + changed.size() + "/" + chunk.size() +
+                    " changed, " + (chunk.size() * 1000L / chunkMillis) + " tasks/s");
+
+            if (chunk.size() < CHUNK_SIZE) {
+                break;
             }
-            
-            markMigrationCompleted(context);
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error during migration", e);
-            // Don't mark as completed if there was an error
         }
+
+        long totalMillis = Math.max(1, SystemClock.elapsedRealtime() - startTime);
+        Log.d(TAG, "Migration completed: " + migratedCount + " of " + scannedCount + " tasks migrated to English values in " +
+                totalMillis + "ms (" + (scannedCount * 1000L / totalMillis) + " tasks/s)");
+
+        markMigrationCompleted(context, database);
     }
-    
+
+    // Convert one task's Hebrew values in place; returns true if anything changed
+    private static boolean migrateTask(Task task) {
+        boolean taskChanged = false;
+
+        // Migrate dayOfWeek
+        if (task.dayOfWeek != null) {
+            String englishDayName = TaskTranslationUtils.convertHebrewToEnglishDayName(task.dayOfWeek);
+            if (!englishDayName.equals(task.dayOfWeek)) {
+                Log.d(TAG, "Migrating task " + task.id + " dayOfWeek: " + task.dayOfWeek + " -> " + englishDayName);
+                task.dayOfWeek = englishDayName;
+                taskChanged = true;
+            }
+        }
+
+        // Migrate recurrenceType
+        if (task.recurrenceType != null) {
+            String englishRecurrenceType = TaskTranslationUtils.convertHebrewToEnglishRecurrenceType(task.recurrenceType);
+            if (!englishRecurrenceType.equals(task.recurrenceType)) {
+                Log.d(TAG, "Migrating task " + task.id + " recurrenceType: " + task.recurrenceType + " -> " + englishRecurrenceType);
+                task.recurrenceType = englishRecurrenceType;
+                taskChanged = true;
+            }
+        }
+
+        return taskChanged;
+    }
+
     /**
-     * Run migration in background thread
+     * Run migration on the database write executor
      */
     public static void migrateTasksToEnglishAsync(Context context) {
         Log.d(TAG, "Starting async migration to English values");
-        new Thread(() -> {
-            migrateTasksToEnglish(context);
-        }).start();
+        final Context appContext = context.getApplicationContext();
+        AppDatabase.databaseWriteExecutor.execute(() -> migrateTasksToEnglish(appContext));
     }
 }
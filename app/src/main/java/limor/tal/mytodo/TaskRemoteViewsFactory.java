@@ -1,6 +1,5 @@
 package limor.tal.mytodo;
 
-import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -9,7 +8,13 @@ import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Factory for creating remote views for the scrollable task list widget
@@ -17,13 +22,28 @@ import java.util.List;
 public class TaskRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory {
     private static final String TAG = "TaskRemoteViewsFactory";
     private Context context;
-    private List<Task> tasks;
+    private volatile List<WidgetRow> rows;
     private boolean showTodayOnly;
     private static final String PREF_SHOW_TODAY_ONLY = "widget_show_today_only";
 
+    // Rendered rows keyed by task ID. Launchers re-bind rows while scrolling, so a row is
+    // only rebuilt when its content changed; entries are pruned when the data version moves.
+    private final Map<Integer, CachedRow> viewCache = new HashMap<>();
+    private long cachedDataVersion = -1;
+
+    private static class CachedRow {
+        final int contentHash;
+        final RemoteViews views;
+
+        CachedRow(int contentHash, RemoteViews views) {
+            this.contentHash = contentHash;
+            this.views = views;
+        }
+    }
+
     public TaskRemoteViewsFactory(Context context, Intent intent) {
         this.context = context;
-        this.tasks = new ArrayList<>();
+        this.rows = new ArrayList<>();
     }
 
     @Override
@@ -41,82 +61,99 @@ public class TaskRemoteViewsFactory implements RemoteViewsService.RemoteViewsFac
             showTodayOnly = prefs.getBoolean(PREF_SHOW_TODAY_ONLY, false);
             Log.d(TAG, "onDataSetChanged: showTodayOnly = " + showTodayOnly);
             
-            // Get all tasks from database
-            Log.d(TAG, "onDataSetChanged: Creating TaskRepository");
-            TaskRepository repository = new TaskRepository((android.app.Application) context.getApplicationContext());
-            Log.d(TAG, "onDataSetChanged: Calling getAllTasksSync()");
-            List<Task> allTasks = repository.getAllTasksSync();
-            
-            Log.d(TAG, "onDataSetChanged: getAllTasksSync() returned " + (allTasks != null ? allTasks.size() : "null") + " tasks");
+            List<WidgetRow> loadedRows = loadVisibleRows(context, showTodayOnly);
+            // Let WidgetUpdateHelper skip invalidations that don't change what we show
+            WidgetUpdateHelper.recordVisibleRows(showTodayOnly, loadedRows);
+            pruneViewCache(loadedRows);
+            rows = loadedRows;
             
-            tasks.clear();
-            
-            if (allTasks != null) {
-                Log.d(TAG, "onDataSetChanged: Processing " + allTasks.size() + " tasks");
-                int completedCount = 0;
-                int todayFilteredCount = 0;
-                int addedCount = 0;
-                
-                for (Task task : allTasks) {
-                    Log.d(TAG, "onDataSetChanged: Processing task: " + task.description + " (completed: " + task.isCompleted + ", dayOfWeek: " + task.dayOfWeek + ")");
-                    
-                    if (!task.isCompleted) {
-                        // Filter by today if toggle is enabled
-                        if (showTodayOnly && !isTaskForToday(context, task)) {
-                            todayFilteredCount++;
-                            Log.d(TAG, "onDataSetChanged: Skipping task (not for today): " + task.description);
-                            continue;
-                        }
-                        tasks.add(task);
-                        addedCount++;
-                        Log.d(TAG, "onDataSetChanged: Added task: " + task.description);
-                    } else {
-                        completedCount++;
-                        Log.d(TAG, "onDataSetChanged: Skipping completed task: " + task.description);
-                    }
-                }
-                
-                Log.d(TAG, "onDataSetChanged: Summary - Total: " + allTasks.size() + 
-                      ", Completed: " + completedCount + 
-                      ", Today filtered: " + todayFilteredCount + 
-                      ", Added: " + addedCount);
-            } else {
-                Log.e(TAG, "onDataSetChanged: getAllTasksSync() returned null!");
-            }
-            
-            Log.d(TAG, "onDataSetChanged: Final tasks list size: " + tasks.size() + " (showTodayOnly: " + showTodayOnly + ")");
+            Log.d(TAG, "onDataSetChanged: Final rows list size: " + rows.size() + " (showTodayOnly: " + showTodayOnly + ")");
             
         } catch (Exception e) {
             Log.e(TAG, "onDataSetChanged: Error loading tasks", e);
-            tasks.clear();
+            rows = new ArrayList<>();
         }
     }
 
+    /**
+     * Load the widget rows for the "all" or "today" mode from the widget_rows projection.
+     * Must be called off the main thread.
+     */
+    static List<WidgetRow> loadVisibleRows(Context context, boolean showTodayOnly) {
+        WidgetRowDao widgetRowDao = AppDatabase.getDatabase(context).widgetRowDao();
+        if (!showTodayOnly) {
+            return widgetRowDao.getAllRows();
+        }
+        
+        // Days are stored as TaskConstants.ALL_DAYS indices
+        Calendar today = Calendar.getInstance();
+        int todayDayIndex = TaskConstants.getDayIndex(TaskConstants.getEnglishDayName(today.get(Calendar.DAY_OF_WEEK)));
+        String todayKey = String.format(Locale.US, "%1$tY-%1$tm-%1$td", today);
+        return widgetRowDao.getTodayRows(todayDayIndex, TaskConstants.getDayIndex(TaskConstants.DAY_IMMEDIATE), todayKey);
+    }
+
+    // Drop cached rows that are gone or whose content changed since the last data version
+    private void pruneViewCache(List<WidgetRow> loadedRows) {
+        long dataVersion = WidgetUpdateHelper.getDataVersion();
+        synchronized (viewCache) {
+            if (dataVersion == cachedDataVersion) {
+                return;
+            }
+            Map<Integer, Integer> hashesById = new HashMap<>();
+            for (WidgetRow row : loadedRows) {
+                hashesById.put(row.taskId, contentHash(row));
+            }
+            Iterator<Map.Entry<Integer, CachedRow>> iterator = viewCache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, CachedRow> entry = iterator.next();
+                Integer hash = hashesById.get(entry.getKey());
+                if (hash == null || hash != entry.getValue().contentHash) {
+                    iterator.remove();
+                }
+            }
+            cachedDataVersion = dataVersion;
+            Log.d(TAG, "pruneViewCache: " + viewCache.size() + " cached rows kept for data version " + dataVersion);
+        }
+    }
+
+    private static int contentHash(WidgetRow row) {
+        return Objects.hash(row.displayText, row.flags);
+    }
+
     @Override
     public void onDestroy() {
         Log.d(TAG, "onDestroy: Factory destroyed");
-        tasks.clear();
+        rows = new ArrayList<>();
+        synchronized (viewCache) {
+            viewCache.clear();
+            cachedDataVersion = -1;
+        }
     }
 
     @Override
     public int getCount() {
-        int count = tasks.size();
-        Log.d(TAG, "getCount: Returning " + count + " tasks");
-        return count;
+        return rows.size();
     }
 
     @Override
     public RemoteViews getViewAt(int position) {
-        Log.d(TAG, "getViewAt: position=" + position + ", tasks.size()=" + tasks.size());
-        
-        if (position >= tasks.size()) {
-            Log.w(TAG, "getViewAt: Invalid position " + position + " (tasks.size()=" + tasks.size() + ")");
+        List<WidgetRow> currentRows = rows;
+        if (position >= currentRows.size()) {
+            Log.w(TAG, "getViewAt: Invalid position " + position + " (rows.size()=" + currentRows.size() + ")");
             return null;
         }
         
-        Task task = tasks.get(position);
-        Log.d(TAG, "getViewAt: Creating view for task: " + task.description + " (ID: " + task.id + ")");
-        return createTaskView(context, task);
+        WidgetRow row = currentRows.get(position);
+        int hash = contentHash(row);
+        synchronized (viewCache) {
+            CachedRow cached = viewCache.get(row.taskId);
+            if (cached != null && cached.contentHash == hash) {
+                return cached.views;
+            }
+            RemoteViews views = createTaskView(context, row);
+            viewCache.put(row.taskId, new CachedRow(hash, views));
+            return views;
+        }
     }
 
     @Override
@@ -131,7 +168,9 @@ public class TaskRemoteViewsFactory implements RemoteViewsService.RemoteViewsFac
 
     @Override
     public long getItemId(int position) {
-        return position;
+        // Task IDs are stable across reloads, so the host can keep views of unchanged rows
+        List<WidgetRow> currentRows = rows;
+        return position < currentRows.size() ? currentRows.get(position).taskId : position;
     }
 
     @Override
@@ -139,112 +178,35 @@ public class TaskRemoteViewsFactory implements RemoteViewsService.RemoteViewsFac
         return true;
     }
 
-    private RemoteViews createTaskView(Context context, Task task) {
-        Log.d(TAG, "createTaskView: Creating view for task: " + task.description);
-        
+    private RemoteViews createTaskView(Context context, WidgetRow row) {
         RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_task_item);
-        Log.d(TAG, "createTaskView: Created RemoteViews with layout: widget_task_item");
         
-        // Set task description with priority indicator
-        String prioritySymbol = "";
-        switch (task.priority) {
-            case 1: prioritySymbol = "🔴 "; break; // Red for High
-            case 2: prioritySymbol = "🟡 "; break; // Yellow for Medium  
-            case 3: prioritySymbol = "🟢 "; break; // Green for Low
-            default: prioritySymbol = "⚪ "; break; // Gray for None
-        }
-        
-        String displayText = prioritySymbol + task.description;
-        views.setTextViewText(R.id.widget_task_text, displayText);
-        Log.d(TAG, "createTaskView: Set task text: " + displayText);
+        // Display text already carries the priority indicator
+        views.setTextViewText(R.id.widget_task_text, row.displayText);
         
         // Show FamilySync indicator if task is imported from FamilySync
-        // Note: This will be enhanced when we add FamilySync fields to the Task class
-        // For now, we'll check if the task has a Firestore document ID as a placeholder
-        if (task.firestoreDocumentId != null) {
-            // This is a placeholder - the actual implementation will check FirestoreTask source fields
-            // TODO: Query Firestore to check if this task is imported from FamilySync
-            views.setViewVisibility(R.id.widget_family_sync_icon, android.view.View.GONE); // Hide for now
-            Log.d(TAG, "createTaskView: Task has Firestore ID but FamilySync check not implemented yet: " + task.description);
-        } else {
-            views.setViewVisibility(R.id.widget_family_sync_icon, android.view.View.GONE);
-            Log.d(TAG, "createTaskView: Task has no Firestore ID: " + task.description);
-        }
+        views.setViewVisibility(R.id.widget_family_sync_icon,
+                row.isFamilySyncTask() ? android.view.View.VISIBLE : android.view.View.GONE);
         
         // Set ImageView to show unchecked state (since completed tasks are not shown in widget)
         // This avoids checkbox state caching issues entirely
         try {
             views.setImageViewResource(R.id.widget_task_checkbox, R.drawable.ic_checkbox_unchecked);
-            Log.d(TAG, "createTaskView: Set ImageView to unchecked state for task: " + task.description);
         } catch (Exception e) {
             Log.e(TAG, "createTaskView: Error setting ImageView resource", e);
         }
         
-        Log.d(TAG, "createTaskView: About to set click intent for task: " + task.description + " (ID: " + task.id + ")");
-        
         // Set click intent for task completion using fill-in intent (template approach)
         // Individual RemoteViews items in ListView cannot use setOnClickPendingIntent directly
         Intent completeIntent = new Intent();
-        completeIntent.putExtra("task_id", (int) task.id);
+        completeIntent.putExtra("task_id", row.taskId);
         completeIntent.putExtra("debug_source", "TaskRemoteViewsFactory");
-        completeIntent.putExtra("debug_timestamp", System.currentTimeMillis());
-        Log.d(TAG, "createTaskView: Creating fill-in intent with task_id: " + task.id + ", intent: " + completeIntent);
         
         // Set click intent on both LinearLayout and ImageView
         views.setOnClickFillInIntent(R.id.widget_task_item, completeIntent);
         views.setOnClickFillInIntent(R.id.widget_task_checkbox, completeIntent);
-        Log.d(TAG, "createTaskView: Successfully set fill-in intent for task ID: " + task.id + " on both LinearLayout and ImageView");
-        Log.d(TAG, "createTaskView: Fill-in intent details - extras: " + completeIntent.getExtras());
-        
-        Log.d(TAG, "createTaskView: Successfully created simple view for task: " + task.description);
-        Log.d(TAG, "createTaskView: Returning RemoteViews for task: " + task.description + " (ID: " + task.id + ")");
+        Log.d(TAG, "createTaskView: Created view for task ID: " + row.taskId);
         
         return views;
     }
-
-    private boolean isTaskForToday(Context context, Task task) {
-        try {
-            // Get current day in English (always stored in English in database)
-            java.util.Calendar today = java.util.Calendar.getInstance();
-            String todayEnglishDay = TaskConstants.getEnglishDayName(today.get(java.util.Calendar.DAY_OF_WEEK));
-            
-            Log.d(TAG, "isTaskForToday: Today English day: " + todayEnglishDay);
-            
-            // 1. Check for tasks with a specific day of the week (now always in English)
-            if (task.dayOfWeek != null && !task.dayOfWeek.isEmpty()) {
-                if (task.dayOfWeek.equals(todayEnglishDay)) {
-                    Log.d(TAG, "isTaskForToday: Task matches current day of week: " + task.description);
-                    return true;
-                }
-            }
-            
-            // 2. Check for "Immediate" tasks (overdue tasks) - now always in English
-            if (task.dayOfWeek != null && task.dayOfWeek.equals(TaskConstants.DAY_IMMEDIATE)) {
-                Log.d(TAG, "isTaskForToday: Task is 'Immediate': " + task.description);
-                return true;
-            }
-            
-            // 3. Check if task has due date for today
-            if (task.dueDate != null) {
-                java.util.Calendar taskDate = java.util.Calendar.getInstance();
-                taskDate.setTimeInMillis(task.dueDate);
-                
-                java.util.Calendar todayCal = java.util.Calendar.getInstance();
-                boolean isSameDay = taskDate.get(java.util.Calendar.YEAR) == todayCal.get(java.util.Calendar.YEAR) &&
-                                   taskDate.get(java.util.Calendar.DAY_OF_YEAR) == todayCal.get(java.util.Calendar.DAY_OF_YEAR);
-                
-                if (isSameDay) {
-                    Log.d(TAG, "isTaskForToday: Task matches current due date: " + task.description);
-                    return true;
-                }
-            }
-            
-            Log.d(TAG, "isTaskForToday: Task does not match today - returning false for: " + task.description);
-            return false;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "isTaskForToday: Error checking if task is for today", e);
-            return false;
-        }
-    }
 }
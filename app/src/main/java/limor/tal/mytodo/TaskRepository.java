@@ -5,35 +5,21 @@ import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class TaskRepository {
+    private AppDatabase database;
     private TaskDao taskDao;
     private LiveData<List<Task>> allTasks;
 
     public TaskRepository(Application application) {
-        try {
-            if (TaskApplication.database == null) {
-                Log.e("MyToDo", "TaskRepository: Database is null, initializing fallback");
-                AppDatabase db = AppDatabase.getDatabase(application);
-                taskDao = db.taskDao();
-            } else {
-                taskDao = TaskApplication.database.taskDao();
-            }
-            allTasks = taskDao.getAllTasks();
-            Log.d("MyToDo", "TaskRepository: Initialized successfully");
-        } catch (Exception e) {
-            Log.e("MyToDo", "TaskRepository: Error initializing repository", e);
-            // Fallback to getDatabase method
-            try {
-                AppDatabase db = AppDatabase.getDatabase(application);
-                taskDao = db.taskDao();
-                allTasks = taskDao.getAllTasks();
-                Log.d("MyToDo", "TaskRepository: Fallback initialization successful");
-            } catch (Exception fallbackError) {
-                Log.e("MyToDo", "TaskRepository: Fallback initialization also failed", fallbackError);
-            }
-        }
+        // Single shared Room instance for the whole process
+        database = AppDatabase.getDatabase(application);
+        taskDao = database.taskDao();
+        allTasks = taskDao.getAllTasks();
+        Log.d("MyToDo", "TaskRepository: Initialized successfully");
     }
 
     public LiveData<List<Task>> getAllTasks() {
@@ -44,6 +30,35 @@ public class TaskRepository {
         return taskDao.getAllTasksSync();
     }
 
+    /**
+     * Archived tasks whose description contains the lowercase query, or the most recently
+     * completed ones for an empty query. Results are flagged as archived.
+     */
+    public List<Task> getArchivedTasksSync(String query, int limit) {
+        List<Task> tasks = query.isEmpty()
+                ? database.archivedTaskDao().getRecentlyCompleted(limit)
+                : database.archivedTaskDao().search(query, limit);
+        for (Task task : tasks) {
+            task.archived = true;
+        }
+        return tasks;
+    }
+
+    // Archived tasks move back to the tasks table before they are written; sync restores their cloud documents
+    private void restoreArchived(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.archived) {
+                ids.add(task.id);
+                task.archived = false;
+            }
+        }
+        if (!ids.isEmpty()) {
+            Log.d("MyToDo", "Restoring " + ids.size() + " archived tasks");
+            TaskArchiver.restoreFromArchive(database, ids);
+        }
+    }
+
     public void insert(Task task) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             taskDao.insert(task);
@@ -60,6 +75,7 @@ public class TaskRepository {
                   ", dueDate: " + task.dueDate + 
                   ", dayOfWeek: " + task.dayOfWeek + 
                   ", isCompleted: " + task.isCompleted + ")");
+            restoreArchived(Collections.singletonList(task));
             taskDao.update(task);
             Log.d("MyToDo", "REPOSITORY UPDATE DEBUG: Task updated successfully: " + task.description + " (ID: " + task.id + ")");
         });
@@ -68,6 +84,7 @@ public class TaskRepository {
     public void updateTasks(List<Task> tasks) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             Log.d("MyToDo", "Updating " + tasks.size() + " tasks");
+            restoreArchived(tasks);
             taskDao.updateTasks(tasks);
             for (Task task : tasks) {
                 Log.d("MyToDo", "Task updated successfully: " + task.description + ", priority: " + task.priority);
@@ -81,6 +98,7 @@ public class TaskRepository {
     
     public void delete(Task task, boolean hardDelete) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
+            restoreArchived(Collections.singletonList(task));
             if (hardDelete) {
                 Log.d("MyToDo", "Hard deleting task: " + task.description);
                 taskDao.delete(task);
@@ -96,6 +114,35 @@ public class TaskRepository {
         });
     }
 
+    /**
+     * Apply a bulk change in one transaction: update (and soft delete) some tasks and hard delete
+     * others. onCommitted runs on the write executor after the transaction committed.
+     */
+    public void applyBulkChange(List<Task> updated, List<Task> hardDeleted, Runnable onCommitted) {
+        AppDatabase.databaseWriteExecutor.execute(() -> {
+            List<Task> all = new ArrayList<>(updated);
+            all.addAll(hardDeleted);
+            database.runInTransaction(() -> {
+                restoreArchived(all);
+                if (!updated.isEmpty()) {
+                    taskDao.updateTasks(updated);
+                }
+                if (!hardDeleted.isEmpty()) {
+                    taskDao.deleteTasks(hardDeleted);
+                }
+            });
+            Log.d("MyToDo", "Bulk change applied: " + updated.size() + " updated, " + hardDeleted.size() + " deleted");
+            onCommitted.run();
+        });
+    }
+
+    /**
+     * Apply the day-boundary transitions for the day starting at todayStart, see TaskRollover
+     */
+    public void rollOver(long todayStart) {
+        AppDatabase.databaseWriteExecutor.execute(() -> TaskRollover.rollOver(database, todayStart));
+    }
+
     public Task getTaskById(int taskId) {
         try {
             return taskDao.getTaskById(taskId);
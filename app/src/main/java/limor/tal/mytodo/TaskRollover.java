@@ -0,0 +1,79 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * Day-boundary transitions, applied to the stored tasks with set-based updates in one
+ * transaction instead of per task while bucketing:
+ * - daily recurring tasks completed on an earlier day become open again
+ * - weekly, bi-weekly, monthly and yearly tasks completed on an earlier day move to their next
+ *   due date and back to Waiting
+ * - open tasks waiting on a due date that has passed move to Immediate
+ *
+ * Every statement only matches rows that still need the transition, so running it again on the
+ * same day changes nothing. Changed rows get a new updatedAt, which the next sync pushes.
+ */
+public class TaskRollover {
+    private static final String TAG = "TaskRollover";
+
+    // Rows completed before today; a completion without a date counts as stale
+    static final String COMPLETED_BEFORE_TODAY = "isCompleted = 1 AND deletedAt IS NULL " +
+            "AND (completionDate IS NULL OR completionDate < :todayStart)";
+
+    // dayOfWeek and recurrenceType are stored as TaskConverters codes
+    static final String RECURRENCE_DAILY = "" + TaskConverters.RecurrenceType.DAILY;
+    static final String RECURRENCE_PERIODIC = "(" + TaskConverters.RecurrenceType.WEEKLY + ", " +
+            TaskConverters.RecurrenceType.BIWEEKLY + ", " + TaskConverters.RecurrenceType.MONTHLY + ", " +
+            TaskConverters.RecurrenceType.YEARLY + ")";
+    static final String DAY_NONE = "" + TaskConverters.DayOfWeek.NONE;
+    static final String DAY_IMMEDIATE = "" + TaskConverters.DayOfWeek.IMMEDIATE;
+
+    // The next occurrence counts from the due date, or from the completion for tasks without one
+    private static final String BASE = "COALESCE(dueDate, completionDate, :now)";
+    private static final String BASE_DAY = "date(" + BASE + " / 1000, 'unixepoch', 'localtime')";
+    // Milliseconds past local midnight, kept on the new due date
+    private static final String BASE_TIME_OF_DAY = "(" + BASE + " - strftime('%s', " + BASE_DAY + ", 'utc') * 1000)";
+    // Month and year steps clamp to the end of a shorter month (Jan 31 -> Feb 28), like Calendar.add
+    private static final String NEXT_DAY = "CASE recurrenceType " +
+            "WHEN " + TaskConverters.RecurrenceType.WEEKLY + " THEN date(" + BASE_DAY + ", '+7 days') " +
+            "WHEN " + TaskConverters.RecurrenceType.BIWEEKLY + " THEN date(" + BASE_DAY + ", '+14 days') " +
+            "WHEN " + TaskConverters.RecurrenceType.MONTHLY + " THEN CASE " +
+            "WHEN strftime('%d', " + BASE_DAY + ", '+1 month') = strftime('%d', " + BASE_DAY + ") " +
+            "THEN date(" + BASE_DAY + ", '+1 month') " +
+            "ELSE date(" + BASE_DAY + ", 'start of month', '+2 months', '-1 day') END " +
+            "WHEN " + TaskConverters.RecurrenceType.YEARLY + " THEN CASE " +
+            "WHEN strftime('%d', " + BASE_DAY + ", '+1 year') = strftime('%d', " + BASE_DAY + ") " +
+            "THEN date(" + BASE_DAY + ", '+1 year') " +
+            "ELSE date(" + BASE_DAY + ", 'start of month', '+13 months', '-1 day') END END";
+    static final String NEXT_DUE_DATE = "strftime('%s', " + NEXT_DAY + ", 'utc') * 1000 + " + BASE_TIME_OF_DAY;
+
+    /**
+     * Apply the transitions for the day starting at todayStart
+     * @return the number of tasks changed
+     */
+    public static int rollOver(AppDatabase database, long todayStart) {
+        TaskDao taskDao = database.taskDao();
+        long now = System.currentTimeMillis();
+        int[] changed = new int[3];
+        database.runInTransaction(() -> {
+            changed[0] = taskDao.resetDailyCompletions(todayStart, now);
+            changed[1] = taskDao.advanceRecurringTasks(todayStart, now);
+            // After advancing, so occurrences that are already overdue go to Immediate as well
+            changed[2] = taskDao.promoteOverdueTasks(todayStart, now);
+        });
+        int total = changed[0] + changed[1] + changed[2];
+        if (total > 0) {
+            Log.d(TAG, "Rolled over: " + changed[0] + " daily reset, " + changed[1] + " advanced, " +
+                    changed[2] + " overdue");
+        }
+        return total;
+    }
+
+    /**
+     * Roll the active account's tasks over to the current day
+     */
+    public static int rollOver(Context context) {
+        return rollOver(AppDatabase.getDatabase(context), DayClock.getInstance(context).current().getTodayStart());
+    }
+}
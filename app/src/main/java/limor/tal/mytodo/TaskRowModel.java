@@ -0,0 +1,147 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+/**
+ * Immutable view-model for one task row of the main list.
+ *
+ * Rows are built together with their section, off the main thread, so TaskAdapter only
+ * assigns precomputed text and flags when binding.
+ */
+public final class TaskRowModel {
+    public static final int FLAG_COMPLETED = 1;
+    public static final int FLAG_IMMEDIATE = 1 << 1;
+    public static final int FLAG_DAILY_RECURRING = 1 << 2;
+    public static final int FLAG_REMINDER = 1 << 3;
+    public static final int FLAG_FAMILY_SYNC = 1 << 4;
+    public static final int FLAG_PINNED = 1 << 5;
+
+    public final Task task;
+    public final String displayText;
+    public final String dueText;
+    // Index of the row's category in the category order
+    public final int categoryIndex;
+    // days_of_week index of the row's category, or -1 for Soon, Waiting and Completed
+    public final int dayIndex;
+    public final int flags;
+
+    private TaskRowModel(Task task, String displayText, String dueText, int categoryIndex, int dayIndex, int flags) {
+        this.task = task;
+        this.displayText = displayText;
+        this.dueText = dueText;
+        this.categoryIndex = categoryIndex;
+        this.dayIndex = dayIndex;
+        this.flags = flags;
+    }
+
+    public boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * Builds rows for one categorization pass. Holds the resource strings and date formats
+     * the rows need, so it must be used from one thread at a time.
+     */
+    public static final class Formatter {
+        private final String immediateName;
+        private final String completedLabel;
+        private final String[] reminderOptions;
+        private final long todayStart;
+        private final SimpleDateFormat completionFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+        private final SimpleDateFormat dueDateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+
+        public Formatter(Context context, long todayStart) {
+            this.immediateName = context.getResources().getStringArray(R.array.days_of_week)[1];
+            this.completedLabel = context.getString(R.string.completed_label);
+            this.reminderOptions = context.getResources().getStringArray(R.array.reminder_options);
+            this.todayStart = todayStart;
+        }
+
+        public long getTodayStart() {
+            return todayStart;
+        }
+
+        public TaskRowModel build(Task task, int categoryIndex, int dayIndex) {
+            int flags = 0;
+            if (task.isCompleted) {
+                flags |= FLAG_COMPLETED;
+            }
+            boolean immediate = isImmediate(task);
+            if (immediate) {
+                flags |= FLAG_IMMEDIATE;
+            }
+            if (task.isRecurring && TaskConstants.RECURRENCE_DAILY.equals(task.recurrenceType)) {
+                flags |= FLAG_DAILY_RECURRING;
+            }
+            if (task.dueTime != null && task.reminderOffset != null && task.reminderOffset >= 0) {
+                flags |= FLAG_REMINDER;
+            }
+            if (task.isExportedFromFamilySync()) {
+                flags |= FLAG_FAMILY_SYNC;
+            }
+            if (task.manualPosition != null) {
+                flags |= FLAG_PINNED;
+            }
+
+            String description = task.description != null ? task.description : "";
+            // Lightning bolt for immediate tasks
+            String displayText = immediate ? "⚡ " + description : description;
+            return new TaskRowModel(task, displayText, buildDueText(task), categoryIndex, dayIndex, flags);
+        }
+
+        private String buildDueText(Task task) {
+            StringBuilder dueText = new StringBuilder();
+            if (task.isCompleted && task.completionDate != null) {
+                // For completed tasks, show localized "Completed:" label and completion time
+                dueText.append(completedLabel).append(": ").append(completionFormat.format(task.completionDate));
+            } else if (task.dueDate != null) {
+                dueText.append(dueDateFormat.format(task.dueDate));
+            } else if (TaskConstants.DAY_IMMEDIATE.equals(task.dayOfWeek)) {
+                dueText.append(immediateName);
+            }
+            // dayOfWeek is not shown since the task is already in the matching category
+
+            if (task.dueTime != null && !task.isCompleted) {
+                dueText.append(' ').append(formatTimeOfDay(task.dueTime));
+            }
+            if (task.isRecurring && task.recurrenceType != null && !task.recurrenceType.equals(TaskConstants.DAY_IMMEDIATE)) {
+                dueText.append(" (").append(task.recurrenceType).append(')');
+            }
+            if (task.reminderOffset != null && task.reminderOffset > 0 && (!task.isCompleted || task.isRecurring)) {
+                dueText.append(" [").append(getReminderOptionString(task.reminderOffset)).append(']');
+            }
+            return dueText.toString();
+        }
+
+        // Immediate tasks are marked "Immediate" or have an overdue due date
+        private boolean isImmediate(Task task) {
+            if (TaskConstants.DAY_IMMEDIATE.equals(task.dayOfWeek)) {
+                return true;
+            }
+            return task.dueDate != null && task.dueDate < todayStart;
+        }
+
+        private String getReminderOptionString(int offset) {
+            switch (offset) {
+                case 15:
+                    return reminderOptions[1]; // 15 minutes before
+                case 30:
+                    return reminderOptions[2]; // 30 minutes before
+                case 60:
+                    return reminderOptions[3]; // 60 minutes before
+                default:
+                    return reminderOptions[0]; // At the time of the task
+            }
+        }
+
+        // dueTime is milliseconds since midnight
+        private static String formatTimeOfDay(long millisSinceMidnight) {
+            int hours = (int) (millisSinceMidnight / (60 * 60 * 1000));
+            int minutes = (int) ((millisSinceMidnight % (60 * 60 * 1000)) / (60 * 1000));
+            return String.format(Locale.getDefault(), "%02d:%02d", hours, minutes);
+        }
+    }
+}
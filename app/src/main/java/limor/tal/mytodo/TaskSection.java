@@ -0,0 +1,169 @@
+package limor.tal.mytodo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One category of the main list: its localized title and its task rows in display order.
+ *
+ * Sections are immutable. TaskViewModel reuses the previous instance when a category's
+ * content did not change, so consumers can skip unchanged categories with a reference check.
+ */
+public final class TaskSection {
+    private final String title;
+    private final int categoryIndex;
+    private final int dayIndex;
+    private final List<Task> tasks;
+    private final List<TaskRowModel> rows;
+    // Rows flag overdue tasks relative to this day, so sections from another day never match
+    private final long todayStart;
+    private final long contentHash;
+
+    /**
+     * @param categoryIndex index of the category in the category order
+     * @param dayIndex days_of_week index of a day category, or -1
+     */
+    public TaskSection(String title, int categoryIndex, int dayIndex, List<Task> tasks, TaskRowModel.Formatter formatter) {
+        this.title = title;
+        this.categoryIndex = categoryIndex;
+        this.dayIndex = dayIndex;
+        this.tasks = Collections.unmodifiableList(new ArrayList<>(tasks));
+        List<TaskRowModel> rowList = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            rowList.add(formatter.build(task, categoryIndex, dayIndex));
+        }
+        this.rows = Collections.unmodifiableList(rowList);
+        this.todayStart = formatter.getTodayStart();
+        this.contentHash = hashTasks(this.tasks);
+    }
+
+    private TaskSection(TaskSection source, List<Task> tasks, List<TaskRowModel> rows) {
+        this.title = source.title;
+        this.categoryIndex = source.categoryIndex;
+        this.dayIndex = source.dayIndex;
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.rows = Collections.unmodifiableList(rows);
+        this.todayStart = source.todayStart;
+        this.contentHash = hashTasks(this.tasks);
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getCategoryIndex() {
+        return categoryIndex;
+    }
+
+    public int getDayIndex() {
+        return dayIndex;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<TaskRowModel> getRows() {
+        return rows;
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    public boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    /**
+     * True if both sections have the same title and render the same tasks
+     */
+    public boolean sameContentAs(TaskSection other) {
+        return other != null && title.equals(other.title) && todayStart == other.todayStart
+                && contentHash == other.contentHash && tasks.size() == other.tasks.size();
+    }
+
+    /**
+     * Copy of this section with one task moved, for drag and drop
+     */
+    public TaskSection withMove(int fromIndex, int toIndex) {
+        List<Task> movedTasks = new ArrayList<>(tasks);
+        movedTasks.add(toIndex, movedTasks.remove(fromIndex));
+        List<TaskRowModel> movedRows = new ArrayList<>(rows);
+        movedRows.add(toIndex, movedRows.remove(fromIndex));
+        return new TaskSection(this, movedTasks, movedRows);
+    }
+
+    // Hash of the fields the task row shows; daily copies share an id but differ in day and completion
+    private static long hashTasks(List<Task> tasks) {
+        long hash = 17;
+        for (Task task : tasks) {
+            hash = hash * 31 + task.id;
+            hash = hash * 31 + Objects.hashCode(task.updatedAt);
+            hash = hash * 31 + Objects.hashCode(task.description);
+            hash = hash * 31 + Objects.hashCode(task.dayOfWeek);
+            hash = hash * 31 + (task.isCompleted ? 1 : 0);
+            hash = hash * 31 + Objects.hashCode(task.completionDate);
+            hash = hash * 31 + Objects.hashCode(task.dueDate);
+            hash = hash * 31 + Objects.hashCode(task.dueTime);
+            hash = hash * 31 + Objects.hashCode(task.reminderOffset);
+            hash = hash * 31 + Objects.hashCode(task.manualPosition);
+            hash = hash * 31 + (task.isRecurring ? 1 : 0);
+            hash = hash * 31 + Objects.hashCode(task.recurrenceType);
+            hash = hash * 31 + Objects.hashCode(task.sourceApp);
+            hash = hash * 31 + Objects.hashCode(task.sourceTaskId);
+        }
+        return hash;
+    }
+
+    /**
+     * Flatten non-empty sections into the header/task list used by CategorySnapshotStore.
+     * Archived tasks are left out; they are only shown on demand.
+     */
+    public static List<Object> toItems(List<TaskSection> sections) {
+        List<Object> items = new ArrayList<>();
+        for (TaskSection section : sections) {
+            boolean headerAdded = false;
+            for (Task task : section.tasks) {
+                if (task.archived) {
+                    continue;
+                }
+                if (!headerAdded) {
+                    items.add(section.title);
+                    headerAdded = true;
+                }
+                items.add(task);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Rebuild sections in the given category order from a header/task list; missing categories are empty
+     * @param dayIndices days_of_week index of each category, or -1
+     */
+    public static List<TaskSection> fromItems(List<Object> items, List<String> categoryOrder, int[] dayIndices,
+            TaskRowModel.Formatter formatter) {
+        Map<String, List<Task>> tasksByTitle = new HashMap<>();
+        List<Task> current = null;
+        for (Object item : items) {
+            if (item instanceof String) {
+                current = new ArrayList<>();
+                tasksByTitle.put((String) item, current);
+            } else if (item instanceof Task && current != null) {
+                current.add((Task) item);
+            }
+        }
+        List<TaskSection> sections = new ArrayList<>(categoryOrder.size());
+        for (int i = 0; i < categoryOrder.size(); i++) {
+            String title = categoryOrder.get(i);
+            List<Task> tasks = tasksByTitle.get(title);
+            sections.add(new TaskSection(title, i, dayIndices[i], tasks != null ? tasks : Collections.<Task>emptyList(), formatter));
+        }
+        return sections;
+    }
+}
@@ -0,0 +1,148 @@
+package limor.tal.mytodo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed 64-bit sort keys for the task categories.
+ *
+ * A key packs the ordering rules of the category lists into one primitive so tasks are
+ * ordered by a single long comparison instead of a comparator over nullable fields:
+ * manual tasks stay where the user dragged them, automatic tasks sort by time and then
+ * priority, and an automatic task is placed before a manual one only when its hour comes
+ * before the hour range of the manual position.
+ *
+ * Layout, high to low: hour band (5 bits), automatic flag (1 bit), manual position or
+ * millisecond within the hour (22 bits), priority (32 bits). Times keep full millisecond
+ * precision, as in the old comparator. Manual positions are clamped to 0..MAX_RANK, so a
+ * negative position sorts like 0 and positions above about four million tie. Equal keys
+ * keep their insertion order.
+ */
+public final class TaskSortKey {
+    private static final int BAND_UNTIMED = 24; // Automatic tasks without a time go last
+    private static final int MAX_RANK = (1 << 22) - 1; // Above the 3,600,000 ms in an hour
+
+    private static final int PRIORITY_SHIFT = 0;
+    private static final int RANK_SHIFT = 32;
+    private static final int AUTO_SHIFT = 54;
+    private static final int BAND_SHIFT = 55;
+
+    private TaskSortKey() {
+    }
+
+    /**
+     * Sort key for the day, Immediate, Soon and Waiting categories
+     */
+    public static long of(Task task) {
+        int band;
+        int auto;
+        int rank;
+        if (task.manualPosition != null) {
+            int position = Math.min(Math.max(task.manualPosition, 0), MAX_RANK);
+            band = manualHour(position);
+            auto = 0; // Manual wins within its own hour range
+            rank = position;
+        } else if (task.dueTime != null) {
+            long timeOfDay = task.dueTime; // Milliseconds since midnight
+            band = (int) Math.min(Math.max(timeOfDay / 3600000, 0), 23);
+            auto = 1;
+            rank = (int) Math.min(Math.max(timeOfDay - band * 3600000L, 0), MAX_RANK);
+        } else {
+            band = BAND_UNTIMED;
+            auto = 1;
+            rank = 0;
+        }
+        long priority = (long) task.priority - Integer.MIN_VALUE; // Unsigned 32 bits, same order
+        return ((long) band << BAND_SHIFT)
+                | ((long) auto << AUTO_SHIFT)
+                | ((long) rank << RANK_SHIFT)
+                | (priority << PRIORITY_SHIFT);
+    }
+
+    /**
+     * Sort key for the Completed category: most recent completion first, missing dates last
+     */
+    public static long completedKey(Task task) {
+        return task.completionDate != null ? -task.completionDate : Long.MAX_VALUE;
+    }
+
+    // Representative hour of a manual position: 0 -> early morning, 1 -> morning, 2 -> afternoon, 3+ -> evening
+    private static int manualHour(int position) {
+        switch (position) {
+            case 0: return 3;
+            case 1: return 9;
+            case 2: return 15;
+            default: return 21;
+        }
+    }
+
+    /**
+     * A category's tasks, kept in key order as they are added
+     */
+    public static final class Bucket {
+        private final List<Task> tasks = new ArrayList<>();
+        private long[] keys = new long[16];
+
+        /**
+         * Insert after any tasks with an equal key, found by binary search
+         */
+        public void insert(Task task, long key) {
+            int size = tasks.size();
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] <= key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            System.arraycopy(keys, low, keys, low + 1, size - low);
+            keys[low] = key;
+            tasks.add(low, task);
+        }
+
+        public int size() {
+            return tasks.size();
+        }
+
+        public boolean isEmpty() {
+            return tasks.isEmpty();
+        }
+
+        /**
+         * The tasks in key order; the list is owned by the bucket
+         */
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Linear merge of two sorted buckets; on equal keys this bucket's tasks come first
+         */
+        public List<Task> mergeWith(Bucket other) {
+            List<Task> merged = new ArrayList<>(tasks.size() + other.tasks.size());
+            int i = 0;
+            int j = 0;
+            while (i < tasks.size() && j < other.tasks.size()) {
+                if (other.keys[j] < keys[i]) {
+                    merged.add(other.tasks.get(j++));
+                } else {
+                    merged.add(tasks.get(i++));
+                }
+            }
+            while (i < tasks.size()) {
+                merged.add(tasks.get(i++));
+            }
+            while (j < other.tasks.size()) {
+                merged.add(other.tasks.get(j++));
+            }
+            return merged;
+        }
+    }
+}
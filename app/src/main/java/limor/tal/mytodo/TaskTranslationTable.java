@@ -0,0 +1,146 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import androidx.core.os.ConfigurationCompat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable lookup table for day and recurrence names in the current UI language.
+ *
+ * Days use the TaskConstants.ALL_DAYS indices (the days_of_week array order) and recurrence
+ * types the TaskConstants.ALL_RECURRENCE_TYPES indices (the recurrence_types array order).
+ * Names are resolved through hash maps that accept the English database values, legacy
+ * Hebrew values and the localized names. The table is rebuilt only when the locale changes,
+ * so callers can fetch it once per pass and do allocation-free lookups inside their loops.
+ */
+public final class TaskTranslationTable {
+    public static final int NOT_FOUND = -1;
+    public static final int RECURRENCE_INDEX_DAILY = 0;
+
+    // Hebrew values stored by old app versions, in ALL_DAYS order
+    private static final String[] LEGACY_HEBREW_DAYS = {
+        "ללא", "מיידי", "בקרוב", "ראשון", "שני", "שלישי", "רביעי", "חמישי", "שישי", "שבת"
+    };
+    // Hebrew recurrence values stored by old app versions, in ALL_RECURRENCE_TYPES order
+    private static final String[][] LEGACY_HEBREW_RECURRENCE_TYPES = {
+        {"יומי"}, {"שבועי"}, {"דו-שבועי", "דו שבועי", "כל שבועיים"}, {"חודשי"}, {"שנתי"}
+    };
+
+    // English and legacy Hebrew names -> index; independent of the UI language
+    private static final Map<String, Integer> STORED_DAY_INDEX = new HashMap<>();
+    private static final Map<String, Integer> STORED_RECURRENCE_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < TaskConstants.ALL_DAYS.length; i++) {
+            STORED_DAY_INDEX.put(TaskConstants.ALL_DAYS[i], i);
+            STORED_DAY_INDEX.put(LEGACY_HEBREW_DAYS[i], i);
+        }
+        for (int i = 0; i < TaskConstants.ALL_RECURRENCE_TYPES.length; i++) {
+            STORED_RECURRENCE_INDEX.put(TaskConstants.ALL_RECURRENCE_TYPES[i], i);
+            for (String hebrew : LEGACY_HEBREW_RECURRENCE_TYPES[i]) {
+                STORED_RECURRENCE_INDEX.put(hebrew, i);
+            }
+        }
+    }
+
+    private static volatile TaskTranslationTable current;
+
+    private final String localeKey;
+    private final String[] dayNames;
+    private final String[] recurrenceNames;
+    private final Map<String, Integer> dayIndex;
+    private final Map<String, Integer> recurrenceIndex;
+
+    private TaskTranslationTable(Resources resources, String localeKey) {
+        this.localeKey = localeKey;
+        this.dayNames = resources.getStringArray(R.array.days_of_week);
+        this.recurrenceNames = resources.getStringArray(R.array.recurrence_types);
+        this.dayIndex = new HashMap<>(STORED_DAY_INDEX);
+        for (int i = 0; i < dayNames.length; i++) {
+            dayIndex.put(dayNames[i], i);
+        }
+        this.recurrenceIndex = new HashMap<>(STORED_RECURRENCE_INDEX);
+        for (int i = 0; i < recurrenceNames.length; i++) {
+            recurrenceIndex.put(recurrenceNames[i], i);
+        }
+    }
+
+    /**
+     * Get the table for the context's current locale, building it on the first call after a change
+     */
+    public static TaskTranslationTable get(Context context) {
+        Resources resources = context.getResources();
+        String localeKey = ConfigurationCompat.getLocales(resources.getConfiguration()).toLanguageTags();
+        TaskTranslationTable table = current;
+        if (table == null || !table.localeKey.equals(localeKey)) {
+            table = new TaskTranslationTable(resources, localeKey);
+            current = table;
+        }
+        return table;
+    }
+
+    /**
+     * Index of an English or legacy Hebrew day value, without needing a context
+     */
+    public static int storedDayIndex(String storedDayName) {
+        Integer index = storedDayName != null ? STORED_DAY_INDEX.get(storedDayName) : null;
+        return index != null ? index : NOT_FOUND;
+    }
+
+    /**
+     * Index of an English or legacy Hebrew recurrence value, without needing a context
+     */
+    public static int storedRecurrenceIndex(String storedRecurrenceType) {
+        Integer index = storedRecurrenceType != null ? STORED_RECURRENCE_INDEX.get(storedRecurrenceType) : null;
+        return index != null ? index : NOT_FOUND;
+    }
+
+    /**
+     * Index of a day given in English, legacy Hebrew or the current UI language
+     */
+    public int dayIndexOf(String dayName) {
+        Integer index = dayName != null ? dayIndex.get(dayName) : null;
+        return index != null ? index : NOT_FOUND;
+    }
+
+    /**
+     * Index of a recurrence type given in English, legacy Hebrew or the current UI language
+     */
+    public int recurrenceIndexOf(String recurrenceType) {
+        Integer index = recurrenceType != null ? recurrenceIndex.get(recurrenceType) : null;
+        return index != null ? index : NOT_FOUND;
+    }
+
+    public String dayName(int index) {
+        return index >= 0 && index < dayNames.length ? dayNames[index] : null;
+    }
+
+    public String recurrenceName(int index) {
+        return index >= 0 && index < recurrenceNames.length ? recurrenceNames[index] : null;
+    }
+
+    /**
+     * Display name of a stored day value, or null if the value is unknown
+     */
+    public String localizeDay(String storedDayName) {
+        return dayName(dayIndexOf(storedDayName));
+    }
+
+    /**
+     * Display name of a stored recurrence value, or null if the value is unknown
+     */
+    public String localizeRecurrence(String storedRecurrenceType) {
+        return recurrenceName(recurrenceIndexOf(storedRecurrenceType));
+    }
+
+    /**
+     * Copy of the localized days_of_week array
+     */
+    public String[] getDayNames() {
+        return dayNames.clone();
+    }
+}
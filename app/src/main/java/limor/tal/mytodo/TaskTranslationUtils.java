@@ -19,34 +19,12 @@ public class TaskTranslationUtils {
         }
         
         try {
-            String[] daysOfWeek = context.getResources().getStringArray(R.array.days_of_week);
-            
-            // Map English day names to Hebrew using the days_of_week array
-            switch (englishDayName) {
-                case TaskConstants.DAY_NONE:
-                    return daysOfWeek[0]; // "ללא" or "None"
-                case TaskConstants.DAY_IMMEDIATE:
-                    return daysOfWeek[1]; // "מיידי" or "Immediate"
-                case TaskConstants.DAY_SOON:
-                    return daysOfWeek[2]; // "בקרוב" or "Soon"
-                case TaskConstants.DAY_SUNDAY:
-                    return daysOfWeek[3]; // "ראשון" or "Sunday"
-                case TaskConstants.DAY_MONDAY:
-                    return daysOfWeek[4]; // "שני" or "Monday"
-                case TaskConstants.DAY_TUESDAY:
-                    return daysOfWeek[5]; // "שלישי" or "Tuesday"
-                case TaskConstants.DAY_WEDNESDAY:
-                    return daysOfWeek[6]; // "רביעי" or "Wednesday"
-                case TaskConstants.DAY_THURSDAY:
-                    return daysOfWeek[7]; // "חמישי" or "Thursday"
-                case TaskConstants.DAY_FRIDAY:
-                    return daysOfWeek[8]; // "שישי" or "Friday"
-                case TaskConstants.DAY_SATURDAY:
-                    return daysOfWeek[9]; // "שבת" or "Saturday"
-                default:
-                    Log.w(TAG, "Unknown English day name: " + englishDayName);
-                    return englishDayName; // Return as-is if unknown
+            String translated = TaskTranslationTable.get(context).localizeDay(englishDayName);
+            if (translated == null) {
+                Log.w(TAG, "Unknown English day name: " + englishDayName);
+                return englishDayName; // Return as-is if unknown
             }
+            return translated;
         } catch (Exception e) {
             Log.e(TAG, "Error translating day name: " + englishDayName, e);
             return englishDayName; // Return as-is on error
@@ -62,23 +40,12 @@ public class TaskTranslationUtils {
         }
         
         try {
-            String[] recurrenceTypes = context.getResources().getStringArray(R.array.recurrence_types);
-            
-            switch (englishRecurrenceType) {
-                case TaskConstants.RECURRENCE_DAILY:
-                    return recurrenceTypes[0]; // "יומי" or "Daily"
-                case TaskConstants.RECURRENCE_WEEKLY:
-                    return recurrenceTypes[1]; // "שבועי" or "Weekly"
-                case TaskConstants.RECURRENCE_BIWEEKLY:
-                    return recurrenceTypes[2]; // "דו-שבועי" or "Biweekly"
-                case TaskConstants.RECURRENCE_MONTHLY:
-                    return recurrenceTypes[3]; // "חודשי" or "Monthly"
-                case TaskConstants.RECURRENCE_YEARLY:
-                    return recurrenceTypes[4]; // "שנתי" or "Yearly"
-                default:
-                    Log.w(TAG, "Unknown English recurrence type: " + englishRecurrenceType);
-                    return englishRecurrenceType; // Return as-is if unknown
+            String translated = TaskTranslationTable.get(context).localizeRecurrence(englishRecurrenceType);
+            if (translated == null) {
+                Log.w(TAG, "Unknown English recurrence type: " + englishRecurrenceType);
+                return englishRecurrenceType; // Return as-is if unknown
             }
+            return translated;
         } catch (Exception e) {
             Log.e(TAG, "Error translating recurrence type: " + englishRecurrenceType, e);
             return englishRecurrenceType; // Return as-is on error
@@ -117,36 +84,13 @@ public class TaskTranslationUtils {
             return null;
         }
         
-        // Map Hebrew day names to English
-        switch (hebrewDayName) {
-            case "ללא":
-                return TaskConstants.DAY_NONE;
-            case "מיידי":
-                return TaskConstants.DAY_IMMEDIATE;
-            case "בקרוב":
-                return TaskConstants.DAY_SOON;
-            case "ראשון":
-                return TaskConstants.DAY_SUNDAY;
-            case "שני":
-                return TaskConstants.DAY_MONDAY;
-            case "שלישי":
-                return TaskConstants.DAY_TUESDAY;
-            case "רביעי":
-                return TaskConstants.DAY_WEDNESDAY;
-            case "חמישי":
-                return TaskConstants.DAY_THURSDAY;
-            case "שישי":
-                return TaskConstants.DAY_FRIDAY;
-            case "שבת":
-                return TaskConstants.DAY_SATURDAY;
-            default:
-                // If it's already English or unknown, return as-is
-                if (TaskConstants.isValidEnglishDayName(hebrewDayName)) {
-                    return hebrewDayName;
-                }
-                Log.w(TAG, "Unknown Hebrew day name: " + hebrewDayName);
-                return TaskConstants.DAY_NONE; // Default fallback
+        // English values map to themselves, so already-migrated values pass through
+        int index = TaskTranslationTable.storedDayIndex(hebrewDayName);
+        if (index == TaskTranslationTable.NOT_FOUND) {
+            Log.w(TAG, "Unknown Hebrew day name: " + hebrewDayName);
+            return TaskConstants.DAY_NONE; // Default fallback
         }
+        return TaskConstants.ALL_DAYS[index];
     }
     
     /**
@@ -157,28 +101,12 @@ public class TaskTranslationUtils {
             return null;
         }
         
-        switch (hebrewRecurrenceType) {
-            case "יומי":
-                return TaskConstants.RECURRENCE_DAILY;
-            case "שבועי":
-                return TaskConstants.RECURRENCE_WEEKLY;
-            case "דו-שבועי":
-            case "דו שבועי":
-            case "כל שבועיים":
-                return TaskConstants.RECURRENCE_BIWEEKLY;
-            case "חודשי":
-                return TaskConstants.RECURRENCE_MONTHLY;
-            case "שנתי":
-                return TaskConstants.RECURRENCE_YEARLY;
-            default:
-                // If it's already English or unknown, return as-is
-                for (String type : TaskConstants.ALL_RECURRENCE_TYPES) {
-                    if (type.equals(hebrewRecurrenceType)) {
-                        return hebrewRecurrenceType;
-                    }
-                }
-                Log.w(TAG, "Unknown Hebrew recurrence type: " + hebrewRecurrenceType);
-                return TaskConstants.RECURRENCE_DAILY; // Default fallback
+        // English values map to themselves, so already-migrated values pass through
+        int index = TaskTranslationTable.storedRecurrenceIndex(hebrewRecurrenceType);
+        if (index == TaskTranslationTable.NOT_FOUND) {
+            Log.w(TAG, "Unknown Hebrew recurrence type: " + hebrewRecurrenceType);
+            return TaskConstants.RECURRENCE_DAILY; // Default fallback
         }
+        return TaskConstants.ALL_RECURRENCE_TYPES[index];
     }
 }
@@ -6,35 +6,98 @@ import android.util.Log;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.InvalidationTracker;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TaskViewModel extends AndroidViewModel {
     private TaskRepository repository;
     private LiveData<List<Task>> allTasks;
-    private MutableLiveData<List<Object>> tasksByCategory = new MutableLiveData<>();
+    // One section per category in display order; unchanged categories keep their previous instance
+    private MutableLiveData<List<TaskSection>> sections = new MutableLiveData<>();
+    // Categorization and row formatting run here, off the main thread, one pass at a time
+    private final ExecutorService categorizeExecutor = Executors.newSingleThreadExecutor();
+    // Last published sections; only touched on categorizeExecutor
+    private List<TaskSection> lastSections;
     private MutableLiveData<String> searchQuery = new MutableLiveData<>("");
     private MutableLiveData<Boolean> includeCompleted = new MutableLiveData<>(false);
+    private final DayClock dayClock;
+    // The account database this view model reads; a switch to another account needs a new one
+    private final AppDatabase database;
+    // Roll stored tasks over and rebucket once when the day changes (and on the first window);
+    // between day boundaries categories only change with data
+    private final Observer<DayClock.DayWindow> dayWindowObserver = window -> {
+        repository.rollOver(window.getTodayStart());
+        forceRefreshAllTasks();
+    };
+    // Archived tasks are only read while the Completed section is open or a search includes completed tasks
+    private static final int ARCHIVE_LIMIT = 200;
+    private volatile boolean completedExpanded = false;
+    private final AtomicInteger archiveVersion = new AtomicInteger();
+    private final InvalidationTracker.Observer archiveObserver = new InvalidationTracker.Observer(ArchivedTask.TABLE_NAME) {
+        @Override
+        public void onInvalidated(Set<String> tables) {
+            archiveVersion.incrementAndGet();
+        }
+    };
+    // Last archive query result; only touched on categorizeExecutor
+    private List<Task> cachedArchive;
+    private String cachedArchiveQuery;
+    private int cachedArchiveVersion;
 
     public TaskViewModel(Application application) {
         super(application);
+        database = AppDatabase.getDatabase(application);
         repository = new TaskRepository(application);
         allTasks = repository.getAllTasks();
-        // Initial empty state - will be populated when observer gets data
-        tasksByCategory.setValue(new ArrayList<>());
+        dayClock = DayClock.getInstance(application);
+        dayClock.getWindow().observeForever(dayWindowObserver);
+        database.getInvalidationTracker().addObserver(archiveObserver);
+        // Render the last snapshot as soon as it is read; the live query result replaces it. Queued
+        // first on categorizeExecutor, so it can't overwrite a categorization of live data.
+        // Without a snapshot, leave the value unset so the empty state doesn't flash before data arrives.
+        long todayStart = dayClock.current().getTodayStart();
+        categorizeExecutor.execute(() -> {
+            List<Object> snapshot = CategorySnapshotStore.load(application);
+            if (snapshot != null && lastSections == null) {
+                lastSections = TaskSection.fromItems(snapshot, buildCategoryOrder(), buildCategoryDayIndices(),
+                        new TaskRowModel.Formatter(application, todayStart));
+                sections.postValue(lastSections);
+            }
+        });
+    }
+
+    /**
+     * False once another account's database became active
+     */
+    public boolean isBoundToActiveDatabase() {
+        return database == AppDatabase.getDatabase(getApplication());
+    }
+
+    @Override
+    protected void onCleared() {
+        dayClock.getWindow().removeObserver(dayWindowObserver);
+        database.getInvalidationTracker().removeObserver(archiveObserver);
+        categorizeExecutor.shutdown();
+        super.onCleared();
     }
 
     public LiveData<List<Task>> getAllTasks() {
         return allTasks;
     }
 
-    public LiveData<List<Object>> getTasksByCategory() {
-        return tasksByCategory;
+    public LiveData<List<TaskSection>> getSections() {
+        return sections;
     }
 
     public LiveData<String> getSearchQuery() {
@@ -57,6 +120,16 @@ public class TaskViewModel extends AndroidViewModel {
         forceRefreshAllTasks();
     }
 
+    /**
+     * Called by the adapter when the Completed section is expanded or collapsed
+     */
+    public void setCompletedExpanded(boolean expanded) {
+        if (completedExpanded != expanded) {
+            completedExpanded = expanded;
+            forceRefreshAllTasks();
+        }
+    }
+
     public void insert(Task task) {
         // Set timestamps before inserting
         long currentTime = System.currentTimeMillis();
@@ -110,6 +183,19 @@ public class TaskViewModel extends AndroidViewModel {
         repository.delete(task, hardDelete);
     }
 
+    /**
+     * Write a multi-select change as one transaction and one category recompute
+     * @see TaskRepository#applyBulkChange
+     */
+    public void applyBulkChange(List<Task> updated, List<Task> hardDeleted, Runnable onCommitted) {
+        long currentTime = System.currentTimeMillis();
+        for (Task task : updated) {
+            task.updatedAt = currentTime;
+        }
+        repository.applyBulkChange(updated, hardDeleted, onCommitted);
+        forceRefreshAllTasks();
+    }
+
     public void updateTaskOrder(List<Task> tasks) {
         long currentTime = System.currentTimeMillis();
         for (int i = 0; i < tasks.size(); i++) {
@@ -125,14 +211,13 @@ public class TaskViewModel extends AndroidViewModel {
     public void updateTasksByCategory() {
         // This method should only be called from the observer with actual tasks
         Log.w("MyToDo", "updateTasksByCategory() called without tasks parameter - this shouldn't happen");
-        tasksByCategory.setValue(new ArrayList<>());
+        updateTasksByCategory(new ArrayList<>());
     }
     
     public void updateTasksByCategory(List<Task> tasks) {
         if (tasks == null) {
-            tasksByCategory.setValue(new ArrayList<>());
-            Log.d("MyToDo", "Tasks list is null, setting empty tasksByCategory");
-            return;
+            Log.d("MyToDo", "Tasks list is null, publishing empty sections");
+            tasks = new ArrayList<>();
         }
         // Log.d("MyToDo", "updateTasksByCategory: Processing " + tasks.size() + " tasks");
         
@@ -141,13 +226,30 @@ public class TaskViewModel extends AndroidViewModel {
             Log.w("MyToDo", "Tasks list is empty, this might indicate a loading issue");
         }
         
-        processTasksByCategory(tasks);
+        // Read the filters here, on the caller's thread, and categorize in the background
+        String query = searchQuery.getValue() != null ? searchQuery.getValue().toLowerCase() : "";
+        boolean includeCompletedTasks = includeCompleted.getValue() != null ? includeCompleted.getValue() : false;
+        boolean includeArchive = query.isEmpty() ? completedExpanded : includeCompletedTasks;
+        List<Task> snapshot = tasks;
+        categorizeExecutor.execute(() -> processTasksByCategory(snapshot, query, includeCompletedTasks, includeArchive));
+    }
+
+    // Archived tasks for the query, reused until archived_tasks changes
+    private List<Task> loadArchivedTasks(String query) {
+        int version = archiveVersion.get();
+        if (cachedArchive == null || version != cachedArchiveVersion || !query.equals(cachedArchiveQuery)) {
+            cachedArchive = repository.getArchivedTasksSync(query, ARCHIVE_LIMIT);
+            cachedArchiveQuery = query;
+            cachedArchiveVersion = version;
+        }
+        return cachedArchive;
     }
     
-    private void processTasksByCategory(List<Task> tasks) {
+    private void processTasksByCategory(List<Task> tasks, String query, boolean includeCompletedTasks, boolean includeArchive) {
 
-        // Always get fresh string resources to handle language changes
-        String[] daysOfWeek = getApplication().getResources().getStringArray(R.array.days_of_week);
+        // The translation table is rebuilt whenever the UI language changes
+        TaskTranslationTable translations = TaskTranslationTable.get(getApplication());
+        String[] daysOfWeek = translations.getDayNames();
         String noneOption = daysOfWeek[0]; // "Waiting" or "בהמתנה"
         String immediateOption = daysOfWeek[1]; // "Immediate" or "מיידי"
         String soonOption = daysOfWeek[2]; // "Soon" or "בקרוב"
@@ -155,81 +257,38 @@ public class TaskViewModel extends AndroidViewModel {
         String completedCategory = getApplication().getString(R.string.category_completed); // "Completed" or "הושלם"
         
 
-        // Define category order: Current day (with immediate tasks), Next 6 days, Soon, Waiting
-        // NOTE: Immediate tasks will now be merged into the current day category
-        List<String> categoryOrder = new ArrayList<>();
-        // Do not add immediateOption as a separate category anymore
-        
-        // Get current day and create order starting from today
-        Calendar today = Calendar.getInstance();
-        int todayDayOfWeek = today.get(Calendar.DAY_OF_WEEK); // 1=Sunday, ..., 7=Saturday
-        
-        Log.d("MyToDo", "Current day of week: " + todayDayOfWeek + " (1=Sunday, 2=Monday, ..., 7=Saturday)");
-        
-        // Map Calendar.DAY_OF_WEEK to days_of_week array indices
-        int todayIndex;
-        switch (todayDayOfWeek) {
-            case Calendar.SUNDAY: todayIndex = 3; break;    // Sunday
-            case Calendar.MONDAY: todayIndex = 4; break;    // Monday
-            case Calendar.TUESDAY: todayIndex = 5; break;   // Tuesday
-            case Calendar.WEDNESDAY: todayIndex = 6; break; // Wednesday
-            case Calendar.THURSDAY: todayIndex = 7; break;  // Thursday
-            case Calendar.FRIDAY: todayIndex = 8; break;    // Friday
-            case Calendar.SATURDAY: todayIndex = 9; break;  // Saturday
-            default: todayIndex = 8; break; // Default to Friday
-        }
-        
-        Log.d("MyToDo", "Today index in days_of_week array: " + todayIndex);
+        // Day boundaries come from DayClock and only change at a day boundary
+        DayClock.DayWindow dayWindow = dayClock.current();
+        int todayIndex = dayWindow.getTodayIndex();
         Log.d("MyToDo", "Today's day name: " + daysOfWeek[todayIndex]);
         
-        // Create dayIndices array for the current week order
-        int[] dayIndices = new int[7];
-        for (int i = 0; i < 7; i++) {
-            int dayIndex = todayIndex + i;
-            // Handle wrapping around from Saturday (9) to Sunday (3)
-            if (dayIndex > 9) {
-                dayIndex = 3 + (dayIndex - 10); // Wrap to Sunday (3)
-            }
-            dayIndices[i] = dayIndex;
-            categoryOrder.add(daysOfWeek[dayIndex]);
-            Log.d("MyToDo", "Day " + i + ": index=" + dayIndex + ", name=" + daysOfWeek[dayIndex]);
-        }
-        
-        categoryOrder.add(soonOption);
-        categoryOrder.add(waitingCategory);
-        categoryOrder.add(completedCategory); // Add Completed category
+        // Create dayIndices array for the current week order, starting from today
+        int[] dayIndices = dayWindow.getDayIndices();
+        List<String> categoryOrder = buildCategoryOrder();
         Log.d("MyToDo", "Final category order: " + categoryOrder);
         Log.d("MyToDo", "Day indices array: " + Arrays.toString(dayIndices));
 
-        List<Object> items = new ArrayList<>();
-        String query = searchQuery.getValue() != null ? searchQuery.getValue().toLowerCase() : "";
         boolean hasActiveSearch = !query.isEmpty();
-        boolean includeCompletedTasks = includeCompleted.getValue() != null ? includeCompleted.getValue() : false;
+        int[] categoryDayIndices = buildCategoryDayIndices();
+        TaskRowModel.Formatter formatter = new TaskRowModel.Formatter(getApplication(), dayWindow.getTodayStart());
         
 
-        // Get current date and next week's date for categorization
-        Calendar todayCal = Calendar.getInstance();
-        todayCal.set(Calendar.HOUR_OF_DAY, 0);
-        todayCal.set(Calendar.MINUTE, 0);
-        todayCal.set(Calendar.SECOND, 0);
-        todayCal.set(Calendar.MILLISECOND, 0);
-        long todayMillis = todayCal.getTimeInMillis();
-        Calendar nextWeek = Calendar.getInstance();
-        nextWeek.setTimeInMillis(todayMillis);
-        nextWeek.add(Calendar.DAY_OF_MONTH, 7); // One week from today
-        long nextWeekMillis = nextWeek.getTimeInMillis();
-
-        // Map tasks to categories
-        List<Task> immediateTasks = new ArrayList<>();
-        List<Task> soonTasks = new ArrayList<>();
-        List<Task> waitingTasks = new ArrayList<>();
-        List<Task> completedTasks = new ArrayList<>(); // New list for completed tasks
-        List<List<Task>> dayTasks = new ArrayList<>();
+        // Map tasks to categories; each bucket stays sorted as tasks are inserted
+        TaskSortKey.Bucket immediateTasks = new TaskSortKey.Bucket();
+        TaskSortKey.Bucket soonTasks = new TaskSortKey.Bucket();
+        TaskSortKey.Bucket waitingTasks = new TaskSortKey.Bucket();
+        TaskSortKey.Bucket completedTasks = new TaskSortKey.Bucket(); // New list for completed tasks
+        List<TaskSortKey.Bucket> dayTasks = new ArrayList<>();
         for (int i = 0; i < 7; i++) {
-            dayTasks.add(new ArrayList<>());
+            dayTasks.add(new TaskSortKey.Bucket());
         }
 
         for (Task task : tasks) {
+            // Tasks without a description are not shown
+            if (task.description == null || task.description.isEmpty()) {
+                continue;
+            }
+
             // Skip soft-deleted tasks
             if (task.deletedAt != null && task.deletedAt > 0) {
                 Log.d("MyToDo", "processTasksByCategory: Skipping soft-deleted task: " + task.description + " (deletedAt: " + task.deletedAt + ")");
@@ -251,7 +310,7 @@ public class TaskViewModel extends AndroidViewModel {
             
             // Always route non-recurring completed tasks to Completed category list
             if (!isRecurring && task.isCompleted) {
-                completedTasks.add(task);
+                completedTasks.insert(task, TaskSortKey.completedKey(task));
                 continue;
             }
             
@@ -260,28 +319,10 @@ public class TaskViewModel extends AndroidViewModel {
                     ", recurrenceType: " + task.recurrenceType);
 
             // Check if this is a daily recurring task
-            String[] recurrenceTypes = getApplication().getResources().getStringArray(R.array.recurrence_types);
-            String dailyRecurrenceType = recurrenceTypes[0]; // "Daily" or "יומי"
-            boolean isDailyRecurring = isRecurring && (dailyRecurrenceType.equals(task.recurrenceType) || 
-                    "Daily".equals(task.recurrenceType) || "יומי".equals(task.recurrenceType));
-
-            // For recurring tasks, check if they should be completable for this day
-            boolean isCompletableForThisDay = true;
-            if (isDailyRecurring && task.isCompleted) {
-                // Check if this task was completed for a future day
-                if (task.completionDate != null) {
-                    Calendar completionCal = Calendar.getInstance();
-                    completionCal.setTimeInMillis(task.completionDate);
-                    Calendar checkDayCal = Calendar.getInstance();
-                    
-                    // If completed for a future day, don't show as completed for current/past days
-                    if (completionCal.get(Calendar.DAY_OF_YEAR) > checkDayCal.get(Calendar.DAY_OF_YEAR) ||
-                        completionCal.get(Calendar.YEAR) > checkDayCal.get(Calendar.YEAR)) {
-                        isCompletableForThisDay = false;
-                    }
-                }
-            }
-            
+            // Matches "Daily", legacy "יומי" and the localized name
+            boolean isDailyRecurring = isRecurring &&
+                    translations.recurrenceIndexOf(task.recurrenceType) == TaskTranslationTable.RECURRENCE_INDEX_DAILY;
+
             // For daily recurring tasks, create a copy for each day with appropriate completion state
             if (isDailyRecurring) {
                 // Skip soft-deleted daily recurring tasks
@@ -290,7 +331,8 @@ public class TaskViewModel extends AndroidViewModel {
                     continue;
                 }
                 
-                // Add one copy to each day category
+                // Add one copy to each day category; the copies only differ in fields outside the key
+                long sortKey = TaskSortKey.of(task);
                 for (int i = 0; i < 7; i++) {
                     Task taskCopy = new Task(task.description, task.dueDate, task.dayOfWeek, 
                             task.isRecurring, task.recurrenceType, task.isCompleted, task.priority);
@@ -303,53 +345,18 @@ public class TaskViewModel extends AndroidViewModel {
                     taskCopy.updatedAt = task.updatedAt;
                     taskCopy.deletedAt = task.deletedAt;
                     
-                    // For daily recurring tasks, only show as completed for today
-                    // Future days should show as not completed since they haven't happened yet
-                    Calendar currentDate = Calendar.getInstance();
-                    int currentDayOfWeek = currentDate.get(Calendar.DAY_OF_WEEK);
-                    
-                    // Map the current day index to Calendar.DAY_OF_WEEK
-                    int dayOfWeekForThisCopy = -1;
-                    switch (dayIndices[i]) {
-                        case 3: dayOfWeekForThisCopy = Calendar.SUNDAY; break;    // Sunday
-                        case 4: dayOfWeekForThisCopy = Calendar.MONDAY; break;    // Monday
-                        case 5: dayOfWeekForThisCopy = Calendar.TUESDAY; break;   // Tuesday
-                        case 6: dayOfWeekForThisCopy = Calendar.WEDNESDAY; break; // Wednesday
-                        case 7: dayOfWeekForThisCopy = Calendar.THURSDAY; break;  // Thursday
-                        case 8: dayOfWeekForThisCopy = Calendar.FRIDAY; break;    // Friday
-                        case 9: dayOfWeekForThisCopy = Calendar.SATURDAY; break;  // Saturday
-                    }
-                    
-                    // For daily recurring tasks, only show as completed if it was completed today
-                    // This prevents tasks completed yesterday from showing as completed today
-                    boolean isCompletedForThisDay = false;
-                    if (task.isCompleted && task.completionDate != null) {
-                        Calendar completionCal = Calendar.getInstance();
-                        completionCal.setTimeInMillis(task.completionDate);
-                        
-                        Calendar nowCal = Calendar.getInstance();
-                        
-                        // Check if completion date is today
-                        if (completionCal.get(Calendar.DAY_OF_YEAR) == nowCal.get(Calendar.DAY_OF_YEAR) &&
-                            completionCal.get(Calendar.YEAR) == nowCal.get(Calendar.YEAR)) {
-                            // Only show as completed if this copy represents today
-                            if (dayOfWeekForThisCopy == currentDayOfWeek) {
-                                isCompletedForThisDay = true;
-                            }
-                        }
-                    }
-                    
-                    taskCopy.isCompleted = isCompletedForThisDay;
+                    // Only today's copy (the first day in the window) shows the completion; future
+                    // days haven't happened yet. Completions from earlier days are reset by TaskRollover.
+                    taskCopy.isCompleted = i == 0 && task.isCompleted;
                     
                     // Add a special field to track which day this copy represents
                     taskCopy.dayOfWeek = daysOfWeek[dayIndices[i]];
                     
                     // Add directly to the specific day category
-                    dayTasks.get(i).add(taskCopy);
-                    String dayName = daysOfWeek[dayIndices[i]];
+                    dayTasks.get(i).insert(taskCopy, sortKey);
                 }
                 Log.d("MyToDo", "Daily recurring task: " + task.description + " added to all day categories");
-                Log.d("MyToDo", "Day tasks sizes after adding daily task: " + Arrays.toString(dayTasks.stream().mapToInt(List::size).toArray()));
+                Log.d("MyToDo", "Day tasks sizes after adding daily task: " + Arrays.toString(dayTasks.stream().mapToInt(TaskSortKey.Bucket::size).toArray()));
             } else if (isRecurring) {
                 // Skip soft-deleted recurring tasks
                 if (task.deletedAt != null && task.deletedAt > 0) {
@@ -361,116 +368,23 @@ public class TaskViewModel extends AndroidViewModel {
                 // The completion logic in MainActivity now handles due date progression
                 processSingleTask(task, immediateTasks, soonTasks, waitingTasks, completedTasks, dayTasks, 
                         daysOfWeek, dayIndices, immediateOption, soonOption, waitingCategory, completedCategory, 
-                        noneOption, todayMillis, nextWeekMillis, query, includeCompletedTasks);
+                        noneOption, dayWindow, query, includeCompletedTasks);
                 
                 Log.d("MyToDo", "Recurring task (non-daily): " + task.description + " processed directly, isCompleted: " + task.isCompleted);
             } else {
                 // Process regular task
                 processSingleTask(task, immediateTasks, soonTasks, waitingTasks, completedTasks, dayTasks, 
                         daysOfWeek, dayIndices, immediateOption, soonOption, waitingCategory, completedCategory, 
-                        noneOption, todayMillis, nextWeekMillis, query, includeCompletedTasks);
+                        noneOption, dayWindow, query, includeCompletedTasks);
             }
         }
 
-        // Task comparator using manualPosition field - COMPLETELY REWRITTEN
-        // Core principle: Manual tasks stay exactly where user put them, auto tasks sort by time
-        Comparator<Task> taskComparator = (t1, t2) -> {
-            boolean t1IsManual = (t1.manualPosition != null);
-            boolean t2IsManual = (t2.manualPosition != null);
-            
-            Log.d("MyToDo", "TaskComparator: t1=" + t1.description + " (manual=" + t1IsManual + 
-                  (t1IsManual ? ", pos=" + t1.manualPosition : ", time=" + t1.dueTime) + 
-                  ") vs t2=" + t2.description + " (manual=" + t2IsManual + 
-                  (t2IsManual ? ", pos=" + t2.manualPosition : ", time=" + t2.dueTime) + ")");
-            
-            // Case 1: Both manual - sort by manualPosition
-            if (t1IsManual && t2IsManual) {
-                Log.d("MyToDo", "TaskComparator: Both manual - sort by position");
-                return Integer.compare(t1.manualPosition, t2.manualPosition);
-            }
-            
-            // Case 2: Both automatic - sort by time, then priority
-            if (!t1IsManual && !t2IsManual) {
-                Log.d("MyToDo", "TaskComparator: Both auto - sort by time");
-                
-                // Both have time - sort by time
-                if (t1.dueTime != null && t2.dueTime != null) {
-                    long t1TimeOfDay = convertToTimeOfDay(t1.dueTime);
-                    long t2TimeOfDay = convertToTimeOfDay(t2.dueTime);
-                    int timeResult = Long.compare(t1TimeOfDay, t2TimeOfDay);
-                    if (timeResult != 0) return timeResult;
-                    return Integer.compare(t1.priority, t2.priority); // tie-breaker
+        if (includeArchive) {
+            for (Task task : loadArchivedTasks(query)) {
+                if (task.description != null && !task.description.isEmpty()) {
+                    completedTasks.insert(task, TaskSortKey.completedKey(task));
                 }
-                
-                // Mixed time/no-time among auto tasks
-                if (t1.dueTime != null && t2.dueTime == null) return -1; // timed first
-                if (t1.dueTime == null && t2.dueTime != null) return 1;  // timed first
-                
-                // Both have no time - sort by priority
-                return Integer.compare(t1.priority, t2.priority);
             }
-            
-            // Case 3: Mixed manual/auto - find correct insertion point
-            Task autoTask = t1IsManual ? t2 : t1;
-            Task manualTask = t1IsManual ? t1 : t2;
-            boolean autoIsT1 = !t1IsManual;
-            
-            Log.d("MyToDo", "TaskComparator: Mixed - auto=" + autoTask.description + 
-                  " (time=" + autoTask.dueTime + "), manual=" + manualTask.description + 
-                  " (pos=" + manualTask.manualPosition + ")");
-            
-            // Auto task with no time - always goes after manual tasks
-            if (autoTask.dueTime == null) {
-                Log.d("MyToDo", "TaskComparator: Auto has no time - goes after manual");
-                return autoIsT1 ? 1 : -1;
-            }
-            
-            // Auto task has time - convert to hour for comparison with manual position
-            long autoTimeOfDay = convertToTimeOfDay(autoTask.dueTime);
-            int autoHour = (int) (autoTimeOfDay / 3600000); // convert to hours (0-23)
-            
-            // Map manual positions to representative hours:
-            // pos 0 -> hour 3 (early morning)
-            // pos 1 -> hour 9 (morning) 
-            // pos 2 -> hour 15 (afternoon)
-            // pos 3+ -> hour 21 (evening)
-            int manualHour;
-            switch (manualTask.manualPosition) {
-                case 0: manualHour = 3; break;  // early morning
-                case 1: manualHour = 9; break;  // morning
-                case 2: manualHour = 15; break; // afternoon
-                default: manualHour = 21; break; // evening
-            }
-            
-            Log.d("MyToDo", "TaskComparator: Auto hour=" + autoHour + ", manual maps to hour=" + manualHour);
-            
-            if (autoHour < manualHour) {
-                Log.d("MyToDo", "TaskComparator: Auto time comes before manual position");
-                return autoIsT1 ? -1 : 1; // auto comes first
-            } else if (autoHour > manualHour) {
-                Log.d("MyToDo", "TaskComparator: Auto time comes after manual position");
-                return autoIsT1 ? 1 : -1; // manual comes first
-            } else {
-                // Same hour range - manual task wins (stays in its dragged position)
-                Log.d("MyToDo", "TaskComparator: Same hour range - manual stays in position");
-                return autoIsT1 ? 1 : -1; // manual comes first
-            }
-        };
-        
-        // Custom comparator for completed tasks - sort by completion time (descending)
-        Comparator<Task> completedTaskComparator = (t1, t2) -> {
-            if (t1.completionDate == null && t2.completionDate == null) return 0;
-            if (t1.completionDate == null) return 1; // null completion dates go last
-            if (t2.completionDate == null) return -1;
-            return Long.compare(t2.completionDate, t1.completionDate); // Descending order (most recent first)
-        };
-        
-        immediateTasks.sort(taskComparator);
-        soonTasks.sort(taskComparator);
-        waitingTasks.sort(taskComparator);
-        completedTasks.sort(completedTaskComparator); // Use custom comparator for completed tasks
-        for (List<Task> dayTaskList : dayTasks) {
-            dayTaskList.sort(taskComparator);
         }
 
         // Build items list in category order
@@ -478,68 +392,87 @@ public class TaskViewModel extends AndroidViewModel {
         Log.d("MyToDo", "Day indices: " + Arrays.toString(dayIndices));
         Log.d("MyToDo", "Days of week: " + Arrays.toString(daysOfWeek));
         
-        for (String category : categoryOrder) {
+        Map<String, TaskSection> previousByTitle = new HashMap<>();
+        if (lastSections != null) {
+            for (TaskSection section : lastSections) {
+                previousByTitle.put(section.getTitle(), section);
+            }
+        }
+        List<TaskSection> newSections = new ArrayList<>(categoryOrder.size());
+        for (int c = 0; c < categoryOrder.size(); c++) {
+            String category = categoryOrder.get(c);
             List<Task> categoryTasks = new ArrayList<>();
             if (category.equals(soonOption)) {
-                categoryTasks = soonTasks;
+                categoryTasks = soonTasks.getTasks();
                 Log.d("MyToDo", "Getting Soon tasks: " + soonTasks.size());
             } else if (category.equals(waitingCategory)) {
-                categoryTasks = waitingTasks;
+                categoryTasks = waitingTasks.getTasks();
                 Log.d("MyToDo", "Getting Waiting tasks: " + waitingTasks.size());
             } else if (category.equals(completedCategory)) {
                 // Only include Completed in search results when includeCompletedTasks is true
                 if (hasActiveSearch && !includeCompletedTasks) {
                     categoryTasks = new ArrayList<>();
                 } else {
-                    categoryTasks = completedTasks;
+                    categoryTasks = completedTasks.getTasks();
                 }
                 Log.d("MyToDo", "Getting Completed tasks: " + completedTasks.size());
             } else {
                 for (int i = 0; i < dayIndices.length; i++) {
                     if (category.equals(daysOfWeek[dayIndices[i]])) {
-                        categoryTasks = new ArrayList<>(dayTasks.get(i));
-                        
-                        // If this is the current day (first in the list), add immediate tasks
+                        // If this is the current day (first in the list), merge in immediate tasks.
+                        // Both buckets are already sorted, so a linear merge keeps the key order.
                         if (i == 0) {
-                            categoryTasks.addAll(immediateTasks);
-                            // Sort the merged list using TaskComparator which handles manual overrides correctly
-                            // Log task order before sorting for debugging
-                            Log.d("MyToDo", "Before sorting " + category + " tasks - " + categoryTasks.size() + " total");
-                            
-                            categoryTasks.sort(taskComparator);
-                            
-                            Log.d("MyToDo", "After sorting " + category + " tasks - " + categoryTasks.size() + " total");
-                            
+                            categoryTasks = dayTasks.get(i).mergeWith(immediateTasks);
                             Log.d("MyToDo", "Getting " + category + " tasks (index " + i + ") + " + immediateTasks.size() + " immediate tasks: " + categoryTasks.size() + " total");
                         } else {
+                            categoryTasks = dayTasks.get(i).getTasks();
                             Log.d("MyToDo", "Getting " + category + " tasks (index " + i + "): " + dayTasks.get(i).size());
                         }
                         break;
                     }
                 }
             }
-            if (!categoryTasks.isEmpty()) {
-                items.add(category);
-                items.addAll(categoryTasks);
-                Log.d("MyToDo", "Added category: " + category + " with " + categoryTasks.size() + " tasks");
-                for (Task task : categoryTasks) {
-                    Log.d("MyToDo", "  - Task in " + category + ": " + task.description + " (id: " + task.id + ")");
-                }
-            } else {
-                Log.d("MyToDo", "Category " + category + " is empty");
-            }
+            TaskSection section = new TaskSection(category, c, categoryDayIndices[c], categoryTasks, formatter);
+            // Keep the previous instance for unchanged categories so observers can skip them
+            TaskSection previousSection = previousByTitle.get(category);
+            newSections.add(section.sameContentAs(previousSection) ? previousSection : section);
+            Log.d("MyToDo", "Category " + category + ": " + categoryTasks.size() + " tasks");
         }
 
         Log.d("MyToDo", "Sorted categories: " + categoryOrder);
-        Log.d("MyToDo", "Items size: " + items.size());
-        tasksByCategory.setValue(items);
+        lastSections = newSections;
+        sections.postValue(newSections);
+        
+        // Only the unfiltered view is useful on the next cold start
+        if (!hasActiveSearch) {
+            CategorySnapshotStore.save(getApplication(), TaskSection.toItems(newSections));
+        }
     }
-    
-    // Helper method to get time of day (now always milliseconds since midnight)
-    private long convertToTimeOfDay(long timeValue) {
-        // All dueTime values are now stored as milliseconds since midnight
-        Log.d("MyToDo", "convertToTimeOfDay: Using " + timeValue + " as milliseconds since midnight");
-        return timeValue;
+
+    /**
+     * Category order: today (with immediate tasks merged in), the next 6 days, Soon, Waiting, Completed
+     */
+    private List<String> buildCategoryOrder() {
+        String[] daysOfWeek = TaskTranslationTable.get(getApplication()).getDayNames();
+        List<String> categoryOrder = new ArrayList<>();
+        for (int dayIndex : dayClock.current().getDayIndices()) {
+            categoryOrder.add(daysOfWeek[dayIndex]);
+        }
+        categoryOrder.add(daysOfWeek[2]); // Soon
+        categoryOrder.add(getApplication().getString(R.string.category_waiting));
+        categoryOrder.add(getApplication().getString(R.string.category_completed));
+        return categoryOrder;
+    }
+
+    /**
+     * days_of_week index of each category in buildCategoryOrder(), or -1 for Soon, Waiting and Completed
+     */
+    private int[] buildCategoryDayIndices() {
+        int[] dayIndices = dayClock.current().getDayIndices();
+        int[] categoryDayIndices = new int[dayIndices.length + 3];
+        System.arraycopy(dayIndices, 0, categoryDayIndices, 0, dayIndices.length);
+        Arrays.fill(categoryDayIndices, dayIndices.length, categoryDayIndices.length, -1);
+        return categoryDayIndices;
     }
     
     public void forceRefreshTasks() {
@@ -552,7 +485,7 @@ public class TaskViewModel extends AndroidViewModel {
                 if (freshTasks != null) {
                     // Update UI on main thread with fresh data
                     new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
-                        processTasksByCategory(freshTasks);
+                        updateTasksByCategory(freshTasks);
                     });
                 } else {
                     // Fallback to empty update
@@ -570,31 +503,17 @@ public class TaskViewModel extends AndroidViewModel {
         });
     }
     
-    private void processSingleTask(Task task, List<Task> immediateTasks, List<Task> soonTasks, List<Task> waitingTasks, List<Task> completedTasks, 
-            List<List<Task>> dayTasks, String[] daysOfWeek, int[] dayIndices, String immediateOption, String soonOption, 
-            String waitingCategory, String completedCategory, String noneOption, long todayMillis, long nextWeekMillis, String query, boolean includeCompletedTasks) {
+    private void processSingleTask(Task task, TaskSortKey.Bucket immediateTasks, TaskSortKey.Bucket soonTasks, TaskSortKey.Bucket waitingTasks, TaskSortKey.Bucket completedTasks, 
+            List<TaskSortKey.Bucket> dayTasks, String[] daysOfWeek, int[] dayIndices, String immediateOption, String soonOption, 
+            String waitingCategory, String completedCategory, String noneOption, DayClock.DayWindow dayWindow, String query, boolean includeCompletedTasks) {
 
         // Check if this is a daily recurring task (now only English values in database)
         boolean isDailyRecurring = task.isRecurring && TaskConstants.RECURRENCE_DAILY.equals(task.recurrenceType);
         // Log.d("MyToDo", "Processing single task: " + task.description + ", isRecurring: " + task.isRecurring + 
         //         ", recurrenceType: " + task.recurrenceType + ", isDailyRecurring: " + isDailyRecurring);
 
-        // For recurring tasks, check if they should be completable for this day
-        boolean isCompletableForThisDay = true;
-        if (isDailyRecurring && task.isCompleted) {
-            // Check if this task was completed for a future day
-            if (task.completionDate != null) {
-                Calendar completionCal = Calendar.getInstance();
-                completionCal.setTimeInMillis(task.completionDate);
-                Calendar checkDayCal = Calendar.getInstance();
-                
-                // If completed for a future day, don't show as completed for current/past days
-                if (completionCal.get(Calendar.DAY_OF_YEAR) > checkDayCal.get(Calendar.DAY_OF_YEAR) ||
-                    completionCal.get(Calendar.YEAR) > checkDayCal.get(Calendar.YEAR)) {
-                    isCompletableForThisDay = false;
-                }
-            }
-        }
+        long todayMillis = dayWindow.getTodayStart();
+        long nextWeekMillis = dayWindow.getNextWeekStart();
 
         String category = waitingCategory; // Default fallback category
         if (task.isCompleted && task.completionDate != null && !task.isRecurring) {
@@ -616,22 +535,7 @@ public class TaskViewModel extends AndroidViewModel {
                         category = immediateOption;
                     } else if (task.dueDate >= todayMillis && task.dueDate < nextWeekMillis) {
                         // Due date is this week - show in specific day category
-                        Calendar dueDateCal = Calendar.getInstance();
-                        dueDateCal.setTimeInMillis(task.dueDate);
-                        int dayOfWeek = dueDateCal.get(Calendar.DAY_OF_WEEK); // 1=Sunday, ..., 7=Saturday
-                        // Map to current language day index
-                        int dayIndex;
-                        switch (dayOfWeek) {
-                            case Calendar.SUNDAY: dayIndex = 3; break;    // Sunday
-                            case Calendar.MONDAY: dayIndex = 4; break;    // Monday
-                            case Calendar.TUESDAY: dayIndex = 5; break;   // Tuesday
-                            case Calendar.WEDNESDAY: dayIndex = 6; break; // Wednesday
-                            case Calendar.THURSDAY: dayIndex = 7; break;  // Thursday
-                            case Calendar.FRIDAY: dayIndex = 8; break;    // Friday
-                            case Calendar.SATURDAY: dayIndex = 9; break;  // Saturday
-                            default: dayIndex = 8; break; // Default to Friday
-                        }
-                        category = daysOfWeek[dayIndex];
+                        category = daysOfWeek[dayWindow.dayIndexOf(task.dueDate)];
                     } else {
                         // Due date is beyond this week - show in waiting category
                         category = waitingCategory;
@@ -655,22 +559,7 @@ public class TaskViewModel extends AndroidViewModel {
                 category = immediateOption;
             } else if (task.dueDate >= todayMillis && task.dueDate < nextWeekMillis) {
                 // Due date within next week
-                Calendar dueDateCal = Calendar.getInstance();
-                dueDateCal.setTimeInMillis(task.dueDate);
-                int dayOfWeek = dueDateCal.get(Calendar.DAY_OF_WEEK); // 1=Sunday, ..., 7=Saturday
-                // Map to current language day index
-                int dayIndex;
-                switch (dayOfWeek) {
-                    case Calendar.SUNDAY: dayIndex = 3; break;    // Sunday
-                    case Calendar.MONDAY: dayIndex = 4; break;    // Monday
-                    case Calendar.TUESDAY: dayIndex = 5; break;   // Tuesday
-                    case Calendar.WEDNESDAY: dayIndex = 6; break; // Wednesday
-                    case Calendar.THURSDAY: dayIndex = 7; break;  // Thursday
-                    case Calendar.FRIDAY: dayIndex = 8; break;    // Friday
-                    case Calendar.SATURDAY: dayIndex = 9; break;  // Saturday
-                    default: dayIndex = 8; break; // Default to Friday
-                }
-                category = daysOfWeek[dayIndex];
+                category = daysOfWeek[dayWindow.dayIndexOf(task.dueDate)];
             } else {
                 // Future due date beyond next week, assign to Waiting
                 category = waitingCategory;
@@ -682,20 +571,23 @@ public class TaskViewModel extends AndroidViewModel {
 
         // Add task to appropriate category(ies)
         
+        if (category.equals(completedCategory)) {
+            completedTasks.insert(task, TaskSortKey.completedKey(task));
+            return;
+        }
+        long sortKey = TaskSortKey.of(task);
         if (category.equals(immediateOption)) {
-            immediateTasks.add(task);
+            immediateTasks.insert(task, sortKey);
         } else if (category.equals(soonOption)) {
-            soonTasks.add(task);
+            soonTasks.insert(task, sortKey);
         } else if (category.equals(waitingCategory)) {
-            waitingTasks.add(task);
-        } else if (category.equals(completedCategory)) {
-            completedTasks.add(task);
+            waitingTasks.insert(task, sortKey);
         } else {
             // Regular task - add to specific day category
             boolean added = false;
             for (int i = 0; i < dayIndices.length; i++) {
                 if (category.equals(daysOfWeek[dayIndices[i]])) {
-                    dayTasks.get(i).add(task);
+                    dayTasks.get(i).insert(task, sortKey);
                     added = true;
                     break;
                 }
@@ -711,29 +603,10 @@ public class TaskViewModel extends AndroidViewModel {
     }
     
     private String mapDayOfWeekToCurrentLanguage(String storedDayOfWeek, String[] currentDaysOfWeek) {
-        // All database values are now stored in English, so we just need to map to display language
-        // Handle special categories first
-        if (TaskConstants.DAY_NONE.equals(storedDayOfWeek)) {
-            return currentDaysOfWeek[0]; // "None" or "ללא"
-        }
-        if (TaskConstants.DAY_IMMEDIATE.equals(storedDayOfWeek)) {
-            return currentDaysOfWeek[1]; // "Immediate" or "מיידי"
-        }
-        if (TaskConstants.DAY_SOON.equals(storedDayOfWeek)) {
-            return currentDaysOfWeek[2]; // "Soon" or "בקרוב"
-        }
-        
-        // Map English day names to current language
-        String[] englishDays = {TaskConstants.DAY_SUNDAY, TaskConstants.DAY_MONDAY, TaskConstants.DAY_TUESDAY, 
-                               TaskConstants.DAY_WEDNESDAY, TaskConstants.DAY_THURSDAY, TaskConstants.DAY_FRIDAY, TaskConstants.DAY_SATURDAY};
-        
-        // Find the English day and map to current language
-        for (int i = 0; i < englishDays.length; i++) {
-            if (englishDays[i].equals(storedDayOfWeek)) {
-                if (i + 3 < currentDaysOfWeek.length) {
-                    return currentDaysOfWeek[i + 3];
-                }
-            }
+        // Stored values are English (or legacy Hebrew); their index matches the days_of_week array
+        int index = TaskTranslationTable.storedDayIndex(storedDayOfWeek);
+        if (index != TaskTranslationTable.NOT_FOUND && index < currentDaysOfWeek.length) {
+            return currentDaysOfWeek[index];
         }
         
         // If not found, return the original (fallback)
@@ -0,0 +1,172 @@
+package limor.tal.mytodo;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Hard-deletes soft-deleted tasks (tombstones) in bounded batches, so the tasks table and the
+ * sync work track live tasks only.
+ *
+ * Tombstones that were never uploaded only matter to this device and are purged after a grace
+ * period. Synced tombstones are purged in Firestore and locally once they are older than the
+ * watermark: the oldest sync acknowledged by the user's active devices. Every active device has
+ * dropped the task by then. A device that has not synced for DEVICE_EXPIRY stops holding the
+ * watermark back; when it comes back, sync deletes synced tasks that are missing from the cloud.
+ */
+public class TombstoneCompactor {
+    private static final String TAG = "TombstoneCompactor";
+    private static final long LOCAL_TOMBSTONE_AGE = 24 * 60 * 60 * 1000L;
+    private static final long DEVICE_EXPIRY = 30 * 24 * 60 * 60 * 1000L;
+    private static final int BATCH_SIZE = 100;
+    // Batches per run, locally and in the cloud; the rest waits for the next maintenance window
+    private static final int MAX_BATCHES = 10;
+
+    public interface CompactionCallback {
+        void onComplete(boolean moreRemaining);
+    }
+
+    private final TaskDao taskDao;
+    private final ExecutorService executor;
+    private FirestoreService firestoreService;
+    private volatile boolean stopped = false;
+
+    public TombstoneCompactor(Context context, ExecutorService executor) {
+        this.taskDao = AppDatabase.getDatabase(context).taskDao();
+        this.executor = executor;
+    }
+
+    private synchronized FirestoreService getFirestoreService() {
+        if (firestoreService == null) {
+            firestoreService = new FirestoreService();
+        }
+        return firestoreService;
+    }
+
+    /**
+     * Stop after the current batch
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public void compact(CompactionCallback callback) {
+        executor.execute(() -> {
+            try {
+                boolean moreLocal = purgeLocalTombstones();
+                if (stopped || !getFirestoreService().isUserAuthenticated()) {
+                    callback.onComplete(moreLocal || stopped);
+                    return;
+                }
+                getFirestoreService().loadSyncAcknowledgements(new FirestoreService.FirestoreCallback() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public void onSuccess(Object result) {
+                        Long watermark = computeWatermark((Map<String, Long>) result);
+                        if (watermark == null) {
+                            callback.onComplete(moreLocal);
+                            return;
+                        }
+                        Log.d(TAG, "Purging synced tombstones deleted before " + watermark);
+                        purgeCloudBatch(watermark, 0, moreLocal, callback);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "Failed to load sync acknowledgements: " + error);
+                        callback.onComplete(true);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Tombstone compaction failed", e);
+                callback.onComplete(true);
+            }
+        });
+    }
+
+    // Returns true if tombstones were left for the next run
+    private boolean purgeLocalTombstones() {
+        long deletedBefore = System.currentTimeMillis() - LOCAL_TOMBSTONE_AGE;
+        int purged = 0;
+        for (int batch = 0; batch < MAX_BATCHES; batch++) {
+            if (stopped) {
+                return true;
+            }
+            int deleted = taskDao.purgeLocalTombstones(deletedBefore, BATCH_SIZE);
+            purged += deleted;
+            if (deleted < BATCH_SIZE) {
+                Log.d(TAG, "Purged " + purged + " local tombstones");
+                return false;
+            }
+        }
+        Log.d(TAG, "Purged " + purged + " local tombstones, more remaining");
+        return true;
+    }
+
+    // Oldest acknowledged sync among active devices, or null if no device is active
+    private Long computeWatermark(Map<String, Long> acknowledgements) {
+        long activeSince = System.currentTimeMillis() - DEVICE_EXPIRY;
+        Long watermark = null;
+        List<String> inactive = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : acknowledgements.entrySet()) {
+            long acknowledged = entry.getValue();
+            if (acknowledged < activeSince) {
+                inactive.add(entry.getKey());
+            } else if (watermark == null || acknowledged < watermark) {
+                watermark = acknowledged;
+            }
+        }
+        if (!inactive.isEmpty()) {
+            getFirestoreService().forgetSyncDevices(inactive, new FirestoreService.FirestoreCallback() {
+                @Override
+                public void onSuccess(Object result) {
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.e(TAG, "Failed to forget inactive devices: " + error);
+                }
+            });
+        }
+        return watermark;
+    }
+
+    private void purgeCloudBatch(long watermark, int batch, boolean moreLocal, CompactionCallback callback) {
+        if (stopped || batch == MAX_BATCHES) {
+            callback.onComplete(true);
+            return;
+        }
+        getFirestoreService().purgeTombstones(watermark, BATCH_SIZE, new FirestoreService.FirestoreCallback() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                List<String> purgedIds = (List<String>) result;
+                executor.execute(() -> {
+                    try {
+                        if (!purgedIds.isEmpty()) {
+                            taskDao.deleteTombstonesByFirestoreIds(purgedIds);
+                        }
+                        if (purgedIds.size() < BATCH_SIZE) {
+                            callback.onComplete(moreLocal);
+                        } else {
+                            purgeCloudBatch(watermark, batch + 1, moreLocal, callback);
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Failed to delete purged tombstones locally", e);
+                        callback.onComplete(true);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Failed to purge cloud tombstones: " + error);
+                callback.onComplete(true);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package limor.tal.mytodo;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Display row of the task list widget: one per open (not completed, not deleted) task.
+ *
+ * The table is a projection of tasks maintained by SQLite triggers on every insert, update
+ * and delete, so the widget renders from a single indexed read instead of loading and
+ * filtering the whole tasks table on each refresh.
+ */
+@Entity(tableName = "widget_rows",
+        indices = {@Index("dayOfWeek"), @Index("dueDay")})
+public class WidgetRow {
+    public static final int FLAG_RECURRING = 1;
+    public static final int FLAG_FAMILY_SYNC = 1 << 1;
+
+    @PrimaryKey
+    public int taskId;
+
+    public String displayText; // Priority symbol followed by the description
+    public Integer dayOfWeek;  // Index in TaskConstants.ALL_DAYS, as stored on the task
+    public String dueDay;      // Local due date as yyyy-MM-dd, null if the task has no due date
+    public Long dueTime;
+    public int flags;
+
+    public boolean isFamilySyncTask() {
+        return (flags & FLAG_FAMILY_SYNC) != 0;
+    }
+
+    // Column list and values shared by the triggers and the rebuild, with "t" the source task row
+    private static final String COLUMNS = "(taskId, displayText, dayOfWeek, dueDay, dueTime, flags)";
+    private static final String VALUES =
+            "t.id, " +
+            "CASE t.priority WHEN 1 THEN '🔴 ' WHEN 2 THEN '🟡 ' WHEN 3 THEN '🟢 ' ELSE '⚪ ' END || IFNULL(t.description, ''), " +
+            "t.dayOfWeek, " +
+            "CASE WHEN t.dueDate IS NULL THEN NULL ELSE date(t.dueDate / 1000, 'unixepoch', 'localtime') END, " +
+            "t.dueTime, " +
+            "(CASE WHEN t.isRecurring THEN " + FLAG_RECURRING + " ELSE 0 END) | " +
+            "(CASE WHEN t.sourceApp = 'familysync' AND t.sourceTaskId IS NOT NULL THEN " + FLAG_FAMILY_SYNC + " ELSE 0 END)";
+    private static final String VISIBLE = "t.isCompleted = 0 AND t.deletedAt IS NULL";
+
+    /**
+     * Create the triggers that keep widget_rows in sync with tasks
+     */
+    static void createTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS widget_rows_after_insert AFTER INSERT ON tasks BEGIN " +
+                "INSERT OR REPLACE INTO widget_rows " + COLUMNS +
+                " SELECT " + VALUES + " FROM tasks t WHERE t.id = NEW.id AND " + VISIBLE + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS widget_rows_after_update AFTER UPDATE ON tasks BEGIN " +
+                "DELETE FROM widget_rows WHERE taskId = OLD.id; " +
+                "INSERT OR REPLACE INTO widget_rows " + COLUMNS +
+                " SELECT " + VALUES + " FROM tasks t WHERE t.id = NEW.id AND " + VISIBLE + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS widget_rows_after_delete AFTER DELETE ON tasks BEGIN " +
+                "DELETE FROM widget_rows WHERE taskId = OLD.id; END");
+    }
+
+    /**
+     * Recreate every row from the tasks table, e.g. after a migration
+     */
+    static void rebuild(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM widget_rows");
+        db.execSQL("INSERT INTO widget_rows " + COLUMNS + " SELECT " + VALUES + " FROM tasks t WHERE " + VISIBLE);
+    }
+}
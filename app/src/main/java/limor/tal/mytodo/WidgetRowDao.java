@@ -0,0 +1,17 @@
+package limor.tal.mytodo;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+// widget_rows is written only by the triggers in WidgetRow, so this DAO is read-only
+@Dao
+public interface WidgetRowDao {
+    @Query("SELECT * FROM widget_rows ORDER BY taskId")
+    List<WidgetRow> getAllRows();
+
+    // Tasks for today's day of week, "Immediate" tasks and tasks due today (days are TaskConstants.ALL_DAYS indices)
+    @Query("SELECT * FROM widget_rows WHERE dayOfWeek = :todayDayOfWeek OR dayOfWeek = :immediate OR dueDay = :todayKey ORDER BY taskId")
+    List<WidgetRow> getTodayRows(int todayDayOfWeek, int immediate, String todayKey);
+}
@@ -4,16 +4,129 @@ import android.appwidget.AppWidgetManager;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * Helper class for updating widgets when data changes
+ * Helper class for updating widgets when data changes.
+ *
+ * Data changes reach the widgets through Room's invalidation tracker rather than explicit
+ * broadcasts: every write to the widget_rows projection schedules one debounced check, and the list
+ * is only reloaded when the rows the widget shows actually changed.
  */
 public class WidgetUpdateHelper {
     private static final String TAG = "WidgetUpdateHelper";
+    private static final String PREF_SHOW_TODAY_ONLY = "widget_show_today_only";
+    // Collapses bursts of writes (sync, reordering) into a single widget refresh
+    private static final long REFRESH_DEBOUNCE_MS = 500;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Object refreshLock = new Object();
+    private static Runnable pendingRefresh;
+
+    // Bumped every time the widget-visible rows change
+    private static final AtomicLong dataVersion = new AtomicLong();
+    private static volatile long lastVisibleHash;
+    private static volatile boolean hasVisibleHash = false;
+
+    /**
+     * Observes the widget_rows projection and schedules a widget refresh on every invalidation.
+     * With multi-instance invalidation this also fires for writes made by other processes.
+     */
+    static class TaskTableObserver extends InvalidationTracker.Observer {
+        private final Context context;
+
+        TaskTableObserver(Context context) {
+            super("widget_rows");
+            this.context = context.getApplicationContext();
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            requestRefresh(context);
+        }
+    }
+
+    /**
+     * Schedule a debounced refresh of the widget task lists. The lists are only reloaded
+     * if the visible rows differ from what the widgets last rendered.
+     */
+    public static void requestRefresh(Context context) {
+        final Context appContext = context.getApplicationContext();
+        synchronized (refreshLock) {
+            if (pendingRefresh != null) {
+                mainHandler.removeCallbacks(pendingRefresh);
+            }
+            pendingRefresh = () -> AppDatabase.databaseReadExecutor.execute(() -> refreshIfChanged(appContext));
+            mainHandler.postDelayed(pendingRefresh, REFRESH_DEBOUNCE_MS);
+        }
+    }
+
+    /**
+     * Remember what the widget list currently shows. Called by the factory after each reload.
+     */
+    static void recordVisibleRows(boolean showTodayOnly, List<WidgetRow> rows) {
+        long hash = hashVisibleRows(showTodayOnly, rows);
+        if (!hasVisibleHash || hash != lastVisibleHash) {
+            lastVisibleHash = hash;
+            hasVisibleHash = true;
+            dataVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Version of the widget-visible data; changes whenever the rendered rows change
+     */
+    public static long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    private static void refreshIfChanged(Context context) {
+        try {
+            AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+            int[] appWidgetIds = appWidgetManager.getAppWidgetIds(new ComponentName(context, SimpleTaskWidgetProvider.class));
+            if (appWidgetIds.length == 0) {
+                return;
+            }
+
+            boolean showTodayOnly = context.getSharedPreferences("MyToDoPrefs", Context.MODE_PRIVATE)
+                    .getBoolean(PREF_SHOW_TODAY_ONLY, false);
+            long hash = hashVisibleRows(showTodayOnly, TaskRemoteViewsFactory.loadVisibleRows(context, showTodayOnly));
+            if (hasVisibleHash && hash == lastVisibleHash) {
+                Log.d(TAG, "Tasks changed but widget rows did not, skipping refresh");
+                return;
+            }
+
+            Log.d(TAG, "Widget rows changed, notifying " + appWidgetIds.length + " widget instances");
+            appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetIds, R.id.widget_tasks_container);
+        } catch (Exception e) {
+            Log.e(TAG, "Error refreshing widgets after data change", e);
+        }
+    }
+
+    // Hash of the fields a widget row renders, in display order
+    private static long hashVisibleRows(boolean showTodayOnly, List<WidgetRow> rows) {
+        long hash = showTodayOnly ? 1 : 2;
+        for (WidgetRow row : rows) {
+            hash = 31 * hash + row.taskId;
+            hash = 31 * hash + row.flags;
+            hash = 31 * hash + Objects.hashCode(row.displayText);
+        }
+        return hash;
+    }
     
     /**
-     * Refresh all widget instances
+     * Redraw all widget instances, including headers and buttons (e.g. after a language change).
+     * Plain data changes don't need this; they are picked up through requestRefresh.
      */
     public static void refreshAllWidgets(Context context) {
         try {
@@ -0,0 +1,113 @@
+package limor.tal.mytodo;
+
+import android.app.Application;
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Migrates a version 9 database to the current version
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class AppDatabaseMigrationTest {
+    private Context context;
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+    }
+
+    @After
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+        context.deleteDatabase(Version9Database.NAME);
+    }
+
+    @Test
+    public void migrate9ToCurrent_convertsStringColumnsToCodes() {
+        Version9Database legacy = Version9Database.create(context);
+        int english = legacy.insertTask("English", null, TaskConstants.DAY_MONDAY, TaskConstants.RECURRENCE_WEEKLY,
+                false, null, "1,3");
+        int hebrew = legacy.insertTask("Hebrew", null, "ראשון", "דו-שבועי", false, null, null);
+        int unknown = legacy.insertTask("Unknown", null, "Someday", null, false, null, "");
+        legacy.close();
+
+        database = Version9Database.openMigrated(context);
+
+        Task task = database.taskDao().getTaskById(english);
+        assertEquals(TaskConstants.DAY_MONDAY, task.dayOfWeek);
+        assertEquals(TaskConstants.RECURRENCE_WEEKLY, task.recurrenceType);
+        assertEquals("1,3", task.reminderDays);
+        task = database.taskDao().getTaskById(hebrew);
+        assertEquals(TaskConstants.DAY_SUNDAY, task.dayOfWeek);
+        assertEquals(TaskConstants.RECURRENCE_BIWEEKLY, task.recurrenceType);
+        assertNull(task.reminderDays);
+        task = database.taskDao().getTaskById(unknown);
+        assertEquals(TaskConstants.DAY_NONE, task.dayOfWeek);
+        assertNull(task.recurrenceType);
+        assertEquals("", task.reminderDays);
+
+        try (Cursor cursor = database.query("SELECT typeof(dayOfWeek), dayOfWeek, typeof(recurrenceType), " +
+                "recurrenceType, reminderDays FROM tasks WHERE id = ?", new Object[]{english})) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("integer", cursor.getString(0));
+            assertEquals(TaskConverters.DayOfWeek.MONDAY, cursor.getInt(1));
+            assertEquals("integer", cursor.getString(2));
+            assertEquals(TaskConverters.RecurrenceType.WEEKLY, cursor.getInt(3));
+            assertEquals((1 << 1) | (1 << 3), cursor.getInt(4));
+        }
+    }
+
+    @Test
+    public void migrate9ToCurrent_rebuildsWidgetRowsAndIndexes() {
+        Version9Database legacy = Version9Database.create(context);
+        int open = legacy.insertTask("Open", null, TaskConstants.DAY_FRIDAY, null, false, null, null);
+        legacy.insertTask("Done", null, TaskConstants.DAY_FRIDAY, null, true, 1L, null);
+        legacy.close();
+
+        database = Version9Database.openMigrated(context);
+
+        try (Cursor cursor = database.query("SELECT taskId, dayOfWeek FROM widget_rows", null)) {
+            assertEquals(1, cursor.getCount());
+            assertTrue(cursor.moveToFirst());
+            assertEquals(open, cursor.getInt(0));
+            assertEquals(TaskConverters.DayOfWeek.FRIDAY, cursor.getInt(1));
+        }
+
+        Set<String> indexes = new HashSet<>();
+        try (Cursor cursor = database.query("PRAGMA index_list(tasks)", null)) {
+            while (cursor.moveToNext()) {
+                indexes.add(cursor.getString(cursor.getColumnIndexOrThrow("name")));
+            }
+        }
+        assertTrue(indexes.contains("index_tasks_dayOfWeek"));
+        assertTrue(indexes.contains("index_tasks_recurrenceType"));
+        assertTrue(indexes.contains("index_tasks_firestoreDocumentId"));
+
+        // The widget triggers are back: completing the open task removes its row
+        database.getOpenHelper().getWritableDatabase().execSQL("UPDATE tasks SET isCompleted = 1 WHERE id = " + open);
+        try (Cursor cursor = database.query("SELECT COUNT(*) FROM widget_rows", null)) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(0, cursor.getInt(0));
+        }
+    }
+}
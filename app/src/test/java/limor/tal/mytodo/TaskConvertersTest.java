@@ -0,0 +1,85 @@
+package limor.tal.mytodo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The stored codes of dayOfWeek, recurrenceType and reminderDays, see TaskConverters
+ */
+public class TaskConvertersTest {
+
+    @Test
+    public void dayCodes_matchAllDaysIndices() {
+        assertEquals(TaskConstants.DAY_NONE, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.NONE]);
+        assertEquals(TaskConstants.DAY_IMMEDIATE, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.IMMEDIATE]);
+        assertEquals(TaskConstants.DAY_SOON, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.SOON]);
+        assertEquals(TaskConstants.DAY_SUNDAY, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.SUNDAY]);
+        assertEquals(TaskConstants.DAY_MONDAY, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.MONDAY]);
+        assertEquals(TaskConstants.DAY_TUESDAY, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.TUESDAY]);
+        assertEquals(TaskConstants.DAY_WEDNESDAY, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.WEDNESDAY]);
+        assertEquals(TaskConstants.DAY_THURSDAY, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.THURSDAY]);
+        assertEquals(TaskConstants.DAY_FRIDAY, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.FRIDAY]);
+        assertEquals(TaskConstants.DAY_SATURDAY, TaskConstants.ALL_DAYS[TaskConverters.DayOfWeek.SATURDAY]);
+    }
+
+    @Test
+    public void recurrenceCodes_matchAllRecurrenceTypesIndices() {
+        assertEquals(TaskConstants.RECURRENCE_DAILY, TaskConstants.ALL_RECURRENCE_TYPES[TaskConverters.RecurrenceType.DAILY]);
+        assertEquals(TaskConstants.RECURRENCE_WEEKLY, TaskConstants.ALL_RECURRENCE_TYPES[TaskConverters.RecurrenceType.WEEKLY]);
+        assertEquals(TaskConstants.RECURRENCE_BIWEEKLY, TaskConstants.ALL_RECURRENCE_TYPES[TaskConverters.RecurrenceType.BIWEEKLY]);
+        assertEquals(TaskConstants.RECURRENCE_MONTHLY, TaskConstants.ALL_RECURRENCE_TYPES[TaskConverters.RecurrenceType.MONTHLY]);
+        assertEquals(TaskConstants.RECURRENCE_YEARLY, TaskConstants.ALL_RECURRENCE_TYPES[TaskConverters.RecurrenceType.YEARLY]);
+    }
+
+    @Test
+    public void dayOfWeek_roundTrips() {
+        for (String day : TaskConstants.ALL_DAYS) {
+            assertEquals(day, TaskConverters.DayOfWeek.fromCode(TaskConverters.DayOfWeek.toCode(day)));
+        }
+        assertNull(TaskConverters.DayOfWeek.toCode(null));
+        assertNull(TaskConverters.DayOfWeek.fromCode(null));
+    }
+
+    @Test
+    public void dayOfWeek_legacyAndUnknownValues() {
+        assertEquals(TaskConverters.DayOfWeek.SUNDAY, (int) TaskConverters.DayOfWeek.toCode("ראשון"));
+        assertEquals(TaskConverters.DayOfWeek.IMMEDIATE, (int) TaskConverters.DayOfWeek.toCode("מיידי"));
+        assertEquals(TaskConverters.DayOfWeek.NONE, (int) TaskConverters.DayOfWeek.toCode("Someday"));
+        assertEquals(TaskConstants.DAY_NONE, TaskConverters.DayOfWeek.fromCode(42));
+    }
+
+    @Test
+    public void recurrenceType_roundTrips() {
+        for (String type : TaskConstants.ALL_RECURRENCE_TYPES) {
+            assertEquals(type, TaskConverters.RecurrenceType.fromCode(TaskConverters.RecurrenceType.toCode(type)));
+        }
+        assertNull(TaskConverters.RecurrenceType.toCode(null));
+        assertNull(TaskConverters.RecurrenceType.fromCode(null));
+    }
+
+    @Test
+    public void recurrenceType_legacyAndUnknownValues() {
+        assertEquals(TaskConverters.RecurrenceType.BIWEEKLY, (int) TaskConverters.RecurrenceType.toCode("דו-שבועי"));
+        assertEquals(TaskConverters.RecurrenceType.BIWEEKLY, (int) TaskConverters.RecurrenceType.toCode("כל שבועיים"));
+        assertEquals(TaskConverters.RecurrenceType.DAILY, (int) TaskConverters.RecurrenceType.toCode("Hourly"));
+        assertEquals(TaskConstants.RECURRENCE_DAILY, TaskConverters.RecurrenceType.fromCode(-1));
+    }
+
+    @Test
+    public void reminderDays_bitmask() {
+        assertEquals(0b1010101, (int) TaskConverters.ReminderDays.toMask("0,2,4,6"));
+        assertEquals("0,2,4,6", TaskConverters.ReminderDays.fromMask(0b1010101));
+        assertEquals("1,5", TaskConverters.ReminderDays.fromMask(TaskConverters.ReminderDays.toMask("5, 1")));
+        assertNull(TaskConverters.ReminderDays.toMask(null));
+        assertNull(TaskConverters.ReminderDays.fromMask(null));
+    }
+
+    @Test
+    public void reminderDays_skipsMalformedEntries() {
+        assertEquals(1 << 3, (int) TaskConverters.ReminderDays.toMask("x,3,7,-1,"));
+        assertEquals(0, (int) TaskConverters.ReminderDays.toMask(""));
+        assertEquals("", TaskConverters.ReminderDays.fromMask(0));
+    }
+}
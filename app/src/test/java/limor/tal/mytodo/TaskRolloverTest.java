@@ -0,0 +1,134 @@
+package limor.tal.mytodo;
+
+import android.app.Application;
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TaskRollover on a database migrated from version 9, so the updates run against the
+ * int-coded dayOfWeek and recurrenceType columns
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class TaskRolloverTest {
+    private Context context;
+    private AppDatabase database;
+    private final long todayStart = localTime(2026, Calendar.FEBRUARY, 1, 0, 0);
+    private final long yesterdayEvening = localTime(2026, Calendar.JANUARY, 31, 20, 0);
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+    }
+
+    @After
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+        context.deleteDatabase(Version9Database.NAME);
+    }
+
+    @Test
+    public void rollOver_resetsAdvancesAndPromotes() {
+        Version9Database legacy = Version9Database.create(context);
+        int daily = legacy.insertTask("Daily", null, TaskConstants.DAY_NONE, TaskConstants.RECURRENCE_DAILY,
+                true, yesterdayEvening, null);
+        int biweekly = legacy.insertTask("Biweekly", localTime(2026, Calendar.JANUARY, 20, 7, 0),
+                TaskConstants.DAY_NONE, TaskConstants.RECURRENCE_BIWEEKLY, true, yesterdayEvening, null);
+        int monthly = legacy.insertTask("Monthly", localTime(2026, Calendar.JANUARY, 31, 10, 0),
+                TaskConstants.DAY_NONE, "חודשי", true, yesterdayEvening, null);
+        int weekly = legacy.insertTask("Weekly", localTime(2026, Calendar.JANUARY, 24, 9, 30),
+                TaskConstants.DAY_NONE, TaskConstants.RECURRENCE_WEEKLY, true, yesterdayEvening, null);
+        int yearly = legacy.insertTask("Yearly", localTime(2024, Calendar.FEBRUARY, 29, 8, 0),
+                TaskConstants.DAY_NONE, TaskConstants.RECURRENCE_YEARLY, true, yesterdayEvening, null);
+        int overdue = legacy.insertTask("Overdue", localTime(2026, Calendar.JANUARY, 15, 12, 0),
+                TaskConstants.DAY_NONE, null, false, null, null);
+        int soon = legacy.insertTask("Soon", localTime(2026, Calendar.JANUARY, 15, 12, 0),
+                TaskConstants.DAY_SOON, null, false, null, null);
+        int completedToday = legacy.insertTask("Completed today", localTime(2026, Calendar.JANUARY, 30, 0, 0),
+                TaskConstants.DAY_NONE, TaskConstants.RECURRENCE_WEEKLY, true, todayStart + 3600000, null);
+        legacy.close();
+        database = Version9Database.openMigrated(context);
+
+        // 1 reset, 4 advanced, 3 promoted (two of them just advanced)
+        assertEquals(8, TaskRollover.rollOver(database, todayStart));
+
+        Task task = database.taskDao().getTaskById(daily);
+        assertFalse(task.isCompleted);
+        assertNull(task.completionDate);
+        assertTrue(task.updatedAt > 0);
+
+        task = database.taskDao().getTaskById(biweekly);
+        assertFalse(task.isCompleted);
+        assertEquals(localTime(2026, Calendar.FEBRUARY, 3, 7, 0), (long) task.dueDate);
+        assertEquals(TaskConstants.DAY_NONE, task.dayOfWeek);
+
+        // Jan 31 has no counterpart in February, so the month step clamps to its last day
+        task = database.taskDao().getTaskById(monthly);
+        assertEquals(localTime(2026, Calendar.FEBRUARY, 28, 10, 0), (long) task.dueDate);
+        assertEquals(TaskConstants.RECURRENCE_MONTHLY, task.recurrenceType);
+
+        // Occurrences that are already past go to Immediate
+        task = database.taskDao().getTaskById(weekly);
+        assertEquals(localTime(2026, Calendar.JANUARY, 31, 9, 30), (long) task.dueDate);
+        assertEquals(TaskConstants.DAY_IMMEDIATE, task.dayOfWeek);
+        task = database.taskDao().getTaskById(yearly);
+        assertEquals(localTime(2025, Calendar.FEBRUARY, 28, 8, 0), (long) task.dueDate);
+        assertEquals(TaskConstants.DAY_IMMEDIATE, task.dayOfWeek);
+
+        assertEquals(TaskConstants.DAY_IMMEDIATE, database.taskDao().getTaskById(overdue).dayOfWeek);
+        assertEquals(TaskConstants.DAY_SOON, database.taskDao().getTaskById(soon).dayOfWeek);
+
+        task = database.taskDao().getTaskById(completedToday);
+        assertTrue(task.isCompleted);
+        assertEquals(localTime(2026, Calendar.JANUARY, 30, 0, 0), (long) task.dueDate);
+
+        // The updates store codes, not names
+        try (Cursor cursor = database.query("SELECT typeof(dayOfWeek), dayOfWeek FROM tasks WHERE id = ?",
+                new Object[]{overdue})) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("integer", cursor.getString(0));
+            assertEquals(TaskConverters.DayOfWeek.IMMEDIATE, cursor.getInt(1));
+        }
+    }
+
+    @Test
+    public void rollOver_secondRunOnSameDayChangesNothing() {
+        Version9Database legacy = Version9Database.create(context);
+        legacy.insertTask("Daily", null, TaskConstants.DAY_NONE, TaskConstants.RECURRENCE_DAILY,
+                true, yesterdayEvening, null);
+        legacy.insertTask("Weekly", localTime(2026, Calendar.JANUARY, 28, 9, 0),
+                TaskConstants.DAY_NONE, TaskConstants.RECURRENCE_WEEKLY, true, yesterdayEvening, null);
+        legacy.insertTask("Overdue", localTime(2026, Calendar.JANUARY, 15, 12, 0),
+                TaskConstants.DAY_NONE, null, false, null, null);
+        legacy.close();
+        database = Version9Database.openMigrated(context);
+
+        assertEquals(3, TaskRollover.rollOver(database, todayStart));
+        assertEquals(0, TaskRollover.rollOver(database, todayStart));
+    }
+
+    private static long localTime(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
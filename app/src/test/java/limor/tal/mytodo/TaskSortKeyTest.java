@@ -0,0 +1,152 @@
+package limor.tal.mytodo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ordering of TaskSortKey, which replaces the category comparator
+ */
+public class TaskSortKeyTest {
+    private static final long HOUR = 3600000L;
+
+    @Test
+    public void timedTasks_sortByTimeThenPriority() {
+        Task nine = timed("9:00", 9 * HOUR, 0);
+        Task eightHigh = timed("8:00 priority 5", 8 * HOUR, 5);
+        Task eightLow = timed("8:00 priority 1", 8 * HOUR, 1);
+        assertOrder(eightLow, eightHigh, nine);
+    }
+
+    @Test
+    public void timedTasks_keepMillisecondPrecision() {
+        Task later = timed("later", 9 * HOUR + 900, 0);
+        Task earlier = timed("earlier", 9 * HOUR + 100, 5);
+        assertOrder(earlier, later);
+    }
+
+    @Test
+    public void untimedTasks_followTimedTasks() {
+        Task untimed = task("untimed", 0);
+        Task lateEvening = timed("23:59", 24 * HOUR - 1, 9);
+        assertOrder(lateEvening, untimed);
+    }
+
+    @Test
+    public void manualTasks_keepTheirPositions() {
+        Task third = manual("third", 5);
+        Task first = manual("first", 0);
+        Task second = manual("second", 2);
+        assertOrder(first, second, third);
+    }
+
+    @Test
+    public void autoTasks_goBeforeManualOnlyInAnEarlierHour() {
+        Task morningManual = manual("morning", 1); // Hour 9
+        Task eight = timed("8:00", 8 * HOUR, 0);
+        Task nineThirty = timed("9:30", 9 * HOUR + 30 * 60000L, 0);
+        assertOrder(eight, morningManual, nineThirty);
+    }
+
+    @Test
+    public void negativeManualPosition_sortsFirst() {
+        Task negative = manual("negative", -3);
+        Task zero = manual("zero", 0);
+        Task early = timed("1:00", HOUR, 0);
+        assertOrder(early, negative);
+        assertEquals(TaskSortKey.of(zero), TaskSortKey.of(negative));
+    }
+
+    @Test
+    public void keys_areNonNegative() {
+        assertTrue(TaskSortKey.of(task("untimed", Integer.MAX_VALUE)) > 0);
+        assertTrue(TaskSortKey.of(manual("large", Integer.MAX_VALUE)) > 0);
+        assertTrue(TaskSortKey.of(timed("out of range", 30 * HOUR, Integer.MAX_VALUE)) > 0);
+    }
+
+    @Test
+    public void completedKey_mostRecentFirstAndMissingDatesLast() {
+        Task older = task("older", 0);
+        older.completionDate = 1000L;
+        Task newer = task("newer", 0);
+        newer.completionDate = 2000L;
+        Task undated = task("undated", 0);
+        assertTrue(TaskSortKey.completedKey(newer) < TaskSortKey.completedKey(older));
+        assertTrue(TaskSortKey.completedKey(older) < TaskSortKey.completedKey(undated));
+    }
+
+    @Test
+    public void bucket_insertsInKeyOrderAndKeepsInsertionOrderOnTies() {
+        Task tieA = task("tie a", 1);
+        Task tieB = task("tie b", 1);
+        Task low = task("low", 0);
+        Task timed = timed("timed", HOUR, 0);
+        TaskSortKey.Bucket bucket = new TaskSortKey.Bucket();
+        for (Task task : Arrays.asList(tieA, low, tieB, timed)) {
+            bucket.insert(task, TaskSortKey.of(task));
+        }
+        assertEquals(Arrays.asList(timed, low, tieA, tieB), bucket.getTasks());
+    }
+
+    @Test
+    public void bucket_growsPastInitialCapacity() {
+        TaskSortKey.Bucket bucket = new TaskSortKey.Bucket();
+        for (int i = 99; i >= 0; i--) {
+            Task task = manual("task " + i, i);
+            bucket.insert(task, TaskSortKey.of(task));
+        }
+        assertEquals(100, bucket.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals((Integer) i, bucket.getTasks().get(i).manualPosition);
+        }
+    }
+
+    @Test
+    public void bucket_mergeKeepsKeyOrder() {
+        Task dayEarly = timed("day 7:00", 7 * HOUR, 0);
+        Task dayLate = timed("day 18:00", 18 * HOUR, 0);
+        Task immediateNoon = timed("immediate 12:00", 12 * HOUR, 0);
+        Task immediateSeven = timed("immediate 7:00", 7 * HOUR, 0);
+        TaskSortKey.Bucket day = bucketOf(dayEarly, dayLate);
+        TaskSortKey.Bucket immediate = bucketOf(immediateNoon, immediateSeven);
+        // On equal keys the day's task comes first
+        assertEquals(Arrays.asList(dayEarly, immediateSeven, immediateNoon, dayLate), day.mergeWith(immediate));
+    }
+
+    private static Task task(String description, int priority) {
+        return new Task(description, null, TaskConstants.DAY_NONE, false, null, false, priority);
+    }
+
+    private static Task timed(String description, long dueTime, int priority) {
+        Task task = task(description, priority);
+        task.dueTime = dueTime;
+        return task;
+    }
+
+    private static Task manual(String description, int position) {
+        Task task = task(description, 0);
+        task.manualPosition = position;
+        return task;
+    }
+
+    private static TaskSortKey.Bucket bucketOf(Task... tasks) {
+        TaskSortKey.Bucket bucket = new TaskSortKey.Bucket();
+        for (Task task : tasks) {
+            bucket.insert(task, TaskSortKey.of(task));
+        }
+        return bucket;
+    }
+
+    // Each task's key is strictly below the next one's
+    private static void assertOrder(Task... tasks) {
+        List<Task> list = Arrays.asList(tasks);
+        for (int i = 1; i < list.size(); i++) {
+            assertTrue(list.get(i - 1).description + " before " + list.get(i).description,
+                    TaskSortKey.of(list.get(i - 1)) < TaskSortKey.of(list.get(i)));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package limor.tal.mytodo;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.room.Room;
+
+/**
+ * A database file with the version 9 schema, where dayOfWeek, recurrenceType and reminderDays
+ * are still strings, for tests that run the migrations up to the current version.
+ * widget_rows is created without its triggers; MIGRATION_9_10 drops and recreates them.
+ */
+final class Version9Database {
+    static final String NAME = "version9_test";
+
+    private final SQLiteDatabase db;
+
+    private Version9Database(SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    static Version9Database create(Context context) {
+        context.deleteDatabase(NAME);
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(NAME), null);
+        db.execSQL("CREATE TABLE tasks (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, description TEXT, dueDate INTEGER, dueTime INTEGER, " +
+                "dayOfWeek TEXT, isRecurring INTEGER NOT NULL, recurrenceType TEXT, isCompleted INTEGER NOT NULL, " +
+                "priority INTEGER NOT NULL, completionDate INTEGER, reminderOffset INTEGER, reminderDays TEXT, " +
+                "manualPosition INTEGER, firestoreDocumentId TEXT, createdAt INTEGER, updatedAt INTEGER, " +
+                "sourceApp TEXT, sourceTaskId TEXT, sourceGroupId TEXT, familySyncAssigneeId TEXT, " +
+                "familySyncCreatorId TEXT, deletedAt INTEGER)");
+        db.execSQL("CREATE TABLE sync_log_queue (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "action TEXT, familySyncTaskId TEXT, mytodoTaskId TEXT, userId TEXT, " +
+                "timestamp INTEGER NOT NULL, completionStatus INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE widget_rows (" +
+                "taskId INTEGER NOT NULL, displayText TEXT, dayOfWeek TEXT, dueDay TEXT, " +
+                "dueTime INTEGER, flags INTEGER NOT NULL, PRIMARY KEY(taskId))");
+        db.execSQL("CREATE INDEX index_widget_rows_dayOfWeek ON widget_rows (dayOfWeek)");
+        db.execSQL("CREATE INDEX index_widget_rows_dueDay ON widget_rows (dueDay)");
+        db.setVersion(9);
+        return new Version9Database(db);
+    }
+
+    /**
+     * Insert a task row with the string values of version 9
+     * @return the row id
+     */
+    int insertTask(String description, Long dueDate, String dayOfWeek, String recurrenceType,
+                   boolean isCompleted, Long completionDate, String reminderDays) {
+        ContentValues values = new ContentValues();
+        values.put("description", description);
+        values.put("dueDate", dueDate);
+        values.put("dayOfWeek", dayOfWeek);
+        values.put("isRecurring", recurrenceType != null ? 1 : 0);
+        values.put("recurrenceType", recurrenceType);
+        values.put("isCompleted", isCompleted ? 1 : 0);
+        values.put("priority", 0);
+        values.put("completionDate", completionDate);
+        values.put("reminderDays", reminderDays);
+        values.put("createdAt", 0L);
+        values.put("updatedAt", 0L);
+        return (int) db.insertOrThrow("tasks", null, values);
+    }
+
+    void close() {
+        db.close();
+    }
+
+    /**
+     * Open the file with Room, which runs the migrations and validates the resulting schema
+     */
+    static AppDatabase openMigrated(Context context) {
+        return Room.databaseBuilder(context, AppDatabase.class, NAME)
+                .addMigrations(AppDatabase.MIGRATIONS)
+                .allowMainThreadQueries()
+                .build();
+    }
+}
@@ -1,18 +1,32 @@
 import { 
   collection, 
   doc, 
-  addDoc, 
-  updateDoc, 
   deleteDoc, 
   getDocs, 
   query, 
   where, 
   orderBy, 
-  onSnapshot 
+  onSnapshot,
+  writeBatch,
+  deleteField,
+  increment
 } from 'firebase/firestore';
 import { auth } from '../firebase';
 import { Task } from '../models/Task';
 
+// Must match SyncDigest in the Android app: tasks are bucketed by the first character of their document ID
+const SYNC_DIGEST_COLLECTION = 'mytodo_sync_digests';
+const ID_CHARS = '0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz';
+
+function syncDigestBucket(documentId) {
+  const first = documentId.charAt(0);
+  let bucket = 0;
+  while (bucket + 1 < ID_CHARS.length && ID_CHARS.charAt(bucket + 1) <= first) {
+    bucket++;
+  }
+  return bucket;
+}
+
 export class TaskService {
   constructor(db) {
     this.db = db;
@@ -28,6 +42,23 @@ export class TaskService {
     return user.uid;
   }
 
+  // Write a task change together with clearing its sync digest bucket and bumping the bucket's
+  // generation, so the Android app refetches that bucket on its next sync
+  async commitTaskWrite(taskRef, write) {
+    const batch = writeBatch(this.db);
+    write(batch);
+    const bucket = syncDigestBucket(taskRef.id);
+    batch.set(doc(this.db, SYNC_DIGEST_COLLECTION, this.getCurrentUserId()),
+      { ['b' + bucket]: deleteField(), ['g' + bucket]: increment(1) }, { merge: true });
+    await batch.commit();
+  }
+
+  // Update task fields
+  async updateTaskDoc(taskId, fields) {
+    const taskRef = doc(this.db, this.collectionName, taskId);
+    await this.commitTaskWrite(taskRef, batch => batch.update(taskRef, fields));
+  }
+
   // Create a new task
   async createTask(taskData) {
     try {
@@ -35,10 +66,11 @@ export class TaskService {
       const task = new Task(taskData);
       task.updatedAt = Date.now();
       
-      const taskRef = await addDoc(collection(this.db, this.collectionName), {
+      const taskRef = doc(collection(this.db, this.collectionName));
+      await this.commitTaskWrite(taskRef, batch => batch.set(taskRef, {
         ...task.toFirestore(),
         userId: userId
-      });
+      }));
       
       return { id: taskRef.id, ...task };
     } catch (error) {
@@ -53,8 +85,7 @@ export class TaskService {
       const task = new Task(taskData);
       task.updatedAt = Date.now();
       
-      const taskRef = doc(this.db, this.collectionName, taskId);
-      await updateDoc(taskRef, task.toFirestore());
+      await this.updateTaskDoc(taskId, task.toFirestore());
       
       return { id: taskId, ...task };
     } catch (error) {
@@ -66,8 +97,7 @@ export class TaskService {
   // Delete a task (soft delete to prevent race conditions)
   async deleteTask(taskId) {
     try {
-      const taskRef = doc(this.db, this.collectionName, taskId);
-      await updateDoc(taskRef, {
+      await this.updateTaskDoc(taskId, {
         deletedAt: Date.now(),
         updatedAt: Date.now()
       });
@@ -164,8 +194,7 @@ export class TaskService {
             if (originalContent && originalContent.trim() !== '') {
               
               // Update the MyToDo task with the original content
-              const taskRef = doc(this.db, this.collectionName, task.id);
-              await updateDoc(taskRef, {
+              await this.updateTaskDoc(task.id, {
                 description: originalContent,
                 updatedAt: Date.now()
               });
@@ -198,7 +227,6 @@ export class TaskService {
         throw new Error(`Task with ID ${taskId} not found`);
       }
       
-      const taskRef = doc(this.db, this.collectionName, taskId);
       const updates = {
         isCompleted: isCompleted,
         completionDate: isCompleted ? Date.now() : null,
@@ -229,7 +257,7 @@ export class TaskService {
       }
       
       
-      await updateDoc(taskRef, updates);
+      await this.updateTaskDoc(taskId, updates);
       
       
       // Verify the update by re-fetching the task
@@ -245,8 +273,7 @@ export class TaskService {
   // Update task priority
   async updateTaskPriority(taskId, priority) {
     try {
-      const taskRef = doc(this.db, this.collectionName, taskId);
-      await updateDoc(taskRef, {
+      await this.updateTaskDoc(taskId, {
         priority: priority,
         updatedAt: Date.now()
       });